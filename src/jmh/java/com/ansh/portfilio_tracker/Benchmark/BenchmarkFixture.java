@@ -0,0 +1,183 @@
+package com.ansh.portfilio_tracker.Benchmark;
+
+import com.ansh.portfilio_tracker.Classes.Holding;
+import com.ansh.portfilio_tracker.Classes.Portfolio;
+import com.ansh.portfilio_tracker.Classes.Transaction;
+import com.ansh.portfilio_tracker.Classes.UserPortfolio;
+import com.ansh.portfilio_tracker.Repo.HoldingRepository;
+import com.ansh.portfilio_tracker.Repo.PortfolioRepository;
+import com.ansh.portfilio_tracker.Repo.TransactionRepository;
+import com.ansh.portfilio_tracker.Repo.UserPortfolioRepository;
+import com.ansh.portfilio_tracker.Service.FinnhubClient;
+import com.ansh.portfilio_tracker.Service.FinnhubShardRouter;
+import com.ansh.portfilio_tracker.Service.FinnhubWebSocketClient;
+import com.ansh.portfilio_tracker.Service.HoldingService;
+import com.ansh.portfilio_tracker.Service.MarketSnapshotWriter;
+import com.ansh.portfilio_tracker.Service.PortfolioService;
+import com.ansh.portfilio_tracker.Service.PortfolioValuationEngine;
+import com.ansh.portfilio_tracker.Service.PositionLedger;
+import com.ansh.portfilio_tracker.Service.PositionLocks;
+import com.ansh.portfilio_tracker.Service.QuoteCache;
+import com.ansh.portfilio_tracker.Service.RealTimeStockService;
+import com.ansh.portfilio_tracker.Service.SymbolPositionIndex;
+import com.ansh.portfilio_tracker.Service.TickStore;
+import com.ansh.portfilio_tracker.Service.TransactionServiceImpl;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * The service graph wired by hand, without Spring, a database or a network connection.
+ * Repositories are {@link InMemoryRepository} proxies, the WebSocket client never connects,
+ * and prices are primed into the real-time cache by feeding trade frames through the client,
+ * so quote lookups never reach the REST API.
+ */
+final class BenchmarkFixture implements AutoCloseable {
+
+    final FinnhubWebSocketClient webSocketClient;
+    final RealTimeStockService realTimeStockService;
+    final HoldingRepository holdingRepository;
+    final PortfolioRepository portfolioRepository;
+    final TransactionRepository transactionRepository;
+    final PortfolioValuationEngine valuationEngine;
+    final HoldingService holdingService;
+    final PortfolioService portfolioService;
+    final TransactionServiceImpl transactionService;
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(2);
+
+    BenchmarkFixture(boolean streamingParse) {
+        // Meters are recorded as in production, into an in-memory registry
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        webSocketClient = new OfflineWebSocketClient(streamingParse, meterRegistry);
+        realTimeStockService = new RealTimeStockService(new FinnhubShardRouter(List.of(webSocketClient), 0),
+                new TickStore(false, "./data/ticks", 1, 0), meterRegistry);
+        // Pipeline left disabled so ticks are processed synchronously on the calling thread
+        realTimeStockService.initialize();
+
+        holdingRepository = InMemoryRepository.create(HoldingRepository.class, Holding.class,
+                h -> new Holding.HoldingId(h.getPortfolioId(), h.getSymbol()), true);
+        portfolioRepository = InMemoryRepository.create(PortfolioRepository.class, Portfolio.class,
+                Portfolio::getId, true);
+        transactionRepository = InMemoryRepository.create(TransactionRepository.class, Transaction.class,
+                Transaction::getId, false);
+        UserPortfolioRepository userPortfolioRepository = InMemoryRepository.create(UserPortfolioRepository.class,
+                UserPortfolio.class, UserPortfolio::getId, true);
+
+        QuoteCache quoteCache = new QuoteCache(15_000, 60_000, 300_000, 10_000, executor);
+        FinnhubClient finnhubClient = new FinnhubClient(new RestTemplate(), realTimeStockService, quoteCache, executor,
+                meterRegistry);
+        finnhubClient.registerMeters();
+        ReflectionTestUtils.setField(finnhubClient, "useRealtimeCache", true);
+
+        SymbolPositionIndex positionIndex = new SymbolPositionIndex();
+        valuationEngine = new PortfolioValuationEngine(holdingRepository, portfolioRepository,
+                realTimeStockService, positionIndex);
+        PositionLocks positionLocks = new PositionLocks(1024);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(new NoOpTransactionManager());
+        holdingService = new HoldingService(holdingRepository, finnhubClient, new MarketSnapshotWriter(null),
+                valuationEngine, positionIndex, transactionTemplate, positionLocks);
+        ReflectionTestUtils.setField(holdingService, "refreshMaxParallelism", 8);
+        ReflectionTestUtils.setField(holdingService, "valuationMode", HoldingService.ValuationMode.PERSIST);
+
+        portfolioService = new PortfolioService(portfolioRepository, userPortfolioRepository, holdingRepository,
+                holdingService, valuationEngine);
+        // Snapshot interval left at 0: the ledger needs SQL and is not exercised by trade benchmarks
+        PositionLedger positionLedger = new PositionLedger(null, transactionRepository, holdingRepository,
+                portfolioRepository, holdingService, valuationEngine, positionLocks, transactionTemplate, event -> { });
+        // No EntityManager: it is only used to detach rows while streaming history
+        transactionService = new TransactionServiceImpl(transactionRepository, holdingRepository,
+                portfolioRepository, holdingService, valuationEngine, null, positionLocks, transactionTemplate,
+                positionLedger, meterRegistry);
+    }
+
+    /**
+     * Serve summaries from the valuation engine after rebuilding it from the repositories.
+     */
+    void enableValuationEngine() {
+        ReflectionTestUtils.setField(valuationEngine, "enabled", true);
+        valuationEngine.rebuild();
+    }
+
+    /**
+     * Cache a price for each symbol by pushing trade frames through the WebSocket client.
+     */
+    void primePrices(List<String> symbols, double price) {
+        for (int from = 0; from < symbols.size(); from += 100) {
+            webSocketClient.onMessage(tradeFrame(symbols.subList(from, Math.min(from + 100, symbols.size())), price));
+        }
+    }
+
+    /**
+     * Build a Finnhub "trade" frame with one trade per symbol.
+     */
+    static String tradeFrame(List<String> symbols, double price) {
+        StringBuilder frame = new StringBuilder("{\"type\":\"trade\",\"data\":[");
+        for (int i = 0; i < symbols.size(); i++) {
+            if (i > 0) {
+                frame.append(',');
+            }
+            frame.append(String.format(Locale.ROOT,
+                    "{\"c\":[\"1\",\"12\"],\"p\":%.2f,\"s\":\"%s\",\"t\":%d,\"v\":%d}",
+                    price + i * 0.01, symbols.get(i), 1_700_000_000_000L + i, 100 + i));
+        }
+        return frame.append("]}").toString();
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Transaction manager for repositories without a database: begins, commits and rolls back nothing.
+     */
+    private static final class NoOpTransactionManager implements PlatformTransactionManager {
+
+        @Override
+        public TransactionStatus getTransaction(TransactionDefinition definition) {
+            return new SimpleTransactionStatus();
+        }
+
+        @Override
+        public void commit(TransactionStatus status) {
+        }
+
+        @Override
+        public void rollback(TransactionStatus status) {
+        }
+    }
+
+    /**
+     * WebSocket client that never opens a connection.
+     */
+    private static final class OfflineWebSocketClient extends FinnhubWebSocketClient {
+
+        private OfflineWebSocketClient(boolean streamingParse, MeterRegistry meterRegistry) {
+            super("benchmark", streamingParse, meterRegistry);
+        }
+
+        @Override
+        public void connect() {
+        }
+
+        @Override
+        public void subscribe(String symbol) {
+        }
+
+        @Override
+        public void unsubscribe(String symbol) {
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.ansh.portfilio_tracker.Benchmark;
+
+import org.springframework.data.jpa.repository.Modifying;
+
+import java.beans.Introspector;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Map-backed stand-in for a Spring Data repository interface, built with a {@link Proxy}.
+ * Supports save/saveAll/findById/findAll/count/deleteAll and derived queries of the form
+ * {@code find[First|ReadOnly|...]By<Prop>[And<Prop>...]}, {@code existsBy...} and {@code deleteBy...}.
+ * Derived queries scan all rows; repositories in benchmarks are sized accordingly.
+ * {@code @Modifying} JPQL updates are not interpreted: they change nothing and report one row updated.
+ *
+ * @param <T> entity type
+ */
+public final class InMemoryRepository<T> implements InvocationHandler {
+
+    private final Class<T> entityType;
+    private final Function<T, Object> idFunction;
+    private final boolean keepSaved;
+    private final Map<Object, T> rows = new LinkedHashMap<>();
+    private final Map<String, MethodHandle> getters = new ConcurrentHashMap<>();
+
+    private InMemoryRepository(Class<T> entityType, Function<T, Object> idFunction, boolean keepSaved) {
+        this.entityType = entityType;
+        this.idFunction = idFunction;
+        this.keepSaved = keepSaved;
+    }
+
+    /**
+     * Create a repository proxy.
+     *
+     * @param repositoryType repository interface
+     * @param entityType entity class
+     * @param idFunction extracts the primary key from an entity
+     * @param keepSaved false to discard saved entities, for append-only tables written in a loop
+     * @return the proxy
+     */
+    public static <R, T> R create(Class<R> repositoryType, Class<T> entityType, Function<T, Object> idFunction,
+                                  boolean keepSaved) {
+        InMemoryRepository<T> handler = new InMemoryRepository<>(entityType, idFunction, keepSaved);
+        return repositoryType.cast(Proxy.newProxyInstance(repositoryType.getClassLoader(),
+                new Class<?>[]{repositoryType}, handler));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public synchronized Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        String name = method.getName();
+        switch (name) {
+            case "toString":
+                return "InMemoryRepository<" + entityType.getSimpleName() + ">";
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "equals":
+                return proxy == args[0];
+            case "save":
+            case "saveAndFlush":
+                return save((T) args[0]);
+            case "saveAll":
+                List<T> saved = new ArrayList<>();
+                for (Object entity : (Iterable<?>) args[0]) {
+                    saved.add(save((T) entity));
+                }
+                return saved;
+            case "findById":
+                return Optional.ofNullable(rows.get(args[0]));
+            case "existsById":
+                return rows.containsKey(args[0]);
+            case "findAll":
+                return new ArrayList<>(rows.values());
+            case "count":
+                return (long) rows.size();
+            case "deleteAll":
+                rows.clear();
+                return null;
+            case "flush":
+                return null;
+            default:
+                if (method.isAnnotationPresent(Modifying.class)) {
+                    return 1;
+                }
+                return derivedQuery(method, args);
+        }
+    }
+
+    private T save(T entity) {
+        if (keepSaved) {
+            rows.put(idFunction.apply(entity), entity);
+        }
+        return entity;
+    }
+
+    private Object derivedQuery(Method method, Object[] args) throws Throwable {
+        String name = method.getName();
+        int by = name.indexOf("By");
+        if (by < 0) {
+            throw new UnsupportedOperationException(name);
+        }
+        String[] properties = name.substring(by + 2).split("And");
+
+        List<T> matches = new ArrayList<>();
+        for (T row : rows.values()) {
+            if (matches(row, properties, args)) {
+                matches.add(row);
+            }
+        }
+
+        if (name.startsWith("exists")) {
+            return !matches.isEmpty();
+        }
+        if (name.startsWith("delete")) {
+            matches.forEach(row -> rows.remove(idFunction.apply(row)));
+            return null;
+        }
+        if (Optional.class.equals(method.getReturnType())) {
+            return matches.isEmpty() ? Optional.empty() : Optional.of(matches.get(0));
+        }
+        if (Collection.class.isAssignableFrom(method.getReturnType())) {
+            return matches;
+        }
+        throw new UnsupportedOperationException(name);
+    }
+
+    private boolean matches(T row, String[] properties, Object[] args) throws Throwable {
+        for (int i = 0; i < properties.length; i++) {
+            Object value = getter(properties[i]).invoke(row);
+            if (!args[i].equals(value)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private MethodHandle getter(String property) {
+        return getters.computeIfAbsent(property, p -> {
+            try {
+                return MethodHandles.publicLookup()
+                        .findVirtual(entityType, "get" + p, MethodType.methodType(
+                                entityType.getDeclaredField(Introspector.decapitalize(p)).getType()))
+                        .asType(MethodType.methodType(Object.class, Object.class));
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalArgumentException("No property " + p + " on " + entityType.getSimpleName(), e);
+            }
+        });
+    }
+}
@@ -0,0 +1,58 @@
+package com.ansh.portfilio_tracker.Benchmark;
+
+import com.ansh.portfilio_tracker.Service.RealTimeStockService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One tick fanned out by {@code RealTimeStockService.notifyListeners} to N listeners of the symbol.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ListenerFanOutBenchmark {
+
+    @Param({"1", "10", "100", "1000"})
+    public int listeners;
+
+    private BenchmarkFixture fixture;
+    private String frame;
+
+    @Setup(Level.Trial)
+    public void setUp(Blackhole blackhole) {
+        fixture = new BenchmarkFixture(true);
+        for (int i = 0; i < listeners; i++) {
+            RealTimeStockService.StockPriceListener listener = blackhole::consume;
+            fixture.realTimeStockService.addPriceListener("AAPL", listener);
+        }
+        frame = BenchmarkFixture.tradeFrame(List.of("AAPL"), 187.25);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        fixture.close();
+    }
+
+    @Benchmark
+    public void tick() {
+        fixture.webSocketClient.onMessage(frame);
+    }
+}
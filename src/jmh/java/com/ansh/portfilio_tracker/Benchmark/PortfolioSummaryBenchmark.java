@@ -0,0 +1,89 @@
+package com.ansh.portfilio_tracker.Benchmark;
+
+import com.ansh.portfilio_tracker.Classes.Holding;
+import com.ansh.portfilio_tracker.Classes.Portfolio;
+import com.ansh.portfilio_tracker.Classes.PortfolioSummary;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code PortfolioService.getPortfolioSummary} for one portfolio of N holdings.
+ * REDUCE takes the per-holding path (price refresh plus {@code BigDecimal} reductions);
+ * ENGINE reads the precomputed aggregates of the valuation engine.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PortfolioSummaryBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    public int holdings;
+
+    @Param({"REDUCE", "ENGINE"})
+    public String path;
+
+    private BenchmarkFixture fixture;
+    private UUID portfolioId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fixture = new BenchmarkFixture(true);
+        portfolioId = UUID.randomUUID();
+        fixture.portfolioRepository.save(Portfolio.builder()
+                .id(portfolioId)
+                .name("Benchmark")
+                .baseCurrency("USD")
+                .realizedProfitInBaseCurrency(new BigDecimal("1250.00"))
+                .build());
+
+        List<String> symbols = new ArrayList<>(holdings);
+        List<Holding> rows = new ArrayList<>(holdings);
+        for (int i = 0; i < holdings; i++) {
+            String symbol = "S" + i;
+            symbols.add(symbol);
+            rows.add(Holding.builder()
+                    .portfolioId(portfolioId)
+                    .symbol(symbol)
+                    .name(symbol)
+                    .quantity(BigDecimal.valueOf(10 + i % 90))
+                    .avgPriceInBaseCurrency(BigDecimal.valueOf(50 + i % 200, 0))
+                    .build());
+        }
+        fixture.holdingRepository.saveAll(rows);
+        fixture.primePrices(symbols, 100.00);
+
+        if ("ENGINE".equals(path)) {
+            fixture.enableValuationEngine();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        fixture.close();
+    }
+
+    @Benchmark
+    public PortfolioSummary summary() {
+        return fixture.portfolioService.getPortfolioSummary(portfolioId);
+    }
+}
@@ -0,0 +1,62 @@
+package com.ansh.portfilio_tracker.Benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A Finnhub trade frame from {@code FinnhubWebSocketClient.onMessage} through to the
+ * real-time price cache, with the JsonNode tree path ({@code processTradeData}) and the
+ * streaming parser path side by side.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TradeFrameBenchmark {
+
+    @Param({"false", "true"})
+    public boolean streamingParse;
+
+    @Param({"1", "16"})
+    public int tradesPerFrame;
+
+    private BenchmarkFixture fixture;
+    private String frame;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fixture = new BenchmarkFixture(streamingParse);
+        List<String> symbols = new ArrayList<>();
+        for (int i = 0; i < tradesPerFrame; i++) {
+            symbols.add("SYM" + i);
+        }
+        frame = BenchmarkFixture.tradeFrame(symbols, 187.25);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        fixture.close();
+    }
+
+    @Benchmark
+    public void onMessage() {
+        fixture.webSocketClient.onMessage(frame);
+    }
+}
@@ -0,0 +1,91 @@
+package com.ansh.portfilio_tracker.Benchmark;
+
+import com.ansh.portfilio_tracker.Classes.Holding;
+import com.ansh.portfilio_tracker.Classes.Portfolio;
+import com.ansh.portfilio_tracker.Classes.Transaction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code TransactionServiceImpl.executeTransaction}: the weighted-average cost update of a BUY
+ * and the realized-profit calculation of a SELL, each against an existing holding.
+ * The SELL holding is large enough that it never runs out during a trial.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransactionBenchmark {
+
+    private static final String BUY_SYMBOL = "AAPL";
+    private static final String SELL_SYMBOL = "MSFT";
+
+    private BenchmarkFixture fixture;
+    private UUID portfolioId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fixture = new BenchmarkFixture(true);
+        portfolioId = UUID.randomUUID();
+        fixture.portfolioRepository.save(Portfolio.builder()
+                .id(portfolioId)
+                .name("Benchmark")
+                .baseCurrency("USD")
+                .realizedProfitInBaseCurrency(BigDecimal.ZERO)
+                .build());
+        fixture.holdingRepository.save(holding(BUY_SYMBOL, "1000"));
+        fixture.holdingRepository.save(holding(SELL_SYMBOL, "1000000000000"));
+        fixture.primePrices(List.of(BUY_SYMBOL, SELL_SYMBOL), 187.25);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        fixture.close();
+    }
+
+    @Benchmark
+    public Transaction buy() {
+        return fixture.transactionService.addTransaction(portfolioId, transaction(BUY_SYMBOL, "BUY", "10", "187.25"));
+    }
+
+    @Benchmark
+    public Transaction sell() {
+        return fixture.transactionService.addTransaction(portfolioId, transaction(SELL_SYMBOL, "SELL", "10", "190.10"));
+    }
+
+    private Holding holding(String symbol, String quantity) {
+        return Holding.builder()
+                .portfolioId(portfolioId)
+                .symbol(symbol)
+                .name(symbol)
+                .quantity(new BigDecimal(quantity))
+                .avgPriceInBaseCurrency(new BigDecimal("150.00"))
+                .build();
+    }
+
+    private static Transaction transaction(String symbol, String type, String quantity, String price) {
+        return Transaction.builder()
+                .instrumentSymbol(symbol)
+                .type(type)
+                .quantity(new BigDecimal(quantity))
+                .pricePerUnit(new BigDecimal(price))
+                .build();
+    }
+}
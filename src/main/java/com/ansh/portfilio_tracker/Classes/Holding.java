@@ -1,10 +1,14 @@
 package com.ansh.portfilio_tracker.Classes;
 
 import jakarta.persistence.*;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.springframework.data.domain.Persistable;
 
 import java.io.Serializable;
 import java.math.BigDecimal;
@@ -17,7 +21,7 @@ import java.util.UUID;
 @Entity
 @Table(name = "holdings")
 @IdClass(Holding.HoldingId.class)
-public class Holding {
+public class Holding implements Persistable<Holding.HoldingId> {
     @Id
     @Column(name = "portfolio_id", nullable = false)
     private UUID portfolioId;
@@ -48,6 +52,37 @@ public class Holding {
     @Column(name = "unrealized_profit_in_base_currency", precision = 19, scale = 2)
     private BigDecimal unrealizedProfitInBaseCurrency;
 
+    // Sequence number of the last ledger event folded into this holding; null when unknown
+    @Column(name = "ledger_seq")
+    @JsonIgnore
+    private Long ledgerSeq;
+
+    // Not a column: lets Spring Data persist() new holdings instead of merge(), which SELECTs the
+    // assigned composite key before every INSERT. Set once the entity is loaded or persisted.
+    @Transient
+    @JsonIgnore
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private boolean persisted;
+
+    @Override
+    @JsonIgnore
+    public HoldingId getId() {
+        return new HoldingId(portfolioId, symbol);
+    }
+
+    @Override
+    @JsonIgnore
+    public boolean isNew() {
+        return !persisted;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markPersisted() {
+        persisted = true;
+    }
+
     // Composite Primary Key Class
     @Data
     @NoArgsConstructor
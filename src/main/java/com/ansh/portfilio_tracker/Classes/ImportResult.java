@@ -0,0 +1,22 @@
+package com.ansh.portfilio_tracker.Classes;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Data
+@Builder
+public class ImportResult {
+    private String portfolioId;
+    private long rowsRead;
+    private long rowsImported;
+    private long rowsRejected;
+    private int holdingsWritten;
+    private int holdingsDeleted;
+    private BigDecimal realizedProfitInBase; // realized by the imported SELLs
+    private long elapsedMillis;
+    private double rowsPerSecond;
+    private List<String> errors; // first rejected rows, capped
+}
@@ -0,0 +1,27 @@
+package com.ansh.portfilio_tracker.Classes;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Portfolio value over time. Point {@code i} is the state at {@code timestamps[i]} (epoch milliseconds,
+ * the end of its interval): trades before that instant, each priced at its last known price.
+ * Prices come from the recorded ticks from {@code tickPricesFrom} on, the start of the tick store's
+ * retention window ({@code tickstore.retention-days}, 0 when ticks are kept indefinitely, null when
+ * no ticks are recorded). Earlier points, and symbols the tick store cannot hold, are priced at the
+ * last trade in the ledger, so a long daily series is flat between trades before that instant.
+ */
+@Data
+@Builder
+public class NavSeries {
+    private String portfolioId;
+    private String baseCurrency;
+    private String interval;
+    private long[] timestamps;
+    private double[] marketValue;
+    private double[] costBasis;
+    private double[] realizedProfit;
+    private Long tickPricesFrom;
+    private int symbols;
+    private long elapsedMillis;
+}
@@ -0,0 +1,24 @@
+package com.ansh.portfilio_tracker.Classes;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Open/high/low/close/volume of the trades of one symbol in one time bucket.
+ * {@code start} is inclusive and {@code end} exclusive, both in epoch milliseconds.
+ */
+@Data
+@Builder
+public class OhlcvBar {
+    private String symbol;
+    private String interval;
+    private long start;
+    private long end;
+    private double open;
+    private double high;
+    private double low;
+    private double close;
+    private double volume;
+    private int trades;
+    private boolean closed;
+}
@@ -1,10 +1,14 @@
 package com.ansh.portfilio_tracker.Classes;
 
 import jakarta.persistence.*;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.springframework.data.domain.Persistable;
 
 import java.math.BigDecimal;
 import java.util.UUID;
@@ -15,7 +19,7 @@ import java.util.UUID;
 @AllArgsConstructor
 @Entity
 @Table(name = "portfolios")
-public class Portfolio {
+public class Portfolio implements Persistable<UUID> {
     @Id
     @Column(name = "id", nullable = false, updatable = false)
     private UUID id;
@@ -28,4 +32,23 @@ public class Portfolio {
 
     @Column(name = "realized_profit_in_base_currency", precision = 19, scale = 2)
     private BigDecimal realizedProfitInBaseCurrency;
+
+    // Not a column: new portfolios are persisted without a SELECT on their assigned ID
+    @Transient
+    @JsonIgnore
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private boolean persisted;
+
+    @Override
+    @JsonIgnore
+    public boolean isNew() {
+        return !persisted;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markPersisted() {
+        persisted = true;
+    }
 }
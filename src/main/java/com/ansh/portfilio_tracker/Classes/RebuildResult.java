@@ -0,0 +1,16 @@
+package com.ansh.portfilio_tracker.Classes;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class RebuildResult {
+    private String portfolioId; // null when every portfolio was rebuilt
+    private int positions;
+    private long eventsReplayed; // events folded after the starting snapshots
+    private int snapshotsWritten;
+    private int realizedProfitsCorrected; // SELL rows whose realized profit changed
+    private long elapsedMillis;
+    private double eventsPerSecond;
+}
@@ -0,0 +1,25 @@
+package com.ansh.portfilio_tracker.Classes;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Mutable, reusable holder for a single Finnhub trade decoded from a "trade" frame.
+ * Instances are owned by the parser and overwritten on the next frame, so handlers
+ * must copy out any values they want to keep.
+ */
+@Data
+@NoArgsConstructor
+public class TradeRecord {
+    private String symbol;
+    private double price;
+    private long timestamp;
+    private double volume;
+
+    public void clear() {
+        symbol = null;
+        price = 0d;
+        timestamp = 0L;
+        volume = 0d;
+    }
+}
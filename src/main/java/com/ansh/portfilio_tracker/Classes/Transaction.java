@@ -1,10 +1,14 @@
 package com.ansh.portfilio_tracker.Classes;
 
 import jakarta.persistence.*;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.springframework.data.domain.Persistable;
 
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
@@ -19,7 +23,7 @@ import java.util.UUID;
 @AllArgsConstructor
 @Entity
 @Table(name = "transactions")
-public class Transaction {
+public class Transaction implements Persistable<UUID> {
     @Id
     @Column(name = "id", nullable = false, updatable = false)
     private UUID id;
@@ -53,4 +57,23 @@ public class Transaction {
 
     @Column(name = "realized_profit", precision = 19, scale = 2)
     private BigDecimal realizedProfit; // Only for SELL transactions
+
+    // Not a column: new transactions are persisted without a SELECT on their assigned ID
+    @Transient
+    @JsonIgnore
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private boolean persisted;
+
+    @Override
+    @JsonIgnore
+    public boolean isNew() {
+        return !persisted;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markPersisted() {
+        persisted = true;
+    }
 }
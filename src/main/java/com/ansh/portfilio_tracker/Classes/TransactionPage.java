@@ -0,0 +1,16 @@
+package com.ansh.portfilio_tracker.Classes;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransactionPage {
+    private List<Transaction> items; // newest first
+    private String nextCursor; // null on the last page
+    private int limit;
+}
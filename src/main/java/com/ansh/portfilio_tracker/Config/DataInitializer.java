@@ -11,8 +11,10 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
+import java.util.List;
 import java.util.UUID;
 
 @Component
@@ -24,6 +26,7 @@ public class DataInitializer implements CommandLineRunner {
     private final UserPortfolioRepository userPortfolioRepository;
     private final HoldingRepository holdingRepository;
     private final HoldingService holdingService;
+    private final TransactionTemplate transactionTemplate;
 
     // TODO: Remove these hardcoded UUIDs once user authentication is implemented
     // Currently using fixed UUIDs for development/testing purposes
@@ -35,10 +38,27 @@ public class DataInitializer implements CommandLineRunner {
     public void run(String... args) throws Exception {
         log.info("Initializing default portfolio and holdings...");
 
+        List<Holding> holdings = transactionTemplate.execute(status -> createDefaultPortfolio());
+        if (holdings == null) {
+            return;
+        }
+
+        // Refresh market prices from Finnhub once the inserts have committed
+        holdingService.refreshMarketPrices(holdings);
+
+        log.info("Successfully initialized portfolio with {} holdings", holdings.size());
+    }
+
+    /**
+     * Insert the default portfolio and its holdings.
+     *
+     * @return the inserted holdings, or null if the portfolio already exists
+     */
+    private List<Holding> createDefaultPortfolio() {
         // Check if portfolio already exists
         if (portfolioRepository.existsById(PORTFOLIO_ID)) {
             log.info("Portfolio already exists with ID: {}. Skipping initialization.", PORTFOLIO_ID);
-            return;
+            return null;
         }
 
         // Create portfolio with ID = 1
@@ -60,29 +80,25 @@ public class DataInitializer implements CommandLineRunner {
 
         log.info("Created portfolio with ID: {}", PORTFOLIO_ID);
 
-        // Add 5 tech stocks to the portfolio
-        createHolding("AAPL", "Apple Inc.", new BigDecimal("10"), new BigDecimal("150.00"));
-        createHolding("MSFT", "Microsoft Corporation", new BigDecimal("15"), new BigDecimal("300.00"));
-        createHolding("GOOGL", "Alphabet Inc.", new BigDecimal("5"), new BigDecimal("140.00"));
-        createHolding("TSLA", "Tesla Inc.", new BigDecimal("8"), new BigDecimal("250.00"));
-        createHolding("NVDA", "NVIDIA Corporation", new BigDecimal("12"), new BigDecimal("450.00"));
-
-        log.info("Successfully initialized portfolio with 5 holdings");
+        // Add 5 tech stocks to the portfolio in one batch
+        List<Holding> holdings = holdingRepository.saveAll(List.of(
+                holding("AAPL", "Apple Inc.", new BigDecimal("10"), new BigDecimal("150.00")),
+                holding("MSFT", "Microsoft Corporation", new BigDecimal("15"), new BigDecimal("300.00")),
+                holding("GOOGL", "Alphabet Inc.", new BigDecimal("5"), new BigDecimal("140.00")),
+                holding("TSLA", "Tesla Inc.", new BigDecimal("8"), new BigDecimal("250.00")),
+                holding("NVDA", "NVIDIA Corporation", new BigDecimal("12"), new BigDecimal("450.00"))));
+        holdings.forEach(h -> log.info("Added holding: {} - {} shares at ${}",
+                h.getSymbol(), h.getQuantity(), h.getAvgPriceInBaseCurrency()));
+        return holdings;
     }
 
-    private void createHolding(String symbol, String name, BigDecimal quantity, BigDecimal avgPrice) {
-        Holding holding = Holding.builder()
+    private Holding holding(String symbol, String name, BigDecimal quantity, BigDecimal avgPrice) {
+        return Holding.builder()
                 .portfolioId(PORTFOLIO_ID)
                 .symbol(symbol)
                 .name(name)
                 .quantity(quantity)
                 .avgPriceInBaseCurrency(avgPrice)
                 .build();
-
-        holdingRepository.save(holding);
-        log.info("Added holding: {} - {} shares at ${}", symbol, quantity, avgPrice);
-
-        // Refresh market price from Finnhub
-        holdingService.refreshMarketPrice(PORTFOLIO_ID, symbol);
     }
 }
@@ -1,23 +1,120 @@
 package com.ansh.portfilio_tracker.Config;
 
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
 /**
  * Configuration class for creating RestTemplate bean.
  * RestTemplate is used for making HTTP requests to external APIs (e.g., Finnhub).
+ * Requests go through a pooled, keep-alive Apache HttpClient with connect, read and
+ * pool-lease timeouts, so connections (and their TLS sessions) are reused and a slow
+ * upstream cannot hold a request thread indefinitely.
  */
 @Configuration
 public class RestTemplateConfig {
 
+    @Value("${finnhub.http.connect-timeout-ms:2000}")
+    private long connectTimeoutMs;
+
+    @Value("${finnhub.http.read-timeout-ms:5000}")
+    private long readTimeoutMs;
+
+    @Value("${finnhub.http.pool-acquire-timeout-ms:2000}")
+    private long poolAcquireTimeoutMs;
+
+    @Value("${finnhub.http.max-connections:50}")
+    private int maxConnections;
+
+    @Value("${finnhub.http.max-connections-per-route:20}")
+    private int maxConnectionsPerRoute;
+
+    @Value("${finnhub.http.idle-eviction-seconds:30}")
+    private long idleEvictionSeconds;
+
+    @Value("${finnhub.http.async-queue-capacity:1000}")
+    private int asyncQueueCapacity;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    /**
+     * Creates the pooled HTTP client shared by all RestTemplate calls.
+     *
+     * @return HttpClient instance
+     */
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient httpClient() {
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(maxConnections)
+                .setMaxConnPerRoute(maxConnectionsPerRoute)
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.ofMilliseconds(connectTimeoutMs))
+                        .setSocketTimeout(Timeout.ofMilliseconds(readTimeoutMs))
+                        .build())
+                .build();
+
+        return HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.ofMilliseconds(poolAcquireTimeoutMs))
+                        .setResponseTimeout(Timeout.ofMilliseconds(readTimeoutMs))
+                        .build())
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.ofSeconds(idleEvictionSeconds))
+                .build();
+    }
+
     /**
      * Creates a RestTemplate bean that can be injected into services.
      *
+     * @param httpClient pooled HTTP client
      * @return RestTemplate instance
      */
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    public RestTemplate restTemplate(CloseableHttpClient httpClient) {
+        return new RestTemplate(new HttpComponentsClientHttpRequestFactory(httpClient));
+    }
+
+    /**
+     * Executor for asynchronous Finnhub calls. Sized to the per-route connection limit so
+     * concurrent quote fetches never queue inside the connection pool.
+     * With virtual threads enabled every call gets its own virtual thread instead; the connection
+     * pool and its lease timeout then bound how many calls reach Finnhub at once.
+     *
+     * @return ExecutorService instance
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService finnhubExecutor() {
+        if (virtualThreads) {
+            return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("finnhub-http-", 1).factory());
+        }
+        AtomicInteger threadCount = new AtomicInteger();
+        return new ThreadPoolExecutor(maxConnectionsPerRoute, maxConnectionsPerRoute,
+                60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(asyncQueueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "finnhub-http-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                // Push back on the caller instead of failing when the queue is full
+                new ThreadPoolExecutor.CallerRunsPolicy());
     }
 }
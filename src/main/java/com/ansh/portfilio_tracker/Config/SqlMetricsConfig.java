@@ -0,0 +1,166 @@
+package com.ansh.portfilio_tracker.Config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts JDBC statements, in total ({@code jdbc.statements}) and per HTTP request
+ * ({@code http.server.requests.sql.statements}, tagged like {@code http.server.requests}).
+ * The DataSource is wrapped so JPA and JdbcTemplate statements are both seen; a statement is
+ * counted when it is created or prepared, so a JDBC batch counts once.
+ * Statements run on other threads than the request's (async fan-out, fork/join) are only in the total.
+ */
+@Configuration
+@ConditionalOnProperty(name = "metrics.sql.enabled", havingValue = "true", matchIfMissing = true)
+public class SqlMetricsConfig {
+
+    private static final LongAdder STATEMENTS = new LongAdder();
+
+    // Statements seen by the request on this thread, null outside requests
+    private static final ThreadLocal<int[]> REQUEST_STATEMENTS = new ThreadLocal<>();
+
+    /**
+     * Wraps every DataSource so its connections count the statements they create.
+     *
+     * @return bean post-processor
+     */
+    @Bean
+    public static BeanPostProcessor statementCountingDataSourcePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof StatementCountingDataSource)) {
+                    return new StatementCountingDataSource(dataSource);
+                }
+                return bean;
+            }
+        };
+    }
+
+    /**
+     * Exposes the total statement count.
+     *
+     * @return meter binder
+     */
+    @Bean
+    public MeterBinder jdbcStatementMetrics() {
+        return registry -> FunctionCounter.builder("jdbc.statements", STATEMENTS, LongAdder::sum)
+                .description("JDBC statements created or prepared")
+                .register(registry);
+    }
+
+    /**
+     * Records the statements each HTTP request ran on its own thread.
+     *
+     * @param meterRegistry registry to record into
+     * @return servlet filter
+     */
+    @Bean
+    public OncePerRequestFilter sqlStatementsPerRequestFilter(MeterRegistry meterRegistry) {
+        // Built once per endpoint rather than looked up in the registry on every request
+        Map<RequestKey, DistributionSummary> summaries = new ConcurrentHashMap<>();
+        return new OncePerRequestFilter() {
+            @Override
+            protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                            FilterChain filterChain) throws ServletException, IOException {
+                int[] statements = new int[1];
+                REQUEST_STATEMENTS.set(statements);
+                try {
+                    filterChain.doFilter(request, response);
+                } finally {
+                    REQUEST_STATEMENTS.remove();
+                    Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+                    RequestKey key = new RequestKey(request.getMethod(),
+                            pattern != null ? pattern.toString() : "UNKNOWN");
+                    summaries.computeIfAbsent(key, k -> requestSummary(k, meterRegistry)).record(statements[0]);
+                }
+            }
+        };
+    }
+
+    private static DistributionSummary requestSummary(RequestKey key, MeterRegistry meterRegistry) {
+        return DistributionSummary.builder("http.server.requests.sql.statements")
+                .description("JDBC statements run by one HTTP request")
+                .tag("method", key.method())
+                .tag("uri", key.uri())
+                .serviceLevelObjectives(1, 2, 5, 10, 20, 50, 100, 500)
+                .register(meterRegistry);
+    }
+
+    private record RequestKey(String method, String uri) {
+    }
+
+    private static void countStatement() {
+        STATEMENTS.increment();
+        int[] statements = REQUEST_STATEMENTS.get();
+        if (statements != null) {
+            statements[0]++;
+        }
+    }
+
+    /**
+     * DataSource handing out connections that count {@code createStatement}, {@code prepareStatement}
+     * and {@code prepareCall}. Extends {@link DelegatingDataSource} so pool metrics can still unwrap it.
+     */
+    static class StatementCountingDataSource extends DelegatingDataSource {
+
+        StatementCountingDataSource(DataSource target) {
+            super(target);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return counting(super.getConnection());
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return counting(super.getConnection(username, password));
+        }
+
+        private static Connection counting(Connection connection) {
+            InvocationHandler handler = (proxy, method, args) -> {
+                if (createsStatement(method)) {
+                    countStatement();
+                }
+                try {
+                    return method.invoke(connection, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            };
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class}, handler);
+        }
+
+        private static boolean createsStatement(Method method) {
+            String name = method.getName();
+            return name.equals("createStatement") || name.equals("prepareStatement") || name.equals("prepareCall");
+        }
+    }
+}
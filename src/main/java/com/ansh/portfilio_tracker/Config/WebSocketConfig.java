@@ -1,7 +1,12 @@
 package com.ansh.portfilio_tracker.Config;
 
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
@@ -16,8 +21,8 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
-        // Enable a simple in-memory broker for topics
-        config.enableSimpleBroker("/topic");
+        // Enable a simple in-memory broker for topics and per-session queues (snapshots on subscribe)
+        config.enableSimpleBroker("/topic", "/queue");
         // Prefix for messages from client to server
         config.setApplicationDestinationPrefixes("/app");
     }
@@ -29,4 +34,25 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
                 .setAllowedOrigins("http://localhost:5173") // Allow frontend origin
                 .withSockJS(); // Enable SockJS fallback options
     }
+
+    /**
+     * Queue depth of the STOMP channels: messages waiting to be written to sessions (outbound)
+     * and client frames waiting to be handled (inbound).
+     *
+     * @return meter binder
+     */
+    @Bean
+    public MeterBinder stompChannelMetrics(@Qualifier("clientOutboundChannelExecutor") ThreadPoolTaskExecutor outbound,
+                                           @Qualifier("clientInboundChannelExecutor") ThreadPoolTaskExecutor inbound) {
+        return registry -> {
+            Gauge.builder("stomp.channel.queue.depth", outbound, ThreadPoolTaskExecutor::getQueueSize)
+                    .description("Messages queued on a STOMP channel executor")
+                    .tag("channel", "outbound")
+                    .register(registry);
+            Gauge.builder("stomp.channel.queue.depth", inbound, ThreadPoolTaskExecutor::getQueueSize)
+                    .description("Messages queued on a STOMP channel executor")
+                    .tag("channel", "inbound")
+                    .register(registry);
+        };
+    }
 }
@@ -1,7 +1,9 @@
 package com.ansh.portfilio_tracker.Controller;
 
 import com.ansh.portfilio_tracker.Classes.*;
+import com.ansh.portfilio_tracker.Service.NavService;
 import com.ansh.portfilio_tracker.Service.PortfolioService;
+import com.ansh.portfilio_tracker.Service.PositionLedger;
 import com.ansh.portfilio_tracker.Service.TransactionService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -25,6 +27,8 @@ public class PortfolioController {
 
     private final PortfolioService portfolioService;
     private final TransactionService transactionService;
+    private final PositionLedger positionLedger;
+    private final NavService navService;
 
     @PostMapping
     public ResponseEntity<Portfolio> createPortfolio(
@@ -92,5 +96,56 @@ public class PortfolioController {
         return ResponseEntity.status(HttpStatus.CREATED).body(executedTransaction);
     }
 
+    /**
+     * Record a trade with a past transactionDate; the position is replayed from the nearest earlier snapshot.
+     */
+    @PostMapping("/{portfolioId}/transactions/backdated")
+    public ResponseEntity<Transaction> insertBackdatedTransaction(
+            @PathVariable UUID portfolioId,
+            @Valid @RequestBody Transaction transaction) {
+        try {
+            return ResponseEntity.status(HttpStatus.CREATED).body(positionLedger.insertBackdated(portfolioId, transaction));
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Re-derive the portfolio's holdings and realized profit from its transactions.
+     */
+    @PostMapping("/{portfolioId}/rebuild")
+    public ResponseEntity<RebuildResult> rebuildPortfolio(@PathVariable UUID portfolioId) {
+        return ResponseEntity.ok(positionLedger.rebuildPortfolio(portfolioId));
+    }
+
+    /**
+     * Replay the whole ledger and rewrite every snapshot, holding and realized profit.
+     */
+    @PostMapping("/rebuild")
+    public ResponseEntity<RebuildResult> rebuildAllPortfolios() {
+        return ResponseEntity.ok(positionLedger.rebuildAll());
+    }
+
+    /**
+     * Portfolio value at the end of each interval between from and to (epoch milliseconds).
+     * Defaults to the last 30 intervals. Points before the series' {@code tickPricesFrom} are priced
+     * at the last trade in the ledger, since older ticks are no longer kept.
+     */
+    @GetMapping("/{portfolioId}/nav")
+    public ResponseEntity<NavSeries> getNav(
+            @PathVariable UUID portfolioId,
+            @RequestParam(required = false) Long from,
+            @RequestParam(required = false) Long to,
+            @RequestParam(defaultValue = "1d") String interval) {
+        try {
+            NavService.Interval navInterval = NavService.Interval.fromLabel(interval);
+            long end = to != null ? to : System.currentTimeMillis();
+            long start = from != null ? from : end - 29 * navInterval.getMillis();
+            NavSeries series = navService.getNav(portfolioId, start, end, navInterval);
+            return series != null ? ResponseEntity.ok(series) : ResponseEntity.notFound().build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
 
 }
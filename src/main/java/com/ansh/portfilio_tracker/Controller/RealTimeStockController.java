@@ -1,10 +1,16 @@
 package com.ansh.portfilio_tracker.Controller;
 
+import com.ansh.portfilio_tracker.Service.BarAggregator;
+import com.ansh.portfilio_tracker.Service.FinnhubConnectionSupervisor;
+import com.ansh.portfilio_tracker.Service.QuoteCache;
 import com.ansh.portfilio_tracker.Service.RealTimeStockService;
+import com.ansh.portfilio_tracker.Service.TickRingBuffer;
+import com.ansh.portfilio_tracker.Service.TickStore;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -18,6 +24,10 @@ import java.util.Map;
 public class RealTimeStockController {
 
     private final RealTimeStockService realTimeStockService;
+    private final QuoteCache quoteCache;
+    private final TickStore tickStore;
+    private final BarAggregator barAggregator;
+    private final FinnhubConnectionSupervisor connectionSupervisor;
 
     /**
      * Get the latest cached price for a symbol.
@@ -35,7 +45,8 @@ public class RealTimeStockController {
                     "symbol", stockPrice.getSymbol(),
                     "price", stockPrice.getPrice(),
                     "timestamp", stockPrice.getTimestamp(),
-                    "volume", stockPrice.getVolume()
+                    "volume", stockPrice.getVolume(),
+                    "stale", stockPrice.isStale()
             ));
         } else {
             return ResponseEntity.notFound().build();
@@ -71,4 +82,69 @@ public class RealTimeStockController {
                 "symbol", symbol.toUpperCase()
         ));
     }
+
+    /**
+     * Get queue depth, lag and drop counters for the tick ingestion pipeline.
+     *
+     * @return Pipeline stats or 404 if the pipeline is disabled
+     */
+    @GetMapping("/stats/pipeline")
+    public ResponseEntity<TickRingBuffer.PipelineStats> getPipelineStats() {
+        TickRingBuffer.PipelineStats stats = realTimeStockService.getPipelineStats();
+        if (stats != null) {
+            return ResponseEntity.ok(stats);
+        } else {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    /**
+     * Get hit, miss and coalesce counters for the REST quote cache.
+     *
+     * @return Quote cache stats
+     */
+    @GetMapping("/stats/quote-cache")
+    public ResponseEntity<QuoteCache.Stats> getQuoteCacheStats() {
+        return ResponseEntity.ok(quoteCache.getStats());
+    }
+
+    /**
+     * Get write, reject and retention counters for the tick history store.
+     *
+     * @return Tick store stats
+     */
+    @GetMapping("/stats/tick-store")
+    public ResponseEntity<TickStore.Stats> getTickStoreStats() {
+        return ResponseEntity.ok(tickStore.getStats());
+    }
+
+    /**
+     * Get trade, late-trade and closed-bar counters for the bar aggregator.
+     *
+     * @return Bar aggregator stats
+     */
+    @GetMapping("/stats/bars")
+    public ResponseEntity<BarAggregator.Stats> getBarStats() {
+        return ResponseEntity.ok(barAggregator.getStats());
+    }
+
+    /**
+     * Get connection state, reconnect and heartbeat counters for each Finnhub WebSocket connection.
+     *
+     * @return Connection stats, one entry per shard
+     */
+    @GetMapping("/stats/connection")
+    public ResponseEntity<List<FinnhubConnectionSupervisor.Stats>> getConnectionStats() {
+        return ResponseEntity.ok(connectionSupervisor.getStats());
+    }
+
+    /**
+     * Get symbol and trade counts for each Finnhub WebSocket connection.
+     *
+     * @return Shard stats, one entry per shard
+     */
+    @GetMapping("/stats/shards")
+    public ResponseEntity<List<RealTimeStockService.ShardStats>> getShardStats() {
+        return ResponseEntity.ok(realTimeStockService.getShardStats());
+    }
 }
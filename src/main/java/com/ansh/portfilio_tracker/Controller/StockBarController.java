@@ -0,0 +1,48 @@
+package com.ansh.portfilio_tracker.Controller;
+
+import com.ansh.portfilio_tracker.Classes.OhlcvBar;
+import com.ansh.portfilio_tracker.Service.BarAggregator;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * REST controller for OHLCV bars aggregated from the live trade stream.
+ * Live bars are also published on the STOMP topic /topic/bars/{symbol}/{interval} as they close;
+ * clients still request the Finnhub feed through /app/subscribe/{symbol}.
+ */
+@RestController
+@RequestMapping("/api/stocks")
+@CrossOrigin(origins = "http://localhost:5173")
+@RequiredArgsConstructor
+public class StockBarController {
+
+    private static final int MAX_BARS = 1000;
+
+    private final BarAggregator barAggregator;
+
+    /**
+     * Recent bars of a symbol, oldest first.
+     *
+     * @param symbol Stock symbol
+     * @param interval 1s, 1m, 5m or 1h
+     * @param limit Maximum number of bars
+     * @param includeOpen Whether to append the bar still in progress
+     * @return bars, or 400 for an unknown interval
+     */
+    @GetMapping("/{symbol}/bars")
+    public ResponseEntity<List<OhlcvBar>> getBars(
+            @PathVariable String symbol,
+            @RequestParam(defaultValue = "1m") String interval,
+            @RequestParam(defaultValue = "100") int limit,
+            @RequestParam(defaultValue = "false") boolean includeOpen) {
+        try {
+            BarAggregator.Interval barInterval = BarAggregator.Interval.fromLabel(interval);
+            return ResponseEntity.ok(barAggregator.getBars(symbol, barInterval, Math.min(limit, MAX_BARS), includeOpen));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+}
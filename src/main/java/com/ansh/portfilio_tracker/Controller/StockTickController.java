@@ -0,0 +1,93 @@
+package com.ansh.portfilio_tracker.Controller;
+
+import com.ansh.portfilio_tracker.Service.TickStore;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * REST controller for recorded intraday tick history.
+ */
+@RestController
+@RequestMapping("/api/stocks")
+@CrossOrigin(origins = "http://localhost:5173")
+@RequiredArgsConstructor
+public class StockTickController {
+
+    private final TickStore tickStore;
+    private final ObjectMapper objectMapper;
+
+    @Value("${tickstore.query.max-ticks:100000}")
+    private int maxTicks;
+
+    /**
+     * Recorded trades of a symbol, oldest first, streamed straight from the mapped segments as
+     * {@code {"symbol", "from", "to", "ticks": [[timestamp, price, volume], ...], "count", "truncated"}}.
+     *
+     * @param symbol Stock symbol
+     * @param from Start of the range, epoch milliseconds (default: one hour before {@code to})
+     * @param to End of the range, epoch milliseconds (default: now)
+     * @param limit Maximum ticks returned (capped at {@code tickstore.query.max-ticks})
+     * @return the ticks, or 400 for an invalid symbol or range
+     */
+    @GetMapping("/{symbol}/ticks")
+    public ResponseEntity<StreamingResponseBody> getTicks(
+            @PathVariable String symbol,
+            @RequestParam(required = false) Long from,
+            @RequestParam(required = false) Long to,
+            @RequestParam(required = false) Integer limit) {
+        long end = to != null ? to : System.currentTimeMillis();
+        long start = from != null ? from : end - TimeUnit.HOURS.toMillis(1);
+        if (start > end) {
+            return ResponseEntity.badRequest().build();
+        }
+        TickStore.TickRange range;
+        try {
+            range = tickStore.query(symbol, start, end);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        int max = limit != null && limit > 0 ? Math.min(limit, maxTicks) : maxTicks;
+        String upperSymbol = symbol.toUpperCase();
+
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator json = objectMapper.getFactory().createGenerator(out)) {
+                json.writeStartObject();
+                json.writeStringField("symbol", upperSymbol);
+                json.writeNumberField("from", start);
+                json.writeNumberField("to", end);
+                json.writeArrayFieldStart("ticks");
+                int[] written = {0};
+                // Visit one tick past the limit to tell whether the range was cut short
+                int count = range.forEach(max + 1, (timestamp, price, volume) -> {
+                    if (written[0]++ == max) {
+                        return;
+                    }
+                    try {
+                        json.writeStartArray();
+                        json.writeNumber(timestamp);
+                        json.writeNumber(price);
+                        json.writeNumber(volume);
+                        json.writeEndArray();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                json.writeEndArray();
+                json.writeNumberField("count", Math.min(count, max));
+                json.writeBooleanField("truncated", count > max);
+                json.writeEndObject();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+}
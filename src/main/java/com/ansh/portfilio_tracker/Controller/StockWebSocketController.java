@@ -1,15 +1,17 @@
 package com.ansh.portfilio_tracker.Controller;
 
-import com.ansh.portfilio_tracker.Service.RealTimeStockService;
+import com.ansh.portfilio_tracker.Service.StockTopicPublisher;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
 import org.springframework.messaging.handler.annotation.DestinationVariable;
 import org.springframework.messaging.handler.annotation.MessageMapping;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.annotation.SendToUser;
 import org.springframework.stereotype.Controller;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
 
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * WebSocket controller for real-time stock price updates.
@@ -20,53 +22,29 @@ import java.util.concurrent.ConcurrentHashMap;
 @RequiredArgsConstructor
 public class StockWebSocketController {
 
-    private final RealTimeStockService realTimeStockService;
-    private final SimpMessagingTemplate messagingTemplate;
-
-    // Track active subscriptions per symbol
-    private final Map<String, Integer> subscriptionCounts = new ConcurrentHashMap<>();
+    private final StockTopicPublisher topicPublisher;
 
     /**
      * Handle subscription requests from clients.
      * Endpoint: /app/subscribe/{symbol}
      *
+     * Live updates are broadcast on /topic/stock/{symbol}. The current price, if any,
+     * is sent only to the subscribing session on /user/queue/stock/{symbol}.
+     *
      * @param symbol Stock symbol to subscribe to
+     * @param headerAccessor Headers of the inbound message, used for the session ID
+     * @return Snapshot of the current price, or null if none is cached
      */
     @MessageMapping("/subscribe/{symbol}")
-    public void subscribeToSymbol(@DestinationVariable String symbol) {
+    @SendToUser(destinations = "/queue/stock/{symbol}", broadcast = false)
+    public Map<String, Object> subscribeToSymbol(@DestinationVariable String symbol,
+                                                 SimpMessageHeaderAccessor headerAccessor) {
         String upperSymbol = symbol.toUpperCase();
         log.info("Client subscribing to symbol: {}", upperSymbol);
 
-        // Increment subscription count
-        subscriptionCounts.merge(upperSymbol, 1, Integer::sum);
+        topicPublisher.addSubscriber(headerAccessor.getSessionId(), upperSymbol);
 
-        // Add listener for this symbol
-        realTimeStockService.addPriceListener(upperSymbol, stockPrice -> {
-            // Broadcast to all subscribers of this symbol
-            messagingTemplate.convertAndSend(
-                    "/topic/stock/" + upperSymbol,
-                    Map.of(
-                            "symbol", stockPrice.getSymbol(),
-                            "price", stockPrice.getPrice(),
-                            "timestamp", stockPrice.getTimestamp(),
-                            "volume", stockPrice.getVolume()
-                    )
-            );
-        });
-
-        // Send current price if available
-        RealTimeStockService.StockPrice currentPrice = realTimeStockService.getLatestPrice(upperSymbol);
-        if (currentPrice != null) {
-            messagingTemplate.convertAndSend(
-                    "/topic/stock/" + upperSymbol,
-                    Map.of(
-                            "symbol", currentPrice.getSymbol(),
-                            "price", currentPrice.getPrice(),
-                            "timestamp", currentPrice.getTimestamp(),
-                            "volume", currentPrice.getVolume()
-                    )
-            );
-        }
+        return topicPublisher.snapshot(upperSymbol);
     }
 
     /**
@@ -74,20 +52,22 @@ public class StockWebSocketController {
      * Endpoint: /app/unsubscribe/{symbol}
      *
      * @param symbol Stock symbol to unsubscribe from
+     * @param headerAccessor Headers of the inbound message, used for the session ID
      */
     @MessageMapping("/unsubscribe/{symbol}")
-    public void unsubscribeFromSymbol(@DestinationVariable String symbol) {
+    public void unsubscribeFromSymbol(@DestinationVariable String symbol,
+                                      SimpMessageHeaderAccessor headerAccessor) {
         String upperSymbol = symbol.toUpperCase();
         log.info("Client unsubscribing from symbol: {}", upperSymbol);
 
-        // Decrement subscription count
-        subscriptionCounts.compute(upperSymbol, (k, v) -> {
-            if (v == null || v <= 1) {
-                // No more subscribers, unsubscribe from Finnhub
-                realTimeStockService.unsubscribe(upperSymbol);
-                return null;
-            }
-            return v - 1;
-        });
+        topicPublisher.removeSubscriber(headerAccessor.getSessionId(), upperSymbol);
+    }
+
+    /**
+     * Release every subscription held by a session that disconnected without unsubscribing.
+     */
+    @EventListener
+    public void onSessionDisconnect(SessionDisconnectEvent event) {
+        topicPublisher.removeSession(event.getSessionId());
     }
 }
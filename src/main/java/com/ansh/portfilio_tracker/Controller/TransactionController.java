@@ -1,14 +1,23 @@
 package com.ansh.portfilio_tracker.Controller;
 
+import com.ansh.portfilio_tracker.Classes.ImportResult;
 import com.ansh.portfilio_tracker.Classes.Transaction;
+import com.ansh.portfilio_tracker.Classes.TransactionPage;
+import com.ansh.portfilio_tracker.Service.TransactionImportService;
 import com.ansh.portfilio_tracker.Service.TransactionService;
 import com.ansh.portfilio_tracker.Service.TransactionServiceImpl;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.util.Collection;
 import java.util.UUID;
 
@@ -20,6 +29,8 @@ public class TransactionController {
 
     private final TransactionService transactionService;
     private final TransactionServiceImpl transactionServiceImpl;
+    private final TransactionImportService transactionImportService;
+    private final ObjectMapper objectMapper;
 
     @PostMapping("/portfolio/{portfolioId}")
     public ResponseEntity<Transaction> executeTransaction(
@@ -30,12 +41,64 @@ public class TransactionController {
         return ResponseEntity.status(HttpStatus.CREATED).body(executedTransaction);
     }
 
+    /**
+     * Bulk import from a CSV (header row required) or NDJSON body, streamed row by row.
+     */
+    @PostMapping(value = "/portfolio/{portfolioId}/import", consumes = {"text/csv", "application/x-ndjson"})
+    public ResponseEntity<ImportResult> importTransactions(
+            @PathVariable UUID portfolioId,
+            @RequestHeader("Content-Type") String contentType,
+            InputStream body) throws IOException {
+        TransactionImportService.Format format = contentType.startsWith("text/csv")
+                ? TransactionImportService.Format.CSV
+                : TransactionImportService.Format.NDJSON;
+        try (body) {
+            return ResponseEntity.ok(transactionImportService.importTransactions(portfolioId, body, format));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
     @GetMapping("/portfolio/{portfolioId}")
     public ResponseEntity<Collection<Transaction>> getPortfolioTransactions(@PathVariable UUID portfolioId) {
         Collection<Transaction> transactions = transactionServiceImpl.getPortfolioTransactions(portfolioId);
         return ResponseEntity.ok(transactions);
     }
 
+    /**
+     * Keyset-paginated history, newest first. Pass the returned nextCursor to get the following page.
+     */
+    @GetMapping("/portfolio/{portfolioId}/page")
+    public ResponseEntity<TransactionPage> getPortfolioTransactionPage(
+            @PathVariable UUID portfolioId,
+            @RequestParam(required = false) String symbol,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        try {
+            return ResponseEntity.ok(transactionServiceImpl.getTransactionPage(portfolioId, symbol, cursor, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Full history as newline-delimited JSON, newest first, streamed from the database.
+     */
+    @GetMapping(value = "/portfolio/{portfolioId}/stream", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> streamPortfolioTransactions(
+            @PathVariable UUID portfolioId,
+            @RequestParam(required = false) String symbol) {
+        StreamingResponseBody body = out -> transactionServiceImpl.streamTransactions(portfolioId, symbol, transaction -> {
+            try {
+                out.write(objectMapper.writeValueAsBytes(transaction));
+                out.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType("application/x-ndjson")).body(body);
+    }
+
     @GetMapping("/portfolio/{portfolioId}/symbol/{symbol}")
     public ResponseEntity<Collection<Transaction>> getTransactionsBySymbol(
             @PathVariable UUID portfolioId,
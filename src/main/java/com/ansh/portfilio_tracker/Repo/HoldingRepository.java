@@ -1,7 +1,10 @@
 package com.ansh.portfilio_tracker.Repo;
 
 import com.ansh.portfilio_tracker.Classes.Holding;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -27,6 +30,16 @@ public interface HoldingRepository extends JpaRepository<Holding, Holding.Holdin
      */
     Optional<Holding> findFirstBySymbol(String symbol);
 
+    /**
+     * Find the first holding with the given symbol, loaded read-only.
+     * Changes made to the returned entity are never flushed.
+     *
+     * @param symbol stock symbol
+     * @return optional holding
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    Optional<Holding> findFirstReadOnlyBySymbol(String symbol);
+
     /**
      * Find a specific holding by portfolio and symbol.
      * This is the primary way to query holdings.
@@ -45,6 +58,16 @@ public interface HoldingRepository extends JpaRepository<Holding, Holding.Holdin
      */
     List<Holding> findByPortfolioId(UUID portfolioId);
 
+    /**
+     * Find all holdings for a specific portfolio, loaded read-only.
+     * Changes made to the returned entities are never flushed.
+     *
+     * @param portfolioId portfolio ID
+     * @return list of holdings
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    List<Holding> findReadOnlyByPortfolioId(UUID portfolioId);
+
     /**
      * Find all holdings for a specific symbol (across all portfolios).
      *
@@ -2,10 +2,12 @@ package com.ansh.portfilio_tracker.Repo;
 
 import com.ansh.portfilio_tracker.Classes.Portfolio;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
 import java.util.List;
 import java.util.UUID;
 
@@ -41,4 +43,17 @@ public interface PortfolioRepository extends JpaRepository<Portfolio, UUID> {
      * @return list of portfolios with matching name
      */
     List<Portfolio> findByName(String name);
+
+    /**
+     * Add to a portfolio's realized profit in a single UPDATE, without reading the row first.
+     * Concurrent sells in the same portfolio therefore never overwrite each other's profit.
+     *
+     * @param portfolioId portfolio ID
+     * @param amount realized profit to add (negative for a loss)
+     * @return number of rows updated (0 if the portfolio does not exist)
+     */
+    @Modifying
+    @Query("UPDATE Portfolio p SET p.realizedProfitInBaseCurrency = "
+            + "COALESCE(p.realizedProfitInBaseCurrency, 0) + :amount WHERE p.id = :portfolioId")
+    int addRealizedProfit(@Param("portfolioId") UUID portfolioId, @Param("amount") BigDecimal amount);
 }
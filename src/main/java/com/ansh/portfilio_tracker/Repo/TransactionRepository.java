@@ -1,11 +1,19 @@
 package com.ansh.portfilio_tracker.Repo;
 
 import com.ansh.portfilio_tracker.Classes.Transaction;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 /**
  * Spring Data JPA repository for Transaction entity.
@@ -50,4 +58,93 @@ public interface TransactionRepository extends JpaRepository<Transaction, UUID>
      * @return list of transactions
      */
     List<Transaction> findByPortfolioIdAndType(UUID portfolioId, String type);
+
+    /**
+     * First page of a portfolio's transactions, newest first.
+     * Ordered by (transaction_date, id) so the last row can serve as a keyset cursor.
+     *
+     * @param portfolioId portfolio ID
+     * @param page page size (the page number is ignored)
+     * @return up to page-size transactions
+     */
+    @Query("SELECT t FROM Transaction t WHERE t.portfolioId = :portfolioId "
+            + "ORDER BY t.transactionDate DESC, t.id DESC")
+    List<Transaction> findFirstPage(@Param("portfolioId") UUID portfolioId, Pageable page);
+
+    /**
+     * Page of a portfolio's transactions strictly older than the cursor row, newest first.
+     *
+     * @param portfolioId portfolio ID
+     * @param date transaction date of the last row of the previous page
+     * @param id ID of the last row of the previous page
+     * @param page page size (the page number is ignored)
+     * @return up to page-size transactions
+     */
+    @Query("SELECT t FROM Transaction t WHERE t.portfolioId = :portfolioId "
+            + "AND (t.transactionDate < :date OR (t.transactionDate = :date AND t.id < :id)) "
+            + "ORDER BY t.transactionDate DESC, t.id DESC")
+    List<Transaction> findPageAfter(@Param("portfolioId") UUID portfolioId, @Param("date") LocalDateTime date,
+                                    @Param("id") UUID id, Pageable page);
+
+    /**
+     * First page of a portfolio's transactions in one symbol, newest first.
+     *
+     * @param portfolioId portfolio ID
+     * @param instrumentSymbol stock symbol
+     * @param page page size (the page number is ignored)
+     * @return up to page-size transactions
+     */
+    @Query("SELECT t FROM Transaction t WHERE t.portfolioId = :portfolioId AND t.instrumentSymbol = :symbol "
+            + "ORDER BY t.transactionDate DESC, t.id DESC")
+    List<Transaction> findFirstPageBySymbol(@Param("portfolioId") UUID portfolioId,
+                                            @Param("symbol") String instrumentSymbol, Pageable page);
+
+    /**
+     * Page of a portfolio's transactions in one symbol strictly older than the cursor row, newest first.
+     *
+     * @param portfolioId portfolio ID
+     * @param instrumentSymbol stock symbol
+     * @param date transaction date of the last row of the previous page
+     * @param id ID of the last row of the previous page
+     * @param page page size (the page number is ignored)
+     * @return up to page-size transactions
+     */
+    @Query("SELECT t FROM Transaction t WHERE t.portfolioId = :portfolioId AND t.instrumentSymbol = :symbol "
+            + "AND (t.transactionDate < :date OR (t.transactionDate = :date AND t.id < :id)) "
+            + "ORDER BY t.transactionDate DESC, t.id DESC")
+    List<Transaction> findPageAfterBySymbol(@Param("portfolioId") UUID portfolioId,
+                                            @Param("symbol") String instrumentSymbol,
+                                            @Param("date") LocalDateTime date, @Param("id") UUID id, Pageable page);
+
+    /**
+     * Stream a portfolio's transactions, newest first, fetching rows from the database in chunks.
+     * Must be consumed inside a transaction and closed afterwards.
+     *
+     * @param portfolioId portfolio ID
+     * @return transaction stream
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT t FROM Transaction t WHERE t.portfolioId = :portfolioId "
+            + "ORDER BY t.transactionDate DESC, t.id DESC")
+    Stream<Transaction> streamByPortfolioId(@Param("portfolioId") UUID portfolioId);
+
+    /**
+     * Stream a portfolio's transactions in one symbol, newest first, fetching rows in chunks.
+     * Must be consumed inside a transaction and closed afterwards.
+     *
+     * @param portfolioId portfolio ID
+     * @param instrumentSymbol stock symbol
+     * @return transaction stream
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT t FROM Transaction t WHERE t.portfolioId = :portfolioId AND t.instrumentSymbol = :symbol "
+            + "ORDER BY t.transactionDate DESC, t.id DESC")
+    Stream<Transaction> streamByPortfolioIdAndSymbol(@Param("portfolioId") UUID portfolioId,
+                                                     @Param("symbol") String instrumentSymbol);
 }
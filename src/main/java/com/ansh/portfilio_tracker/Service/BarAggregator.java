@@ -0,0 +1,384 @@
+package com.ansh.portfilio_tracker.Service;
+
+import com.ansh.portfilio_tracker.Classes.OhlcvBar;
+import jakarta.annotation.PreDestroy;
+import lombok.Builder;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Rolls the live trade stream into 1s, 1m, 5m and 1h OHLCV bars per symbol.
+ * Each symbol keeps its open bars and a ring of recently closed bars in primitive arrays, so a trade
+ * only updates a few doubles per interval. A bar closes when the first trade of a later bucket arrives,
+ * or once its end plus {@code bars.close-grace-ms} has passed on the wall clock, so quiet symbols still
+ * get their bars. Closed bars are handed to {@link BarListener}s; trades older than the open bar of an
+ * interval are counted as late and left out of that interval.
+ */
+@Service
+@Slf4j
+public class BarAggregator {
+
+    /**
+     * Supported bar lengths.
+     */
+    public enum Interval {
+        S1("1s", 1_000L),
+        M1("1m", 60_000L),
+        M5("5m", 300_000L),
+        H1("1h", 3_600_000L);
+
+        private final String label;
+        private final long millis;
+
+        Interval(String label, long millis) {
+            this.label = label;
+            this.millis = millis;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+
+        public long getMillis() {
+            return millis;
+        }
+
+        /**
+         * @param label "1s", "1m", "5m" or "1h"
+         * @throws IllegalArgumentException for any other value
+         */
+        public static Interval fromLabel(String label) {
+            for (Interval interval : values()) {
+                if (interval.label.equalsIgnoreCase(label)) {
+                    return interval;
+                }
+            }
+            throw new IllegalArgumentException("Invalid interval: " + label + ". Must be 1s, 1m, 5m or 1h");
+        }
+    }
+
+    /**
+     * Receives every bar as it closes. Called without any aggregator lock held.
+     */
+    @FunctionalInterface
+    public interface BarListener {
+        void onBar(OhlcvBar bar);
+    }
+
+    private static final Interval[] INTERVALS = Interval.values();
+
+    private final RealTimeStockService realTimeStockService;
+    private final int historySize;
+    private final long closeGraceMillis;
+
+    private final Map<String, SymbolBars> symbols = new ConcurrentHashMap<>();
+    private final List<BarListener> listeners = new CopyOnWriteArrayList<>();
+
+    private final AtomicLong trades = new AtomicLong();
+    private final AtomicLong lateTrades = new AtomicLong();
+    private final AtomicLong barsClosed = new AtomicLong();
+
+    private ScheduledExecutorService closeScheduler;
+
+    public BarAggregator(RealTimeStockService realTimeStockService,
+                         @Value("${bars.history-size:500}") int historySize,
+                         @Value("${bars.close-grace-ms:2000}") long closeGraceMillis) {
+        this.realTimeStockService = realTimeStockService;
+        this.historySize = Math.max(1, historySize);
+        this.closeGraceMillis = closeGraceMillis;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        // Every trade counts towards volume, so the aggregator does not conflate
+        if (realTimeStockService.addTickConsumer("bar-aggregator", TickRingBuffer.OverflowPolicy.DROP_OLDEST,
+                (symbol, price, timestamp, volume, shard, endOfBatch) ->
+                        onTrade(symbol, price, timestamp, volume)) == null) {
+            log.warn("Bar aggregation needs the tick pipeline; no bars will be built");
+            return;
+        }
+        closeScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "bar-close");
+            thread.setDaemon(true);
+            return thread;
+        });
+        closeScheduler.scheduleAtFixedRate(() -> closeExpired(System.currentTimeMillis()), 250, 250,
+                TimeUnit.MILLISECONDS);
+        log.info("Bar aggregator started (history: {} bars per interval, close grace: {} ms)",
+                historySize, closeGraceMillis);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (closeScheduler != null) {
+            closeScheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * Register a listener for closed bars of every symbol and interval.
+     *
+     * @param listener Listener to be notified of closed bars
+     */
+    public void addBarListener(BarListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Remove a closed-bar listener.
+     *
+     * @param listener Listener to remove
+     */
+    public void removeBarListener(BarListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Fold a trade into every interval's open bar of its symbol.
+     *
+     * @param symbol Stock symbol (upper case)
+     * @param price Trade price
+     * @param timestamp Trade time in epoch milliseconds
+     * @param volume Trade volume
+     */
+    public void onTrade(String symbol, double price, long timestamp, double volume) {
+        trades.incrementAndGet();
+        SymbolBars bars = symbols.computeIfAbsent(symbol, SymbolBars::new);
+        List<OhlcvBar> closed = null;
+        synchronized (bars) {
+            for (int i = 0; i < INTERVALS.length; i++) {
+                long bucket = Math.floorDiv(timestamp, INTERVALS[i].millis) * INTERVALS[i].millis;
+                if (bars.trades[i] > 0 && bucket != bars.start[i]) {
+                    if (bucket < bars.start[i]) {
+                        lateTrades.incrementAndGet();
+                        continue;
+                    }
+                    closed = add(closed, bars.close(i));
+                }
+                if (bucket < bars.lastClosedEnd[i]) {
+                    // The bucket was already closed by the timer
+                    lateTrades.incrementAndGet();
+                    continue;
+                }
+                bars.apply(i, bucket, price, volume);
+            }
+        }
+        publish(closed);
+    }
+
+    /**
+     * Close every open bar whose end plus the grace period is at or before {@code nowMillis}.
+     *
+     * @param nowMillis Current time in epoch milliseconds
+     * @return number of bars closed
+     */
+    public int closeExpired(long nowMillis) {
+        List<OhlcvBar> closed = null;
+        for (SymbolBars bars : symbols.values()) {
+            synchronized (bars) {
+                for (int i = 0; i < INTERVALS.length; i++) {
+                    if (bars.trades[i] > 0 && bars.start[i] + INTERVALS[i].millis + closeGraceMillis <= nowMillis) {
+                        closed = add(closed, bars.close(i));
+                    }
+                }
+            }
+        }
+        publish(closed);
+        return closed != null ? closed.size() : 0;
+    }
+
+    /**
+     * Recent bars of a symbol, oldest first.
+     *
+     * @param symbol Stock symbol
+     * @param interval Bar length
+     * @param limit Maximum number of bars returned, newest kept
+     * @param includeOpen Whether to append the bar still in progress
+     * @return bars, empty if the symbol has not traded
+     */
+    public List<OhlcvBar> getBars(String symbol, Interval interval, int limit, boolean includeOpen) {
+        SymbolBars bars = symbols.get(symbol.toUpperCase());
+        List<OhlcvBar> result = new ArrayList<>();
+        if (bars == null || limit <= 0) {
+            return result;
+        }
+        int i = interval.ordinal();
+        synchronized (bars) {
+            boolean open = includeOpen && bars.trades[i] > 0;
+            int closedCount = (int) Math.min(bars.closedCount[i], historySize);
+            int take = Math.min(closedCount, open ? limit - 1 : limit);
+            for (long n = bars.closedCount[i] - take; n < bars.closedCount[i]; n++) {
+                result.add(bars.historyBar(i, (int) (n % historySize)));
+            }
+            if (open) {
+                result.add(bars.openBar(i, false));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return trade, late-trade and closed-bar counters
+     */
+    public Stats getStats() {
+        return Stats.builder()
+                .symbols(symbols.size())
+                .trades(trades.get())
+                .lateTrades(lateTrades.get())
+                .barsClosed(barsClosed.get())
+                .build();
+    }
+
+    private void publish(List<OhlcvBar> closed) {
+        if (closed == null) {
+            return;
+        }
+        barsClosed.addAndGet(closed.size());
+        for (OhlcvBar bar : closed) {
+            for (BarListener listener : listeners) {
+                try {
+                    listener.onBar(bar);
+                } catch (Exception e) {
+                    log.error("Error notifying bar listener for symbol: {}", bar.getSymbol(), e);
+                }
+            }
+        }
+    }
+
+    private static List<OhlcvBar> add(List<OhlcvBar> list, OhlcvBar bar) {
+        List<OhlcvBar> result = list != null ? list : new ArrayList<>(INTERVALS.length);
+        result.add(bar);
+        return result;
+    }
+
+    /**
+     * Open bars and closed-bar history of one symbol, one slot per interval.
+     * History is a ring of {@code historySize} bars per interval stored at {@code interval * historySize + slot}.
+     */
+    private final class SymbolBars {
+        private final String symbol;
+
+        // Open bar per interval; trades == 0 means no bar is open
+        private final long[] start = new long[INTERVALS.length];
+        private final double[] open = new double[INTERVALS.length];
+        private final double[] high = new double[INTERVALS.length];
+        private final double[] low = new double[INTERVALS.length];
+        private final double[] close = new double[INTERVALS.length];
+        private final double[] volume = new double[INTERVALS.length];
+        private final int[] trades = new int[INTERVALS.length];
+        private final long[] lastClosedEnd = new long[INTERVALS.length];
+
+        // Closed-bar rings
+        private final long[] closedCount = new long[INTERVALS.length];
+        private final long[] historyStart;
+        private final double[] historyOpen;
+        private final double[] historyHigh;
+        private final double[] historyLow;
+        private final double[] historyClose;
+        private final double[] historyVolume;
+        private final int[] historyTrades;
+
+        private SymbolBars(String symbol) {
+            this.symbol = symbol;
+            int slots = INTERVALS.length * historySize;
+            historyStart = new long[slots];
+            historyOpen = new double[slots];
+            historyHigh = new double[slots];
+            historyLow = new double[slots];
+            historyClose = new double[slots];
+            historyVolume = new double[slots];
+            historyTrades = new int[slots];
+        }
+
+        private void apply(int i, long bucket, double price, double qty) {
+            if (trades[i] == 0) {
+                start[i] = bucket;
+                open[i] = price;
+                high[i] = price;
+                low[i] = price;
+                volume[i] = 0;
+            } else {
+                high[i] = Math.max(high[i], price);
+                low[i] = Math.min(low[i], price);
+            }
+            close[i] = price;
+            volume[i] += qty;
+            trades[i]++;
+        }
+
+        /**
+         * Move the open bar of an interval into its history ring and return it.
+         */
+        private OhlcvBar close(int i) {
+            int slot = i * historySize + (int) (closedCount[i] % historySize);
+            historyStart[slot] = start[i];
+            historyOpen[slot] = open[i];
+            historyHigh[slot] = high[i];
+            historyLow[slot] = low[i];
+            historyClose[slot] = close[i];
+            historyVolume[slot] = volume[i];
+            historyTrades[slot] = trades[i];
+            closedCount[i]++;
+            lastClosedEnd[i] = start[i] + INTERVALS[i].millis;
+            OhlcvBar bar = openBar(i, true);
+            trades[i] = 0;
+            return bar;
+        }
+
+        private OhlcvBar openBar(int i, boolean closed) {
+            return OhlcvBar.builder()
+                    .symbol(symbol)
+                    .interval(INTERVALS[i].label)
+                    .start(start[i])
+                    .end(start[i] + INTERVALS[i].millis)
+                    .open(open[i])
+                    .high(high[i])
+                    .low(low[i])
+                    .close(close[i])
+                    .volume(volume[i])
+                    .trades(trades[i])
+                    .closed(closed)
+                    .build();
+        }
+
+        private OhlcvBar historyBar(int i, int ringIndex) {
+            int slot = i * historySize + ringIndex;
+            return OhlcvBar.builder()
+                    .symbol(symbol)
+                    .interval(INTERVALS[i].label)
+                    .start(historyStart[slot])
+                    .end(historyStart[slot] + INTERVALS[i].millis)
+                    .open(historyOpen[slot])
+                    .high(historyHigh[slot])
+                    .low(historyLow[slot])
+                    .close(historyClose[slot])
+                    .volume(historyVolume[slot])
+                    .trades(historyTrades[slot])
+                    .closed(true)
+                    .build();
+        }
+    }
+
+    @Data
+    @Builder
+    public static class Stats {
+        private int symbols;
+        private long trades;
+        private long lateTrades;
+        private long barsClosed;
+    }
+}
@@ -0,0 +1,60 @@
+package com.ansh.portfilio_tracker.Service;
+
+import com.ansh.portfilio_tracker.Classes.OhlcvBar;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Service;
+import org.springframework.util.MimeTypeUtils;
+
+/**
+ * Publishes closed OHLCV bars to {@code /topic/bars/{symbol}/{interval}} when {@code stomp.bars.enabled}.
+ * A chart subscribed to one bar topic receives one small message per bar instead of every tick
+ * on {@code /topic/stock/{symbol}}.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class BarTopicPublisher implements BarAggregator.BarListener {
+
+    private static final String TOPIC_PREFIX = "/topic/bars/";
+
+    private final BarAggregator barAggregator;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Value("${stomp.bars.enabled:true}")
+    private boolean enabled;
+
+    @PostConstruct
+    public void start() {
+        if (enabled) {
+            barAggregator.addBarListener(this);
+            log.info("Publishing closed bars under {}", TOPIC_PREFIX);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        barAggregator.removeBarListener(this);
+    }
+
+    @Override
+    public void onBar(OhlcvBar bar) {
+        try {
+            SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.create();
+            headers.setContentType(MimeTypeUtils.APPLICATION_JSON);
+            headers.setLeaveMutable(true);
+            messagingTemplate.send(TOPIC_PREFIX + bar.getSymbol() + "/" + bar.getInterval(),
+                    MessageBuilder.createMessage(objectMapper.writeValueAsBytes(bar), headers.getMessageHeaders()));
+        } catch (Exception e) {
+            log.error("Error publishing {} bar for symbol: {}", bar.getInterval(), bar.getSymbol(), e);
+        }
+    }
+}
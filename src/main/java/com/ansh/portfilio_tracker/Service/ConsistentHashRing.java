@@ -0,0 +1,97 @@
+package com.ansh.portfilio_tracker.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Consistent-hash ring over a fixed number of shards, with bounded load.
+ * Each shard owns {@code virtualNodes} points on the ring; a key belongs to the first point
+ * clockwise from its hash whose shard is below capacity. Adding a key never moves another.
+ * Not thread-safe; the caller owns the load counts.
+ */
+final class ConsistentHashRing {
+
+    private final int shards;
+    private final long[] points;
+    private final int[] owners;
+
+    ConsistentHashRing(int shards, int virtualNodes) {
+        if (shards < 1 || virtualNodes < 1) {
+            throw new IllegalArgumentException("shards and virtualNodes must be positive");
+        }
+        this.shards = shards;
+        long[][] nodes = new long[shards * virtualNodes][];
+        for (int shard = 0; shard < shards; shard++) {
+            for (int v = 0; v < virtualNodes; v++) {
+                nodes[shard * virtualNodes + v] = new long[]{hash("shard-" + shard + "#" + v), shard};
+            }
+        }
+        Arrays.sort(nodes, (a, b) -> Long.compare(a[0], b[0]));
+        points = new long[nodes.length];
+        owners = new int[nodes.length];
+        for (int i = 0; i < nodes.length; i++) {
+            points[i] = nodes[i][0];
+            owners[i] = (int) nodes[i][1];
+        }
+    }
+
+    /**
+     * @return the shard a key belongs to when no shard is full
+     */
+    int preferred(String key) {
+        return owners[firstPoint(hash(key))];
+    }
+
+    /**
+     * Walk clockwise from the key's hash to the first shard below capacity.
+     *
+     * @param key Key to place
+     * @param load Keys currently on each shard
+     * @param capacity Keys per shard, or 0 for no limit
+     * @return the shard for the key; its preferred shard when every shard is full
+     */
+    int place(String key, int[] load, int capacity) {
+        int start = firstPoint(hash(key));
+        if (capacity <= 0) {
+            return owners[start];
+        }
+        boolean[] seen = new boolean[shards];
+        int remaining = shards;
+        for (int i = 0; i < points.length && remaining > 0; i++) {
+            int shard = owners[(start + i) % points.length];
+            if (!seen[shard]) {
+                if (load[shard] < capacity) {
+                    return shard;
+                }
+                seen[shard] = true;
+                remaining--;
+            }
+        }
+        return owners[start];
+    }
+
+    private int firstPoint(long hash) {
+        int index = Arrays.binarySearch(points, hash);
+        if (index < 0) {
+            index = -index - 1;
+        }
+        return index == points.length ? 0 : index;
+    }
+
+    /**
+     * 64-bit FNV-1a followed by the MurmurHash3 finalizer, so short tickers still spread over the ring.
+     */
+    static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
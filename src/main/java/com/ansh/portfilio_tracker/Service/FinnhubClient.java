@@ -1,6 +1,10 @@
 package com.ansh.portfilio_tracker.Service;
 
 import com.ansh.portfilio_tracker.Classes.FinnhubQuoteResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
@@ -9,7 +13,15 @@ import org.springframework.web.client.RestTemplate;
 import org.springframework.web.util.UriComponentsBuilder;
 
 import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
 @Service
 @Slf4j
@@ -27,10 +39,29 @@ public class FinnhubClient {
 
     private final RestTemplate restTemplate;
     private final RealTimeStockService realTimeStockService;
+    private final QuoteCache quoteCache;
+    private final ExecutorService finnhubExecutor;
+    private final MeterRegistry meterRegistry;
+
+    private Counter realtimeLookups;
+    private Counter restLookups;
+    private Timer restSuccess;
+    private Timer restEmpty;
+    private Timer restError;
+
+    @PostConstruct
+    public void registerMeters() {
+        realtimeLookups = lookupCounter("realtime");
+        restLookups = lookupCounter("rest");
+        restSuccess = restTimer("success");
+        restEmpty = restTimer("empty");
+        restError = restTimer("error");
+    }
 
     /**
      * Fetches the current market price for a given stock symbol.
-     * First checks real-time cache if enabled, then falls back to REST API.
+     * First checks real-time cache if enabled, then falls back to the REST API
+     * through the {@link QuoteCache}. Real-time prices flagged stale are skipped.
      *
      * @param symbol Stock symbol (e.g., "AAPL", "TSLA")
      * @return Optional containing the current price, or empty if the request fails
@@ -39,7 +70,8 @@ public class FinnhubClient {
         // Try real-time cache first for faster response
         if (useRealtimeCache) {
             RealTimeStockService.StockPrice cachedPrice = realTimeStockService.getLatestPrice(symbol);
-            if (cachedPrice != null) {
+            if (cachedPrice != null && !cachedPrice.isStale()) {
+                realtimeLookups.increment();
                 log.debug("Using cached real-time price for {}: ${}", symbol, cachedPrice.getPrice());
                 // Convert to FinnhubQuoteResponse format
                 FinnhubQuoteResponse response = FinnhubQuoteResponse.builder()
@@ -50,30 +82,138 @@ public class FinnhubClient {
             }
         }
 
-        // Fallback to REST API
+        // Fallback to REST API through the quote cache
+        restLookups.increment();
+        return quoteCache.get(symbol.toUpperCase(), this::fetchQuote);
+    }
+
+    /**
+     * Non-blocking variant of {@link #getQuote(String)}. A REST call, if one is needed,
+     * runs on the Finnhub executor and is shared with concurrent requests for the same symbol.
+     *
+     * @param symbol Stock symbol (e.g., "AAPL", "TSLA")
+     * @return future completing with the quote, or empty if the request fails
+     */
+    public CompletableFuture<Optional<FinnhubQuoteResponse>> getQuoteAsync(String symbol) {
+        if (useRealtimeCache) {
+            RealTimeStockService.StockPrice cachedPrice = realTimeStockService.getLatestPrice(symbol);
+            if (cachedPrice != null && !cachedPrice.isStale()) {
+                realtimeLookups.increment();
+                return CompletableFuture.completedFuture(Optional.of(FinnhubQuoteResponse.builder()
+                        .currentPrice(cachedPrice.getPrice())
+                        .timestamp(cachedPrice.getTimestamp())
+                        .build()));
+            }
+        }
+
+        restLookups.increment();
+        return quoteCache.getAsync(symbol.toUpperCase(), this::fetchQuote, finnhubExecutor);
+    }
+
+    /**
+     * Fetches quotes for several symbols concurrently.
+     * Symbols without a quote are left out of the result.
+     *
+     * @param symbols Stock symbols
+     * @return future completing with the quotes keyed by upper-case symbol
+     */
+    public CompletableFuture<Map<String, FinnhubQuoteResponse>> getQuotesAsync(Collection<String> symbols) {
+        return getQuotesAsync(symbols, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Fetches quotes for several symbols with at most {@code maxParallelism} requests in flight.
+     * The symbols are spread over that many lanes; each lane fetches its symbols one after another.
+     * Symbols without a quote are left out of the result.
+     *
+     * @param symbols Stock symbols
+     * @param maxParallelism Maximum concurrent quote requests
+     * @return future completing with the quotes keyed by upper-case symbol
+     */
+    public CompletableFuture<Map<String, FinnhubQuoteResponse>> getQuotesAsync(Collection<String> symbols,
+                                                                              int maxParallelism) {
+        return fetchInLanes(symbols, maxParallelism, this::getQuoteAsync);
+    }
+
+    /**
+     * Fetches fresh quotes from the REST API, bypassing both the real-time price cache and any
+     * cached REST quote. Used to fill the gap after the WebSocket connection was down.
+     * Symbols without a quote are left out of the result.
+     *
+     * @param symbols Stock symbols
+     * @param maxParallelism Maximum concurrent quote requests
+     * @return future completing with the quotes keyed by upper-case symbol
+     */
+    public CompletableFuture<Map<String, FinnhubQuoteResponse>> refreshQuotesAsync(Collection<String> symbols,
+                                                                                  int maxParallelism) {
+        return fetchInLanes(symbols, maxParallelism, symbol -> {
+            quoteCache.invalidate(symbol);
+            restLookups.increment();
+            return quoteCache.getAsync(symbol, this::fetchQuote, finnhubExecutor);
+        });
+    }
+
+    /**
+     * Spreads the symbols over at most {@code maxParallelism} lanes; each lane fetches its symbols one
+     * after another. A failed fetch leaves its symbol out and the lane carries on.
+     */
+    private CompletableFuture<Map<String, FinnhubQuoteResponse>> fetchInLanes(
+            Collection<String> symbols, int maxParallelism,
+            Function<String, CompletableFuture<Optional<FinnhubQuoteResponse>>> fetch) {
+        List<String> distinct = symbols.stream().map(String::toUpperCase).distinct().toList();
+        Map<String, FinnhubQuoteResponse> quotes = new ConcurrentHashMap<>();
+        int lanes = Math.max(1, Math.min(maxParallelism, distinct.size()));
+
+        CompletableFuture<?>[] laneFutures = new CompletableFuture<?>[lanes];
+        for (int lane = 0; lane < lanes; lane++) {
+            CompletableFuture<Void> chain = CompletableFuture.completedFuture(null);
+            for (int i = lane; i < distinct.size(); i += lanes) {
+                String symbol = distinct.get(i);
+                chain = chain.thenCompose(ignored -> fetch.apply(symbol))
+                        .thenAccept(quote -> quote.ifPresent(q -> quotes.put(symbol, q)));
+            }
+            laneFutures[lane] = chain;
+        }
+
+        return CompletableFuture.allOf(laneFutures).thenApply(ignored -> quotes);
+    }
+
+    /**
+     * Calls the Finnhub REST quote endpoint.
+     *
+     * @param symbol Stock symbol (upper case)
+     * @return the quote, or empty if Finnhub has no data for the symbol
+     */
+    private Optional<FinnhubQuoteResponse> fetchQuote(String symbol) {
+        String url = UriComponentsBuilder
+                .fromHttpUrl(baseUrl + "/quote")
+                .queryParam("symbol", symbol)
+                .queryParam("token", apiKey)
+                .toUriString();
+
+        log.debug("Fetching quote from REST API for symbol: {}", symbol);
+        long start = System.nanoTime();
+        FinnhubQuoteResponse response;
         try {
-            String url = UriComponentsBuilder
-                    .fromHttpUrl(baseUrl + "/quote")
-                    .queryParam("symbol", symbol.toUpperCase())
-                    .queryParam("token", apiKey)
-                    .toUriString();
-
-            log.info("Fetching quote from REST API for symbol: {}", symbol);
-            FinnhubQuoteResponse response = restTemplate.getForObject(url, FinnhubQuoteResponse.class);
-
-            if (response != null && response.getCurrentPrice() != null) {
-                log.info("Successfully fetched quote for {}: ${}", symbol, response.getCurrentPrice());
-                // Subscribe to real-time updates for future requests
-                if (useRealtimeCache) {
-                    realTimeStockService.subscribe(symbol);
-                }
-                return Optional.of(response);
-            } else {
-                log.warn("No quote data available for symbol: {}", symbol);
-                return Optional.empty();
+            response = restTemplate.getForObject(url, FinnhubQuoteResponse.class);
+        } catch (RuntimeException e) {
+            restError.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw e;
+        }
+
+        // Finnhub answers unknown symbols with an all-zero quote
+        if (response != null && response.getCurrentPrice() != null
+                && response.getCurrentPrice().signum() != 0) {
+            restSuccess.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            log.debug("Successfully fetched quote for {}: ${}", symbol, response.getCurrentPrice());
+            // Subscribe to real-time updates for future requests
+            if (useRealtimeCache) {
+                realTimeStockService.subscribe(symbol);
             }
-        } catch (Exception e) {
-            log.error("Error fetching quote for symbol: {}", symbol, e);
+            return Optional.of(response);
+        } else {
+            restEmpty.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            log.warn("No quote data available for symbol: {}", symbol);
             return Optional.empty();
         }
     }
@@ -87,4 +227,19 @@ public class FinnhubClient {
     public Optional<BigDecimal> getCurrentPrice(String symbol) {
         return getQuote(symbol).map(FinnhubQuoteResponse::getCurrentPrice);
     }
+
+    private Counter lookupCounter(String source) {
+        return Counter.builder("finnhub.quote.lookups")
+                .description("Quote lookups by where the price came from (realtime cache or the REST quote cache)")
+                .tag("source", source)
+                .register(meterRegistry);
+    }
+
+    private Timer restTimer(String outcome) {
+        return Timer.builder("finnhub.rest.requests")
+                .description("Finnhub REST quote calls")
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
 }
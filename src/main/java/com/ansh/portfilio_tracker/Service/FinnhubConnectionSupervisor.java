@@ -0,0 +1,379 @@
+package com.ansh.portfilio_tracker.Service;
+
+import com.ansh.portfilio_tracker.Classes.FinnhubQuoteResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.Builder;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps every Finnhub WebSocket connection (one per {@link FinnhubShardRouter} shard) connected
+ * and the price cache trustworthy.
+ * <ul>
+ *     <li>Opens the connections at startup and reconnects after every drop, whether the server or
+ *     the network closed it, with exponential backoff and jitter.</li>
+ *     <li>Sends a ping once a connection has been quiet for {@code heartbeat.interval-ms}, and
+ *     drops a connection that stays silent past {@code heartbeat.timeout-ms}.</li>
+ *     <li>On every (re)connect, re-subscribes the shard's symbols in batches, then takes a REST
+ *     snapshot of those symbols so the price cache is current without waiting for trades.</li>
+ *     <li>Cached prices from a connection are flagged stale from the moment it is lost.</li>
+ * </ul>
+ * Timers, heartbeats and resubscribes run on one supervisor thread, never on a WebSocket thread.
+ * Connects block on a thread of their own and give up after {@code heartbeat.timeout-ms}, so a
+ * hung TCP or TLS handshake on one shard never stalls the others.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class FinnhubConnectionSupervisor {
+
+    private final FinnhubShardRouter shardRouter;
+    private final RealTimeStockService realTimeStockService;
+    private final FinnhubClient finnhubClient;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${finnhub.websocket.reconnect.initial-delay-ms:1000}")
+    private long initialDelayMs;
+
+    @Value("${finnhub.websocket.reconnect.max-delay-ms:60000}")
+    private long maxDelayMs;
+
+    @Value("${finnhub.websocket.heartbeat.interval-ms:10000}")
+    private long heartbeatIntervalMs;
+
+    @Value("${finnhub.websocket.heartbeat.timeout-ms:30000}")
+    private long heartbeatTimeoutMs;
+
+    @Value("${finnhub.websocket.resubscribe.batch-size:50}")
+    private int resubscribeBatchSize;
+
+    @Value("${finnhub.websocket.resubscribe.batch-delay-ms:200}")
+    private long resubscribeBatchDelayMs;
+
+    @Value("${finnhub.websocket.gap-fill.enabled:true}")
+    private boolean gapFillEnabled;
+
+    @Value("${finnhub.websocket.gap-fill.parallelism:4}")
+    private int gapFillParallelism;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    private final List<Link> links = new ArrayList<>();
+    private ScheduledExecutorService scheduler;
+    // At most one connect in flight per shard, so this stays at one thread per shard
+    private ExecutorService connector;
+    private volatile boolean stopping;
+
+    @PostConstruct
+    public void start() {
+        Thread.Builder threads = virtualThreads ? Thread.ofVirtual() : Thread.ofPlatform().daemon(true);
+        scheduler = Executors.newSingleThreadScheduledExecutor(threads.name("finnhub-supervisor").factory());
+        connector = Executors.newThreadPerTaskExecutor(threads.name("finnhub-connect-", 0).factory());
+        List<FinnhubWebSocketClient> shards = shardRouter.getShards();
+        for (int shard = 0; shard < shards.size(); shard++) {
+            Link link = new Link(shard, shards.get(shard));
+            links.add(link);
+            link.client.addConnectionListener(link);
+        }
+        scheduler.scheduleWithFixedDelay(this::checkHeartbeats, heartbeatIntervalMs, Math.max(1, heartbeatIntervalMs / 2),
+                TimeUnit.MILLISECONDS);
+
+        for (Link link : links) {
+            connector.execute(link::connect);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        stopping = true;
+        for (Link link : links) {
+            link.client.removeConnectionListener(link);
+        }
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        if (connector != null) {
+            connector.shutdownNow();
+        }
+    }
+
+    /**
+     * @return connection state and reconnect counters, one entry per shard
+     */
+    public List<Stats> getStats() {
+        List<Stats> stats = new ArrayList<>();
+        for (Link link : links) {
+            stats.add(link.stats());
+        }
+        return stats;
+    }
+
+    /**
+     * Delay before the next reconnect: the base doubles with every failed attempt up to the
+     * maximum, and the actual delay is drawn from the upper half of it so clients spread out.
+     *
+     * @param attempt Failed attempts so far (0 for the first reconnect)
+     * @return delay in milliseconds
+     */
+    long backoffMillis(int attempt) {
+        long base = initialDelayMs << Math.min(attempt, 20);
+        if (base <= 0 || base > maxDelayMs) {
+            base = maxDelayMs;
+        }
+        long half = base / 2;
+        return half + ThreadLocalRandom.current().nextLong(base - half + 1);
+    }
+
+    private void checkHeartbeats() {
+        for (Link link : links) {
+            try {
+                link.checkHeartbeat();
+            } catch (Exception e) {
+                log.error("Error checking Finnhub WebSocket heartbeat (shard {})", link.shard, e);
+            }
+        }
+    }
+
+    /**
+     * Supervision state for one connection.
+     */
+    private class Link implements FinnhubWebSocketClient.ConnectionListener {
+        private final int shard;
+        private final FinnhubWebSocketClient client;
+        private final AtomicBoolean reconnectPending = new AtomicBoolean();
+        private final AtomicInteger failedAttempts = new AtomicInteger();
+        private final AtomicLong reconnects = new AtomicLong();
+        private final AtomicLong heartbeatTimeouts = new AtomicLong();
+        private final AtomicLong snapshotsApplied = new AtomicLong();
+        private final Counter reconnectCounter;
+        private final Counter heartbeatTimeoutCounter;
+        private final Counter snapshotCounter;
+
+        private volatile long connectedSinceNanos;
+        private volatile long lastConnectedAt;
+        private volatile long lastDisconnectedAt;
+
+        Link(int shard, FinnhubWebSocketClient client) {
+            this.shard = shard;
+            this.client = client;
+            String tag = String.valueOf(shard);
+            reconnectCounter = Counter.builder("finnhub.ws.reconnects")
+                    .description("Reconnect attempts to the Finnhub WebSocket")
+                    .tag("shard", tag)
+                    .register(meterRegistry);
+            heartbeatTimeoutCounter = Counter.builder("finnhub.ws.heartbeat.timeouts")
+                    .description("Connections dropped because no frame arrived within the heartbeat timeout")
+                    .tag("shard", tag)
+                    .register(meterRegistry);
+            snapshotCounter = Counter.builder("finnhub.ws.gap.fill.quotes")
+                    .description("REST quotes written to the price cache after a reconnect")
+                    .tag("shard", tag)
+                    .register(meterRegistry);
+            Gauge.builder("finnhub.ws.connected", client, c -> c.isOpen() ? 1 : 0)
+                    .description("1 while the Finnhub WebSocket is open")
+                    .tag("shard", tag)
+                    .register(meterRegistry);
+        }
+
+        @Override
+        public void onConnected() {
+            connectedSinceNanos = System.nanoTime();
+            lastConnectedAt = System.currentTimeMillis();
+            if (!stopping) {
+                scheduler.execute(this::restoreSubscriptions);
+            }
+        }
+
+        @Override
+        public void onDisconnected(int code, String reason, boolean remote) {
+            connectedSinceNanos = 0;
+            lastDisconnectedAt = System.currentTimeMillis();
+            realTimeStockService.markPricesStale(shard);
+            if (!stopping) {
+                scheduleReconnect();
+            }
+        }
+
+        private void scheduleReconnect() {
+            if (stopping || !reconnectPending.compareAndSet(false, true)) {
+                return;
+            }
+            long delay = backoffMillis(failedAttempts.get());
+            log.info("Reconnecting shard {} to Finnhub WebSocket in {} ms (attempt {})", shard, delay,
+                    failedAttempts.get() + 1);
+            scheduler.schedule(() -> connector.execute(this::reconnect), delay, TimeUnit.MILLISECONDS);
+        }
+
+        /**
+         * First connect, on a connector thread. A failure or timeout reports a close, which schedules the reconnect.
+         */
+        private void connect() {
+            log.info("Connecting to Finnhub WebSocket (shard {})", shard);
+            try {
+                client.connectBlocking(heartbeatTimeoutMs, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                log.error("Error connecting to Finnhub WebSocket (shard {})", shard, e);
+                scheduleReconnect();
+            }
+        }
+
+        /**
+         * Runs on a connector thread: the attempt blocks for up to {@code heartbeat.timeout-ms}.
+         */
+        private void reconnect() {
+            reconnectPending.set(false);
+            if (stopping || client.isOpen()) {
+                return;
+            }
+            reconnects.incrementAndGet();
+            reconnectCounter.increment();
+            failedAttempts.incrementAndGet();
+            try {
+                if (client.reconnectBlocking(heartbeatTimeoutMs, TimeUnit.MILLISECONDS)) {
+                    return;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.warn("Reconnect of shard {} to Finnhub WebSocket failed: {}", shard, e.getMessage());
+            }
+            // A failed attempt normally reports a close as well; the pending flag keeps this to one retry
+            scheduleReconnect();
+        }
+
+        private void checkHeartbeat() {
+            if (!client.isOpen()) {
+                return;
+            }
+            long now = System.nanoTime();
+            long idleMs = TimeUnit.NANOSECONDS.toMillis(now - client.getLastFrameNanos());
+            if (idleMs >= heartbeatTimeoutMs) {
+                heartbeatTimeouts.incrementAndGet();
+                heartbeatTimeoutCounter.increment();
+                log.warn("No frame from Finnhub on shard {} for {} ms; dropping the connection", shard, idleMs);
+                realTimeStockService.markPricesStale(shard);
+                // Closing reports a disconnect, which schedules the reconnect
+                client.closeConnection(1001, "heartbeat timeout");
+                return;
+            }
+            if (idleMs >= heartbeatIntervalMs) {
+                client.sendPing();
+            }
+            // A connection that has stayed up this long is healthy; start the backoff from scratch
+            long connectedSince = connectedSinceNanos;
+            if (connectedSince != 0 && TimeUnit.NANOSECONDS.toMillis(now - connectedSince) >= heartbeatTimeoutMs) {
+                failedAttempts.set(0);
+            }
+        }
+
+        /**
+         * Re-sends a subscribe for every symbol on the shard, one batch per {@code resubscribe.batch-delay-ms},
+         * then fills the gap with REST snapshots.
+         */
+        private void restoreSubscriptions() {
+            List<String> symbols = shardRouter.symbolsOf(shard);
+            if (symbols.isEmpty()) {
+                return;
+            }
+            log.info("Re-subscribing {} symbols on shard {} after connect", symbols.size(), shard);
+            int batchSize = Math.max(1, resubscribeBatchSize);
+            for (int from = 0; from < symbols.size(); from += batchSize) {
+                List<String> batch = symbols.subList(from, Math.min(symbols.size(), from + batchSize));
+                long delay = (from / batchSize) * resubscribeBatchDelayMs;
+                scheduler.schedule(() -> resubscribe(batch), delay, TimeUnit.MILLISECONDS);
+            }
+            if (gapFillEnabled) {
+                fillGap(symbols);
+            }
+        }
+
+        private void resubscribe(List<String> batch) {
+            if (!client.isOpen()) {
+                // Dropped again; the next connect replays everything
+                return;
+            }
+            for (String symbol : batch) {
+                client.subscribe(symbol);
+            }
+        }
+
+        private void fillGap(List<String> symbols) {
+            long start = System.nanoTime();
+            finnhubClient.refreshQuotesAsync(symbols, gapFillParallelism).whenComplete((quotes, error) -> {
+                if (error != null) {
+                    log.error("Gap fill after reconnect of shard {} failed", shard, error);
+                    return;
+                }
+                int applied = 0;
+                for (Map.Entry<String, FinnhubQuoteResponse> entry : quotes.entrySet()) {
+                    FinnhubQuoteResponse quote = entry.getValue();
+                    // Finnhub quote times are in seconds; trade times in milliseconds
+                    long timestamp = quote.getTimestamp() != null ? TimeUnit.SECONDS.toMillis(quote.getTimestamp()) : 0;
+                    if (realTimeStockService.applySnapshot(entry.getKey(), quote.getCurrentPrice(), timestamp)) {
+                        applied++;
+                    }
+                }
+                snapshotsApplied.addAndGet(applied);
+                snapshotCounter.increment(applied);
+                log.info("Gap fill: {} of {} symbols on shard {} refreshed from REST in {} ms", applied,
+                        symbols.size(), shard, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            });
+        }
+
+        private Stats stats() {
+            return Stats.builder()
+                    .shard(shard)
+                    .connected(client.isOpen())
+                    .lastConnectedAt(lastConnectedAt)
+                    .lastDisconnectedAt(lastDisconnectedAt)
+                    .millisSinceLastFrame(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - client.getLastFrameNanos()))
+                    .reconnects(reconnects.get())
+                    .consecutiveFailures(failedAttempts.get())
+                    .heartbeatTimeouts(heartbeatTimeouts.get())
+                    .snapshotsApplied(snapshotsApplied.get())
+                    .trackedSymbols(shardRouter.symbolsOf(shard).size())
+                    .build();
+        }
+    }
+
+    /**
+     * State of one WebSocket connection.
+     */
+    @Data
+    @Builder
+    public static class Stats {
+        private int shard;
+        private boolean connected;
+        private long lastConnectedAt;
+        private long lastDisconnectedAt;
+        private long millisSinceLastFrame;
+        private long reconnects;
+        private int consecutiveFailures;
+        private long heartbeatTimeouts;
+        private long snapshotsApplied;
+        private int trackedSymbols;
+    }
+}
@@ -0,0 +1,53 @@
+package com.ansh.portfilio_tracker.Service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Records every frame received from Finnhub, on every shard, to {@code finnhub.websocket.record.file}
+ * for playback with the {@code FinnhubReplayServer} test tool. Off when the property is empty.
+ * Frames are queued and compressed on the recorder's own thread, never on a WebSocket reader.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class FinnhubFrameRecorder {
+
+    private final FinnhubShardRouter shardRouter;
+
+    @Value("${finnhub.websocket.record.file:}")
+    private String recordFile;
+
+    private FrameRecording.Writer writer;
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (recordFile == null || recordFile.isBlank()) {
+            return;
+        }
+        writer = FrameRecording.create(Path.of(recordFile));
+        for (FinnhubWebSocketClient client : shardRouter.getShards()) {
+            client.setFrameRecorder(writer);
+        }
+        log.info("Recording Finnhub frames to {}", recordFile);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (writer == null) {
+            return;
+        }
+        for (FinnhubWebSocketClient client : shardRouter.getShards()) {
+            client.setFrameRecorder(null);
+        }
+        writer.close();
+        log.info("Recorded {} Finnhub frames to {} ({} dropped)", writer.getFrames(), recordFile, writer.getDropped());
+    }
+}
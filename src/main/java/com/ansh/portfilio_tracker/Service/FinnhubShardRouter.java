@@ -0,0 +1,178 @@
+package com.ansh.portfilio_tracker.Service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Spreads symbol subscriptions over one or more Finnhub WebSocket connections (shards).
+ * Symbols are placed by consistent hashing, so subscribing a symbol never moves another.
+ * With {@code finnhub.websocket.max-symbols-per-connection} set, a symbol whose shard is full
+ * goes to the next shard on the ring, and moves back once its own shard has room again.
+ * Each shard has its own reader thread, so frames from different shards are decoded in parallel.
+ */
+@Service
+@Slf4j
+public class FinnhubShardRouter {
+
+    private static final int VIRTUAL_NODES = 64;
+
+    private final List<FinnhubWebSocketClient> shards;
+    private final int maxSymbolsPerShard;
+    private final ConsistentHashRing ring;
+
+    // Symbol -> shard; read without locking on the tick path
+    private final Map<String, Integer> assignments = new ConcurrentHashMap<>();
+
+    // Symbols per shard, guarded by this
+    private final int[] load;
+    private final AtomicLong moves = new AtomicLong();
+
+    /**
+     * Shard 0 is the application's {@link FinnhubWebSocketClient}; further shards are separate
+     * connections with the same API key.
+     */
+    @Autowired
+    public FinnhubShardRouter(FinnhubWebSocketClient primary,
+                              @Value("${finnhub.websocket.uri:" + FinnhubWebSocketClient.DEFAULT_URI + "}") String uri,
+                              @Value("${finnhub.api.key}") String apiKey,
+                              @Value("${finnhub.websocket.streaming-parse:true}") boolean streamingParse,
+                              @Value("${finnhub.websocket.shards:1}") int shardCount,
+                              @Value("${finnhub.websocket.max-symbols-per-connection:0}") int maxSymbolsPerShard,
+                              MeterRegistry meterRegistry) {
+        this(connections(primary, uri, apiKey, streamingParse, shardCount, meterRegistry), maxSymbolsPerShard);
+    }
+
+    public FinnhubShardRouter(List<FinnhubWebSocketClient> shards, int maxSymbolsPerShard) {
+        if (shards.isEmpty()) {
+            throw new IllegalArgumentException("At least one shard is required");
+        }
+        this.shards = List.copyOf(shards);
+        this.maxSymbolsPerShard = maxSymbolsPerShard;
+        this.ring = new ConsistentHashRing(shards.size(), VIRTUAL_NODES);
+        this.load = new int[shards.size()];
+        log.info("Finnhub ingestion over {} connection(s) (max symbols per connection: {})", shards.size(),
+                maxSymbolsPerShard > 0 ? maxSymbolsPerShard : "unlimited");
+    }
+
+    /**
+     * Assign a symbol to a shard and subscribe it there.
+     *
+     * @param symbol Stock symbol (upper case)
+     */
+    public synchronized void subscribe(String symbol) {
+        if (assignments.containsKey(symbol)) {
+            return;
+        }
+        int shard = ring.place(symbol, load, maxSymbolsPerShard);
+        if (maxSymbolsPerShard > 0 && load[shard] >= maxSymbolsPerShard) {
+            log.warn("Every connection is at {} symbols; {} goes over the limit on shard {}",
+                    maxSymbolsPerShard, symbol, shard);
+        }
+        assignments.put(symbol, shard);
+        load[shard]++;
+        shards.get(shard).subscribe(symbol);
+    }
+
+    /**
+     * Unsubscribe a symbol from its shard, then move back any symbols displaced by a full shard.
+     *
+     * @param symbol Stock symbol (upper case)
+     */
+    public synchronized void unsubscribe(String symbol) {
+        Integer shard = assignments.remove(symbol);
+        if (shard == null) {
+            return;
+        }
+        load[shard]--;
+        shards.get(shard).unsubscribe(symbol);
+        rebalance();
+    }
+
+    /**
+     * @param symbol Stock symbol (upper case)
+     * @return the shard the symbol is assigned to, or the shard it would be assigned to
+     */
+    public int shardOf(String symbol) {
+        if (shards.size() == 1) {
+            return 0;
+        }
+        Integer shard = assignments.get(symbol);
+        return shard != null ? shard : ring.preferred(symbol);
+    }
+
+    /**
+     * @param shard Shard index
+     * @return the symbols currently assigned to the shard
+     */
+    public List<String> symbolsOf(int shard) {
+        List<String> symbols = new ArrayList<>();
+        assignments.forEach((symbol, assigned) -> {
+            if (assigned == shard) {
+                symbols.add(symbol);
+            }
+        });
+        return symbols;
+    }
+
+    /**
+     * @return one client per shard, indexed by shard
+     */
+    public List<FinnhubWebSocketClient> getShards() {
+        return shards;
+    }
+
+    /**
+     * @return symbols moved between shards by rebalancing so far
+     */
+    public long getMoves() {
+        return moves.get();
+    }
+
+    /**
+     * Re-place every symbol that is not on its preferred shard. A symbol only ever moves to a
+     * shard earlier in its walk around the ring, so symbols on their preferred shard stay put.
+     */
+    private void rebalance() {
+        if (maxSymbolsPerShard <= 0) {
+            return;
+        }
+        for (Map.Entry<String, Integer> entry : assignments.entrySet()) {
+            String symbol = entry.getKey();
+            int current = entry.getValue();
+            if (current == ring.preferred(symbol)) {
+                continue;
+            }
+            load[current]--;
+            int target = ring.place(symbol, load, maxSymbolsPerShard);
+            load[target]++;
+            if (target != current) {
+                // Trades for the symbol are missed between the two frames
+                shards.get(current).unsubscribe(symbol);
+                assignments.put(symbol, target);
+                shards.get(target).subscribe(symbol);
+                moves.incrementAndGet();
+                log.info("Moved {} from shard {} to shard {}", symbol, current, target);
+            }
+        }
+    }
+
+    private static List<FinnhubWebSocketClient> connections(FinnhubWebSocketClient primary, String uri, String apiKey,
+                                                            boolean streamingParse, int shardCount,
+                                                            MeterRegistry meterRegistry) {
+        List<FinnhubWebSocketClient> connections = new ArrayList<>();
+        connections.add(primary);
+        for (int i = 1; i < shardCount; i++) {
+            connections.add(new FinnhubWebSocketClient(uri, apiKey, streamingParse, i, meterRegistry));
+        }
+        return connections;
+    }
+}
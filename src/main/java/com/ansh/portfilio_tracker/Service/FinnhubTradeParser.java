@@ -0,0 +1,242 @@
+package com.ansh.portfilio_tracker.Service;
+
+import com.ansh.portfilio_tracker.Classes.TradeRecord;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.io.NumberInput;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Streaming decoder for Finnhub WebSocket frames.
+ * Walks the frame with a Jackson {@link JsonParser} and writes each trade of a
+ * "trade" frame straight into a pooled {@link TradeRecord}, without building a
+ * {@code JsonNode} tree or per-trade {@code BigDecimal}s.
+ *
+ * Not thread-safe: a single instance is meant to be used by the WebSocket reader thread.
+ */
+public class FinnhubTradeParser {
+
+    /**
+     * Frame type as reported by the "type" field.
+     */
+    public enum FrameType {
+        TRADE,
+        PING,
+        OTHER
+    }
+
+    private static final char[] TYPE_TRADE = "trade".toCharArray();
+    private static final char[] TYPE_PING = "ping".toCharArray();
+
+    private final JsonFactory jsonFactory;
+
+    // Pooled trade records, reused frame after frame
+    private TradeRecord[] trades = new TradeRecord[64];
+    private int tradeCount;
+
+    // Canonical symbol strings so repeated symbols do not allocate a new String per trade
+    private String[] symbolTable = new String[256];
+    private int symbolCount;
+
+    public FinnhubTradeParser() {
+        this(new JsonFactory());
+    }
+
+    public FinnhubTradeParser(JsonFactory jsonFactory) {
+        this.jsonFactory = jsonFactory;
+        for (int i = 0; i < trades.length; i++) {
+            trades[i] = new TradeRecord();
+        }
+    }
+
+    /**
+     * Parse a frame. For {@link FrameType#TRADE} frames the decoded trades are available
+     * through {@link #getTrades()} and {@link #getTradeCount()} until the next call.
+     *
+     * @param message raw frame text
+     * @return type of the frame
+     * @throws IOException if the frame is not valid JSON
+     */
+    public FrameType parse(String message) throws IOException {
+        tradeCount = 0;
+        FrameType type = FrameType.OTHER;
+
+        try (JsonParser parser = jsonFactory.createParser(message)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return FrameType.OTHER;
+            }
+
+            String field;
+            while ((field = parser.nextFieldName()) != null) {
+                JsonToken value = parser.nextToken();
+                if ("type".equals(field) && value == JsonToken.VALUE_STRING) {
+                    type = frameType(parser);
+                } else if ("data".equals(field) && value == JsonToken.START_ARRAY) {
+                    readTrades(parser);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+
+        if (type != FrameType.TRADE) {
+            tradeCount = 0;
+        }
+        return type;
+    }
+
+    /**
+     * @return pooled trade records; only the first {@link #getTradeCount()} entries are valid
+     */
+    public TradeRecord[] getTrades() {
+        return trades;
+    }
+
+    /**
+     * @return number of trades decoded from the last frame
+     */
+    public int getTradeCount() {
+        return tradeCount;
+    }
+
+    private FrameType frameType(JsonParser parser) throws IOException {
+        char[] buf = parser.getTextCharacters();
+        int offset = parser.getTextOffset();
+        int length = parser.getTextLength();
+        if (matches(TYPE_TRADE, buf, offset, length)) {
+            return FrameType.TRADE;
+        }
+        if (matches(TYPE_PING, buf, offset, length)) {
+            return FrameType.PING;
+        }
+        return FrameType.OTHER;
+    }
+
+    private void readTrades(JsonParser parser) throws IOException {
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            if (token != JsonToken.START_OBJECT) {
+                parser.skipChildren();
+                continue;
+            }
+
+            TradeRecord trade = nextRecord();
+            String field;
+            while ((field = parser.nextFieldName()) != null) {
+                JsonToken value = parser.nextToken();
+                switch (field) {
+                    case "s" -> trade.setSymbol(value == JsonToken.VALUE_STRING ? internSymbol(parser) : null);
+                    case "p" -> trade.setPrice(readDouble(parser, value));
+                    case "t" -> trade.setTimestamp(value == JsonToken.VALUE_NUMBER_INT ? parser.getLongValue() : 0L);
+                    case "v" -> trade.setVolume(readDouble(parser, value));
+                    default -> {
+                    }
+                }
+                // A nested value, in any field, is skipped whole so the next name is read at this level
+                parser.skipChildren();
+            }
+
+            // Drop trades without a symbol rather than handing out half-filled records
+            if (trade.getSymbol() == null) {
+                tradeCount--;
+            }
+        }
+    }
+
+    private TradeRecord nextRecord() {
+        if (tradeCount == trades.length) {
+            int oldLength = trades.length;
+            trades = Arrays.copyOf(trades, oldLength * 2);
+            for (int i = oldLength; i < trades.length; i++) {
+                trades[i] = new TradeRecord();
+            }
+        }
+        TradeRecord trade = trades[tradeCount++];
+        trade.clear();
+        return trade;
+    }
+
+    private static double readDouble(JsonParser parser, JsonToken value) throws IOException {
+        if (value == JsonToken.VALUE_NUMBER_INT) {
+            return parser.getLongValue();
+        }
+        if (value == JsonToken.VALUE_NUMBER_FLOAT) {
+            // Parse from the parser's char buffer instead of going through an intermediate String
+            return NumberInput.parseDouble(parser.getTextCharacters(), parser.getTextOffset(),
+                    parser.getTextLength(), true);
+        }
+        return 0d;
+    }
+
+    private String internSymbol(JsonParser parser) throws IOException {
+        char[] buf = parser.getTextCharacters();
+        int offset = parser.getTextOffset();
+        int length = parser.getTextLength();
+
+        int hash = 0;
+        for (int i = 0; i < length; i++) {
+            hash = 31 * hash + buf[offset + i];
+        }
+
+        int mask = symbolTable.length - 1;
+        int index = (hash ^ (hash >>> 16)) & mask;
+        while (true) {
+            String existing = symbolTable[index];
+            if (existing == null) {
+                String symbol = new String(buf, offset, length);
+                symbolTable[index] = symbol;
+                if (++symbolCount * 2 > symbolTable.length) {
+                    growSymbolTable();
+                }
+                return symbol;
+            }
+            if (existing.hashCode() == hash && matches(existing, buf, offset, length)) {
+                return existing;
+            }
+            index = (index + 1) & mask;
+        }
+    }
+
+    private void growSymbolTable() {
+        String[] old = symbolTable;
+        symbolTable = new String[old.length * 2];
+        int mask = symbolTable.length - 1;
+        for (String symbol : old) {
+            if (symbol != null) {
+                int hash = symbol.hashCode();
+                int index = (hash ^ (hash >>> 16)) & mask;
+                while (symbolTable[index] != null) {
+                    index = (index + 1) & mask;
+                }
+                symbolTable[index] = symbol;
+            }
+        }
+    }
+
+    private static boolean matches(String expected, char[] buf, int offset, int length) {
+        if (expected.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (expected.charAt(i) != buf[offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean matches(char[] expected, char[] buf, int offset, int length) {
+        if (expected.length != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (expected[i] != buf[offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -1,48 +1,153 @@
 package com.ansh.portfilio_tracker.Service;
 
+import com.ansh.portfilio_tracker.Classes.TradeRecord;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
+import org.java_websocket.WebSocket;
 import org.java_websocket.client.WebSocketClient;
+import org.java_websocket.enums.ReadyState;
+import org.java_websocket.framing.CloseFrame;
+import org.java_websocket.framing.Framedata;
 import org.java_websocket.handshake.ServerHandshake;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
+import java.net.Socket;
 import java.net.URI;
+import java.time.Duration;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 
 /**
  * WebSocket client for Finnhub real-time stock data.
  * Connects to Finnhub's WebSocket API and streams live trade data.
+ * Reconnecting after a drop is left to {@link FinnhubConnectionSupervisor}, which listens for
+ * open and close events and watches {@link #getLastFrameNanos()} for a silent connection.
  */
 @Slf4j
 @Component
 public class FinnhubWebSocketClient extends WebSocketClient {
 
+    public static final String DEFAULT_URI = "wss://ws.finnhub.io";
+
+    private static final long CONNECT_POLL_MS = 20;
+
     private final ObjectMapper objectMapper = new ObjectMapper();
     private final Map<String, Consumer<JsonNode>> messageHandlers = new ConcurrentHashMap<>();
+    private final Map<String, TradeHandler> tradeHandlers = new ConcurrentHashMap<>();
+    private final List<ConnectionListener> connectionListeners = new CopyOnWriteArrayList<>();
+    private final FinnhubTradeParser tradeParser = new FinnhubTradeParser(objectMapper.getFactory());
     private final String apiKey;
+    private final boolean streamingParse;
+
+    // Bound once so the reader thread records without lookups or allocation
+    private final Counter ticksReceived;
+    private final Counter parseErrors;
+    private final Timer streamingParseTimer;
+    private final Timer treeParseTimer;
+
+    // When the last frame (data, ping or pong) arrived, for heartbeat checks
+    private volatile long lastFrameNanos = System.nanoTime();
+
+    // Raw frame recorder, null unless recording
+    private volatile FrameRecording.Writer frameRecorder;
+
+    public FinnhubWebSocketClient(String apiKey, boolean streamingParse, MeterRegistry meterRegistry) {
+        this(DEFAULT_URI, apiKey, streamingParse, meterRegistry);
+    }
+
+    /**
+     * @param uri Upstream endpoint; the API key is appended as the {@code token} query parameter
+     */
+    @Autowired
+    public FinnhubWebSocketClient(@Value("${finnhub.websocket.uri:" + DEFAULT_URI + "}") String uri,
+                                  @Value("${finnhub.api.key}") String apiKey,
+                                  @Value("${finnhub.websocket.streaming-parse:true}") boolean streamingParse,
+                                  MeterRegistry meterRegistry) {
+        this(uri, apiKey, streamingParse, 0, meterRegistry);
+    }
 
-    public FinnhubWebSocketClient(@Value("${finnhub.api.key}") String apiKey) {
-        super(URI.create("wss://ws.finnhub.io?token=" + apiKey));
+    /**
+     * @param uri Upstream endpoint; the API key is appended as the {@code token} query parameter
+     * @param shard Index of the connection in the shard router, used to tag its meters
+     */
+    public FinnhubWebSocketClient(String uri, String apiKey, boolean streamingParse, int shard,
+                                  MeterRegistry meterRegistry) {
+        super(URI.create(uri + (uri.contains("?") ? "&" : "?") + "token=" + apiKey));
         this.apiKey = apiKey;
-        log.info("Finnhub WebSocket client initialized");
+        this.streamingParse = streamingParse;
+        String shardTag = String.valueOf(shard);
+        this.ticksReceived = Counter.builder("finnhub.ws.ticks")
+                .description("Trades received over the Finnhub WebSocket")
+                .tag("shard", shardTag)
+                .register(meterRegistry);
+        this.parseErrors = Counter.builder("finnhub.ws.parse.errors")
+                .description("WebSocket frames that could not be decoded")
+                .tag("shard", shardTag)
+                .register(meterRegistry);
+        this.streamingParseTimer = parseTimer("streaming", shardTag, meterRegistry);
+        this.treeParseTimer = parseTimer("tree", shardTag, meterRegistry);
+        log.info("Finnhub WebSocket client initialized (streaming parse: {})", streamingParse);
     }
 
     @Override
     public void onOpen(ServerHandshake handshakedata) {
         log.info("Finnhub WebSocket connection opened");
+        lastFrameNanos = System.nanoTime();
+        for (ConnectionListener listener : connectionListeners) {
+            try {
+                listener.onConnected();
+            } catch (Exception e) {
+                log.error("Error in connection listener", e);
+            }
+        }
     }
 
     @Override
     public void onMessage(String message) {
+        lastFrameNanos = System.nanoTime();
+        FrameRecording.Writer recorder = frameRecorder;
+        if (recorder != null) {
+            recorder.write(message);
+        }
+        // Trade frames go through the streaming parser when anyone consumes decoded trades
+        if (streamingParse && !tradeHandlers.isEmpty()) {
+            try {
+                long start = System.nanoTime();
+                FinnhubTradeParser.FrameType type = tradeParser.parse(message);
+                streamingParseTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                if (type == FinnhubTradeParser.FrameType.TRADE) {
+                    ticksReceived.increment(tradeParser.getTradeCount());
+                    dispatchTrades(tradeParser.getTrades(), tradeParser.getTradeCount());
+                    return;
+                }
+            } catch (Exception e) {
+                parseErrors.increment();
+                log.error("Error processing WebSocket message: {}", message, e);
+                return;
+            }
+        }
+
         try {
+            long start = System.nanoTime();
             JsonNode jsonNode = objectMapper.readTree(message);
+            treeParseTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
             String type = jsonNode.has("type") ? jsonNode.get("type").asText() : "unknown";
 
             log.debug("Received WebSocket message - Type: {}", type);
+            if ("trade".equals(type) && jsonNode.path("data").isArray()) {
+                ticksReceived.increment(jsonNode.get("data").size());
+            }
 
             // Notify all registered handlers
             messageHandlers.values().forEach(handler -> {
@@ -53,6 +158,7 @@ public class FinnhubWebSocketClient extends WebSocketClient {
                 }
             });
         } catch (Exception e) {
+            parseErrors.increment();
             log.error("Error processing WebSocket message: {}", message, e);
         }
     }
@@ -61,18 +167,73 @@ public class FinnhubWebSocketClient extends WebSocketClient {
     public void onClose(int code, String reason, boolean remote) {
         log.warn("Finnhub WebSocket connection closed - Code: {}, Reason: {}, Remote: {}",
                 code, reason, remote);
-
-        // Attempt to reconnect after 5 seconds
-        if (remote) {
-            scheduleReconnect();
+        for (ConnectionListener listener : connectionListeners) {
+            try {
+                listener.onDisconnected(code, reason, remote);
+            } catch (Exception e) {
+                log.error("Error in connection listener", e);
+            }
         }
     }
 
+    @Override
+    public void onWebsocketPong(WebSocket conn, Framedata f) {
+        lastFrameNanos = System.nanoTime();
+    }
+
     @Override
     public void onError(Exception ex) {
         log.error("Finnhub WebSocket error", ex);
     }
 
+    /**
+     * Connect, giving up on an attempt that has not opened within the timeout. A timed-out attempt
+     * (a hung TCP connect, TLS or WebSocket handshake) is closed, which reports a disconnect.
+     * Blocks the caller; never call it from a WebSocket thread.
+     */
+    @Override
+    public boolean connectBlocking(long timeout, TimeUnit unit) throws InterruptedException {
+        if (super.connectBlocking(timeout, unit)) {
+            return true;
+        }
+        abandonConnect();
+        return false;
+    }
+
+    /**
+     * Close the previous connection and connect again, with the same timeout as
+     * {@link #connectBlocking(long, TimeUnit)}.
+     */
+    public boolean reconnectBlocking(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        reconnect();
+        while (getReadyState() == ReadyState.NOT_YET_CONNECTED && System.nanoTime() < deadline) {
+            Thread.sleep(CONNECT_POLL_MS);
+        }
+        if (isOpen()) {
+            return true;
+        }
+        abandonConnect();
+        return false;
+    }
+
+    private void abandonConnect() {
+        if (getReadyState() != ReadyState.NOT_YET_CONNECTED) {
+            return;
+        }
+        log.warn("Finnhub WebSocket did not open in time; abandoning the attempt");
+        closeConnection(CloseFrame.NEVER_CONNECTED, "connect timeout");
+        // Unblocks the client's reader thread if it is stuck in the connect or handshake
+        Socket socket = getSocket();
+        if (socket != null) {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                log.debug("Error closing abandoned socket", e);
+            }
+        }
+    }
+
     /**
      * Subscribe to real-time trades for a stock symbol.
      *
@@ -127,18 +288,109 @@ public class FinnhubWebSocketClient extends WebSocketClient {
     }
 
     /**
-     * Schedule a reconnection attempt.
+     * Register a handler for decoded trades. While streaming parse is enabled and at least
+     * one trade handler is registered, "trade" frames are delivered here instead of to the
+     * {@link JsonNode} message handlers.
+     *
+     * @param handlerId Unique identifier for the handler
+     * @param handler Handler receiving batches of decoded trades
+     */
+    public void registerTradeHandler(String handlerId, TradeHandler handler) {
+        tradeHandlers.put(handlerId, handler);
+        log.info("Registered trade handler: {}", handlerId);
+    }
+
+    /**
+     * Remove a trade handler.
+     *
+     * @param handlerId Handler identifier to remove
+     */
+    public void removeTradeHandler(String handlerId) {
+        tradeHandlers.remove(handlerId);
+        log.info("Removed trade handler: {}", handlerId);
+    }
+
+    /**
+     * Register a listener for connection open and close events.
+     *
+     * @param listener Listener to add
+     */
+    public void addConnectionListener(ConnectionListener listener) {
+        connectionListeners.add(listener);
+    }
+
+    /**
+     * Remove a connection listener.
+     *
+     * @param listener Listener to remove
+     */
+    public void removeConnectionListener(ConnectionListener listener) {
+        connectionListeners.remove(listener);
+    }
+
+    /**
+     * Record every inbound frame, before decoding, until set back to null.
+     *
+     * @param recorder Recording to append to, or null to stop recording
      */
-    private void scheduleReconnect() {
-        new Thread(() -> {
+    public void setFrameRecorder(FrameRecording.Writer recorder) {
+        this.frameRecorder = recorder;
+    }
+
+    /**
+     * @return {@link System#nanoTime()} of the last frame received, or of the last open
+     */
+    public long getLastFrameNanos() {
+        return lastFrameNanos;
+    }
+
+    /**
+     * @return true if trade frames are decoded with the streaming parser
+     */
+    public boolean isStreamingParse() {
+        return streamingParse;
+    }
+
+    private void dispatchTrades(TradeRecord[] trades, int count) {
+        if (count == 0) {
+            return;
+        }
+        for (TradeHandler handler : tradeHandlers.values()) {
             try {
-                Thread.sleep(5000);
-                log.info("Attempting to reconnect to Finnhub WebSocket...");
-                this.reconnect();
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                log.error("Reconnection interrupted", e);
+                handler.onTrades(trades, count);
+            } catch (Exception e) {
+                log.error("Error in trade handler", e);
             }
-        }).start();
+        }
+    }
+
+    private static Timer parseTimer(String parser, String shard, MeterRegistry meterRegistry) {
+        return Timer.builder("finnhub.ws.parse")
+                .description("Time to decode one WebSocket frame")
+                .tag("parser", parser)
+                .tag("shard", shard)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofNanos(500))
+                .maximumExpectedValue(Duration.ofMillis(50))
+                .register(meterRegistry);
+    }
+
+    /**
+     * Listener for the connection opening and closing. Called on the WebSocket thread,
+     * which must not be used to reconnect.
+     */
+    public interface ConnectionListener {
+        void onConnected();
+
+        void onDisconnected(int code, String reason, boolean remote);
+    }
+
+    /**
+     * Handler for trades decoded by the streaming parser.
+     * The records are pooled and only valid for the duration of the call.
+     */
+    @FunctionalInterface
+    public interface TradeHandler {
+        void onTrades(TradeRecord[] trades, int count);
     }
 }
@@ -0,0 +1,183 @@
+package com.ansh.portfilio_tracker.Service;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * File format for raw WebSocket frames with their arrival times, for replaying a market session offline.
+ * <p>
+ * The file is gzip-compressed. It starts with a magic number, a version byte and the wall-clock
+ * time of the first frame; then each frame is the microseconds since the previous frame and the
+ * UTF-8 length as unsigned varints, followed by the UTF-8 bytes. Recordings are read back by the
+ * replay tooling in the test sources.
+ */
+public final class FrameRecording {
+
+    static final int MAGIC = 0x46484652; // "FHFR"
+    static final int VERSION = 1;
+
+    // Frames waiting to be compressed; a full queue drops frames rather than stall a reader thread
+    private static final int QUEUE_CAPACITY = 1 << 16;
+    private static final int DRAIN_BATCH = 1024;
+
+    private FrameRecording() {
+    }
+
+    /**
+     * Open a recording for writing, replacing any existing file.
+     *
+     * @param file Recording file
+     * @return writer; close it to flush the file
+     * @throws IOException if the file cannot be created
+     */
+    public static Writer create(Path file) throws IOException {
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        return new Writer(Files.newOutputStream(file), QUEUE_CAPACITY);
+    }
+
+    private static void writeVarint(OutputStream out, long value) throws IOException {
+        while ((value & ~0x7fL) != 0) {
+            out.write((int) (value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    /**
+     * Appends frames as they arrive. Safe to share between WebSocket reader threads: {@link #write}
+     * only timestamps the frame and queues it, and a single recorder thread encodes and compresses.
+     */
+    @Slf4j
+    public static final class Writer implements Closeable {
+
+        private final DataOutputStream out;
+        private final BlockingQueue<Pending> queue;
+        private final Thread thread;
+        private final AtomicLong dropped = new AtomicLong();
+
+        // Recorder-thread state
+        private long lastNanos;
+        private volatile long frames;
+        private volatile boolean failed;
+        private volatile boolean closed;
+
+        private Writer(OutputStream file, int queueCapacity) throws IOException {
+            this.out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(file, 1 << 16), 1 << 16));
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            out.writeLong(System.currentTimeMillis());
+            this.queue = new ArrayBlockingQueue<>(queueCapacity);
+            this.thread = new Thread(this::drain, "frame-recorder");
+            this.thread.setDaemon(true);
+            this.thread.start();
+        }
+
+        /**
+         * Queue a frame, timed now. Never blocks; a frame that finds the queue full is dropped and counted.
+         * After a failed write recording stops.
+         *
+         * @param text Frame payload
+         */
+        public void write(String text) {
+            if (closed || failed) {
+                return;
+            }
+            if (!queue.offer(new Pending(System.nanoTime(), text))) {
+                dropped.incrementAndGet();
+            }
+        }
+
+        /**
+         * @return frames written to the file so far
+         */
+        public long getFrames() {
+            return frames;
+        }
+
+        /**
+         * @return frames dropped because the recorder thread fell behind
+         */
+        public long getDropped() {
+            return dropped.get();
+        }
+
+        /**
+         * Write the frames still queued and close the file.
+         */
+        @Override
+        public void close() {
+            closed = true;
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            try {
+                out.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private void drain() {
+            List<Pending> batch = new ArrayList<>(DRAIN_BATCH);
+            while (!closed || !queue.isEmpty()) {
+                try {
+                    Pending first = queue.poll(100, TimeUnit.MILLISECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+                    batch.add(first);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                queue.drainTo(batch, DRAIN_BATCH - 1);
+                for (Pending pending : batch) {
+                    append(pending);
+                }
+                batch.clear();
+            }
+        }
+
+        private void append(Pending pending) {
+            if (failed) {
+                return;
+            }
+            try {
+                writeVarint(out, frames == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(pending.nanos - lastNanos));
+                byte[] bytes = pending.text.getBytes(StandardCharsets.UTF_8);
+                writeVarint(out, bytes.length);
+                out.write(bytes);
+                // Measure the next gap from this frame's whole-microsecond time so offsets do not drift
+                lastNanos = frames == 0 ? pending.nanos : lastNanos + TimeUnit.MICROSECONDS.toNanos(
+                        TimeUnit.NANOSECONDS.toMicros(pending.nanos - lastNanos));
+                frames++;
+            } catch (IOException e) {
+                failed = true;
+                log.error("Frame recording failed; no further frames will be recorded", e);
+            }
+        }
+
+        private record Pending(long nanos, String text) {
+        }
+    }
+}
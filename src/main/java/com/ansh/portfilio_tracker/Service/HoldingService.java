@@ -1,15 +1,22 @@
 package com.ansh.portfilio_tracker.Service;
 
 import com.ansh.portfilio_tracker.Classes.CreateHoldingRequest;
+import com.ansh.portfilio_tracker.Classes.FinnhubQuoteResponse;
 import com.ansh.portfilio_tracker.Classes.Holding;
 import com.ansh.portfilio_tracker.Repo.HoldingRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -19,8 +26,29 @@ import java.util.UUID;
 @Transactional
 public class HoldingService {
 
+    /**
+     * How GET endpoints value holdings.
+     * PERSIST writes refreshed market values back on every read;
+     * MARK_TO_MARKET computes them in memory and leaves persistence to {@link MarketSnapshotWriter}.
+     */
+    public enum ValuationMode {
+        PERSIST,
+        MARK_TO_MARKET
+    }
+
     private final HoldingRepository holdingRepository;
     private final FinnhubClient finnhubClient;
+    private final MarketSnapshotWriter marketSnapshotWriter;
+    private final PortfolioValuationEngine valuationEngine;
+    private final SymbolPositionIndex positionIndex;
+    private final TransactionTemplate transactionTemplate;
+    private final PositionLocks positionLocks;
+
+    @Value("${portfolio.refresh.max-parallelism:8}")
+    private int refreshMaxParallelism;
+
+    @Value("${portfolio.valuation.mode:PERSIST}")
+    private ValuationMode valuationMode;
 
     /**
      * Get holding by symbol (first match across all portfolios).
@@ -29,6 +57,16 @@ public class HoldingService {
      * @return holding or null if not found
      */
     public Holding getHolding(String symbol) {
+        if (isMarkToMarket()) {
+            Holding holding = holdingRepository.findFirstReadOnlyBySymbol(symbol).orElse(null);
+            if (holding == null) {
+                log.warn("Holding not found for symbol: {}", symbol);
+                return null;
+            }
+            markToMarket(List.of(holding));
+            return holding;
+        }
+
         Optional<Holding> holdingOpt = holdingRepository.findFirstBySymbol(symbol);
 
         if (holdingOpt.isEmpty()) {
@@ -53,27 +91,33 @@ public class HoldingService {
     }
 
     /**
-     * Create a new holding.
+     * Create a new holding, or replace the position of an existing holding for the same symbol.
      *
      * @param request holding creation request
-     * @return created holding
+     * @return created or updated holding
      */
     public Holding createHolding(CreateHoldingRequest request) {
-        Holding holding = Holding.builder()
+        String symbol = request.getSymbol().toUpperCase();
+        // Builder-created holdings are persisted as new, so an existing row must be loaded and updated
+        Optional<Holding> existing = holdingRepository.findByPortfolioIdAndSymbol(request.getPortfolioId(), symbol);
+        Holding holding = existing.orElseGet(() -> Holding.builder()
                 .portfolioId(request.getPortfolioId())
-                .symbol(request.getSymbol().toUpperCase())
-                .name(request.getName())
-                .quantity(request.getQuantity())
-                .avgPriceInBaseCurrency(request.getAvgPriceInBaseCurrency())
-                .build();
+                .symbol(symbol)
+                .build());
+        holding.setName(request.getName());
+        holding.setQuantity(request.getQuantity());
+        holding.setAvgPriceInBaseCurrency(request.getAvgPriceInBaseCurrency());
 
         holdingRepository.save(holding);
-        log.info("Created holding for {} in portfolio {}", holding.getSymbol(), holding.getPortfolioId());
+        log.info("{} holding for {} in portfolio {}", existing.isPresent() ? "Updated" : "Created",
+                holding.getSymbol(), holding.getPortfolioId());
 
         // Fetch live price immediately after creation
         refreshMarketPrice(request.getPortfolioId(), holding.getSymbol());
 
-        return holdingRepository.findByPortfolioIdAndSymbol(request.getPortfolioId(), holding.getSymbol()).orElse(holding);
+        Holding created = holdingRepository.findByPortfolioIdAndSymbol(request.getPortfolioId(), holding.getSymbol()).orElse(holding);
+        valuationEngine.onHoldingSaved(created);
+        return created;
     }
 
     /**
@@ -95,20 +139,145 @@ public class HoldingService {
         refreshMarketPriceInternal(holding, symbol);
     }
 
+    /**
+     * Revalue a holding at the current market price after a trade or rebuild has committed.
+     * Must be called with no position lock or transaction held: the quote is fetched first, so a slow
+     * Finnhub call never stalls other trades on the stripe, and only the short write takes the
+     * position lock again. A failure leaves the previous market price in place.
+     *
+     * @param portfolioId portfolio ID
+     * @param symbol stock symbol (upper case)
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void refreshMarketPriceAfterWrite(UUID portfolioId, String symbol) {
+        try {
+            Optional<BigDecimal> price = finnhubClient.getCurrentPrice(symbol);
+            if (price.isEmpty()) {
+                log.warn("Failed to fetch market price for symbol: {}", symbol);
+                return;
+            }
+            valuationEngine.onPrice(symbol, price.get().doubleValue());
+            positionLocks.withLock(portfolioId, symbol, () -> transactionTemplate.execute(status -> {
+                holdingRepository.findByPortfolioIdAndSymbol(portfolioId, symbol).ifPresent(holding -> {
+                    applyMarketPrice(holding, price.get());
+                    holdingRepository.save(holding);
+                });
+                return null;
+            }));
+        } catch (RuntimeException e) {
+            log.warn("Could not refresh market price of {}: {}", symbol, e.getMessage());
+        }
+    }
+
     /**
      * Refresh market price for all holdings with a given symbol.
+     * Positions come from the {@link SymbolPositionIndex} rather than a table scan; the price is
+     * fetched once and queued for every holding on the {@link MarketSnapshotWriter}.
      *
      * @param symbol stock symbol
      */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public void refreshMarketPriceForSymbol(String symbol) {
-        List<Holding> holdings = holdingRepository.findBySymbol(symbol);
+        String upperSymbol = symbol.toUpperCase();
+        SymbolPositionIndex.Positions positions = positionIndex.get(upperSymbol);
 
-        if (holdings.isEmpty()) {
+        if (positions == null) {
             log.warn("No holdings found for symbol: {}", symbol);
             return;
         }
 
-        holdings.forEach(holding -> refreshMarketPriceInternal(holding, symbol));
+        Optional<BigDecimal> priceOpt = finnhubClient.getCurrentPrice(upperSymbol);
+        if (priceOpt.isEmpty()) {
+            log.warn("Failed to fetch market price for symbol: {}", symbol);
+            return;
+        }
+
+        BigDecimal price = priceOpt.get();
+        valuationEngine.onPrice(upperSymbol, price.doubleValue());
+
+        // The writer derives value and unrealized profit from each row when it flushes
+        for (int i = 0; i < positions.size(); i++) {
+            marketSnapshotWriter.record(positions.portfolioId(i), upperSymbol, price, "USD");
+        }
+        log.debug("Revalued {} holdings of {} at {}", positions.size(), upperSymbol, price);
+    }
+
+    /**
+     * Refresh market prices for a set of already-loaded holdings in one pass.
+     * Prices for the distinct symbols are fetched concurrently (at most
+     * {@code portfolio.refresh.max-parallelism} at a time), the holdings are updated in memory
+     * and all changes are written back with a single batched save.
+     * The quotes are fetched with no transaction open, so no connection is held while waiting on
+     * Finnhub; only the save runs in a transaction of its own. Callers must not hold a transaction.
+     *
+     * @param holdings holdings to refresh, updated in place
+     * @return the same holdings
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<Holding> refreshMarketPrices(List<Holding> holdings) {
+        List<Holding> updated = applyMarketPrices(holdings);
+        if (!updated.isEmpty()) {
+            transactionTemplate.executeWithoutResult(status -> holdingRepository.saveAll(updated));
+        }
+        log.info("Updated market prices for {} of {} holdings", updated.size(), holdings.size());
+        return holdings;
+    }
+
+    /**
+     * Value holdings at current market prices without writing them.
+     * Holdings should be loaded read-only so the in-memory changes are never flushed;
+     * the valuations are queued on the {@link MarketSnapshotWriter} instead.
+     *
+     * @param holdings holdings to value, updated in place
+     * @return the same holdings
+     */
+    public List<Holding> markToMarket(List<Holding> holdings) {
+        applyMarketPrices(holdings).forEach(marketSnapshotWriter::record);
+        return holdings;
+    }
+
+    /**
+     * @return true if GET endpoints value holdings in memory instead of persisting on read
+     */
+    public boolean isMarkToMarket() {
+        return valuationMode == ValuationMode.MARK_TO_MARKET;
+    }
+
+    /**
+     * Fetch prices for the distinct symbols concurrently and apply them in memory.
+     *
+     * @return holdings that received a price
+     */
+    private List<Holding> applyMarketPrices(List<Holding> holdings) {
+        if (holdings.isEmpty()) {
+            return List.of();
+        }
+
+        List<String> symbols = holdings.stream()
+                .map(Holding::getSymbol)
+                .filter(Objects::nonNull)
+                .toList();
+        Map<String, FinnhubQuoteResponse> quotes = finnhubClient.getQuotesAsync(symbols, refreshMaxParallelism).join();
+        quotes.forEach((symbol, quote) -> {
+            if (quote.getCurrentPrice() != null) {
+                valuationEngine.onPrice(symbol, quote.getCurrentPrice().doubleValue());
+            }
+        });
+
+        List<Holding> updated = new ArrayList<>(holdings.size());
+        for (Holding holding : holdings) {
+            if (holding.getSymbol() == null) {
+                continue;
+            }
+            FinnhubQuoteResponse quote = quotes.get(holding.getSymbol().toUpperCase());
+            if (quote == null || quote.getCurrentPrice() == null) {
+                log.warn("Failed to fetch market price for symbol: {}", holding.getSymbol());
+                continue;
+            }
+            applyMarketPrice(holding, quote.getCurrentPrice());
+            updated.add(holding);
+        }
+        return updated;
     }
 
     /**
@@ -120,26 +289,36 @@ public class HoldingService {
     private void refreshMarketPriceInternal(Holding holding, String symbol) {
         finnhubClient.getCurrentPrice(symbol).ifPresentOrElse(
                 price -> {
-                    holding.setMarketPrice(price);
-                    holding.setInstrumentCurrency("USD"); // Finnhub typically returns USD prices
-
-                    // Calculate value in base currency (assuming base currency is USD for now)
-                    if (holding.getQuantity() != null) {
-                        BigDecimal valueInBaseCurrency = price.multiply(holding.getQuantity());
-                        holding.setValueInBaseCurrency(valueInBaseCurrency);
-
-                        // Calculate unrealized profit
-                        if (holding.getAvgPriceInBaseCurrency() != null) {
-                            BigDecimal costBasis = holding.getAvgPriceInBaseCurrency().multiply(holding.getQuantity());
-                            BigDecimal unrealizedProfit = valueInBaseCurrency.subtract(costBasis);
-                            holding.setUnrealizedProfitInBaseCurrency(unrealizedProfit);
-                        }
-                    }
-
+                    valuationEngine.onPrice(symbol.toUpperCase(), price.doubleValue());
+                    applyMarketPrice(holding, price);
                     holdingRepository.save(holding);
-                    log.info("Updated market price for {}: ${}", symbol, price);
+                    log.debug("Updated market price for {}: ${}", symbol, price);
                 },
                 () -> log.warn("Failed to fetch market price for symbol: {}", symbol)
         );
     }
+
+    /**
+     * Set the market price on a holding and recompute its value and unrealized profit in memory.
+     *
+     * @param holding the holding to update
+     * @param price current market price
+     */
+    public void applyMarketPrice(Holding holding, BigDecimal price) {
+        holding.setMarketPrice(price);
+        holding.setInstrumentCurrency("USD"); // Finnhub typically returns USD prices
+
+        // Calculate value in base currency (assuming base currency is USD for now)
+        if (holding.getQuantity() != null) {
+            BigDecimal valueInBaseCurrency = price.multiply(holding.getQuantity());
+            holding.setValueInBaseCurrency(valueInBaseCurrency);
+
+            // Calculate unrealized profit
+            if (holding.getAvgPriceInBaseCurrency() != null) {
+                BigDecimal costBasis = holding.getAvgPriceInBaseCurrency().multiply(holding.getQuantity());
+                BigDecimal unrealizedProfit = valueInBaseCurrency.subtract(costBasis);
+                holding.setUnrealizedProfitInBaseCurrency(unrealizedProfit);
+            }
+        }
+    }
 }
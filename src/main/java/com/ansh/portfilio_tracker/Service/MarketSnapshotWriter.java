@@ -0,0 +1,140 @@
+package com.ansh.portfilio_tracker.Service;
+
+import com.ansh.portfilio_tracker.Classes.Holding;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write-behind persistence of market valuations computed outside a write path
+ * (mark-to-market reads, per-symbol revaluation).
+ * Snapshots are coalesced per (portfolio, symbol) so only the latest valuation of each holding
+ * is written, and flushed every {@code portfolio.valuation.snapshot-interval-ms} as one JDBC batch.
+ * Only the market columns are written; quantity and average price stay owned by transactions.
+ * A snapshot holds just the price: value and unrealized profit are derived in the UPDATE from the
+ * row's quantity and average price at flush time, so a trade committed between the read and the
+ * flush is never overwritten with values computed from the old quantity.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class MarketSnapshotWriter {
+
+    private static final String UPDATE_SQL = "UPDATE holdings SET market_price = ?, instrument_currency = ?, "
+            + "value_in_base_currency = ? * quantity, "
+            + "unrealized_profit_in_base_currency = (? - avg_price_in_base_currency) * quantity "
+            + "WHERE portfolio_id = ? AND symbol = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${portfolio.valuation.snapshot-interval-ms:30000}")
+    private long snapshotIntervalMillis;
+
+    // Latest unwritten valuation per holding
+    private final Map<Holding.HoldingId, Snapshot> pending = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService flushScheduler;
+
+    @PostConstruct
+    public void start() {
+        flushScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "market-snapshot-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flushScheduler.scheduleWithFixedDelay(this::flush, snapshotIntervalMillis, snapshotIntervalMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        flushScheduler.shutdownNow();
+        flush();
+    }
+
+    /**
+     * Queue the current market price of a holding, replacing any unwritten one for the same holding.
+     *
+     * @param holding holding with its market price set
+     */
+    public void record(Holding holding) {
+        record(holding.getPortfolioId(), holding.getSymbol(), holding.getMarketPrice(),
+                holding.getInstrumentCurrency());
+    }
+
+    /**
+     * Queue a market price for a holding, replacing any unwritten one for the same holding.
+     *
+     * @param portfolioId Portfolio ID
+     * @param symbol Stock symbol
+     * @param marketPrice Market price
+     * @param instrumentCurrency Currency of the market price
+     */
+    public void record(UUID portfolioId, String symbol, BigDecimal marketPrice, String instrumentCurrency) {
+        if (portfolioId == null || symbol == null || marketPrice == null) {
+            return;
+        }
+        pending.put(new Holding.HoldingId(portfolioId, symbol),
+                new Snapshot(portfolioId, symbol, marketPrice, instrumentCurrency));
+    }
+
+    /**
+     * @return number of holdings with a valuation waiting to be written
+     */
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * Write all pending snapshots in one batch.
+     *
+     * @return number of snapshots written
+     */
+    public int flush() {
+        if (pending.isEmpty()) {
+            return 0;
+        }
+
+        List<Object[]> batch = new ArrayList<>(pending.size());
+        for (Holding.HoldingId id : pending.keySet()) {
+            // remove() hands over the latest value; a newer record() simply re-queues the key
+            Snapshot snapshot = pending.remove(id);
+            if (snapshot != null) {
+                batch.add(new Object[]{
+                        snapshot.marketPrice(),
+                        snapshot.instrumentCurrency(),
+                        snapshot.marketPrice(),
+                        snapshot.marketPrice(),
+                        snapshot.portfolioId(),
+                        snapshot.symbol()
+                });
+            }
+        }
+
+        try {
+            jdbcTemplate.batchUpdate(UPDATE_SQL, batch);
+            log.debug("Wrote {} market snapshots", batch.size());
+            return batch.size();
+        } catch (Exception e) {
+            log.error("Error writing {} market snapshots", batch.size(), e);
+            return 0;
+        }
+    }
+
+    private record Snapshot(UUID portfolioId, String symbol, BigDecimal marketPrice, String instrumentCurrency) {
+    }
+}
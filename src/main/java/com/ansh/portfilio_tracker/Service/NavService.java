@@ -0,0 +1,484 @@
+package com.ansh.portfilio_tracker.Service;
+
+import com.ansh.portfilio_tracker.Classes.NavSeries;
+import com.ansh.portfilio_tracker.Classes.Portfolio;
+import com.ansh.portfilio_tracker.Repo.PortfolioRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Computes a portfolio's net asset value over time.
+ * Quantities come from replaying the transactions ledger; prices are the last tick recorded in the
+ * {@link TickStore} before each point, falling back to the last trade price in the ledger when no tick
+ * is recorded within {@code nav.price-lookback-days}. Ticks are only read inside the store's retention
+ * window, and never for symbols the store cannot hold. The work is split across positions and point ranges
+ * on a fork/join pool, every position filling its own rows of primitive arrays before the rows are summed.
+ *
+ * Series are cached per (portfolio, interval) for {@code nav.cache-ttl-ms} and dropped when the
+ * portfolio's ledger changes.
+ */
+@Service
+@Slf4j
+public class NavService {
+
+    /**
+     * Supported point spacings.
+     */
+    public enum Interval {
+        M5("5m", TimeUnit.MINUTES.toMillis(5)),
+        H1("1h", TimeUnit.HOURS.toMillis(1)),
+        D1("1d", TimeUnit.DAYS.toMillis(1));
+
+        private final String label;
+        private final long millis;
+
+        Interval(String label, long millis) {
+            this.label = label;
+            this.millis = millis;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+
+        public long getMillis() {
+            return millis;
+        }
+
+        /**
+         * @param label "5m", "1h" or "1d"
+         * @throws IllegalArgumentException for any other value
+         */
+        public static Interval fromLabel(String label) {
+            for (Interval interval : values()) {
+                if (interval.label.equalsIgnoreCase(label)) {
+                    return interval;
+                }
+            }
+            throw new IllegalArgumentException("Invalid interval: " + label + ". Must be 5m, 1h or 1d");
+        }
+    }
+
+    // Points computed by one fork/join leaf
+    private static final int LEAF_POINTS = 256;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PortfolioRepository portfolioRepository;
+    private final TickStore tickStore;
+    private final ForkJoinPool pool;
+    private final int maxPoints;
+    private final long cacheTtlNanos;
+    private final long priceLookbackMillis;
+
+    private final Map<CacheKey, Cached> cache = new ConcurrentHashMap<>();
+    private final Map<UUID, AtomicLong> generations = new ConcurrentHashMap<>();
+
+    public NavService(JdbcTemplate jdbcTemplate, PortfolioRepository portfolioRepository, TickStore tickStore,
+                      @Value("${nav.parallelism:0}") int parallelism,
+                      @Value("${nav.max-points:5000}") int maxPoints,
+                      @Value("${nav.cache-ttl-ms:60000}") long cacheTtlMillis,
+                      @Value("${nav.price-lookback-days:7}") int priceLookbackDays) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.portfolioRepository = portfolioRepository;
+        this.tickStore = tickStore;
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        this.maxPoints = maxPoints;
+        this.cacheTtlNanos = TimeUnit.MILLISECONDS.toNanos(cacheTtlMillis);
+        this.priceLookbackMillis = TimeUnit.DAYS.toMillis(priceLookbackDays);
+    }
+
+    @PreDestroy
+    public void stop() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * NAV of a portfolio at the end of every interval overlapping [from, to].
+     *
+     * @param portfolioId Portfolio ID
+     * @param from Start of the range, epoch milliseconds
+     * @param to End of the range, epoch milliseconds
+     * @param interval Point spacing
+     * @return the series, or null if the portfolio does not exist
+     * @throws IllegalArgumentException if the range is empty or has more than {@code nav.max-points} points
+     */
+    public NavSeries getNav(UUID portfolioId, long from, long to, Interval interval) {
+        if (from > to) {
+            throw new IllegalArgumentException("from must not be after to");
+        }
+        long step = interval.millis;
+        long start = Math.floorDiv(from, step) * step;
+        long points = Math.floorDiv(to - start, step) + 1;
+        if (points > maxPoints) {
+            throw new IllegalArgumentException("Range has " + points + " points; at most " + maxPoints + " allowed");
+        }
+
+        CacheKey key = new CacheKey(portfolioId, interval);
+        long generation = generation(portfolioId).get();
+        Cached cached = cache.get(key);
+        if (cached != null && cached.start == start && cached.points == points && cached.generation == generation
+                && System.nanoTime() < cached.expiresAtNanos) {
+            return cached.series;
+        }
+
+        Portfolio portfolio = portfolioRepository.findById(portfolioId).orElse(null);
+        if (portfolio == null) {
+            return null;
+        }
+        NavSeries series = compute(portfolio, start, (int) points, interval);
+        // A ledger change during the computation bumped the generation; keep the result out of the cache
+        if (generation(portfolioId).get() == generation) {
+            cache.put(key, new Cached(start, points, generation, System.nanoTime() + cacheTtlNanos, series));
+        }
+        return series;
+    }
+
+    /**
+     * Drop cached series of a portfolio once a change to its transactions has committed.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLedgerChanged(PositionLedger.LedgerChangedEvent event) {
+        generation(event.portfolioId()).incrementAndGet();
+        for (Interval interval : Interval.values()) {
+            cache.remove(new CacheKey(event.portfolioId(), interval));
+        }
+    }
+
+    private AtomicLong generation(UUID portfolioId) {
+        return generations.computeIfAbsent(portfolioId, id -> new AtomicLong());
+    }
+
+    private NavSeries compute(Portfolio portfolio, long start, int points, Interval interval) {
+        long began = System.nanoTime();
+        long step = interval.millis;
+        long[] timestamps = new long[points];
+        for (int k = 0; k < points; k++) {
+            timestamps[k] = start + (k + 1) * step;
+        }
+
+        List<PositionHistory> positions = loadPositions(portfolio.getId(), timestamps[points - 1]);
+        int count = positions.size();
+        double[][] value = new double[count][points];
+        double[][] cost = new double[count][points];
+        double[][] realized = new double[count][points];
+        // Older ticks have been deleted; blocks before this instant do not read the store at all
+        Long ticksFrom = tickStore.isEnabled() ? tickStore.getRetainedFrom() : null;
+        if (count > 0) {
+            pool.invoke(new PositionTask(positions, timestamps, step, ticksFrom != null ? ticksFrom : Long.MAX_VALUE,
+                    value, cost, realized, 0, count, 0, points));
+        }
+
+        double[] totalValue = new double[points];
+        double[] totalCost = new double[points];
+        double[] totalRealized = new double[points];
+        if (count > 0) {
+            pool.invoke(new SumTask(value, cost, realized, totalValue, totalCost, totalRealized, 0, points));
+        }
+
+        long elapsedMillis = (System.nanoTime() - began) / 1_000_000;
+        log.debug("Computed {} NAV points for portfolio {} over {} positions in {} ms",
+                points, portfolio.getId(), count, elapsedMillis);
+        return NavSeries.builder()
+                .portfolioId(portfolio.getId().toString())
+                .baseCurrency(portfolio.getBaseCurrency())
+                .interval(interval.label)
+                .timestamps(timestamps)
+                .marketValue(totalValue)
+                .costBasis(totalCost)
+                .realizedProfit(totalRealized)
+                .tickPricesFrom(ticksFrom)
+                .symbols(count)
+                .elapsedMillis(elapsedMillis)
+                .build();
+    }
+
+    /**
+     * Fold the ledger of every position up to {@code until} into per-event state arrays.
+     * Transaction dates are local date-times of the server and are converted in its time zone.
+     */
+    private List<PositionHistory> loadPositions(UUID portfolioId, long until) {
+        ZoneId zone = ZoneId.systemDefault();
+        Timestamp untilTimestamp = Timestamp.from(Instant.ofEpochMilli(until));
+        List<PositionHistory> positions = new ArrayList<>();
+        PositionHistory[] current = {null};
+        jdbcTemplate.query("SELECT instrument_symbol, type, quantity, price_per_unit, transaction_date "
+                + "FROM transactions WHERE portfolio_id = ? AND transaction_date < ? "
+                + "ORDER BY instrument_symbol, transaction_date, id", rs -> {
+            String symbol = rs.getString("instrument_symbol");
+            if (current[0] == null || !current[0].symbol.equals(symbol)) {
+                current[0] = new PositionHistory(symbol);
+                positions.add(current[0]);
+            }
+            current[0].apply("BUY".equals(rs.getString("type")), rs.getDouble("quantity"),
+                    rs.getDouble("price_per_unit"),
+                    rs.getTimestamp("transaction_date").toLocalDateTime().atZone(zone).toInstant().toEpochMilli());
+        }, portfolioId, untilTimestamp);
+        return positions;
+    }
+
+    /**
+     * Per-event state of one position: after event {@code e} at {@code times[e]} the position holds
+     * {@code quantity[e]} at a cost of {@code cost[e]} and has realized {@code realized[e]} in total.
+     */
+    private static final class PositionHistory {
+        private final String symbol;
+        // Whether the tick store can hold the symbol; otherwise only ledger prices are used
+        private final boolean ticked;
+        private long[] times = new long[16];
+        private double[] tradePrice = new double[16];
+        private double[] quantity = new double[16];
+        private double[] cost = new double[16];
+        private double[] realized = new double[16];
+        private int size;
+
+        private PositionHistory(String symbol) {
+            this.symbol = symbol;
+            this.ticked = TickStore.isValidSymbol(symbol.toUpperCase());
+        }
+
+        private void apply(boolean buy, double qty, double price, long time) {
+            if (size == times.length) {
+                int grown = size * 2;
+                times = Arrays.copyOf(times, grown);
+                tradePrice = Arrays.copyOf(tradePrice, grown);
+                quantity = Arrays.copyOf(quantity, grown);
+                cost = Arrays.copyOf(cost, grown);
+                realized = Arrays.copyOf(realized, grown);
+            }
+            double heldQty = size > 0 ? quantity[size - 1] : 0;
+            double heldCost = size > 0 ? cost[size - 1] : 0;
+            double realizedSoFar = size > 0 ? realized[size - 1] : 0;
+            if (buy) {
+                heldQty += qty;
+                heldCost += qty * price;
+            } else {
+                // Sold at average cost, as in executeSell; the ledger never holds an oversell
+                double avg = heldQty > 0 ? heldCost / heldQty : 0;
+                realizedSoFar += qty * (price - avg);
+                heldCost -= qty * avg;
+                heldQty -= qty;
+                if (heldQty <= 0) {
+                    heldQty = 0;
+                    heldCost = 0;
+                }
+            }
+            times[size] = time;
+            tradePrice[size] = price;
+            quantity[size] = heldQty;
+            cost[size] = heldCost;
+            realized[size] = realizedSoFar;
+            size++;
+        }
+
+        /**
+         * Number of events strictly before {@code time}.
+         */
+        private int eventsBefore(long time) {
+            int index = Arrays.binarySearch(times, 0, size, time);
+            if (index < 0) {
+                return -index - 1;
+            }
+            // Step back over equal timestamps
+            while (index > 0 && times[index - 1] == time) {
+                index--;
+            }
+            return index;
+        }
+    }
+
+    /**
+     * Fills value, cost and realized rows for a block of positions and points, splitting by position
+     * first and then by point range.
+     */
+    private final class PositionTask extends RecursiveAction {
+        private final List<PositionHistory> positions;
+        private final long[] timestamps;
+        private final long step;
+        private final long ticksFrom;
+        private final double[][] value;
+        private final double[][] cost;
+        private final double[][] realized;
+        private final int positionLo;
+        private final int positionHi;
+        private final int pointLo;
+        private final int pointHi;
+
+        private PositionTask(List<PositionHistory> positions, long[] timestamps, long step, long ticksFrom,
+                             double[][] value, double[][] cost, double[][] realized, int positionLo, int positionHi,
+                             int pointLo, int pointHi) {
+            this.positions = positions;
+            this.timestamps = timestamps;
+            this.step = step;
+            this.ticksFrom = ticksFrom;
+            this.value = value;
+            this.cost = cost;
+            this.realized = realized;
+            this.positionLo = positionLo;
+            this.positionHi = positionHi;
+            this.pointLo = pointLo;
+            this.pointHi = pointHi;
+        }
+
+        @Override
+        protected void compute() {
+            if (positionHi - positionLo > 1) {
+                int mid = (positionLo + positionHi) >>> 1;
+                invokeAll(split(positionLo, mid, pointLo, pointHi), split(mid, positionHi, pointLo, pointHi));
+            } else if (pointHi - pointLo > LEAF_POINTS) {
+                int mid = (pointLo + pointHi) >>> 1;
+                invokeAll(split(positionLo, positionHi, pointLo, mid), split(positionLo, positionHi, mid, pointHi));
+            } else {
+                fill(positions.get(positionLo), positionLo);
+            }
+        }
+
+        private PositionTask split(int pLo, int pHi, int kLo, int kHi) {
+            return new PositionTask(positions, timestamps, step, ticksFrom, value, cost, realized, pLo, pHi, kLo, kHi);
+        }
+
+        private void fill(PositionHistory position, int row) {
+            int n = pointHi - pointLo;
+            long first = timestamps[pointLo];
+            long bucketStart = first - step;
+
+            // Slot 0 carries the last price before this block; slot j + 1 the last price before point j
+            long[] priceTime = new long[n + 1];
+            double[] price = new double[n + 1];
+            Arrays.fill(priceTime, Long.MIN_VALUE);
+            int event = position.eventsBefore(bucketStart);
+            if (event > 0) {
+                priceTime[0] = position.times[event - 1];
+                price[0] = position.tradePrice[event - 1];
+            }
+            for (int e = event; e < position.size && position.times[e] < timestamps[pointHi - 1]; e++) {
+                mark(priceTime, price, slot(position.times[e], bucketStart), position.times[e], position.tradePrice[e]);
+            }
+            long tickFrom = Math.max(bucketStart - priceLookbackMillis, ticksFrom);
+            long tickTo = timestamps[pointHi - 1] - 1;
+            if (position.ticked && tickFrom <= tickTo && anyHeld(position, event)) {
+                tickStore.query(position.symbol, tickFrom, tickTo)
+                        .forEach(Integer.MAX_VALUE, (timestamp, tickPrice, volume) ->
+                                mark(priceTime, price, slot(timestamp, bucketStart), timestamp, tickPrice));
+            }
+
+            double lastPrice = price[0];
+            long lastPriceTime = priceTime[0];
+            for (int j = 0; j < n; j++) {
+                if (priceTime[j + 1] > lastPriceTime) {
+                    lastPriceTime = priceTime[j + 1];
+                    lastPrice = price[j + 1];
+                }
+                long at = timestamps[pointLo + j];
+                while (event < position.size && position.times[event] < at) {
+                    event++;
+                }
+                if (event == 0) {
+                    continue;
+                }
+                double qty = position.quantity[event - 1];
+                value[row][pointLo + j] = qty * lastPrice;
+                cost[row][pointLo + j] = position.cost[event - 1];
+                realized[row][pointLo + j] = position.realized[event - 1];
+            }
+        }
+
+        /**
+         * Slot of a price observed at {@code time}: 0 before the block, else 1 + the first point after it.
+         */
+        private int slot(long time, long bucketStart) {
+            if (time < bucketStart) {
+                return 0;
+            }
+            return (int) Math.min(Math.floorDiv(time - bucketStart, step) + 1, pointHi - pointLo);
+        }
+
+        private void mark(long[] priceTime, double[] price, int slot, long time, double observed) {
+            if (time >= priceTime[slot]) {
+                priceTime[slot] = time;
+                price[slot] = observed;
+            }
+        }
+
+        /**
+         * Whether the position holds shares at any point of the block, so ticks are only read when needed.
+         */
+        private boolean anyHeld(PositionHistory position, int firstEvent) {
+            if (firstEvent > 0 && position.quantity[firstEvent - 1] > 0) {
+                return true;
+            }
+            for (int e = firstEvent; e < position.size && position.times[e] < timestamps[pointHi - 1]; e++) {
+                if (position.quantity[e] > 0) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Sums the per-position rows into the portfolio totals, split by point range.
+     */
+    private final class SumTask extends RecursiveAction {
+        private final double[][] value;
+        private final double[][] cost;
+        private final double[][] realized;
+        private final double[] totalValue;
+        private final double[] totalCost;
+        private final double[] totalRealized;
+        private final int lo;
+        private final int hi;
+
+        private SumTask(double[][] value, double[][] cost, double[][] realized, double[] totalValue,
+                        double[] totalCost, double[] totalRealized, int lo, int hi) {
+            this.value = value;
+            this.cost = cost;
+            this.realized = realized;
+            this.totalValue = totalValue;
+            this.totalCost = totalCost;
+            this.totalRealized = totalRealized;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo > LEAF_POINTS) {
+                int mid = (lo + hi) >>> 1;
+                invokeAll(new SumTask(value, cost, realized, totalValue, totalCost, totalRealized, lo, mid),
+                        new SumTask(value, cost, realized, totalValue, totalCost, totalRealized, mid, hi));
+                return;
+            }
+            for (int row = 0; row < value.length; row++) {
+                for (int k = lo; k < hi; k++) {
+                    totalValue[k] += value[row][k];
+                    totalCost[k] += cost[row][k];
+                    totalRealized[k] += realized[row][k];
+                }
+            }
+        }
+    }
+
+    private record CacheKey(UUID portfolioId, Interval interval) {
+    }
+
+    private record Cached(long start, long points, long generation, long expiresAtNanos, NavSeries series) {
+    }
+}
@@ -11,6 +11,7 @@ import com.ansh.portfilio_tracker.Repo.UserPortfolioRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
@@ -27,6 +28,7 @@ public class PortfolioService {
     private final UserPortfolioRepository userPortfolioRepository;
     private final HoldingRepository holdingRepository;
     private final HoldingService holdingService;
+    private final PortfolioValuationEngine valuationEngine;
 
     public Portfolio createPortfolio(UUID userId, CreatePortfolioRequest request) {
         Portfolio portfolio = Portfolio.builder()
@@ -37,6 +39,7 @@ public class PortfolioService {
                 .build();
 
         portfolioRepository.save(portfolio);
+        valuationEngine.onPortfolioSaved(portfolio);
 
         if (userId != null) {
             UserPortfolio userPortfolio = UserPortfolio.builder()
@@ -63,31 +66,38 @@ public class PortfolioService {
         return portfolioRepository.findById(portfolioId).orElse(null);
     }
 
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public List<Holding> getHoldingsByPortfolio(UUID portfolioId) {
         if (portfolioId == null) {
             log.warn("Cannot get holdings for null portfolioId");
             return List.of();
         }
 
-        List<Holding> holdings = holdingRepository.findByPortfolioId(portfolioId);
+        if (holdingService.isMarkToMarket()) {
+            // Value in memory from the price caches; nothing is written on this path
+            return holdingService.markToMarket(holdingRepository.findReadOnlyByPortfolioId(portfolioId));
+        }
 
-        // Refresh market prices for all holdings
-        holdings.forEach(holding -> {
-            if (holding.getSymbol() != null) {
-                holdingService.refreshMarketPrice(portfolioId, holding.getSymbol());
-            }
-        });
+        List<Holding> holdings = holdingRepository.findByPortfolioId(portfolioId);
 
-        // Re-fetch to get updated prices
-        return holdingRepository.findByPortfolioId(portfolioId);
+        // Refresh market prices for all holdings in one batched pass, outside any transaction;
+        // the updated entities are returned as-is
+        return holdingService.refreshMarketPrices(holdings);
     }
 
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public PortfolioSummary getPortfolioSummary(UUID portfolioId) {
         if (portfolioId == null) {
             log.warn("Cannot get summary for null portfolioId");
             return null;
         }
 
+        // Constant-time read of the resident aggregates; falls back to valuing every holding below
+        PortfolioSummary summary = valuationEngine.getSummary(portfolioId);
+        if (summary != null) {
+            return summary;
+        }
+
         Portfolio portfolio = portfolioRepository.findById(portfolioId).orElse(null);
         if (portfolio == null) {
             log.warn("Portfolio not found: {}", portfolioId);
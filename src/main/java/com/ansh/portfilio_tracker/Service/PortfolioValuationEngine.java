@@ -0,0 +1,351 @@
+package com.ansh.portfilio_tracker.Service;
+
+import com.ansh.portfilio_tracker.Classes.Holding;
+import com.ansh.portfilio_tracker.Classes.Portfolio;
+import com.ansh.portfilio_tracker.Classes.PortfolioSummary;
+import com.ansh.portfilio_tracker.Repo.HoldingRepository;
+import com.ansh.portfilio_tracker.Repo.PortfolioRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Keeps per-portfolio valuation state (positions, their latest prices, realized profit) in memory.
+ * <ul>
+ *     <li>Every tick replaces the price of each position in the symbol and moves the book's market
+ *     value by that position's change, so a tick costs O(1) per affected position.</li>
+ *     <li>Executed transactions and new holdings replace the affected position once their
+ *     database transaction commits.</li>
+ *     <li>The whole book is rebuilt from the holdings and portfolios tables at startup.</li>
+ * </ul>
+ * Position changes are forwarded to the {@link SymbolPositionIndex} at the same points, so the
+ * index is kept in sync even when the engine itself is disabled.
+ * A summary reads the book's totals, so it takes constant time however many holdings the portfolio has.
+ * The totals are kept in decimal arithmetic: each change replaces a position's exact contribution
+ * ({@code qty * price}) with its new one, so they never drift from the sum of the positions.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class PortfolioValuationEngine {
+
+    private final HoldingRepository holdingRepository;
+    private final PortfolioRepository portfolioRepository;
+    private final RealTimeStockService realTimeStockService;
+    private final SymbolPositionIndex positionIndex;
+
+    @Value("${portfolio.valuation.engine.enabled:true}")
+    private boolean enabled;
+
+    private final Map<UUID, PortfolioBook> books = new ConcurrentHashMap<>();
+
+    // Positions holding each symbol, walked on every tick for that symbol
+    private final Map<String, List<Position>> positionsBySymbol = new ConcurrentHashMap<>();
+
+    // A lock rather than synchronized: the rebuild blocks on JDBC, which would pin a virtual thread's carrier
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+
+    private volatile boolean ready;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        rebuild();
+        if (!enabled) {
+            log.info("Portfolio valuation engine is disabled");
+            return;
+        }
+        // Conflated: only the latest price per symbol matters for valuation
+        if (realTimeStockService.addTickConsumer("portfolio-valuation", TickRingBuffer.OverflowPolicy.CONFLATE,
+                (symbol, price, timestamp, volume, shard, endOfBatch) -> onPrice(symbol, price)) == null) {
+            log.warn("Portfolio valuation engine will only see prices fetched over REST");
+        }
+    }
+
+    /**
+     * Reload every portfolio and holding from the database, replacing the in-memory state.
+     */
+    public void rebuild() {
+        rebuildLock.lock();
+        try {
+            rebuildLocked();
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    private void rebuildLocked() {
+        long start = System.nanoTime();
+        books.clear();
+        positionsBySymbol.clear();
+
+        for (Portfolio portfolio : portfolioRepository.findAll()) {
+            PortfolioBook book = book(portfolio.getId());
+            synchronized (book) {
+                book.baseCurrency = portfolio.getBaseCurrency();
+                book.realized = orZero(portfolio.getRealizedProfitInBaseCurrency());
+            }
+        }
+        List<Holding> holdings = holdingRepository.findAll();
+        positionIndex.rebuild(holdings);
+        for (Holding holding : holdings) {
+            applyPosition(holding.getPortfolioId(), holding.getSymbol(), holding.getQuantity(),
+                    holding.getAvgPriceInBaseCurrency(), holding.getMarketPrice());
+        }
+
+        ready = true;
+        log.info("Rebuilt valuation engine with {} portfolios and {} holdings in {} ms",
+                books.size(), holdings.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * @return true once the engine has been built and can serve summaries
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Apply a new market price to every position in the symbol.
+     *
+     * @param symbol Stock symbol (upper case)
+     * @param price Latest price
+     */
+    public void onPrice(String symbol, double price) {
+        List<Position> positions = positionsBySymbol.get(symbol);
+        if (positions == null) {
+            return;
+        }
+        for (Position position : positions) {
+            PortfolioBook book = position.book;
+            synchronized (book) {
+                if (!position.removed) {
+                    position.setPrice(BigDecimal.valueOf(price));
+                }
+            }
+        }
+    }
+
+    /**
+     * Replace a position after the current database transaction commits (immediately if there is none).
+     *
+     * @param holding holding as written
+     */
+    public void onHoldingSaved(Holding holding) {
+        UUID portfolioId = holding.getPortfolioId();
+        String symbol = holding.getSymbol();
+        BigDecimal quantity = holding.getQuantity();
+        BigDecimal avgPrice = holding.getAvgPriceInBaseCurrency();
+        BigDecimal marketPrice = holding.getMarketPrice();
+        afterCommit(() -> {
+            positionIndex.put(portfolioId, symbol, quantity, avgPrice);
+            applyPosition(portfolioId, symbol, quantity, avgPrice, marketPrice);
+        });
+    }
+
+    /**
+     * Remove a position after the current database transaction commits.
+     *
+     * @param portfolioId Portfolio ID
+     * @param symbol Stock symbol (upper case)
+     */
+    public void onHoldingDeleted(UUID portfolioId, String symbol) {
+        afterCommit(() -> {
+            positionIndex.remove(portfolioId, symbol);
+            removePosition(portfolioId, symbol);
+        });
+    }
+
+    /**
+     * Replace a portfolio's realized profit and base currency after the current database transaction commits.
+     *
+     * @param portfolio portfolio as written
+     */
+    public void onPortfolioSaved(Portfolio portfolio) {
+        UUID portfolioId = portfolio.getId();
+        String baseCurrency = portfolio.getBaseCurrency();
+        BigDecimal realized = orZero(portfolio.getRealizedProfitInBaseCurrency());
+        afterCommit(() -> {
+            PortfolioBook book = book(portfolioId);
+            synchronized (book) {
+                book.baseCurrency = baseCurrency;
+                book.realized = realized;
+            }
+        });
+    }
+
+    /**
+     * Add realized profit to a portfolio once the surrounding transaction commits.
+     * Mirrors {@code PortfolioRepository.addRealizedProfit}, which increments the row in place.
+     *
+     * @param portfolioId Portfolio ID
+     * @param amount realized profit added
+     */
+    public void onRealizedProfit(UUID portfolioId, BigDecimal amount) {
+        BigDecimal delta = orZero(amount);
+        afterCommit(() -> {
+            PortfolioBook book = book(portfolioId);
+            synchronized (book) {
+                book.realized = book.realized.add(delta);
+            }
+        });
+    }
+
+    /**
+     * Read the precomputed summary of a portfolio.
+     *
+     * @param portfolioId Portfolio ID
+     * @return summary, or null if the engine is not ready or does not know the portfolio
+     */
+    public PortfolioSummary getSummary(UUID portfolioId) {
+        PortfolioBook book = enabled && ready ? books.get(portfolioId) : null;
+        if (book == null) {
+            return null;
+        }
+
+        BigDecimal totalCost;
+        BigDecimal marketValue;
+        BigDecimal realized;
+        String baseCurrency;
+        synchronized (book) {
+            totalCost = book.totalCost;
+            marketValue = book.marketValue;
+            realized = book.realized;
+            baseCurrency = book.baseCurrency;
+        }
+
+        BigDecimal unrealized = marketValue.subtract(totalCost);
+        return PortfolioSummary.builder()
+                .portfolioId(portfolioId.toString())
+                .baseCurrency(baseCurrency)
+                .totalCostInBase(money(totalCost))
+                .totalValueInBase(money(marketValue))
+                .unrealizedProfitInBase(money(unrealized))
+                .realizedProfitInBase(money(realized))
+                .totalProfitInBase(money(unrealized.add(realized)))
+                .build();
+    }
+
+    private void applyPosition(UUID portfolioId, String symbol, BigDecimal quantity, BigDecimal avgPrice,
+                               BigDecimal marketPrice) {
+        if (portfolioId == null || symbol == null) {
+            return;
+        }
+        PortfolioBook book = book(portfolioId);
+        synchronized (book) {
+            Position position = book.positions.get(symbol);
+            if (position == null) {
+                position = new Position(book);
+                book.positions.put(symbol, position);
+                positionsBySymbol.computeIfAbsent(symbol, k -> new CopyOnWriteArrayList<>()).add(position);
+            }
+
+            // Keep a streamed price over the persisted one, it is at least as recent
+            BigDecimal price = position.price != null ? position.price : marketPrice;
+            position.set(orZero(quantity), orZero(avgPrice), price);
+        }
+    }
+
+    private void removePosition(UUID portfolioId, String symbol) {
+        PortfolioBook book = books.get(portfolioId);
+        if (book == null) {
+            return;
+        }
+        synchronized (book) {
+            Position position = book.positions.remove(symbol);
+            if (position == null) {
+                return;
+            }
+            position.set(BigDecimal.ZERO, BigDecimal.ZERO, null);
+            position.removed = true;
+            List<Position> positions = positionsBySymbol.get(symbol);
+            if (positions != null) {
+                positions.remove(position);
+            }
+        }
+    }
+
+    private PortfolioBook book(UUID portfolioId) {
+        return books.computeIfAbsent(portfolioId, k -> new PortfolioBook());
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private static BigDecimal orZero(BigDecimal value) {
+        return value != null ? value : BigDecimal.ZERO;
+    }
+
+    private static BigDecimal money(BigDecimal value) {
+        return value.setScale(2, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * Positions, their totals and realized profit of one portfolio; all fields are guarded by the book's monitor.
+     * {@code totalCost} and {@code marketValue} always equal the sums of the positions' {@code cost} and {@code value}.
+     */
+    private static final class PortfolioBook {
+        private final Map<String, Position> positions = new HashMap<>();
+        private String baseCurrency;
+        private BigDecimal realized = BigDecimal.ZERO;
+        private BigDecimal totalCost = BigDecimal.ZERO;
+        private BigDecimal marketValue = BigDecimal.ZERO;
+    }
+
+    /**
+     * One holding inside a book; guarded by the owning book's monitor.
+     * Every change moves the book's totals by the difference between the old and new contribution.
+     */
+    private static final class Position {
+        private final PortfolioBook book;
+        private BigDecimal quantity = BigDecimal.ZERO;
+        // Null until priced; unpriced positions add no market value, like the database summary
+        private BigDecimal price;
+        private BigDecimal cost = BigDecimal.ZERO;
+        private BigDecimal value = BigDecimal.ZERO;
+        private boolean removed;
+
+        private Position(PortfolioBook book) {
+            this.book = book;
+        }
+
+        private void set(BigDecimal quantity, BigDecimal avgPrice, BigDecimal price) {
+            BigDecimal newCost = quantity.multiply(avgPrice);
+            book.totalCost = book.totalCost.add(newCost.subtract(cost));
+            cost = newCost;
+            this.quantity = quantity;
+            setPrice(price);
+        }
+
+        private void setPrice(BigDecimal price) {
+            BigDecimal newValue = price != null ? quantity.multiply(price) : BigDecimal.ZERO;
+            book.marketValue = book.marketValue.add(newValue.subtract(value));
+            value = newValue;
+            this.price = price;
+        }
+    }
+}
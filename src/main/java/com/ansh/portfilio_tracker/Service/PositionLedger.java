@@ -0,0 +1,553 @@
+package com.ansh.portfilio_tracker.Service;
+
+import com.ansh.portfilio_tracker.Classes.Holding;
+import com.ansh.portfilio_tracker.Classes.RebuildResult;
+import com.ansh.portfilio_tracker.Classes.Transaction;
+import com.ansh.portfilio_tracker.Repo.HoldingRepository;
+import com.ansh.portfilio_tracker.Repo.PortfolioRepository;
+import com.ansh.portfilio_tracker.Repo.TransactionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Derives positions from the transactions table, which is the append-only record of every trade.
+ * A position is the fold of its BUY/SELL events in (transaction_date, id) order, using the same
+ * weighted-average and realized-profit rules as {@link TransactionServiceImpl}. Every
+ * {@code ledger.snapshot-interval} events the fold is stored in position_snapshots, so rebuilding a
+ * position, including after a backdated trade, replays only the events after the nearest snapshot.
+ * Holdings and the portfolio's realized profit are the materialized result of the fold.
+ */
+@Service
+@Slf4j
+public class PositionLedger {
+
+    /**
+     * Published when a portfolio's transactions or the values derived from them change.
+     * Listeners that cache derived data should react after commit.
+     */
+    public record LedgerChangedEvent(UUID portfolioId) {
+    }
+
+    private static final String EVENT_COLUMNS =
+            "id, type, quantity, price_per_unit, transaction_date, realized_profit";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionRepository transactionRepository;
+    private final HoldingRepository holdingRepository;
+    private final PortfolioRepository portfolioRepository;
+    private final HoldingService holdingService;
+    private final PortfolioValuationEngine valuationEngine;
+    private final PositionLocks positionLocks;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${ledger.snapshot-interval:100}")
+    private int snapshotInterval;
+
+    @Value("${ledger.replay-fetch-size:10000}")
+    private int replayFetchSize;
+
+    public PositionLedger(JdbcTemplate jdbcTemplate, TransactionRepository transactionRepository,
+                          HoldingRepository holdingRepository, PortfolioRepository portfolioRepository,
+                          HoldingService holdingService, PortfolioValuationEngine valuationEngine,
+                          PositionLocks positionLocks, TransactionTemplate transactionTemplate,
+                          ApplicationEventPublisher eventPublisher) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionRepository = transactionRepository;
+        this.holdingRepository = holdingRepository;
+        this.portfolioRepository = portfolioRepository;
+        this.holdingService = holdingService;
+        this.valuationEngine = valuationEngine;
+        this.positionLocks = positionLocks;
+        this.transactionTemplate = transactionTemplate;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * Sequence number of the next event of a position, with the position's lock held.
+     * Normally one more than the holding's {@code ledgerSeq}; when that is unknown (no holding, or one
+     * written by an import) the position's events are counted once.
+     *
+     * @param portfolioId Portfolio ID
+     * @param symbol Stock symbol (upper case)
+     * @param holdingSeq the holding's ledger sequence, or null
+     * @return sequence number for the event about to be appended
+     */
+    public long nextEventSeq(UUID portfolioId, String symbol, Long holdingSeq) {
+        if (holdingSeq != null) {
+            return holdingSeq + 1;
+        }
+        Long events = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM transactions WHERE portfolio_id = ? AND instrument_symbol = ?",
+                Long.class, portfolioId, symbol);
+        return (events != null ? events : 0) + 1;
+    }
+
+    /**
+     * Called after a live trade has been written and flushed, with the position's lock held.
+     * Live trades are always the newest event of their position, so the holding is already current;
+     * this announces the change and, every {@code ledger.snapshot-interval} events, folds the events
+     * since the last snapshot into a new one. The sequence number comes from the holding, so trades
+     * that do not take a snapshot run no query here.
+     *
+     * @param portfolioId Portfolio ID
+     * @param symbol Stock symbol (upper case)
+     * @param seq the trade's sequence number, from {@link #nextEventSeq}
+     */
+    public void onEventAppended(UUID portfolioId, String symbol, long seq) {
+        eventPublisher.publishEvent(new LedgerChangedEvent(portfolioId));
+        if (snapshotInterval <= 0 || seq % snapshotInterval != 0) {
+            return;
+        }
+        Replay replay = replay(portfolioId, symbol, latestSnapshot(portfolioId, symbol));
+        if (replay.realizedDelta.signum() != 0) {
+            log.warn("Corrected realized profit of {} in portfolio {} by {} while taking a snapshot",
+                    symbol, portfolioId, replay.realizedDelta);
+        }
+        applyRealizedDelta(portfolioId, replay);
+    }
+
+    /**
+     * Insert a trade with a past date and rebuild its position from the nearest earlier snapshot.
+     * Later SELLs of the position get their realized profit recomputed. The insert is rejected, and
+     * nothing is written, if the position would go short at any point.
+     *
+     * @param portfolioId Portfolio ID
+     * @param transaction trade with its transactionDate set
+     * @return the stored transaction
+     * @throws IllegalArgumentException if the type is not BUY or SELL or the date is missing
+     * @throws IllegalStateException if the trade would oversell the position at some point in its history
+     */
+    public Transaction insertBackdated(UUID portfolioId, Transaction transaction) {
+        if (transaction.getTransactionDate() == null) {
+            throw new IllegalArgumentException("Transaction date is required");
+        }
+        String type = transaction.getType().toUpperCase();
+        if (!"BUY".equals(type) && !"SELL".equals(type)) {
+            throw new IllegalArgumentException("Invalid transaction type: " + transaction.getType() + ". Must be BUY or SELL");
+        }
+        String symbol = transaction.getInstrumentSymbol().toUpperCase();
+        transaction.setId(UUID.randomUUID());
+        transaction.setPortfolioId(portfolioId);
+        transaction.setInstrumentSymbol(symbol);
+        transaction.setType(type);
+        transaction.setRealizedProfit(null);
+        transaction.setTxnCurrency(transaction.getTxnCurrency() != null ? transaction.getTxnCurrency() : "USD");
+
+        Transaction inserted = positionLocks.withLock(portfolioId, symbol, () -> transactionTemplate.execute(status -> {
+            transactionRepository.saveAndFlush(transaction);
+            rebuildFrom(portfolioId, symbol, transaction.getTransactionDate(), transaction.getId());
+            if ("SELL".equals(type)) {
+                transaction.setRealizedProfit(jdbcTemplate.queryForObject(
+                        "SELECT realized_profit FROM transactions WHERE id = ?", BigDecimal.class, transaction.getId()));
+            }
+            log.info("Inserted backdated {} of {} {} at {}", type, transaction.getQuantity(), symbol,
+                    transaction.getTransactionDate());
+            return transaction;
+        }));
+        holdingService.refreshMarketPriceAfterWrite(portfolioId, symbol);
+        return inserted;
+    }
+
+    /**
+     * Rebuild one position from its latest snapshot and write the holding and realized profit.
+     *
+     * @param portfolioId Portfolio ID
+     * @param symbol Stock symbol
+     * @return replay statistics
+     */
+    public RebuildResult rebuildPosition(UUID portfolioId, String symbol) {
+        String upper = symbol.toUpperCase();
+        long start = System.nanoTime();
+        Replay replay = positionLocks.withLock(portfolioId, upper,
+                () -> transactionTemplate.execute(status -> rebuildFrom(portfolioId, upper, null, null)));
+        holdingService.refreshMarketPriceAfterWrite(portfolioId, upper);
+        return result(portfolioId, 1, replay.events, replay.snapshots, replay.corrected, start);
+    }
+
+    /**
+     * Rebuild every position of a portfolio that has transactions.
+     * Holdings without any transactions (for example seeded directly) are left unchanged.
+     *
+     * @param portfolioId Portfolio ID
+     * @return replay statistics
+     */
+    public RebuildResult rebuildPortfolio(UUID portfolioId) {
+        long start = System.nanoTime();
+        List<String> symbols = jdbcTemplate.queryForList(
+                "SELECT DISTINCT instrument_symbol FROM transactions WHERE portfolio_id = ?", String.class, portfolioId);
+        long events = 0;
+        int snapshots = 0;
+        int corrected = 0;
+        for (String symbol : symbols) {
+            Replay replay = positionLocks.withLock(portfolioId, symbol,
+                    () -> transactionTemplate.execute(status -> rebuildFrom(portfolioId, symbol, null, null)));
+            holdingService.refreshMarketPriceAfterWrite(portfolioId, symbol);
+            events += replay.events;
+            snapshots += replay.snapshots;
+            corrected += replay.corrected;
+        }
+        return result(portfolioId, symbols.size(), events, snapshots, corrected, start);
+    }
+
+    /**
+     * Discard every snapshot and replay the whole ledger in one ordered pass, then rewrite all derived
+     * state: snapshots, SELL realized profits, holdings and each portfolio's realized profit.
+     * Intended for maintenance; trades arriving during the replay are not reflected until the next
+     * rebuild of their position.
+     *
+     * @return replay statistics
+     */
+    public RebuildResult rebuildAll() {
+        long start = System.nanoTime();
+        FullReplay full = transactionTemplate.execute(status -> replayAll());
+        valuationEngine.rebuild();
+        RebuildResult result = result(null, full.positions.size(), full.events, full.snapshots, full.corrected, start);
+        log.info("Replayed {} events into {} positions in {} ms ({} events/s)", result.getEventsReplayed(),
+                result.getPositions(), result.getElapsedMillis(), Math.round(result.getEventsPerSecond()));
+        return result;
+    }
+
+    /**
+     * Rebuild a position from the last snapshot strictly before the given event key (or the latest
+     * snapshot when the key is null), then materialize it. Runs inside the caller's transaction.
+     */
+    private Replay rebuildFrom(UUID portfolioId, String symbol, LocalDateTime fromDate, UUID fromId) {
+        if (fromDate != null) {
+            // Snapshots at or after the inserted event have the wrong sequence numbers and state
+            jdbcTemplate.update("DELETE FROM position_snapshots WHERE portfolio_id = ? AND symbol = ? "
+                            + "AND (as_of_date > ? OR (as_of_date = ? AND as_of_id >= ?))",
+                    portfolioId, symbol, Timestamp.valueOf(fromDate), Timestamp.valueOf(fromDate), fromId);
+        }
+        Replay replay = replay(portfolioId, symbol, latestSnapshot(portfolioId, symbol));
+        materialize(portfolioId, symbol, replay);
+        eventPublisher.publishEvent(new LedgerChangedEvent(portfolioId));
+        return replay;
+    }
+
+    /**
+     * Fold the events after a snapshot, storing snapshots on the way and correcting SELL realized profits.
+     */
+    private Replay replay(UUID portfolioId, String symbol, Snapshot from) {
+        Fold fold = from != null ? from.toFold() : new Fold();
+        Replay replay = new Replay(fold);
+        List<Object[]> snapshotRows = new ArrayList<>();
+        List<Object[]> realizedRows = new ArrayList<>();
+
+        StringBuilder sql = new StringBuilder("SELECT " + EVENT_COLUMNS
+                + " FROM transactions WHERE portfolio_id = ? AND instrument_symbol = ?");
+        List<Object> args = new ArrayList<>(List.of(portfolioId, symbol));
+        if (from != null) {
+            sql.append(" AND (transaction_date > ? OR (transaction_date = ? AND id > ?))");
+            args.add(Timestamp.valueOf(from.asOfDate));
+            args.add(Timestamp.valueOf(from.asOfDate));
+            args.add(from.asOfId);
+        }
+        sql.append(" ORDER BY transaction_date, id");
+
+        jdbcTemplate.query(sql.toString(), rs -> {
+            UUID id = rs.getObject("id", UUID.class);
+            BigDecimal stored = rs.getBigDecimal("realized_profit");
+            BigDecimal realized = fold.apply(portfolioId, symbol, rs);
+            replay.events++;
+            if (changed(realized, stored)) {
+                replay.realizedDelta = replay.realizedDelta.add(realized.subtract(zeroIfNull(stored)));
+                realizedRows.add(new Object[]{realized, id});
+            }
+            if (snapshotInterval > 0 && fold.seq % snapshotInterval == 0) {
+                snapshotRows.add(fold.snapshotRow(portfolioId, symbol, id));
+            }
+        }, args.toArray());
+
+        writeSnapshots(snapshotRows);
+        writeRealized(realizedRows);
+        replay.snapshots = snapshotRows.size();
+        replay.corrected = realizedRows.size();
+        return replay;
+    }
+
+    /**
+     * Write the folded position to its holding and the realized-profit correction to the portfolio.
+     */
+    private void materialize(UUID portfolioId, String symbol, Replay replay) {
+        Fold fold = replay.fold;
+        Holding holding = holdingRepository.findByPortfolioIdAndSymbol(portfolioId, symbol).orElse(null);
+        if (fold.quantity.signum() == 0) {
+            if (holding != null) {
+                holdingRepository.delete(holding);
+                valuationEngine.onHoldingDeleted(portfolioId, symbol);
+            }
+        } else {
+            if (holding == null) {
+                holding = Holding.builder().portfolioId(portfolioId).symbol(symbol).name(symbol).build();
+            }
+            holding.setQuantity(fold.quantity);
+            holding.setAvgPriceInBaseCurrency(fold.avgPrice);
+            holding.setLedgerSeq(fold.seq);
+            holdingRepository.saveAndFlush(holding);
+            valuationEngine.onHoldingSaved(holding);
+        }
+        applyRealizedDelta(portfolioId, replay);
+    }
+
+    /**
+     * Add the realized-profit corrections of a replay to the portfolio.
+     */
+    private void applyRealizedDelta(UUID portfolioId, Replay replay) {
+        if (replay.realizedDelta.signum() != 0
+                && portfolioRepository.addRealizedProfit(portfolioId, replay.realizedDelta) > 0) {
+            valuationEngine.onRealizedProfit(portfolioId, replay.realizedDelta);
+        }
+    }
+
+    /**
+     * One pass over all transactions ordered by position and time, folding each position in turn.
+     */
+    private FullReplay replayAll() {
+        jdbcTemplate.update("DELETE FROM position_snapshots");
+
+        FullReplay full = new FullReplay();
+        List<Object[]> snapshotRows = new ArrayList<>();
+        List<Object[]> realizedRows = new ArrayList<>();
+
+        JdbcTemplate streaming = new JdbcTemplate(jdbcTemplate.getDataSource());
+        streaming.setFetchSize(replayFetchSize);
+        streaming.query("SELECT portfolio_id, instrument_symbol, " + EVENT_COLUMNS
+                + " FROM transactions ORDER BY portfolio_id, instrument_symbol, transaction_date, id", rs -> {
+            UUID portfolioId = rs.getObject("portfolio_id", UUID.class);
+            String symbol = rs.getString("instrument_symbol");
+            if (full.current == null || !full.current.portfolioId.equals(portfolioId)
+                    || !full.current.symbol.equals(symbol)) {
+                full.current = new PositionState(portfolioId, symbol);
+                full.positions.add(full.current);
+            }
+            Fold fold = full.current.fold;
+            UUID id = rs.getObject("id", UUID.class);
+            BigDecimal stored = rs.getBigDecimal("realized_profit");
+            BigDecimal realized = fold.apply(portfolioId, symbol, rs);
+            full.events++;
+            if (changed(realized, stored)) {
+                realizedRows.add(new Object[]{realized, id});
+            }
+            if (snapshotInterval > 0 && fold.seq % snapshotInterval == 0) {
+                snapshotRows.add(fold.snapshotRow(portfolioId, symbol, id));
+                if (snapshotRows.size() >= 1000) {
+                    full.snapshots += writeSnapshots(snapshotRows);
+                }
+            }
+            if (realizedRows.size() >= 1000) {
+                full.corrected += writeRealized(realizedRows);
+            }
+        });
+        full.snapshots += writeSnapshots(snapshotRows);
+        full.corrected += writeRealized(realizedRows);
+
+        writeAllHoldings(full.positions);
+        return full;
+    }
+
+    private void writeAllHoldings(List<PositionState> positions) {
+        Map<Holding.HoldingId, Holding> existing = new HashMap<>();
+        for (Holding holding : holdingRepository.findAll()) {
+            existing.put(holding.getId(), holding);
+        }
+
+        List<Holding> save = new ArrayList<>();
+        List<Holding> delete = new ArrayList<>();
+        Map<UUID, BigDecimal> realizedByPortfolio = new HashMap<>();
+        for (PositionState position : positions) {
+            Fold fold = position.fold;
+            realizedByPortfolio.merge(position.portfolioId, fold.realized, BigDecimal::add);
+            Holding holding = existing.get(new Holding.HoldingId(position.portfolioId, position.symbol));
+            if (fold.quantity.signum() == 0) {
+                if (holding != null) {
+                    delete.add(holding);
+                }
+                continue;
+            }
+            if (holding == null) {
+                holding = Holding.builder()
+                        .portfolioId(position.portfolioId)
+                        .symbol(position.symbol)
+                        .name(position.symbol)
+                        .build();
+            }
+            holding.setQuantity(fold.quantity);
+            holding.setAvgPriceInBaseCurrency(fold.avgPrice);
+            holding.setLedgerSeq(fold.seq);
+            save.add(holding);
+        }
+        holdingRepository.deleteAll(delete);
+        holdingRepository.saveAll(save);
+
+        List<Object[]> portfolioRows = new ArrayList<>();
+        realizedByPortfolio.forEach((portfolioId, realized) -> portfolioRows.add(new Object[]{realized, portfolioId}));
+        jdbcTemplate.batchUpdate("UPDATE portfolios SET realized_profit_in_base_currency = ? WHERE id = ?",
+                portfolioRows);
+        realizedByPortfolio.keySet().forEach(portfolioId -> eventPublisher.publishEvent(new LedgerChangedEvent(portfolioId)));
+    }
+
+    private Snapshot latestSnapshot(UUID portfolioId, String symbol) {
+        List<Snapshot> rows = jdbcTemplate.query(
+                "SELECT event_seq, as_of_date, as_of_id, quantity, avg_price, realized_profit FROM position_snapshots "
+                        + "WHERE portfolio_id = ? AND symbol = ? ORDER BY event_seq DESC LIMIT 1",
+                (rs, i) -> new Snapshot(rs.getLong("event_seq"), rs.getTimestamp("as_of_date").toLocalDateTime(),
+                        rs.getObject("as_of_id", UUID.class), rs.getBigDecimal("quantity"),
+                        rs.getBigDecimal("avg_price"), rs.getBigDecimal("realized_profit")),
+                portfolioId, symbol);
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    private int writeSnapshots(List<Object[]> rows) {
+        int written = rows.size();
+        if (written > 0) {
+            jdbcTemplate.batchUpdate("INSERT INTO position_snapshots (portfolio_id, symbol, event_seq, as_of_date, "
+                    + "as_of_id, quantity, avg_price, realized_profit) VALUES (?, ?, ?, ?, ?, ?, ?, ?)", rows);
+            rows.clear();
+        }
+        return written;
+    }
+
+    private int writeRealized(List<Object[]> rows) {
+        int written = rows.size();
+        if (written > 0) {
+            jdbcTemplate.batchUpdate("UPDATE transactions SET realized_profit = ? WHERE id = ?", rows);
+            rows.clear();
+        }
+        return written;
+    }
+
+    private static RebuildResult result(UUID portfolioId, int positions, long events, int snapshots, int corrected,
+                                        long startNanos) {
+        long elapsedNanos = System.nanoTime() - startNanos;
+        return RebuildResult.builder()
+                .portfolioId(portfolioId != null ? portfolioId.toString() : null)
+                .positions(positions)
+                .eventsReplayed(events)
+                .snapshotsWritten(snapshots)
+                .realizedProfitsCorrected(corrected)
+                .elapsedMillis(elapsedNanos / 1_000_000)
+                .eventsPerSecond(elapsedNanos == 0 ? 0d : events * 1_000_000_000d / elapsedNanos)
+                .build();
+    }
+
+    private static boolean changed(BigDecimal realized, BigDecimal stored) {
+        return realized != null && (stored == null || realized.compareTo(stored) != 0);
+    }
+
+    private static BigDecimal zeroIfNull(BigDecimal value) {
+        return value != null ? value : BigDecimal.ZERO;
+    }
+
+    /**
+     * Running state of one position's fold.
+     */
+    private static final class Fold {
+        private BigDecimal quantity = BigDecimal.ZERO;
+        private BigDecimal avgPrice = BigDecimal.ZERO;
+        private BigDecimal realized = BigDecimal.ZERO;
+        private long seq;
+        private LocalDateTime lastDate;
+
+        /**
+         * Apply the event at the result set's current row.
+         *
+         * @return the SELL's realized profit at the stored scale, or null for a BUY
+         */
+        private BigDecimal apply(UUID portfolioId, String symbol, ResultSet rs) throws SQLException {
+            String type = rs.getString("type");
+            BigDecimal qty = rs.getBigDecimal("quantity");
+            BigDecimal price = rs.getBigDecimal("price_per_unit");
+            lastDate = rs.getTimestamp("transaction_date").toLocalDateTime();
+            seq++;
+
+            if ("BUY".equals(type)) {
+                if (quantity.signum() == 0) {
+                    quantity = qty;
+                    avgPrice = price;
+                } else {
+                    // Weighted average cost, as in executeBuy
+                    BigDecimal total = quantity.add(qty);
+                    avgPrice = quantity.multiply(avgPrice).add(qty.multiply(price)).divide(total, 2, RoundingMode.HALF_UP);
+                    quantity = total;
+                }
+                return null;
+            }
+            if (quantity.compareTo(qty) < 0) {
+                throw new IllegalStateException("Cannot sell " + qty + " shares of " + symbol + " in portfolio "
+                        + portfolioId + " at " + lastDate + ": Only " + quantity + " shares held at that point");
+            }
+            // Realized against the average cost, as in executeSell; stored with two decimals
+            BigDecimal profit = price.multiply(qty).subtract(avgPrice.multiply(qty)).setScale(2, RoundingMode.HALF_UP);
+            realized = realized.add(profit);
+            quantity = quantity.subtract(qty);
+            return profit;
+        }
+
+        private Object[] snapshotRow(UUID portfolioId, String symbol, UUID eventId) {
+            return new Object[]{portfolioId, symbol, seq, Timestamp.valueOf(lastDate), eventId,
+                    quantity, avgPrice, realized};
+        }
+    }
+
+    private record Snapshot(long seq, LocalDateTime asOfDate, UUID asOfId, BigDecimal quantity,
+                            BigDecimal avgPrice, BigDecimal realized) {
+
+        private Fold toFold() {
+            Fold fold = new Fold();
+            fold.seq = seq;
+            fold.lastDate = asOfDate;
+            fold.quantity = quantity;
+            fold.avgPrice = avgPrice;
+            fold.realized = realized;
+            return fold;
+        }
+    }
+
+    private static final class Replay {
+        private final Fold fold;
+        private long events;
+        private int snapshots;
+        private int corrected;
+        private BigDecimal realizedDelta = BigDecimal.ZERO;
+
+        private Replay(Fold fold) {
+            this.fold = fold;
+        }
+    }
+
+    private static final class PositionState {
+        private final UUID portfolioId;
+        private final String symbol;
+        private final Fold fold = new Fold();
+
+        private PositionState(UUID portfolioId, String symbol) {
+            this.portfolioId = portfolioId;
+            this.symbol = symbol;
+        }
+    }
+
+    private static final class FullReplay {
+        private final List<PositionState> positions = new ArrayList<>();
+        private PositionState current;
+        private long events;
+        private int snapshots;
+        private int corrected;
+    }
+}
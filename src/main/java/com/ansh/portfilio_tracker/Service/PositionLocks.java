@@ -0,0 +1,101 @@
+package com.ansh.portfilio_tracker.Service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * Striped locks keyed by (portfolio, symbol).
+ * A transaction holds the stripe of its position from before its database transaction begins until
+ * after it commits, so two trades on one position never interleave their read-modify-write of the
+ * holding, while trades on different positions almost always take different stripes and run in parallel.
+ * Each position lock also holds its portfolio's stripe of a read-write lock shared; a bulk write that
+ * folds many positions from one read, such as an import, holds it exclusively instead. The portfolio
+ * lock is always taken before the position lock.
+ * The lock is per JVM; the application runs as a single instance, like its in-memory valuation state.
+ */
+@Component
+public class PositionLocks {
+
+    private final ReentrantLock[] stripes;
+    private final ReentrantReadWriteLock[] portfolioStripes;
+    private final int mask;
+
+    public PositionLocks(@Value("${transactions.lock-stripes:1024}") int stripeCount) {
+        // Round up to a power of two so the stripe is a mask of the hash
+        int size = stripeCount <= 1 ? 1 : Integer.highestOneBit(stripeCount - 1) << 1;
+        this.stripes = new ReentrantLock[size];
+        this.portfolioStripes = new ReentrantReadWriteLock[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock();
+            portfolioStripes[i] = new ReentrantReadWriteLock();
+        }
+        this.mask = size - 1;
+    }
+
+    /**
+     * Run an action while holding the lock of a position.
+     *
+     * @param portfolioId Portfolio ID
+     * @param symbol Stock symbol (upper case)
+     * @param action action to run, typically a whole database transaction
+     * @return the action's result
+     */
+    public <T> T withLock(UUID portfolioId, String symbol, Supplier<T> action) {
+        Lock portfolioLock = portfolioStripes[portfolioStripe(portfolioId)].readLock();
+        ReentrantLock lock = stripes[stripe(portfolioId, symbol)];
+        portfolioLock.lock();
+        try {
+            lock.lock();
+            try {
+                return action.get();
+            } finally {
+                lock.unlock();
+            }
+        } finally {
+            portfolioLock.unlock();
+        }
+    }
+
+    /**
+     * Run an action while no position of the portfolio is locked by another thread.
+     * Every trade on the portfolio waits until the action returns; position locks taken
+     * inside the action by the same thread do not wait.
+     *
+     * @param portfolioId Portfolio ID
+     * @param action action to run, typically a whole database transaction
+     * @return the action's result
+     */
+    public <T> T withPortfolioLock(UUID portfolioId, Supplier<T> action) {
+        Lock lock = portfolioStripes[portfolioStripe(portfolioId)].writeLock();
+        lock.lock();
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Number of stripes.
+     */
+    public int getStripeCount() {
+        return stripes.length;
+    }
+
+    int portfolioStripe(UUID portfolioId) {
+        int h = portfolioId.hashCode();
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    int stripe(UUID portfolioId, String symbol) {
+        int h = 31 * portfolioId.hashCode() + symbol.hashCode();
+        // Spread the high bits, as HashMap does
+        return (h ^ (h >>> 16)) & mask;
+    }
+}
@@ -0,0 +1,273 @@
+package com.ansh.portfilio_tracker.Service;
+
+import com.ansh.portfilio_tracker.Classes.FinnhubQuoteResponse;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.Builder;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * In-process cache in front of the Finnhub REST quote endpoint.
+ * <ul>
+ *     <li>Entries are fresh for {@code ttl-ms}; for a further {@code stale-ms} the stale quote is
+ *     served while a single background refresh runs.</li>
+ *     <li>Concurrent misses for the same symbol share one in-flight load.</li>
+ *     <li>Symbols without quote data are cached as negative entries for {@code negative-ttl-ms}.</li>
+ * </ul>
+ */
+@Component
+@Slf4j
+public class QuoteCache implements MeterBinder {
+
+    /**
+     * Loads a quote from the upstream API. Returns empty when the symbol has no quote data
+     * and throws when the call itself fails, so failures are never negatively cached.
+     */
+    @FunctionalInterface
+    public interface QuoteLoader {
+        Optional<FinnhubQuoteResponse> load(String symbol) throws Exception;
+    }
+
+    private final long ttlNanos;
+    private final long staleNanos;
+    private final long negativeTtlNanos;
+    private final int maxEntries;
+    private final Executor refreshExecutor;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<Optional<FinnhubQuoteResponse>>> inFlight = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder staleHits = new LongAdder();
+    private final LongAdder negativeHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder loadFailures = new LongAdder();
+
+    public QuoteCache(@Value("${finnhub.quote-cache.ttl-ms:15000}") long ttlMillis,
+                      @Value("${finnhub.quote-cache.stale-ms:60000}") long staleMillis,
+                      @Value("${finnhub.quote-cache.negative-ttl-ms:300000}") long negativeTtlMillis,
+                      @Value("${finnhub.quote-cache.max-entries:10000}") int maxEntries,
+                      ExecutorService finnhubExecutor) {
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+        this.staleNanos = TimeUnit.MILLISECONDS.toNanos(staleMillis);
+        this.negativeTtlNanos = TimeUnit.MILLISECONDS.toNanos(negativeTtlMillis);
+        this.maxEntries = maxEntries;
+        this.refreshExecutor = finnhubExecutor;
+    }
+
+    /**
+     * Get a quote, loading it through {@code loader} on a miss.
+     * Blocks while the (possibly shared) load is in flight; an unshared load runs on the calling thread.
+     *
+     * @param symbol Stock symbol (upper case)
+     * @param loader Upstream loader
+     * @return the quote, or empty if the symbol has no data or the load failed
+     */
+    public Optional<FinnhubQuoteResponse> get(String symbol, QuoteLoader loader) {
+        return getAsync(symbol, loader, Runnable::run).join();
+    }
+
+    /**
+     * Get a quote without blocking. Cached quotes complete immediately; a miss either joins the
+     * in-flight load for the symbol or starts one on {@code executor}.
+     *
+     * @param symbol Stock symbol (upper case)
+     * @param loader Upstream loader
+     * @param executor Executor for a new load
+     * @return future completing with the quote, or empty if the symbol has no data or the load failed
+     */
+    public CompletableFuture<Optional<FinnhubQuoteResponse>> getAsync(String symbol, QuoteLoader loader,
+                                                                      Executor executor) {
+        Entry entry = entries.get(symbol);
+        if (entry != null) {
+            long now = System.nanoTime();
+            if (now - entry.expiresAt < 0) {
+                (entry.quote == null ? negativeHits : hits).increment();
+                return CompletableFuture.completedFuture(Optional.ofNullable(entry.quote));
+            }
+            if (entry.quote != null && now - entry.staleUntil < 0) {
+                staleHits.increment();
+                refreshInBackground(symbol, loader);
+                return CompletableFuture.completedFuture(Optional.of(entry.quote));
+            }
+        }
+
+        misses.increment();
+        CompletableFuture<Optional<FinnhubQuoteResponse>> existing = inFlight.get(symbol);
+        if (existing != null) {
+            coalesced.increment();
+            return existing;
+        }
+        return CompletableFuture.supplyAsync(() -> load(symbol, loader), executor)
+                .thenCompose(Function.identity());
+    }
+
+    /**
+     * Drop a cached entry so the next request goes upstream.
+     *
+     * @param symbol Stock symbol (upper case)
+     */
+    public void invalidate(String symbol) {
+        entries.remove(symbol);
+    }
+
+    /**
+     * @return hit, miss and coalesce counters
+     */
+    public Stats getStats() {
+        long hitCount = hits.sum() + staleHits.sum() + negativeHits.sum();
+        long total = hitCount + misses.sum();
+        return Stats.builder()
+                .hits(hits.sum())
+                .staleHits(staleHits.sum())
+                .negativeHits(negativeHits.sum())
+                .misses(misses.sum())
+                .coalesced(coalesced.sum())
+                .loads(loads.sum())
+                .loadFailures(loadFailures.sum())
+                .size(entries.size())
+                .hitRatio(total == 0 ? 0d : (double) hitCount / total)
+                .build();
+    }
+
+    /**
+     * Expose the cache counters as meters; they are read on scrape, nothing extra is recorded per lookup.
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        bindRequests(registry, "hit", hits);
+        bindRequests(registry, "stale", staleHits);
+        bindRequests(registry, "negative", negativeHits);
+        bindRequests(registry, "miss", misses);
+        FunctionCounter.builder("finnhub.quote.cache.coalesced", coalesced, LongAdder::sum)
+                .description("Misses that joined a load already in flight")
+                .register(registry);
+        FunctionCounter.builder("finnhub.quote.cache.loads", loads, LongAdder::sum)
+                .description("Upstream quote loads")
+                .register(registry);
+        FunctionCounter.builder("finnhub.quote.cache.load.failures", loadFailures, LongAdder::sum)
+                .description("Upstream quote loads that failed")
+                .register(registry);
+        Gauge.builder("finnhub.quote.cache.size", entries, Map::size)
+                .description("Cached quotes, including negative entries")
+                .register(registry);
+        Gauge.builder("finnhub.quote.cache.hit.ratio", this, cache -> cache.getStats().getHitRatio())
+                .description("Share of lookups answered from the cache since startup")
+                .register(registry);
+    }
+
+    private static void bindRequests(MeterRegistry registry, String result, LongAdder counter) {
+        FunctionCounter.builder("finnhub.quote.cache.requests", counter, LongAdder::sum)
+                .description("Quote cache lookups by result")
+                .tag("result", result)
+                .register(registry);
+    }
+
+    /**
+     * Single-flight load: the first caller runs the loader, everyone else joins its future.
+     * A load that finished between the caller's miss and its claim is reused rather than repeated.
+     */
+    private CompletableFuture<Optional<FinnhubQuoteResponse>> load(String symbol, QuoteLoader loader) {
+        CompletableFuture<Optional<FinnhubQuoteResponse>> future = new CompletableFuture<>();
+        CompletableFuture<Optional<FinnhubQuoteResponse>> existing = inFlight.putIfAbsent(symbol, future);
+        if (existing != null) {
+            coalesced.increment();
+            return existing;
+        }
+
+        try {
+            Entry entry = entries.get(symbol);
+            if (entry != null && System.nanoTime() - entry.expiresAt < 0) {
+                coalesced.increment();
+                future.complete(Optional.ofNullable(entry.quote));
+                return future;
+            }
+            loads.increment();
+            Optional<FinnhubQuoteResponse> quote = loader.load(symbol);
+            store(symbol, quote.orElse(null));
+            future.complete(quote);
+        } catch (Exception e) {
+            loadFailures.increment();
+            log.error("Error loading quote for symbol: {}", symbol, e);
+            // Keep serving a stale quote if there is one rather than failing the caller
+            Entry stale = entries.get(symbol);
+            future.complete(stale != null ? Optional.ofNullable(stale.quote) : Optional.empty());
+        } finally {
+            inFlight.remove(symbol, future);
+        }
+        return future;
+    }
+
+    private void refreshInBackground(String symbol, QuoteLoader loader) {
+        if (inFlight.containsKey(symbol)) {
+            return;
+        }
+        try {
+            refreshExecutor.execute(() -> load(symbol, loader));
+        } catch (Exception e) {
+            log.warn("Could not schedule quote refresh for symbol: {}", symbol, e);
+        }
+    }
+
+    private void store(String symbol, FinnhubQuoteResponse quote) {
+        long now = System.nanoTime();
+        if (quote != null) {
+            entries.put(symbol, new Entry(quote, now + ttlNanos, now + ttlNanos + staleNanos));
+        } else {
+            entries.put(symbol, new Entry(null, now + negativeTtlNanos, now + negativeTtlNanos));
+        }
+        if (entries.size() > maxEntries) {
+            evictExpired(now);
+        }
+    }
+
+    private void evictExpired(long now) {
+        entries.entrySet().removeIf(e -> now - e.getValue().staleUntil >= 0);
+        // Still over the limit: drop arbitrary entries, they are just cache
+        var iterator = entries.keySet().iterator();
+        while (entries.size() > maxEntries && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    /**
+     * Cached quote; a null quote marks a negative entry.
+     */
+    private record Entry(FinnhubQuoteResponse quote, long expiresAt, long staleUntil) {
+    }
+
+    /**
+     * Cache effectiveness counters.
+     */
+    @Data
+    @Builder
+    public static class Stats {
+        private long hits;
+        private long staleHits;
+        private long negativeHits;
+        private long misses;
+        private long coalesced;
+        private long loads;
+        private long loadFailures;
+        private int size;
+        private double hitRatio;
+    }
+}
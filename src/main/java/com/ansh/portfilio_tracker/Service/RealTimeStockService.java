@@ -1,28 +1,46 @@
 package com.ansh.portfilio_tracker.Service;
 
+import com.ansh.portfilio_tracker.Classes.TradeRecord;
 import com.fasterxml.jackson.databind.JsonNode;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Service to manage real-time stock price updates from Finnhub WebSocket.
  * Handles subscriptions, caches latest prices, and broadcasts to listeners.
+ * Trades arrive from every connection of {@link FinnhubShardRouter}. Prices cached before their
+ * connection was last lost are reported as stale until a new trade or a REST snapshot replaces them.
  */
 @Service
 @Slf4j
 @RequiredArgsConstructor
 public class RealTimeStockService {
 
-    private final FinnhubWebSocketClient webSocketClient;
+    private final FinnhubShardRouter shardRouter;
+    private final TickStore tickStore;
+    private final MeterRegistry meterRegistry;
 
     // Cache of latest prices for each symbol
     private final Map<String, StockPrice> latestPrices = new ConcurrentHashMap<>();
@@ -33,29 +51,117 @@ public class RealTimeStockService {
     // Listeners for price updates
     private final Map<String, Set<StockPriceListener>> priceListeners = new ConcurrentHashMap<>();
 
+    // Per shard, bumped on every connection loss; prices cached under an older generation are stale
+    private AtomicLongArray connectionGenerations;
+
+    // Trades received per shard
+    private LongAdder[] shardTrades;
+    private long startNanos;
+
+    // The ring, or without it the tick store, takes one writer at a time. Shards decode in parallel and
+    // hold this only to copy decoded ticks in; caching and listeners run outside it
+    private final ReentrantLock ingestLock = new ReentrantLock();
+
+    // Overflow policy each listener was registered with
+    private final Map<ListenerKey, TickRingBuffer.OverflowPolicy> listenerPolicies = new ConcurrentHashMap<>();
+
+    // Listener stage per overflow policy, started with its first listener (guarded by itself)
+    private final Map<TickRingBuffer.OverflowPolicy, ListenerStage> listenerStages =
+            new EnumMap<>(TickRingBuffer.OverflowPolicy.class);
+
+    @Value("${realtime.pipeline.enabled:true}")
+    private boolean pipelineEnabled;
+
+    @Value("${realtime.pipeline.capacity:8192}")
+    private int pipelineCapacity;
+
+    @Value("${realtime.pipeline.batch-size:256}")
+    private int pipelineBatchSize;
+
+    @Value("${realtime.pipeline.idle-micros:500}")
+    private long pipelineIdleMicros;
+
+    @Value("${realtime.pipeline.listener-overflow-policy:CONFLATE}")
+    private TickRingBuffer.OverflowPolicy listenerOverflowPolicy;
+
+    @Value("${realtime.pipeline.listener-threads:4}")
+    private int listenerThreads;
+
+    // Ingestion pipeline between the WebSocket reader thread and tick consumers (null when disabled)
+    private TickRingBuffer tickPipeline;
+
+    // Time spent in, and exceptions thrown by, price listeners
+    private Timer listenerLatency;
+    private Counter listenerErrors;
+
     @PostConstruct
     public void initialize() {
         log.info("Initializing Real-Time Stock Service");
+        listenerLatency = Timer.builder("realtime.listener.latency")
+                .description("Time a price listener takes to handle one update")
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofNanos(500))
+                .maximumExpectedValue(Duration.ofMillis(100))
+                .register(meterRegistry);
+        listenerErrors = Counter.builder("realtime.listener.errors")
+                .description("Price updates whose listener threw")
+                .register(meterRegistry);
 
-        // Register message handler
-        webSocketClient.registerMessageHandler("realTimeStockService", this::handleWebSocketMessage);
+        if (pipelineEnabled) {
+            tickPipeline = new TickRingBuffer(pipelineCapacity, pipelineBatchSize,
+                    TimeUnit.MICROSECONDS.toNanos(pipelineIdleMicros));
+            // The price cache only needs the latest tick per symbol
+            tickPipeline.addConsumer("price-cache", TickRingBuffer.OverflowPolicy.CONFLATE,
+                    (symbol, price, timestamp, volume, shard, endOfBatch) ->
+                            cachePrice(symbol, BigDecimal.valueOf(price), timestamp, volume, shard));
+            // Every tick goes to the history; falling behind drops ticks rather than stalling ingestion
+            if (tickStore.isEnabled()) {
+                tickPipeline.addConsumer("tick-store", TickRingBuffer.OverflowPolicy.DROP_OLDEST,
+                        (symbol, price, timestamp, volume, shard, endOfBatch) ->
+                                tickStore.append(symbol, price, timestamp, volume));
+            }
+            log.info("Tick pipeline enabled (capacity: {}, batch size: {})", pipelineCapacity, pipelineBatchSize);
+        }
 
-        // Connect to Finnhub WebSocket
-        try {
-            webSocketClient.connect();
-            log.info("Connected to Finnhub WebSocket");
-        } catch (Exception e) {
-            log.error("Error connecting to Finnhub WebSocket", e);
+        // Register message handlers on every shard; decoded trades bypass the JsonNode tree when streaming parse is on
+        List<FinnhubWebSocketClient> shards = shardRouter.getShards();
+        connectionGenerations = new AtomicLongArray(shards.size());
+        shardTrades = new LongAdder[shards.size()];
+        startNanos = System.nanoTime();
+        for (int i = 0; i < shards.size(); i++) {
+            LongAdder trades = new LongAdder();
+            shardTrades[i] = trades;
+            FunctionCounter.builder("realtime.shard.trades", trades, LongAdder::sum)
+                    .description("Trades received per WebSocket connection")
+                    .tag("shard", String.valueOf(i))
+                    .register(meterRegistry);
+            FinnhubWebSocketClient client = shards.get(i);
+            int shard = i;
+            client.registerMessageHandler("realTimeStockService",
+                    message -> handleWebSocketMessage(shard, trades, message));
+            if (client.isStreamingParse()) {
+                client.registerTradeHandler("realTimeStockService", (records, count) -> {
+                    trades.add(count);
+                    handleTrades(shard, records, count);
+                });
+            }
         }
+
+        // The connection itself is opened and kept up by FinnhubConnectionSupervisor
     }
 
     @PreDestroy
     public void cleanup() {
         log.info("Cleaning up Real-Time Stock Service");
-        try {
-            webSocketClient.close();
-        } catch (Exception e) {
-            log.error("Error closing WebSocket connection", e);
+        for (FinnhubWebSocketClient client : shardRouter.getShards()) {
+            try {
+                client.close();
+            } catch (Exception e) {
+                log.error("Error closing WebSocket connection", e);
+            }
+        }
+        if (tickPipeline != null) {
+            tickPipeline.shutdown();
         }
     }
 
@@ -67,7 +173,7 @@ public class RealTimeStockService {
     public void subscribe(String symbol) {
         String upperSymbol = symbol.toUpperCase();
         if (!subscribedSymbols.contains(upperSymbol)) {
-            webSocketClient.subscribe(upperSymbol);
+            shardRouter.subscribe(upperSymbol);
             subscribedSymbols.add(upperSymbol);
             log.info("Subscribed to real-time updates for: {}", upperSymbol);
         }
@@ -81,7 +187,7 @@ public class RealTimeStockService {
     public void unsubscribe(String symbol) {
         String upperSymbol = symbol.toUpperCase();
         if (subscribedSymbols.contains(upperSymbol)) {
-            webSocketClient.unsubscribe(upperSymbol);
+            shardRouter.unsubscribe(upperSymbol);
             subscribedSymbols.remove(upperSymbol);
             latestPrices.remove(upperSymbol);
             log.info("Unsubscribed from real-time updates for: {}", upperSymbol);
@@ -92,10 +198,74 @@ public class RealTimeStockService {
      * Get the latest cached price for a symbol.
      *
      * @param symbol Stock symbol
-     * @return Latest price or null if not available
+     * @return Latest price, flagged stale if it predates the last connection loss; null if not available
      */
     public StockPrice getLatestPrice(String symbol) {
-        return latestPrices.get(symbol.toUpperCase());
+        StockPrice price = latestPrices.get(symbol.toUpperCase());
+        if (price != null && price.getGeneration() < connectionGenerations.get(price.getShard())) {
+            return price.toBuilder().stale(true).build();
+        }
+        return price;
+    }
+
+    /**
+     * Flag every price cached so far from one shard as stale. Called when its connection is lost.
+     *
+     * @param shard Shard index
+     */
+    public void markPricesStale(int shard) {
+        connectionGenerations.incrementAndGet(shard);
+    }
+
+    /**
+     * Get trade counts and throughput for each WebSocket connection.
+     *
+     * @return one entry per shard
+     */
+    public List<ShardStats> getShardStats() {
+        double seconds = Math.max(1e-9, (System.nanoTime() - startNanos) / 1e9);
+        List<ShardStats> stats = new ArrayList<>();
+        for (int i = 0; i < shardTrades.length; i++) {
+            long trades = shardTrades[i].sum();
+            stats.add(ShardStats.builder()
+                    .shard(i)
+                    .connected(shardRouter.getShards().get(i).isOpen())
+                    .symbols(shardRouter.symbolsOf(i).size())
+                    .trades(trades)
+                    .tradesPerSecond(trades / seconds)
+                    .build());
+        }
+        return stats;
+    }
+
+    /**
+     * Cache a REST quote taken to fill the gap left by a dropped connection.
+     * A trade received since the drop is newer than the snapshot and is kept.
+     *
+     * @param symbol Stock symbol (upper case)
+     * @param price Quote price
+     * @param timestamp Quote time (epoch milliseconds)
+     * @return true if the snapshot replaced the cached price
+     */
+    public boolean applySnapshot(String symbol, BigDecimal price, long timestamp) {
+        int shard = shardRouter.shardOf(symbol);
+        long generation = connectionGenerations.get(shard);
+        boolean[] applied = new boolean[1];
+        latestPrices.compute(symbol, (key, current) -> {
+            if (current != null && current.getShard() == shard && current.getGeneration() >= generation
+                    && current.getTimestamp() >= timestamp) {
+                return current;
+            }
+            applied[0] = true;
+            return StockPrice.builder()
+                    .symbol(symbol)
+                    .price(price)
+                    .timestamp(timestamp)
+                    .shard(shard)
+                    .generation(generation)
+                    .build();
+        });
+        return applied[0];
     }
 
     /**
@@ -105,12 +275,58 @@ public class RealTimeStockService {
      * @param listener Listener to be notified of price updates
      */
     public void addPriceListener(String symbol, StockPriceListener listener) {
+        addPriceListener(symbol, listener, listenerOverflowPolicy);
+    }
+
+    /**
+     * Register a listener for price updates of a specific symbol.
+     * With the pipeline enabled, listeners are called from the listener stage of their overflow policy:
+     * {@code realtime.pipeline.listener-threads} ring consumers, each delivering the symbols whose
+     * hash maps to it. The thread count stays fixed however many listeners there are; a slow listener
+     * delays the other symbols on its thread.
+     *
+     * @param symbol Stock symbol
+     * @param listener Listener to be notified of price updates
+     * @param policy What to do when the listener's stage falls a full ring behind
+     */
+    public void addPriceListener(String symbol, StockPriceListener listener, TickRingBuffer.OverflowPolicy policy) {
         String upperSymbol = symbol.toUpperCase();
-        priceListeners.computeIfAbsent(upperSymbol, k -> new CopyOnWriteArraySet<>()).add(listener);
+        if (priceListeners.computeIfAbsent(upperSymbol, k -> new CopyOnWriteArraySet<>()).add(listener)
+                && tickPipeline != null) {
+            listenerPolicies.put(new ListenerKey(upperSymbol, listener), policy);
+            listenerStage(policy).add(upperSymbol, listener);
+        }
         // Auto-subscribe when first listener is added
         subscribe(upperSymbol);
     }
 
+    /**
+     * Register a consumer for every tick, independent of symbol subscriptions.
+     * Requires the pipeline; the handler runs on its own thread.
+     *
+     * @param name Consumer name, shown in pipeline stats
+     * @param policy What to do when the consumer falls a full ring behind
+     * @param handler Tick callback
+     * @return the consumer handle, or null when the pipeline is disabled
+     */
+    public TickRingBuffer.TickConsumer addTickConsumer(String name, TickRingBuffer.OverflowPolicy policy,
+                                                       TickRingBuffer.TickHandler handler) {
+        if (tickPipeline == null) {
+            log.warn("Tick pipeline is disabled; consumer {} not registered", name);
+            return null;
+        }
+        return tickPipeline.addConsumer(name, policy, handler);
+    }
+
+    /**
+     * Get queue depth and lag for the ingestion pipeline.
+     *
+     * @return pipeline stats, or null when the pipeline is disabled
+     */
+    public TickRingBuffer.PipelineStats getPipelineStats() {
+        return tickPipeline != null ? tickPipeline.getStats() : null;
+    }
+
     /**
      * Remove a price listener.
      *
@@ -122,6 +338,10 @@ public class RealTimeStockService {
         Set<StockPriceListener> listeners = priceListeners.get(upperSymbol);
         if (listeners != null) {
             listeners.remove(listener);
+            TickRingBuffer.OverflowPolicy policy = listenerPolicies.remove(new ListenerKey(upperSymbol, listener));
+            if (policy != null) {
+                listenerStage(policy).remove(upperSymbol, listener);
+            }
             // Auto-unsubscribe when no listeners remain
             if (listeners.isEmpty()) {
                 priceListeners.remove(upperSymbol);
@@ -130,18 +350,25 @@ public class RealTimeStockService {
         }
     }
 
+    private ListenerStage listenerStage(TickRingBuffer.OverflowPolicy policy) {
+        synchronized (listenerStages) {
+            return listenerStages.computeIfAbsent(policy, ListenerStage::new);
+        }
+    }
+
     /**
      * Handle incoming WebSocket messages from Finnhub.
      */
-    private void handleWebSocketMessage(JsonNode message) {
+    private void handleWebSocketMessage(int shard, LongAdder trades, JsonNode message) {
         try {
             String type = message.has("type") ? message.get("type").asText() : null;
 
             if ("trade".equals(type) && message.has("data")) {
                 JsonNode data = message.get("data");
                 if (data.isArray()) {
+                    trades.add(data.size());
                     for (JsonNode trade : data) {
-                        processTradeData(trade);
+                        processTradeData(shard, trade);
                     }
                 }
             } else if ("ping".equals(type)) {
@@ -152,33 +379,93 @@ public class RealTimeStockService {
         }
     }
 
+    /**
+     * Handle a batch of trades decoded by the streaming parser.
+     */
+    private void handleTrades(int shard, TradeRecord[] trades, int count) {
+        if (tickPipeline != null) {
+            ingestLock.lock();
+            try {
+                tickPipeline.publish(trades, count, shard);
+            } finally {
+                ingestLock.unlock();
+            }
+            return;
+        }
+        for (int i = 0; i < count; i++) {
+            TradeRecord trade = trades[i];
+            try {
+                updatePrice(trade.getSymbol(), BigDecimal.valueOf(trade.getPrice()),
+                        trade.getTimestamp(), trade.getVolume(), shard);
+            } catch (Exception e) {
+                log.error("Error processing trade data: {}", trade, e);
+            }
+        }
+    }
+
     /**
      * Process individual trade data and update cache.
      */
-    private void processTradeData(JsonNode trade) {
+    private void processTradeData(int shard, JsonNode trade) {
         try {
             String symbol = trade.get("s").asText();
             BigDecimal price = new BigDecimal(trade.get("p").asText());
             long timestamp = trade.get("t").asLong();
             double volume = trade.get("v").asDouble();
 
-            StockPrice stockPrice = StockPrice.builder()
-                    .symbol(symbol)
-                    .price(price)
-                    .timestamp(timestamp)
-                    .volume(volume)
-                    .build();
+            if (tickPipeline != null) {
+                ingestLock.lock();
+                try {
+                    tickPipeline.publish(symbol, price.doubleValue(), timestamp, volume, shard);
+                } finally {
+                    ingestLock.unlock();
+                }
+            } else {
+                updatePrice(symbol, price, timestamp, volume, shard);
+            }
+        } catch (Exception e) {
+            log.error("Error processing trade data: {}", trade, e);
+        }
+    }
 
-            // Update cache
-            latestPrices.put(symbol, stockPrice);
+    /**
+     * Update the cache with a new trade and notify listeners.
+     */
+    private void updatePrice(String symbol, BigDecimal price, long timestamp, double volume, int shard) {
+        // Without the pipeline the tick store is appended from every reader thread; the lock keeps it single-writer
+        ingestLock.lock();
+        try {
+            tickStore.append(symbol, price.doubleValue(), timestamp, volume);
+        } finally {
+            ingestLock.unlock();
+        }
+        StockPrice stockPrice = cachePrice(symbol, price, timestamp, volume, shard);
+
+        // Notify listeners
+        notifyListeners(symbol, stockPrice);
+    }
+
+    /**
+     * Update the cache with a new trade.
+     *
+     * @param shard Connection the trade arrived on; its generation decides when the price goes stale
+     */
+    private StockPrice cachePrice(String symbol, BigDecimal price, long timestamp, double volume, int shard) {
+        StockPrice stockPrice = StockPrice.builder()
+                .symbol(symbol)
+                .price(price)
+                .timestamp(timestamp)
+                .volume(volume)
+                .shard(shard)
+                .generation(connectionGenerations.get(shard))
+                .build();
 
-            // Notify listeners
-            notifyListeners(symbol, stockPrice);
+        latestPrices.put(symbol, stockPrice);
 
+        if (log.isDebugEnabled()) {
             log.debug("Updated price for {}: ${} (volume: {})", symbol, price, volume);
-        } catch (Exception e) {
-            log.error("Error processing trade data: {}", trade, e);
         }
+        return stockPrice;
     }
 
     /**
@@ -187,14 +474,84 @@ public class RealTimeStockService {
     private void notifyListeners(String symbol, StockPrice stockPrice) {
         Set<StockPriceListener> listeners = priceListeners.get(symbol);
         if (listeners != null) {
-            listeners.forEach(listener -> {
-                try {
-                    listener.onPriceUpdate(stockPrice);
-                } catch (Exception e) {
-                    log.error("Error notifying listener for symbol: {}", symbol, e);
-                }
+            for (StockPriceListener listener : listeners) {
+                deliver(listener, stockPrice);
+            }
+        }
+    }
+
+    /**
+     * Hand one update to a listener, recording its latency and any exception.
+     */
+    private void deliver(StockPriceListener listener, StockPrice stockPrice) {
+        long start = System.nanoTime();
+        try {
+            listener.onPriceUpdate(stockPrice);
+        } catch (Exception e) {
+            listenerErrors.increment();
+            log.error("Error notifying listener for symbol: {}", stockPrice.getSymbol(), e);
+        } finally {
+            listenerLatency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Identifies a listener registration for a symbol.
+     */
+    private record ListenerKey(String symbol, StockPriceListener listener) {
+    }
+
+    /**
+     * Price listeners sharing one overflow policy, fed by a fixed set of ring consumers.
+     * Consumer {@code i} delivers the symbols whose hash maps to {@code i}, so every symbol's updates
+     * stay in order on one thread and each tick is turned into a {@link StockPrice} once for all of
+     * the symbol's listeners.
+     */
+    private final class ListenerStage {
+
+        private final Map<String, Set<StockPriceListener>> listenersBySymbol = new ConcurrentHashMap<>();
+
+        private ListenerStage(TickRingBuffer.OverflowPolicy policy) {
+            int threads = Math.max(1, listenerThreads);
+            for (int i = 0; i < threads; i++) {
+                int partition = i;
+                tickPipeline.addConsumer("listeners-" + policy.name().toLowerCase() + "-" + i, policy,
+                        (symbol, price, timestamp, volume, shard, endOfBatch) -> {
+                            if (Math.floorMod(symbol.hashCode(), threads) == partition) {
+                                dispatch(symbol, price, timestamp, volume, shard);
+                            }
+                        });
+            }
+        }
+
+        private void add(String symbol, StockPriceListener listener) {
+            listenersBySymbol.computeIfAbsent(symbol, k -> new CopyOnWriteArraySet<>()).add(listener);
+        }
+
+        private void remove(String symbol, StockPriceListener listener) {
+            listenersBySymbol.computeIfPresent(symbol, (k, listeners) -> {
+                listeners.remove(listener);
+                return listeners.isEmpty() ? null : listeners;
             });
         }
+
+        private void dispatch(String symbol, double price, long timestamp, double volume, int shard) {
+            Set<StockPriceListener> listeners = listenersBySymbol.get(symbol);
+            if (listeners == null) {
+                return;
+            }
+            StockPrice stockPrice = StockPrice.builder()
+                    .symbol(symbol)
+                    .price(BigDecimal.valueOf(price))
+                    .timestamp(timestamp)
+                    .volume(volume)
+                    .shard(shard)
+                    .generation(connectionGenerations.get(shard))
+                    .build();
+            for (StockPriceListener listener : listeners) {
+                deliver(listener, stockPrice);
+            }
+        }
     }
 
     /**
@@ -207,13 +564,32 @@ public class RealTimeStockService {
 
     /**
      * Data class for stock price information.
+     * {@code shard} is the connection the price came from and {@code generation} how many times
+     * that connection had been lost when it was cached; {@code stale} is set on prices cached
+     * before their connection was last lost.
      */
     @lombok.Data
-    @lombok.Builder
+    @lombok.Builder(toBuilder = true)
     public static class StockPrice {
         private String symbol;
         private BigDecimal price;
         private long timestamp;
         private double volume;
+        private int shard;
+        private long generation;
+        private boolean stale;
+    }
+
+    /**
+     * Trade counts for one WebSocket connection.
+     */
+    @lombok.Data
+    @lombok.Builder
+    public static class ShardStats {
+        private int shard;
+        private boolean connected;
+        private int symbols;
+        private long trades;
+        private double tradesPerSecond;
     }
 }
@@ -0,0 +1,263 @@
+package com.ansh.portfilio_tracker.Service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Service;
+import org.springframework.util.MimeTypeUtils;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Publishes real-time prices to STOMP topics, one publisher per symbol.
+ * Ticks are conflated to the latest price and flushed at most {@code stomp.publish.max-rate-hz}
+ * times per second per symbol. Each flush encodes the payload once and hands the same bytes
+ * to the broker, which fans them out to every session subscribed to the topic.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class StockTopicPublisher implements MeterBinder {
+
+    private static final String TOPIC_PREFIX = "/topic/stock/";
+
+    private final RealTimeStockService realTimeStockService;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Value("${stomp.publish.max-rate-hz:10}")
+    private double maxRateHz;
+
+    // One publisher per symbol with at least one subscribed session
+    private final Map<String, TopicPublisher> topics = new ConcurrentHashMap<>();
+
+    // Symbols subscribed by each STOMP session, used to clean up on disconnect
+    private final Map<String, Set<String>> sessionSymbols = new ConcurrentHashMap<>();
+
+    // Topics holding a price that has not been flushed yet
+    private final Queue<TopicPublisher> dirtyTopics = new ConcurrentLinkedQueue<>();
+
+    private ScheduledExecutorService flushScheduler;
+
+    @PostConstruct
+    public void start() {
+        long periodMicros = Math.max(1, Math.round(1_000_000d / maxRateHz));
+        flushScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "stomp-topic-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flushScheduler.scheduleAtFixedRate(this::flush, periodMicros, periodMicros, TimeUnit.MICROSECONDS);
+        log.info("STOMP topic publisher flushing at up to {} Hz per symbol", maxRateHz);
+    }
+
+    @PreDestroy
+    public void stop() {
+        flushScheduler.shutdownNow();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("stomp.topics.pending", dirtyTopics, Queue::size)
+                .description("Topics holding a price that has not been flushed yet")
+                .register(registry);
+        Gauge.builder("stomp.topics.active", topics, Map::size)
+                .description("Symbols with at least one subscribed session")
+                .register(registry);
+    }
+
+    /**
+     * Add a session to a symbol's topic, creating the topic publisher for the first session.
+     *
+     * @param sessionId STOMP session ID
+     * @param symbol Stock symbol (upper case)
+     */
+    public void addSubscriber(String sessionId, String symbol) {
+        if (!sessionSymbols.computeIfAbsent(sessionId, k -> ConcurrentHashMap.newKeySet()).add(symbol)) {
+            return;
+        }
+        // Registering the listener can subscribe upstream, so it happens outside the map's bin lock
+        TopicPublisher[] created = new TopicPublisher[1];
+        topics.compute(symbol, (k, topic) -> {
+            if (topic == null) {
+                topic = new TopicPublisher(symbol);
+                created[0] = topic;
+            }
+            topic.sessions.add(sessionId);
+            return topic;
+        });
+        if (created[0] != null) {
+            created[0].listen();
+        }
+    }
+
+    /**
+     * Remove a session from a symbol's topic, stopping the publisher after the last session leaves.
+     *
+     * @param sessionId STOMP session ID
+     * @param symbol Stock symbol (upper case)
+     */
+    public void removeSubscriber(String sessionId, String symbol) {
+        Set<String> symbols = sessionSymbols.get(sessionId);
+        if (symbols == null || !symbols.remove(symbol)) {
+            return;
+        }
+        TopicPublisher[] removed = new TopicPublisher[1];
+        topics.computeIfPresent(symbol, (k, topic) -> {
+            topic.sessions.remove(sessionId);
+            if (!topic.sessions.isEmpty()) {
+                return topic;
+            }
+            removed[0] = topic;
+            return null;
+        });
+        if (removed[0] != null) {
+            removed[0].close();
+        }
+    }
+
+    /**
+     * Remove a session from every topic it subscribed to.
+     *
+     * @param sessionId STOMP session ID
+     */
+    public void removeSession(String sessionId) {
+        Set<String> symbols = sessionSymbols.get(sessionId);
+        if (symbols != null) {
+            Set.copyOf(symbols).forEach(symbol -> removeSubscriber(sessionId, symbol));
+            sessionSymbols.remove(sessionId);
+        }
+    }
+
+    /**
+     * Build the payload for the latest cached price, used as the snapshot for a joining session.
+     *
+     * @param symbol Stock symbol (upper case)
+     * @return payload or null if no price is cached
+     */
+    public Map<String, Object> snapshot(String symbol) {
+        RealTimeStockService.StockPrice price = realTimeStockService.getLatestPrice(symbol);
+        return price != null ? payload(price) : null;
+    }
+
+    /**
+     * @return number of topics with a price waiting for the next flush
+     */
+    public int getPendingTopicCount() {
+        return dirtyTopics.size();
+    }
+
+    /**
+     * @return number of topics with at least one subscribed session
+     */
+    public int getTopicCount() {
+        return topics.size();
+    }
+
+    /**
+     * Send the latest price of every topic marked since the last flush; run once per period.
+     */
+    void flush() {
+        TopicPublisher topic;
+        int pending = dirtyTopics.size();
+        // Bound the sweep so topics marked dirty during it wait for the next tick
+        while (pending-- > 0 && (topic = dirtyTopics.poll()) != null) {
+            topic.dirty.set(false);
+            RealTimeStockService.StockPrice price = topic.latest.get();
+            if (price == null || topics.get(topic.symbol) != topic) {
+                continue;
+            }
+            try {
+                messagingTemplate.send(topic.destination, encode(price));
+            } catch (Exception e) {
+                log.error("Error publishing price for symbol: {}", topic.symbol, e);
+            }
+        }
+    }
+
+    private Message<byte[]> encode(RealTimeStockService.StockPrice price) throws JsonProcessingException {
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.create();
+        headers.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        headers.setLeaveMutable(true);
+        return MessageBuilder.createMessage(objectMapper.writeValueAsBytes(payload(price)), headers.getMessageHeaders());
+    }
+
+    private static Map<String, Object> payload(RealTimeStockService.StockPrice price) {
+        return Map.of(
+                "symbol", price.getSymbol(),
+                "price", price.getPrice(),
+                "timestamp", price.getTimestamp(),
+                "volume", price.getVolume(),
+                "stale", price.isStale()
+        );
+    }
+
+    /**
+     * Conflating publisher for a single topic; holds only the latest price.
+     */
+    private final class TopicPublisher implements RealTimeStockService.StockPriceListener {
+
+        private final String symbol;
+        private final String destination;
+        private final Set<String> sessions = ConcurrentHashMap.newKeySet();
+        private final AtomicReference<RealTimeStockService.StockPrice> latest = new AtomicReference<>();
+        private final AtomicBoolean dirty = new AtomicBoolean();
+
+        // Guarded by this; a topic closed before it started listening never registers its listener
+        private boolean listening;
+        private boolean closed;
+
+        private TopicPublisher(String symbol) {
+            this.symbol = symbol;
+            this.destination = TOPIC_PREFIX + symbol;
+        }
+
+        private synchronized void listen() {
+            if (closed) {
+                return;
+            }
+            realTimeStockService.addPriceListener(symbol, this, TickRingBuffer.OverflowPolicy.CONFLATE);
+            listening = true;
+            log.info("Started topic publisher for {}", symbol);
+        }
+
+        private synchronized void close() {
+            closed = true;
+            if (!listening) {
+                return;
+            }
+            // Last subscriber gone; removing the last listener also unsubscribes from Finnhub
+            realTimeStockService.removePriceListener(symbol, this);
+            listening = false;
+            log.info("Stopped topic publisher for {}", symbol);
+        }
+
+        @Override
+        public void onPriceUpdate(RealTimeStockService.StockPrice stockPrice) {
+            latest.set(stockPrice);
+            if (dirty.compareAndSet(false, true)) {
+                dirtyTopics.add(this);
+            }
+        }
+    }
+}
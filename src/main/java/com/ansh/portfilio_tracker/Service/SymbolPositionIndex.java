@@ -0,0 +1,210 @@
+package com.ansh.portfilio_tracker.Service;
+
+import com.ansh.portfilio_tracker.Classes.Holding;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory reverse index from symbol to the positions holding it.
+ * Each symbol maps to an immutable set of parallel primitive arrays, so revaluing a symbol
+ * walks contiguous memory without locks or database access. Writes copy the arrays of the
+ * affected symbol; they happen per executed transaction, far less often than reads.
+ */
+@Component
+public class SymbolPositionIndex {
+
+    private final Map<String, Positions> bySymbol = new ConcurrentHashMap<>();
+
+    /**
+     * Get the positions holding a symbol.
+     *
+     * @param symbol Stock symbol (upper case)
+     * @return positions, or null if no portfolio holds the symbol
+     */
+    public Positions get(String symbol) {
+        return bySymbol.get(symbol);
+    }
+
+    /**
+     * Insert or replace a position.
+     *
+     * @param portfolioId Portfolio ID
+     * @param symbol Stock symbol (upper case)
+     * @param quantity Quantity held
+     * @param avgPrice Average price in base currency
+     */
+    public void put(UUID portfolioId, String symbol, BigDecimal quantity, BigDecimal avgPrice) {
+        double qty = quantity != null ? quantity.doubleValue() : 0d;
+        double avg = avgPrice != null ? avgPrice.doubleValue() : 0d;
+        bySymbol.compute(symbol, (k, positions) -> positions == null
+                ? Positions.of(portfolioId, qty, avg)
+                : positions.with(portfolioId, qty, avg));
+    }
+
+    /**
+     * Remove a position.
+     *
+     * @param portfolioId Portfolio ID
+     * @param symbol Stock symbol (upper case)
+     */
+    public void remove(UUID portfolioId, String symbol) {
+        bySymbol.computeIfPresent(symbol, (k, positions) -> positions.without(portfolioId));
+    }
+
+    /**
+     * Replace the whole index with the given holdings.
+     *
+     * @param holdings every holding
+     */
+    public void rebuild(List<Holding> holdings) {
+        Map<String, Positions.Builder> builders = new HashMap<>();
+        for (Holding holding : holdings) {
+            if (holding.getPortfolioId() == null || holding.getSymbol() == null) {
+                continue;
+            }
+            builders.computeIfAbsent(holding.getSymbol(), k -> new Positions.Builder())
+                    .add(holding.getPortfolioId(),
+                            holding.getQuantity() != null ? holding.getQuantity().doubleValue() : 0d,
+                            holding.getAvgPriceInBaseCurrency() != null ? holding.getAvgPriceInBaseCurrency().doubleValue() : 0d);
+        }
+        bySymbol.clear();
+        builders.forEach((symbol, builder) -> bySymbol.put(symbol, builder.build()));
+    }
+
+    /**
+     * @return number of indexed symbols
+     */
+    public int getSymbolCount() {
+        return bySymbol.size();
+    }
+
+    /**
+     * Immutable positions in one symbol, stored as parallel arrays indexed 0..size-1.
+     * Portfolio IDs are split into their most and least significant bits.
+     */
+    public static final class Positions {
+        private final long[] portfolioIdMsb;
+        private final long[] portfolioIdLsb;
+        private final double[] quantity;
+        private final double[] avgPrice;
+
+        private Positions(long[] portfolioIdMsb, long[] portfolioIdLsb, double[] quantity, double[] avgPrice) {
+            this.portfolioIdMsb = portfolioIdMsb;
+            this.portfolioIdLsb = portfolioIdLsb;
+            this.quantity = quantity;
+            this.avgPrice = avgPrice;
+        }
+
+        private static Positions of(UUID portfolioId, double quantity, double avgPrice) {
+            return new Positions(new long[]{portfolioId.getMostSignificantBits()},
+                    new long[]{portfolioId.getLeastSignificantBits()},
+                    new double[]{quantity}, new double[]{avgPrice});
+        }
+
+        public int size() {
+            return quantity.length;
+        }
+
+        public UUID portfolioId(int i) {
+            return new UUID(portfolioIdMsb[i], portfolioIdLsb[i]);
+        }
+
+        public double quantity(int i) {
+            return quantity[i];
+        }
+
+        public double avgPrice(int i) {
+            return avgPrice[i];
+        }
+
+        private int indexOf(UUID portfolioId) {
+            long msb = portfolioId.getMostSignificantBits();
+            long lsb = portfolioId.getLeastSignificantBits();
+            for (int i = 0; i < portfolioIdLsb.length; i++) {
+                if (portfolioIdLsb[i] == lsb && portfolioIdMsb[i] == msb) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private Positions with(UUID portfolioId, double qty, double avg) {
+            int i = indexOf(portfolioId);
+            if (i >= 0) {
+                double[] newQuantity = quantity.clone();
+                double[] newAvgPrice = avgPrice.clone();
+                newQuantity[i] = qty;
+                newAvgPrice[i] = avg;
+                return new Positions(portfolioIdMsb, portfolioIdLsb, newQuantity, newAvgPrice);
+            }
+            int n = size();
+            long[] msb = Arrays.copyOf(portfolioIdMsb, n + 1);
+            long[] lsb = Arrays.copyOf(portfolioIdLsb, n + 1);
+            double[] newQuantity = Arrays.copyOf(quantity, n + 1);
+            double[] newAvgPrice = Arrays.copyOf(avgPrice, n + 1);
+            msb[n] = portfolioId.getMostSignificantBits();
+            lsb[n] = portfolioId.getLeastSignificantBits();
+            newQuantity[n] = qty;
+            newAvgPrice[n] = avg;
+            return new Positions(msb, lsb, newQuantity, newAvgPrice);
+        }
+
+        // Returns null when the last position goes, which drops the symbol from the index
+        private Positions without(UUID portfolioId) {
+            int i = indexOf(portfolioId);
+            if (i < 0) {
+                return this;
+            }
+            int n = size();
+            if (n == 1) {
+                return null;
+            }
+            // Move the last entry into the hole; order is not significant
+            long[] msb = Arrays.copyOf(portfolioIdMsb, n - 1);
+            long[] lsb = Arrays.copyOf(portfolioIdLsb, n - 1);
+            double[] newQuantity = Arrays.copyOf(quantity, n - 1);
+            double[] newAvgPrice = Arrays.copyOf(avgPrice, n - 1);
+            if (i < n - 1) {
+                msb[i] = portfolioIdMsb[n - 1];
+                lsb[i] = portfolioIdLsb[n - 1];
+                newQuantity[i] = quantity[n - 1];
+                newAvgPrice[i] = avgPrice[n - 1];
+            }
+            return new Positions(msb, lsb, newQuantity, newAvgPrice);
+        }
+
+        private static final class Builder {
+            private long[] msb = new long[4];
+            private long[] lsb = new long[4];
+            private double[] quantity = new double[4];
+            private double[] avgPrice = new double[4];
+            private int size;
+
+            private void add(UUID portfolioId, double qty, double avg) {
+                if (size == quantity.length) {
+                    msb = Arrays.copyOf(msb, size * 2);
+                    lsb = Arrays.copyOf(lsb, size * 2);
+                    quantity = Arrays.copyOf(quantity, size * 2);
+                    avgPrice = Arrays.copyOf(avgPrice, size * 2);
+                }
+                msb[size] = portfolioId.getMostSignificantBits();
+                lsb[size] = portfolioId.getLeastSignificantBits();
+                quantity[size] = qty;
+                avgPrice[size] = avg;
+                size++;
+            }
+
+            private Positions build() {
+                return new Positions(Arrays.copyOf(msb, size), Arrays.copyOf(lsb, size),
+                        Arrays.copyOf(quantity, size), Arrays.copyOf(avgPrice, size));
+            }
+        }
+    }
+}
@@ -0,0 +1,450 @@
+package com.ansh.portfilio_tracker.Service;
+
+import com.ansh.portfilio_tracker.Classes.TradeRecord;
+import lombok.Builder;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Bounded single-producer ring buffer that decouples the WebSocket reader thread from tick consumers.
+ * Trades are copied into preallocated primitive slots; every consumer owns a cursor, a dedicated
+ * thread that drains in batches, and an {@link OverflowPolicy} that decides what happens when it
+ * falls a full ring behind the producer.
+ *
+ * Only one thread may call the publish methods at a time. Each tick carries the index of the
+ * connection that delivered it, so consumers can attribute it after several connections have
+ * been merged into the ring.
+ */
+@Slf4j
+public class TickRingBuffer {
+
+    /**
+     * What a consumer does when the producer laps it.
+     */
+    public enum OverflowPolicy {
+        /** Skip ahead to the oldest tick still in the ring, counting the skipped ticks as dropped. */
+        DROP_OLDEST,
+        /** Skip ahead like DROP_OLDEST and only deliver the latest tick per symbol of each batch. */
+        CONFLATE,
+        /** Hold the producer until this consumer frees a slot. */
+        BLOCK
+    }
+
+    /**
+     * Callback for ticks drained by a consumer. Runs on the consumer's own thread.
+     * {@code shard} is the connection the tick was published for.
+     */
+    @FunctionalInterface
+    public interface TickHandler {
+        void onTick(String symbol, double price, long timestamp, double volume, int shard, boolean endOfBatch);
+    }
+
+    private static final VarHandle SLOT_SEQUENCE = MethodHandles.arrayElementVarHandle(long[].class);
+    private static final long PRODUCER_WAIT_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    private final int capacity;
+    private final int mask;
+    private final int batchSize;
+    private final long idleNanos;
+
+    // Slot storage, one entry per ring position
+    private final long[] slotSequences;
+    private final String[] symbols;
+    private final double[] prices;
+    private final long[] timestamps;
+    private final double[] volumes;
+    private final int[] shards;
+    private final long[] publishNanos;
+
+    // Last published sequence
+    private final AtomicLong published = new AtomicLong(-1);
+    private final AtomicLong producerWaits = new AtomicLong();
+    private final List<TickConsumer> consumers = new CopyOnWriteArrayList<>();
+
+    // Producer-owned
+    private long nextSequence;
+    private volatile boolean running = true;
+
+    /**
+     * @param capacity number of slots, rounded up to a power of two
+     * @param batchSize maximum ticks a consumer drains per batch
+     * @param idleNanos how long an idle consumer parks before re-checking the ring
+     */
+    public TickRingBuffer(int capacity, int batchSize, long idleNanos) {
+        this.capacity = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.mask = this.capacity - 1;
+        this.batchSize = Math.max(1, batchSize);
+        this.idleNanos = idleNanos;
+
+        this.slotSequences = new long[this.capacity];
+        this.symbols = new String[this.capacity];
+        this.prices = new double[this.capacity];
+        this.timestamps = new long[this.capacity];
+        this.volumes = new double[this.capacity];
+        this.shards = new int[this.capacity];
+        this.publishNanos = new long[this.capacity];
+        for (int i = 0; i < this.capacity; i++) {
+            slotSequences[i] = -1L;
+        }
+    }
+
+    /**
+     * Publish a batch of decoded trades.
+     *
+     * @param trades trade records
+     * @param count number of valid records
+     * @param shard connection the trades arrived on
+     */
+    public void publish(TradeRecord[] trades, int count, int shard) {
+        for (int i = 0; i < count; i++) {
+            TradeRecord trade = trades[i];
+            write(trade.getSymbol(), trade.getPrice(), trade.getTimestamp(), trade.getVolume(), shard);
+        }
+        wakeConsumers();
+    }
+
+    /**
+     * Publish a single tick.
+     */
+    public void publish(String symbol, double price, long timestamp, double volume, int shard) {
+        write(symbol, price, timestamp, volume, shard);
+        wakeConsumers();
+    }
+
+    /**
+     * Register a consumer and start its thread. The consumer starts at the next published tick.
+     *
+     * @param name name used for the thread and in stats
+     * @param policy overflow policy
+     * @param handler tick callback
+     * @return the consumer handle, used to remove it again
+     */
+    public TickConsumer addConsumer(String name, OverflowPolicy policy, TickHandler handler) {
+        TickConsumer consumer = new TickConsumer(name, policy, handler, published.get());
+        consumers.add(consumer);
+        consumer.start();
+        log.info("Added tick consumer {} (policy: {})", name, policy);
+        return consumer;
+    }
+
+    /**
+     * Stop a consumer and release its cursor.
+     *
+     * @param consumer consumer returned by {@link #addConsumer}
+     */
+    public void removeConsumer(TickConsumer consumer) {
+        consumers.remove(consumer);
+        consumer.stop();
+        log.info("Removed tick consumer {}", consumer.name);
+    }
+
+    /**
+     * Stop every consumer. Publishing after shutdown is a no-op for consumers.
+     */
+    public void shutdown() {
+        running = false;
+        consumers.forEach(TickConsumer::stop);
+        consumers.clear();
+    }
+
+    /**
+     * @return queue depth, lag and drop counters for the producer and every consumer
+     */
+    public PipelineStats getStats() {
+        long head = published.get();
+        List<ConsumerStats> consumerStats = new ArrayList<>(consumers.size());
+        for (TickConsumer consumer : consumers) {
+            consumerStats.add(consumer.stats(head));
+        }
+        return PipelineStats.builder()
+                .capacity(capacity)
+                .published(head + 1)
+                .producerWaits(producerWaits.get())
+                .consumers(consumerStats)
+                .build();
+    }
+
+    private void write(String symbol, double price, long timestamp, double volume, int shard) {
+        long sequence = nextSequence;
+        awaitCapacity(sequence);
+
+        int index = (int) sequence & mask;
+        // Seqlock-style stamp so lapped consumers can detect a slot being rewritten under them
+        SLOT_SEQUENCE.setOpaque(slotSequences, index, -1L);
+        VarHandle.storeStoreFence();
+        symbols[index] = symbol;
+        prices[index] = price;
+        timestamps[index] = timestamp;
+        volumes[index] = volume;
+        shards[index] = shard;
+        publishNanos[index] = System.nanoTime();
+        SLOT_SEQUENCE.setRelease(slotSequences, index, sequence);
+
+        nextSequence = sequence + 1;
+        published.set(sequence);
+    }
+
+    private void awaitCapacity(long sequence) {
+        long wrapPoint = sequence - capacity;
+        boolean waited = false;
+        while (running && wrapPoint >= minimumBlockingSequence()) {
+            if (!waited) {
+                producerWaits.incrementAndGet();
+                waited = true;
+            }
+            wakeConsumers();
+            LockSupport.parkNanos(PRODUCER_WAIT_NANOS);
+        }
+    }
+
+    private long minimumBlockingSequence() {
+        long minimum = Long.MAX_VALUE;
+        for (TickConsumer consumer : consumers) {
+            if (consumer.policy == OverflowPolicy.BLOCK) {
+                minimum = Math.min(minimum, consumer.sequence);
+            }
+        }
+        return minimum;
+    }
+
+    private void wakeConsumers() {
+        for (TickConsumer consumer : consumers) {
+            if (consumer.waiting) {
+                LockSupport.unpark(consumer.thread);
+            }
+        }
+    }
+
+    /**
+     * A cursor into the ring plus the thread that drains it.
+     */
+    public final class TickConsumer implements Runnable {
+
+        private final String name;
+        private final OverflowPolicy policy;
+        private final TickHandler handler;
+        private final Thread thread;
+
+        // Last consumed sequence; read by the producer for BLOCK gating
+        private volatile long sequence;
+        private volatile boolean waiting;
+        private volatile boolean active = true;
+
+        private final AtomicLong delivered = new AtomicLong();
+        private final AtomicLong dropped = new AtomicLong();
+        private final AtomicLong conflated = new AtomicLong();
+        private volatile long lagNanos;
+
+        // Scratch space for one batch
+        private final String[] batchSymbols = new String[batchSize];
+        private final double[] batchPrices = new double[batchSize];
+        private final long[] batchTimestamps = new long[batchSize];
+        private final double[] batchVolumes = new double[batchSize];
+        private final int[] batchShards = new int[batchSize];
+        // Open-addressing index from symbol to its position in the conflated batch (position + 1, 0 = empty),
+        // at most half full; the slots used by a batch are recorded so clearing costs one store per symbol
+        private final int[] conflateIndex = new int[Integer.highestOneBit(batchSize) << 2];
+        private final int[] conflateSlots = new int[batchSize];
+
+        private TickConsumer(String name, OverflowPolicy policy, TickHandler handler, long start) {
+            this.name = name;
+            this.policy = policy;
+            this.handler = handler;
+            this.sequence = start;
+            this.thread = new Thread(this, "tick-" + name);
+            this.thread.setDaemon(true);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public void run() {
+            while (active) {
+                long next = sequence + 1;
+                long available = published.get();
+                if (available < next) {
+                    idle(next);
+                    continue;
+                }
+
+                if (policy != OverflowPolicy.BLOCK && available - next >= capacity) {
+                    next = skipTo(available - capacity + 1, next);
+                }
+
+                long end = Math.min(available, next + batchSize - 1);
+                int count = 0;
+                long lastRead = next - 1;
+                boolean lapped = false;
+                for (long s = next; s <= end; s++) {
+                    int index = (int) s & mask;
+                    long before = (long) SLOT_SEQUENCE.getAcquire(slotSequences, index);
+                    String tickSymbol = symbols[index];
+                    double price = prices[index];
+                    long timestamp = timestamps[index];
+                    double volume = volumes[index];
+                    int shard = shards[index];
+                    VarHandle.loadLoadFence();
+                    long after = (long) SLOT_SEQUENCE.getAcquire(slotSequences, index);
+                    if (before != s || after != s) {
+                        lapped = true;
+                        break;
+                    }
+                    lastRead = s;
+                    batchSymbols[count] = tickSymbol;
+                    batchPrices[count] = price;
+                    batchTimestamps[count] = timestamp;
+                    batchVolumes[count] = volume;
+                    batchShards[count] = shard;
+                    count++;
+                }
+
+                if (lastRead >= next) {
+                    lagNanos = System.nanoTime() - publishNanos[(int) lastRead & mask];
+                }
+                deliver(count);
+                sequence = lapped ? skipTo(published.get() - capacity + 1, lastRead + 1) - 1 : lastRead;
+            }
+        }
+
+        private long skipTo(long target, long next) {
+            if (target > next) {
+                dropped.addAndGet(target - next);
+                return target;
+            }
+            return next;
+        }
+
+        private void deliver(int count) {
+            if (count == 0) {
+                return;
+            }
+            if (policy == OverflowPolicy.CONFLATE) {
+                count = conflate(count);
+            }
+            for (int i = 0; i < count; i++) {
+                try {
+                    handler.onTick(batchSymbols[i], batchPrices[i], batchTimestamps[i], batchVolumes[i],
+                            batchShards[i], i == count - 1);
+                } catch (Exception e) {
+                    log.error("Error in tick consumer {} for symbol: {}", name, batchSymbols[i], e);
+                }
+                batchSymbols[i] = null;
+            }
+            delivered.addAndGet(count);
+        }
+
+        /**
+         * Collapse the batch to the latest tick per symbol, keeping first-seen order.
+         */
+        private int conflate(int count) {
+            int indexMask = conflateIndex.length - 1;
+            int unique = 0;
+            for (int i = 0; i < count; i++) {
+                String tickSymbol = batchSymbols[i];
+                int hash = tickSymbol.hashCode();
+                int slot = (hash ^ (hash >>> 16)) & indexMask;
+                int target;
+                while (true) {
+                    int entry = conflateIndex[slot];
+                    if (entry == 0) {
+                        target = unique++;
+                        conflateIndex[slot] = target + 1;
+                        conflateSlots[target] = slot;
+                        break;
+                    }
+                    // Decoded symbols are interned, so the identity check almost always decides
+                    String seen = batchSymbols[entry - 1];
+                    if (seen == tickSymbol || seen.equals(tickSymbol)) {
+                        target = entry - 1;
+                        break;
+                    }
+                    slot = (slot + 1) & indexMask;
+                }
+                batchSymbols[target] = tickSymbol;
+                batchPrices[target] = batchPrices[i];
+                batchTimestamps[target] = batchTimestamps[i];
+                batchVolumes[target] = batchVolumes[i];
+                batchShards[target] = batchShards[i];
+            }
+            for (int i = 0; i < unique; i++) {
+                conflateIndex[conflateSlots[i]] = 0;
+            }
+            for (int i = unique; i < count; i++) {
+                batchSymbols[i] = null;
+            }
+            conflated.addAndGet(count - unique);
+            return unique;
+        }
+
+        private void idle(long next) {
+            waiting = true;
+            if (active && published.get() < next) {
+                LockSupport.parkNanos(this, idleNanos);
+            }
+            waiting = false;
+        }
+
+        private void start() {
+            thread.start();
+        }
+
+        private void stop() {
+            active = false;
+            // Stop gating the producer straight away
+            sequence = Long.MAX_VALUE;
+            LockSupport.unpark(thread);
+        }
+
+        private ConsumerStats stats(long head) {
+            long position = sequence;
+            return ConsumerStats.builder()
+                    .name(name)
+                    .policy(policy)
+                    .depth(Math.max(0, head - position))
+                    .lagMicros(TimeUnit.NANOSECONDS.toMicros(lagNanos))
+                    .delivered(delivered.get())
+                    .dropped(dropped.get())
+                    .conflated(conflated.get())
+                    .build();
+        }
+    }
+
+    /**
+     * Producer-side view of the pipeline.
+     */
+    @Data
+    @Builder
+    public static class PipelineStats {
+        private int capacity;
+        private long published;
+        private long producerWaits;
+        private List<ConsumerStats> consumers;
+    }
+
+    /**
+     * Per-consumer queue depth, lag and loss counters.
+     */
+    @Data
+    @Builder
+    public static class ConsumerStats {
+        private String name;
+        private OverflowPolicy policy;
+        private long depth;
+        // Publish-to-drain latency of the most recent batch
+        private long lagMicros;
+        private long delivered;
+        private long dropped;
+        private long conflated;
+    }
+}
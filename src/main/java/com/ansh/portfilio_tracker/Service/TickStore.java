@@ -0,0 +1,557 @@
+package com.ansh.portfilio_tracker.Service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.Builder;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Append-only intraday tick history on memory-mapped files.
+ * Each symbol has a directory of daily segments ({@code yyyy-MM-dd-NNN.ticks}, UTC days); a segment
+ * is a fixed-size file holding timestamp, price and volume as three primitive columns, and a full
+ * segment rolls over to the next part of the same day. Segments older than
+ * {@code tickstore.retention-days} are deleted.
+ *
+ * Only one thread may call {@link #append} at a time. Appends take no locks: the tick is written into
+ * the mapping and then published by a release-store of the segment's count, which readers load with
+ * acquire semantics. Range queries return read-only views of the mapped columns, nothing is copied.
+ */
+@Component
+@Slf4j
+public class TickStore {
+
+    /**
+     * Callback for ticks visited in a range.
+     */
+    @FunctionalInterface
+    public interface TickVisitor {
+        void onTick(long timestamp, double price, double volume);
+    }
+
+    private static final ByteOrder ORDER = ByteOrder.LITTLE_ENDIAN;
+    private static final VarHandle LONG_VIEW = MethodHandles.byteBufferViewVarHandle(long[].class, ORDER);
+
+    // Segment header, followed by the timestamp, price and volume columns
+    private static final int MAGIC = 0x5449434B;
+    private static final int VERSION = 1;
+    private static final int MAGIC_OFFSET = 0;
+    private static final int VERSION_OFFSET = 4;
+    private static final int COUNT_OFFSET = 8;
+    private static final int CAPACITY_OFFSET = 16;
+    private static final int SORTED_OFFSET = 20;
+    private static final int HEADER_BYTES = 64;
+
+    private static final long DAY_MILLIS = TimeUnit.DAYS.toMillis(1);
+    private static final String SUFFIX = ".ticks";
+    private static final Pattern SEGMENT_NAME = Pattern.compile("(\\d{4}-\\d{2}-\\d{2})-(\\d{3})\\.ticks");
+    private static final Pattern SYMBOL = Pattern.compile("[A-Z0-9][A-Z0-9.:_^=-]{0,31}");
+
+    private final boolean enabled;
+    private final Path directory;
+    private final int segmentCapacity;
+    private final int retentionDays;
+
+    // Every mapped segment, shared by the writer and readers
+    private final Map<Path, Segment> segments = new ConcurrentHashMap<>();
+
+    // Writer-confined: current segment per symbol
+    private final Map<String, SymbolLog> logs = new HashMap<>();
+
+    private final AtomicLong ticksWritten = new AtomicLong();
+    private final AtomicLong ticksRejected = new AtomicLong();
+    private final AtomicLong segmentsDeleted = new AtomicLong();
+
+    private ScheduledExecutorService retentionScheduler;
+
+    @Autowired
+    public TickStore(@Value("${tickstore.enabled:true}") boolean enabled,
+                     @Value("${tickstore.directory:./data/ticks}") String directory,
+                     @Value("${tickstore.segment-capacity:262144}") int segmentCapacity,
+                     @Value("${tickstore.retention-days:7}") int retentionDays) {
+        this(enabled, Paths.get(directory), segmentCapacity, retentionDays);
+    }
+
+    TickStore(boolean enabled, Path directory, int segmentCapacity, int retentionDays) {
+        if (segmentCapacity <= 0) {
+            throw new IllegalArgumentException("Segment capacity must be positive: " + segmentCapacity);
+        }
+        this.enabled = enabled;
+        this.directory = directory;
+        this.segmentCapacity = segmentCapacity;
+        this.retentionDays = retentionDays;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            log.info("Tick store is disabled");
+            return;
+        }
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create tick store directory " + directory, e);
+        }
+        retentionScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "tick-store-retention");
+            thread.setDaemon(true);
+            return thread;
+        });
+        retentionScheduler.scheduleWithFixedDelay(() -> applyRetention(LocalDate.now(ZoneOffset.UTC)),
+                0, 1, TimeUnit.HOURS);
+        log.info("Tick store at {} (segment capacity: {}, retention: {} days)",
+                directory.toAbsolutePath(), segmentCapacity, retentionDays);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (retentionScheduler != null) {
+            retentionScheduler.shutdownNow();
+        }
+        segments.values().forEach(segment -> segment.buffer.force());
+    }
+
+    /**
+     * @return true when ticks are being recorded
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Append a trade to the symbol's segment for the trade's day. Single writer thread only.
+     *
+     * @param symbol Stock symbol (upper case)
+     * @param price Trade price
+     * @param timestamp Trade time in epoch milliseconds
+     * @param volume Trade volume
+     * @return false if the store is disabled or the tick was rejected (bad symbol, timestamp or price)
+     */
+    public boolean append(String symbol, double price, long timestamp, double volume) {
+        if (!enabled) {
+            return false;
+        }
+        if (timestamp <= 0 || !Double.isFinite(price)) {
+            ticksRejected.incrementAndGet();
+            return false;
+        }
+        SymbolLog symbolLog = logs.get(symbol);
+        if (symbolLog == null) {
+            if (!isValidSymbol(symbol)) {
+                ticksRejected.incrementAndGet();
+                return false;
+            }
+            symbolLog = new SymbolLog(symbol);
+            logs.put(symbol, symbolLog);
+        }
+        long day = Math.floorDiv(timestamp, DAY_MILLIS);
+        Segment segment = symbolLog.current;
+        if (segment == null || symbolLog.day != day) {
+            segment = symbolLog.open(day);
+        }
+        while (!segment.append(timestamp, price, volume)) {
+            segment = symbolLog.roll();
+        }
+        ticksWritten.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Ticks of a symbol with {@code from <= timestamp <= to}, as read-only views of the mapped segments.
+     * Ticks appended after the call are not included.
+     *
+     * @param symbol Stock symbol
+     * @param from Start of the range, epoch milliseconds (inclusive)
+     * @param to End of the range, epoch milliseconds (inclusive)
+     * @return the range, empty if nothing was recorded
+     * @throws IllegalArgumentException if the symbol is not a valid ticker
+     */
+    public TickRange query(String symbol, long from, long to) {
+        String upperSymbol = symbol.toUpperCase();
+        if (!isValidSymbol(upperSymbol)) {
+            throw new IllegalArgumentException("Invalid symbol: " + symbol);
+        }
+        List<Slice> slices = new ArrayList<>();
+        if (!enabled || from > to) {
+            return new TickRange(from, to, slices);
+        }
+        long fromDay = Math.floorDiv(from, DAY_MILLIS);
+        long toDay = Math.floorDiv(to, DAY_MILLIS);
+        for (SegmentFile file : listSegments(upperSymbol)) {
+            if (file.day < fromDay || file.day > toDay) {
+                continue;
+            }
+            Slice slice = segment(file.path).slice(from, to);
+            if (slice != null) {
+                slices.add(slice);
+            }
+        }
+        return new TickRange(from, to, slices);
+    }
+
+    /**
+     * Delete segments of days before {@code today - retention-days}.
+     *
+     * @param today Current UTC date
+     * @return number of segments deleted
+     */
+    int applyRetention(LocalDate today) {
+        if (retentionDays <= 0 || !Files.isDirectory(directory)) {
+            return 0;
+        }
+        long oldestKept = today.minusDays(retentionDays).toEpochDay();
+        int deleted = 0;
+        try (Stream<Path> symbolDirs = Files.list(directory)) {
+            for (Path symbolDir : symbolDirs.filter(Files::isDirectory).toList()) {
+                for (SegmentFile file : listSegments(symbolDir)) {
+                    if (file.day < oldestKept) {
+                        // The mapping stays valid for the writer and open readers until it is garbage collected
+                        segments.remove(file.path);
+                        Files.deleteIfExists(file.path);
+                        deleted++;
+                    }
+                }
+            }
+        } catch (IOException e) {
+            log.error("Error applying tick retention in {}", directory, e);
+        }
+        if (deleted > 0) {
+            segmentsDeleted.addAndGet(deleted);
+            log.info("Deleted {} tick segments older than {}", deleted, LocalDate.ofEpochDay(oldestKept));
+        }
+        return deleted;
+    }
+
+    /**
+     * Start of the oldest UTC day whose ticks are kept, epoch milliseconds; 0 when ticks are never deleted.
+     * Ranges starting earlier only hold what retention has not removed yet.
+     */
+    public long getRetainedFrom() {
+        if (retentionDays <= 0) {
+            return 0;
+        }
+        return LocalDate.now(ZoneOffset.UTC).minusDays(retentionDays).toEpochDay() * DAY_MILLIS;
+    }
+
+    /**
+     * @return write and retention counters
+     */
+    public Stats getStats() {
+        return Stats.builder()
+                .enabled(enabled)
+                .ticksWritten(ticksWritten.get())
+                .ticksRejected(ticksRejected.get())
+                .mappedSegments(segments.size())
+                .segmentsDeleted(segmentsDeleted.get())
+                .build();
+    }
+
+    private Segment segment(Path path) {
+        return segments.computeIfAbsent(path, p -> Segment.open(p, segmentCapacity));
+    }
+
+    private List<SegmentFile> listSegments(String symbol) {
+        return listSegments(symbolDirectory(symbol));
+    }
+
+    /**
+     * Exchange-prefixed symbols such as BINANCE:BTCUSDT keep their prefix with ':' replaced by '~'.
+     */
+    private Path symbolDirectory(String symbol) {
+        return directory.resolve(symbol.replace(':', '~'));
+    }
+
+    private static List<SegmentFile> listSegments(Path symbolDir) {
+        if (!Files.isDirectory(symbolDir)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(symbolDir)) {
+            return files.map(SegmentFile::parse)
+                    .filter(file -> file != null)
+                    .sorted(Comparator.comparingLong(SegmentFile::day).thenComparingInt(SegmentFile::part))
+                    .toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot list tick segments in " + symbolDir, e);
+        }
+    }
+
+    /**
+     * Whether ticks can be stored and queried for a symbol (upper case); other symbols are rejected.
+     */
+    public static boolean isValidSymbol(String symbol) {
+        return symbol != null && SYMBOL.matcher(symbol).matches();
+    }
+
+    /**
+     * Writer-side state of one symbol: the segment currently appended to.
+     */
+    private final class SymbolLog {
+        private final Path symbolDir;
+        private long day = Long.MIN_VALUE;
+        private int part;
+        private Segment current;
+
+        private SymbolLog(String symbol) {
+            this.symbolDir = symbolDirectory(symbol);
+        }
+
+        /**
+         * Switch to the last part of the day, which may already hold ticks from an earlier run.
+         */
+        private Segment open(long newDay) {
+            try {
+                Files.createDirectories(symbolDir);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot create tick directory " + symbolDir, e);
+            }
+            day = newDay;
+            part = 0;
+            for (SegmentFile file : listSegments(symbolDir)) {
+                if (file.day == newDay) {
+                    part = Math.max(part, file.part);
+                }
+            }
+            current = segment(path());
+            return current;
+        }
+
+        private Segment roll() {
+            part++;
+            current = segment(path());
+            return current;
+        }
+
+        private Path path() {
+            return symbolDir.resolve(String.format("%s-%03d%s", LocalDate.ofEpochDay(day), part, SUFFIX));
+        }
+    }
+
+    /**
+     * One mapped segment file. The header count is the only field shared between the writer and readers;
+     * the other mutable fields belong to the writer.
+     */
+    private static final class Segment {
+        private final MappedByteBuffer buffer;
+        private final int capacity;
+        private final int priceOffset;
+        private final int volumeOffset;
+
+        // Writer-confined
+        private long count;
+        private long lastTimestamp;
+        private boolean sorted;
+
+        private Segment(MappedByteBuffer buffer, int capacity) {
+            this.buffer = buffer;
+            this.capacity = capacity;
+            this.priceOffset = HEADER_BYTES + 8 * capacity;
+            this.volumeOffset = HEADER_BYTES + 16 * capacity;
+            this.count = publishedCount();
+            this.sorted = buffer.getInt(SORTED_OFFSET) == 1;
+            this.lastTimestamp = count > 0 ? timestamp((int) count - 1) : Long.MIN_VALUE;
+        }
+
+        /**
+         * Map an existing segment, or create and map a new one of the given capacity.
+         */
+        private static Segment open(Path path, int newCapacity) {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE)) {
+                if (channel.size() < HEADER_BYTES) {
+                    MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size(newCapacity));
+                    buffer.order(ORDER);
+                    buffer.putInt(MAGIC_OFFSET, MAGIC);
+                    buffer.putInt(VERSION_OFFSET, VERSION);
+                    buffer.putInt(CAPACITY_OFFSET, newCapacity);
+                    buffer.putInt(SORTED_OFFSET, 1);
+                    return new Segment(buffer, newCapacity);
+                }
+                MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+                header.order(ORDER);
+                if (header.getInt(MAGIC_OFFSET) != MAGIC || header.getInt(VERSION_OFFSET) != VERSION) {
+                    throw new IllegalStateException("Not a tick segment: " + path);
+                }
+                int capacity = header.getInt(CAPACITY_OFFSET);
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size(capacity));
+                buffer.order(ORDER);
+                return new Segment(buffer, capacity);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot map tick segment " + path, e);
+            }
+        }
+
+        private static long size(int capacity) {
+            return HEADER_BYTES + 24L * capacity;
+        }
+
+        /**
+         * @return false if the segment is full
+         */
+        private boolean append(long timestamp, double price, double volume) {
+            if (count == capacity) {
+                return false;
+            }
+            int index = (int) count;
+            buffer.putLong(HEADER_BYTES + 8 * index, timestamp);
+            buffer.putDouble(priceOffset + 8 * index, price);
+            buffer.putDouble(volumeOffset + 8 * index, volume);
+            if (sorted && timestamp < lastTimestamp) {
+                // Out-of-order tick: readers fall back to filtering the whole segment
+                sorted = false;
+                buffer.putInt(SORTED_OFFSET, 0);
+            }
+            lastTimestamp = Math.max(lastTimestamp, timestamp);
+            count++;
+            LONG_VIEW.setRelease(buffer, COUNT_OFFSET, count);
+            return true;
+        }
+
+        private long publishedCount() {
+            return (long) LONG_VIEW.getAcquire(buffer, COUNT_OFFSET);
+        }
+
+        private long timestamp(int index) {
+            return buffer.getLong(HEADER_BYTES + 8 * index);
+        }
+
+        /**
+         * The published ticks in [from, to], narrowed by binary search when the segment is in time order.
+         *
+         * @return the slice, or null if no tick can be in range
+         */
+        private Slice slice(long from, long to) {
+            int published = (int) publishedCount();
+            // Read after the count, so the flag covers at least the published ticks
+            boolean inOrder = buffer.getInt(SORTED_OFFSET) == 1;
+            int start = 0;
+            int end = published;
+            if (inOrder) {
+                start = lowerBound(from, 0, published);
+                end = lowerBound(to + 1, start, published);
+            }
+            if (start == end) {
+                return null;
+            }
+            return new Slice(column(HEADER_BYTES, start, end).asLongBuffer(),
+                    column(priceOffset, start, end).asDoubleBuffer(),
+                    column(volumeOffset, start, end).asDoubleBuffer(), !inOrder);
+        }
+
+        private ByteBuffer column(int offset, int start, int end) {
+            return buffer.slice(offset + 8 * start, 8 * (end - start)).asReadOnlyBuffer().order(ORDER);
+        }
+
+        /**
+         * First index in [low, high) whose timestamp is at least {@code timestamp}.
+         */
+        private int lowerBound(long timestamp, int low, int high) {
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (timestamp(mid) < timestamp) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+
+    private record SegmentFile(Path path, long day, int part) {
+
+        private static SegmentFile parse(Path path) {
+            Matcher matcher = SEGMENT_NAME.matcher(path.getFileName().toString());
+            if (!matcher.matches()) {
+                return null;
+            }
+            return new SegmentFile(path, LocalDate.parse(matcher.group(1)).toEpochDay(),
+                    Integer.parseInt(matcher.group(2)));
+        }
+    }
+
+    /**
+     * Read-only column views over part of one segment.
+     * When {@code filter} is set the segment was written out of order and ticks must be checked against
+     * the range one by one.
+     */
+    public record Slice(LongBuffer timestamps, DoubleBuffer prices, DoubleBuffer volumes, boolean filter) {
+
+        public int size() {
+            return timestamps.limit();
+        }
+    }
+
+    /**
+     * Ticks of one symbol in a time range, in append order within each daily segment.
+     */
+    public record TickRange(long from, long to, List<Slice> slices) {
+
+        /**
+         * Visit ticks in range, stopping after {@code limit} ticks.
+         *
+         * @return number of ticks visited
+         */
+        public int forEach(int limit, TickVisitor visitor) {
+            int visited = 0;
+            for (Slice slice : slices) {
+                for (int i = 0; i < slice.size() && visited < limit; i++) {
+                    long timestamp = slice.timestamps.get(i);
+                    if (slice.filter && (timestamp < from || timestamp > to)) {
+                        continue;
+                    }
+                    visitor.onTick(timestamp, slice.prices.get(i), slice.volumes.get(i));
+                    visited++;
+                }
+            }
+            return visited;
+        }
+
+        public boolean isEmpty() {
+            return slices.isEmpty();
+        }
+    }
+
+    @Data
+    @Builder
+    public static class Stats {
+        private boolean enabled;
+        private long ticksWritten;
+        private long ticksRejected;
+        private int mappedSegments;
+        private long segmentsDeleted;
+    }
+}
@@ -0,0 +1,459 @@
+package com.ansh.portfilio_tracker.Service;
+
+import com.ansh.portfilio_tracker.Classes.Holding;
+import com.ansh.portfilio_tracker.Classes.ImportResult;
+import com.ansh.portfilio_tracker.Classes.Transaction;
+import com.ansh.portfilio_tracker.Repo.HoldingRepository;
+import com.ansh.portfilio_tracker.Repo.PortfolioRepository;
+import com.ansh.portfilio_tracker.Repo.TransactionRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Bulk import of BUY/SELL transactions from CSV or NDJSON.
+ * Rows are read one at a time and applied in file order to an in-memory position per symbol,
+ * using the same weighted-average and realized-profit rules as {@link TransactionServiceImpl}.
+ * Transaction rows are written in batches as they are read, and the persistence context is
+ * cleared after each batch, so memory stays bounded by the number of distinct symbols.
+ * Final holding and portfolio states are written once at the end; a single market-price refresh
+ * follows once that transaction has committed, so no connection is held while quotes are fetched.
+ * CSV fields may be quoted, with commas and doubled quotes inside quotes; a quoted field cannot span lines.
+ * The whole import holds the portfolio lock of {@link PositionLocks}, so no live trade can change
+ * a position between the initial read of the holdings and the final write.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Transactional
+public class TransactionImportService {
+
+    /**
+     * Supported input formats.
+     */
+    public enum Format {
+        CSV,
+        NDJSON
+    }
+
+    private final TransactionRepository transactionRepository;
+    private final HoldingRepository holdingRepository;
+    private final PortfolioRepository portfolioRepository;
+    private final HoldingService holdingService;
+    private final PortfolioValuationEngine valuationEngine;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final PositionLocks positionLocks;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${transactions.import.batch-size:500}")
+    private int batchSize;
+
+    @Value("${transactions.import.max-errors:100}")
+    private int maxErrors;
+
+    /**
+     * Import transactions into a portfolio.
+     * Rows must be in chronological order; invalid rows and sells exceeding the position are rejected
+     * and reported, the remaining rows are imported.
+     *
+     * @param portfolioId portfolio ID
+     * @param input CSV (with a header row) or NDJSON stream
+     * @param format input format
+     * @return import counts and throughput
+     * @throws IllegalArgumentException if the portfolio does not exist
+     * @throws UncheckedIOException if the input cannot be read
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public ImportResult importTransactions(UUID portfolioId, InputStream input, Format format) {
+        long start = System.nanoTime();
+        return positionLocks.withPortfolioLock(portfolioId, () -> {
+            ImportRun run = transactionTemplate.execute(status -> importLocked(portfolioId, input, format));
+
+            // One concurrent price fetch and batched update for every touched holding, once the import
+            // has committed; still under the portfolio lock so the refresh cannot overwrite a later trade
+            holdingService.refreshMarketPrices(run.written);
+            run.written.forEach(valuationEngine::onHoldingSaved);
+            return result(run, System.nanoTime() - start);
+        });
+    }
+
+    private ImportRun importLocked(UUID portfolioId, InputStream input, Format format) {
+        if (!portfolioRepository.existsById(portfolioId)) {
+            throw new IllegalArgumentException("Portfolio not found: " + portfolioId);
+        }
+
+        ImportRun run = new ImportRun(portfolioId);
+        for (Holding holding : holdingRepository.findByPortfolioId(portfolioId)) {
+            run.positions.put(holding.getSymbol(),
+                    new Position(holding.getQuantity(), holding.getAvgPriceInBaseCurrency(), true));
+        }
+
+        try {
+            if (format == Format.CSV) {
+                readCsv(input, run);
+            } else {
+                readNdjson(input, run);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read import", e);
+        }
+        run.flushTransactions();
+
+        run.written = writeHoldings(run);
+        writePortfolio(portfolioId, run.realizedProfit);
+        eventPublisher.publishEvent(new PositionLedger.LedgerChangedEvent(portfolioId));
+        return run;
+    }
+
+    private ImportResult result(ImportRun run, long elapsedNanos) {
+        ImportResult result = ImportResult.builder()
+                .portfolioId(run.portfolioId.toString())
+                .rowsRead(run.rowsRead)
+                .rowsImported(run.rowsImported)
+                .rowsRejected(run.rowsRead - run.rowsImported)
+                .holdingsWritten(run.written.size())
+                .holdingsDeleted(run.holdingsDeleted)
+                .realizedProfitInBase(run.realizedProfit)
+                .elapsedMillis(elapsedNanos / 1_000_000)
+                .rowsPerSecond(elapsedNanos == 0 ? 0d : run.rowsRead * 1_000_000_000d / elapsedNanos)
+                .errors(run.errors)
+                .build();
+        log.info("Imported {} of {} rows into portfolio {} in {} ms ({} rows/s)", run.rowsImported, run.rowsRead,
+                run.portfolioId, result.getElapsedMillis(), Math.round(result.getRowsPerSecond()));
+        return result;
+    }
+
+    private void readCsv(InputStream input, ImportRun run) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        String headerLine = reader.readLine();
+        if (headerLine == null) {
+            return;
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        List<String> header = splitCsv(headerLine);
+        for (int i = 0; i < header.size(); i++) {
+            columns.put(canonicalField(header.get(i).trim()), i);
+        }
+
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            String row = line;
+            run.apply(() -> {
+                List<String> cells = splitCsv(row);
+                return new ImportRow(
+                        cell(cells, columns.get("symbol")),
+                        cell(cells, columns.get("type")),
+                        decimal(cell(cells, columns.get("quantity"))),
+                        decimal(cell(cells, columns.get("price"))),
+                        cell(cells, columns.get("date")),
+                        cell(cells, columns.get("currency")));
+            });
+        }
+    }
+
+    private void readNdjson(InputStream input, ImportRun run) throws IOException {
+        try (MappingIterator<JsonNode> rows = objectMapper.readerFor(JsonNode.class).readValues(input)) {
+            while (rows.hasNextValue()) {
+                JsonNode node = rows.nextValue();
+                Map<String, String> fields = new HashMap<>();
+                node.properties().forEach(e -> fields.put(canonicalField(e.getKey()),
+                        e.getValue().isNull() ? null : e.getValue().asText()));
+                run.apply(() -> new ImportRow(
+                        fields.get("symbol"),
+                        fields.get("type"),
+                        decimal(fields.get("quantity")),
+                        decimal(fields.get("price")),
+                        fields.get("date"),
+                        fields.get("currency")));
+            }
+        }
+    }
+
+    /**
+     * Write the final position of every symbol the import touched.
+     * Existing holdings are re-read once and updated in place; new ones are persisted.
+     */
+    private List<Holding> writeHoldings(ImportRun run) {
+        Map<String, Holding> existing = new HashMap<>();
+        for (Holding holding : holdingRepository.findByPortfolioId(run.portfolioId)) {
+            existing.put(holding.getSymbol(), holding);
+        }
+
+        List<Holding> written = new ArrayList<>();
+        List<Holding> deleted = new ArrayList<>();
+        for (Map.Entry<String, Position> entry : run.positions.entrySet()) {
+            Position position = entry.getValue();
+            if (!position.touched) {
+                continue;
+            }
+            Holding holding = existing.get(entry.getKey());
+            if (position.quantity.signum() == 0) {
+                if (holding != null) {
+                    deleted.add(holding);
+                    valuationEngine.onHoldingDeleted(run.portfolioId, entry.getKey());
+                }
+                continue;
+            }
+            if (holding == null) {
+                holding = Holding.builder()
+                        .portfolioId(run.portfolioId)
+                        .symbol(entry.getKey())
+                        .name(entry.getKey())
+                        .build();
+            }
+            holding.setQuantity(position.quantity);
+            holding.setAvgPriceInBaseCurrency(position.avgPrice);
+            // The next live trade counts the position's events
+            holding.setLedgerSeq(null);
+            written.add(holding);
+        }
+
+        holdingRepository.deleteAll(deleted);
+        run.holdingsDeleted = deleted.size();
+        return holdingRepository.saveAll(written);
+    }
+
+    private void writePortfolio(UUID portfolioId, BigDecimal realizedProfit) {
+        if (realizedProfit.signum() != 0 && portfolioRepository.addRealizedProfit(portfolioId, realizedProfit) > 0) {
+            valuationEngine.onRealizedProfit(portfolioId, realizedProfit);
+        }
+    }
+
+    private static String canonicalField(String name) {
+        return switch (name.trim().toLowerCase(Locale.ROOT)) {
+            case "symbol", "instrumentsymbol", "instrument_symbol" -> "symbol";
+            case "type", "side" -> "type";
+            case "quantity", "qty" -> "quantity";
+            case "price", "priceperunit", "price_per_unit" -> "price";
+            case "date", "transactiondate", "transaction_date" -> "date";
+            case "currency", "txncurrency", "txn_currency" -> "currency";
+            default -> name;
+        };
+    }
+
+    private static String cell(List<String> cells, Integer index) {
+        if (index == null || index >= cells.size()) {
+            return null;
+        }
+        String value = cells.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    /**
+     * Split one CSV line into fields (RFC 4180 quoting, without line breaks inside quotes).
+     * A quoted field may contain commas, and a doubled quote stands for one quote.
+     *
+     * @throws IllegalArgumentException if a quoted field is not closed
+     */
+    static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c != '"') {
+                    field.append(c);
+                } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"' && field.toString().isBlank()) {
+                // Opening quote; whitespace before it is dropped
+                field.setLength(0);
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted field");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private static BigDecimal decimal(String value) {
+        return value == null ? null : new BigDecimal(value.trim());
+    }
+
+    private static LocalDateTime dateTime(String value) {
+        if (value == null) {
+            return LocalDateTime.now();
+        }
+        try {
+            return LocalDateTime.parse(value);
+        } catch (DateTimeParseException e) {
+            return LocalDate.parse(value).atStartOfDay();
+        }
+    }
+
+    /**
+     * Supplies a parsed row; parsing errors surface as rejected rows.
+     */
+    @FunctionalInterface
+    private interface RowSupplier {
+        ImportRow get();
+    }
+
+    private record ImportRow(String symbol, String type, BigDecimal quantity, BigDecimal price,
+                             String date, String currency) {
+    }
+
+    /**
+     * In-memory position folded from the existing holding and the imported rows.
+     */
+    private static final class Position {
+        private BigDecimal quantity;
+        private BigDecimal avgPrice;
+        private boolean touched;
+
+        private Position(BigDecimal quantity, BigDecimal avgPrice, boolean existing) {
+            this.quantity = quantity;
+            this.avgPrice = avgPrice;
+            this.touched = !existing;
+        }
+    }
+
+    /**
+     * State of one import: folded positions, the pending transaction batch and counters.
+     */
+    private final class ImportRun {
+        private final UUID portfolioId;
+        private final Map<String, Position> positions = new HashMap<>();
+        private final List<Transaction> pending = new ArrayList<>();
+        private final List<String> errors = new ArrayList<>();
+        private List<Holding> written = List.of();
+        private BigDecimal realizedProfit = BigDecimal.ZERO;
+        private long rowsRead;
+        private long rowsImported;
+        private int holdingsDeleted;
+
+        private ImportRun(UUID portfolioId) {
+            this.portfolioId = portfolioId;
+        }
+
+        private void apply(RowSupplier supplier) {
+            rowsRead++;
+            try {
+                Transaction transaction = fold(supplier.get());
+                pending.add(transaction);
+                rowsImported++;
+                if (pending.size() >= batchSize) {
+                    flushTransactions();
+                }
+            } catch (RuntimeException e) {
+                reject(e.getMessage());
+            }
+        }
+
+        private Transaction fold(ImportRow row) {
+            if (row.symbol() == null || row.symbol().isBlank()) {
+                throw new IllegalArgumentException("Symbol is required");
+            }
+            if (row.quantity() == null || row.quantity().signum() <= 0) {
+                throw new IllegalArgumentException("Quantity must be positive");
+            }
+            if (row.price() == null || row.price().signum() <= 0) {
+                throw new IllegalArgumentException("Price per unit must be positive");
+            }
+            String symbol = row.symbol().trim().toUpperCase(Locale.ROOT);
+            String type = row.type() != null ? row.type().trim().toUpperCase(Locale.ROOT) : "";
+
+            Transaction transaction = Transaction.builder()
+                    .id(UUID.randomUUID())
+                    .portfolioId(portfolioId)
+                    .instrumentSymbol(symbol)
+                    .type(type)
+                    .quantity(row.quantity())
+                    .pricePerUnit(row.price())
+                    .txnCurrency(row.currency() != null ? row.currency() : "USD")
+                    .transactionDate(dateTime(row.date()))
+                    .build();
+
+            Position position = positions.get(symbol);
+            if ("BUY".equals(type)) {
+                if (position == null || position.quantity.signum() == 0) {
+                    position = new Position(row.quantity(), row.price(), false);
+                    positions.put(symbol, position);
+                } else {
+                    // Weighted average cost, as in executeBuy
+                    BigDecimal totalQuantity = position.quantity.add(row.quantity());
+                    position.avgPrice = position.quantity.multiply(position.avgPrice)
+                            .add(row.quantity().multiply(row.price()))
+                            .divide(totalQuantity, 2, RoundingMode.HALF_UP);
+                    position.quantity = totalQuantity;
+                    position.touched = true;
+                }
+            } else if ("SELL".equals(type)) {
+                if (position == null || position.quantity.compareTo(row.quantity()) < 0) {
+                    throw new IllegalStateException("Cannot sell " + row.quantity() + " shares of " + symbol
+                            + ": Only " + (position == null ? BigDecimal.ZERO : position.quantity) + " shares available");
+                }
+                // Realized profit against the average cost, as in executeSell
+                BigDecimal realized = row.price().multiply(row.quantity())
+                        .subtract(position.avgPrice.multiply(row.quantity()));
+                transaction.setRealizedProfit(realized);
+                realizedProfit = realizedProfit.add(realized);
+                position.quantity = position.quantity.subtract(row.quantity());
+                position.touched = true;
+            } else {
+                throw new IllegalArgumentException("Invalid transaction type: " + row.type() + ". Must be BUY or SELL");
+            }
+            return transaction;
+        }
+
+        private void flushTransactions() {
+            if (pending.isEmpty()) {
+                return;
+            }
+            transactionRepository.saveAll(pending);
+            entityManager.flush();
+            entityManager.clear();
+            pending.clear();
+        }
+
+        private void reject(String message) {
+            if (errors.size() < maxErrors) {
+                errors.add("Row " + rowsRead + ": " + message);
+            }
+        }
+    }
+}
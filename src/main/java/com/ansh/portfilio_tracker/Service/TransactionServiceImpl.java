@@ -1,22 +1,37 @@
 package com.ansh.portfilio_tracker.Service;
 
 import com.ansh.portfilio_tracker.Classes.Holding;
-import com.ansh.portfilio_tracker.Classes.Portfolio;
 import com.ansh.portfilio_tracker.Classes.Transaction;
+import com.ansh.portfilio_tracker.Classes.TransactionPage;
 import com.ansh.portfilio_tracker.Repo.HoldingRepository;
 import com.ansh.portfilio_tracker.Repo.PortfolioRepository;
 import com.ansh.portfilio_tracker.Repo.TransactionRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
@@ -24,40 +39,118 @@ import java.util.UUID;
 @Transactional
 public class TransactionServiceImpl implements TransactionService {
 
+    private static final List<String> TIMED_TYPES = List.of("BUY", "SELL", "OTHER");
+    private static final List<String> TIMED_OUTCOMES = List.of("success", "rejected", "error");
+
     private final TransactionRepository transactionRepository;
     private final HoldingRepository holdingRepository;
     private final PortfolioRepository portfolioRepository;
     private final HoldingService holdingService;
+    private final PortfolioValuationEngine valuationEngine;
+    private final EntityManager entityManager;
+    private final PositionLocks positionLocks;
+    private final TransactionTemplate transactionTemplate;
+    private final PositionLedger positionLedger;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${transactions.page.default-size:50}")
+    private int defaultPageSize;
+
+    @Value("${transactions.page.max-size:500}")
+    private int maxPageSize;
+
+    // transactions.execute per "type:outcome", registered once
+    private final Map<String, Timer> executeTimers = new HashMap<>();
+
+    @PostConstruct
+    void registerTimers() {
+        for (String type : TIMED_TYPES) {
+            for (String outcome : TIMED_OUTCOMES) {
+                executeTimers.put(type + ":" + outcome, Timer.builder("transactions.execute")
+                        .description("Time to execute a BUY or SELL, including the wait for the position lock")
+                        .tag("type", type)
+                        .tag("outcome", outcome)
+                        .publishPercentileHistogram()
+                        .register(meterRegistry));
+            }
+        }
+    }
 
     @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public Transaction addTransaction(UUID portfolioId, Transaction transactionRequest) {
         transactionRequest.setPortfolioId(portfolioId);
         return executeTransaction(transactionRequest);
     }
 
+    /**
+     * Execute a BUY or SELL.
+     * The position's lock is held around the whole database transaction, including its commit,
+     * so concurrent trades on one position are applied one after another against committed state.
+     * Trades on other positions are not blocked.
+     * The time taken, including the wait for the lock, is recorded as {@code transactions.execute}.
+     * The holding is then revalued at the market price once the lock is released, unless the
+     * trade closed the position.
+     *
+     * @param transaction transaction to execute
+     * @return the executed transaction
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public Transaction executeTransaction(Transaction transaction) {
+        String symbol = transaction.getInstrumentSymbol().toUpperCase();
+        String type = "SELL".equalsIgnoreCase(transaction.getType()) ? "SELL"
+                : "BUY".equalsIgnoreCase(transaction.getType()) ? "BUY" : "OTHER";
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+        Execution executed;
+        try {
+            executed = positionLocks.withLock(transaction.getPortfolioId(), symbol,
+                    () -> transactionTemplate.execute(status -> executeLocked(transaction)));
+            outcome = "success";
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            outcome = "rejected";
+            throw e;
+        } finally {
+            sample.stop(executeTimers.get(type + ":" + outcome));
+        }
+        if (executed.positionOpen()) {
+            holdingService.refreshMarketPriceAfterWrite(executed.transaction().getPortfolioId(), symbol);
+        }
+        return executed.transaction();
+    }
+
+    private Execution executeLocked(Transaction transaction) {
         transaction.setId(UUID.randomUUID());
         transaction.setTransactionDate(LocalDateTime.now());
         transaction.setTxnCurrency(transaction.getTxnCurrency() != null ? transaction.getTxnCurrency() : "USD");
+        // Stored in upper case like the holding, so the ledger finds every event of the position
+        transaction.setInstrumentSymbol(transaction.getInstrumentSymbol().toUpperCase());
 
         String type = transaction.getType().toUpperCase();
 
+        Execution execution;
         if ("BUY".equals(type)) {
-            executeBuy(transaction);
+            execution = executeBuy(transaction);
         } else if ("SELL".equals(type)) {
-            executeSell(transaction);
+            execution = executeSell(transaction);
         } else {
             throw new IllegalArgumentException("Invalid transaction type: " + transaction.getType() + ". Must be BUY or SELL");
         }
 
-        transactionRepository.save(transaction);
+        transactionRepository.saveAndFlush(transaction);
+        positionLedger.onEventAppended(transaction.getPortfolioId(), transaction.getInstrumentSymbol(), execution.seq());
+        if (transaction.getRealizedProfit() != null) {
+            // The portfolio row is shared by sells on every position, so its row lock is taken by
+            // the last statement before commit
+            addRealizedProfit(transaction.getPortfolioId(), transaction.getRealizedProfit());
+        }
         log.info("Executed {} transaction for {} shares of {} at ${}",
                 type, transaction.getQuantity(), transaction.getInstrumentSymbol(), transaction.getPricePerUnit());
 
-        return transaction;
+        return execution;
     }
 
-    private void executeBuy(Transaction transaction) {
+    private Execution executeBuy(Transaction transaction) {
         UUID portfolioId = transaction.getPortfolioId();
         String symbol = transaction.getInstrumentSymbol().toUpperCase();
 
@@ -73,7 +166,7 @@ public class TransactionServiceImpl implements TransactionService {
                     .quantity(transaction.getQuantity())
                     .avgPriceInBaseCurrency(transaction.getPricePerUnit())
                     .build();
-            log.info("Created new holding for {}", symbol);
+            log.debug("Created new holding for {}", symbol);
         } else {
             // Update existing holding with weighted average cost
             holding = holdingOpt.get();
@@ -84,14 +177,17 @@ public class TransactionServiceImpl implements TransactionService {
 
             holding.setQuantity(totalQuantity);
             holding.setAvgPriceInBaseCurrency(newAvgPrice);
-            log.info("Updated holding for {}: new quantity={}, new avg price={}", symbol, totalQuantity, newAvgPrice);
+            log.debug("Updated holding for {}: new quantity={}, new avg price={}", symbol, totalQuantity, newAvgPrice);
         }
 
+        long seq = positionLedger.nextEventSeq(portfolioId, symbol, holdingOpt.map(Holding::getLedgerSeq).orElse(null));
+        holding.setLedgerSeq(seq);
         holdingRepository.save(holding);
-        holdingService.refreshMarketPrice(portfolioId, symbol);
+        valuationEngine.onHoldingSaved(holding);
+        return new Execution(transaction, seq, true);
     }
 
-    private void executeSell(Transaction transaction) {
+    private Execution executeSell(Transaction transaction) {
         UUID portfolioId = transaction.getPortfolioId();
         String symbol = transaction.getInstrumentSymbol().toUpperCase();
 
@@ -115,35 +211,36 @@ public class TransactionServiceImpl implements TransactionService {
 
         transaction.setRealizedProfit(realizedProfit);
 
-        // Update portfolio's realized profit
-        Optional<Portfolio> portfolioOpt = portfolioRepository.findById(portfolioId);
-        if (portfolioOpt.isPresent()) {
-            Portfolio portfolio = portfolioOpt.get();
-            BigDecimal currentRealizedProfit = portfolio.getRealizedProfitInBaseCurrency() != null
-                    ? portfolio.getRealizedProfitInBaseCurrency()
-                    : BigDecimal.ZERO;
-            portfolio.setRealizedProfitInBaseCurrency(currentRealizedProfit.add(realizedProfit));
-            portfolioRepository.save(portfolio);
-            log.info("Updated portfolio realized profit: {} (added {})",
-                    portfolio.getRealizedProfitInBaseCurrency(), realizedProfit);
-        }
-
         // Update holding quantity
         BigDecimal newQuantity = holding.getQuantity().subtract(transaction.getQuantity());
+        long seq = positionLedger.nextEventSeq(portfolioId, symbol, holding.getLedgerSeq());
 
-        if (newQuantity.compareTo(BigDecimal.ZERO) == 0) {
+        boolean positionOpen = newQuantity.compareTo(BigDecimal.ZERO) != 0;
+        if (!positionOpen) {
             // Delete holding when quantity reaches zero
             holdingRepository.deleteByPortfolioIdAndSymbol(portfolioId, symbol);
-            log.info("Deleted holding for {} as quantity reached zero", symbol);
+            valuationEngine.onHoldingDeleted(portfolioId, symbol);
+            log.debug("Deleted holding for {} as quantity reached zero", symbol);
         } else {
-            // Only save and refresh if holding still exists
             holding.setQuantity(newQuantity);
+            holding.setLedgerSeq(seq);
             holdingRepository.save(holding);
-            holdingService.refreshMarketPrice(portfolioId, symbol);
+            valuationEngine.onHoldingSaved(holding);
         }
 
-        log.info("Sold {} shares of {} at ${}, realized profit: {}",
+        log.debug("Sold {} shares of {} at ${}, realized profit: {}",
                 transaction.getQuantity(), symbol, transaction.getPricePerUnit(), realizedProfit);
+        return new Execution(transaction, seq, positionOpen);
+    }
+
+    /**
+     * Add to the portfolio's realized profit in place, so concurrent sells never read and rewrite the row.
+     */
+    private void addRealizedProfit(UUID portfolioId, BigDecimal realizedProfit) {
+        if (portfolioRepository.addRealizedProfit(portfolioId, realizedProfit) > 0) {
+            valuationEngine.onRealizedProfit(portfolioId, realizedProfit);
+            log.debug("Added {} to portfolio realized profit", realizedProfit);
+        }
     }
 
     public List<Transaction> getPortfolioTransactions(UUID portfolioId) {
@@ -154,7 +251,91 @@ public class TransactionServiceImpl implements TransactionService {
         return transactionRepository.findByPortfolioIdAndInstrumentSymbol(portfolioId, symbol);
     }
 
+    /**
+     * One page of transaction history, newest first, using keyset pagination on (transaction_date, id).
+     *
+     * @param portfolioId portfolio ID
+     * @param symbol optional symbol filter
+     * @param cursor nextCursor of the previous page, or null for the first page
+     * @param limit page size, or null for the default
+     * @return the page and the cursor for the next one
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    @Transactional(readOnly = true)
+    public TransactionPage getTransactionPage(UUID portfolioId, String symbol, String cursor, Integer limit) {
+        int size = Math.max(1, Math.min(limit != null ? limit : defaultPageSize, maxPageSize));
+        // Fetch one extra row to learn whether another page exists without a COUNT
+        Pageable page = PageRequest.of(0, size + 1);
+
+        List<Transaction> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = symbol == null
+                    ? transactionRepository.findFirstPage(portfolioId, page)
+                    : transactionRepository.findFirstPageBySymbol(portfolioId, symbol, page);
+        } else {
+            Transaction last = decodeCursor(cursor);
+            rows = symbol == null
+                    ? transactionRepository.findPageAfter(portfolioId, last.getTransactionDate(), last.getId(), page)
+                    : transactionRepository.findPageAfterBySymbol(portfolioId, symbol,
+                            last.getTransactionDate(), last.getId(), page);
+        }
+
+        if (rows.size() <= size) {
+            return new TransactionPage(rows, null, size);
+        }
+        List<Transaction> items = rows.subList(0, size);
+        return new TransactionPage(items, encodeCursor(items.get(size - 1)), size);
+    }
+
+    /**
+     * Pass every transaction of a portfolio to the sink, newest first, without holding the history in memory.
+     * Rows are fetched from the database in chunks and detached once the sink has seen them.
+     *
+     * @param portfolioId portfolio ID
+     * @param symbol optional symbol filter
+     * @param sink receives each transaction
+     * @return number of transactions streamed
+     */
+    @Transactional(readOnly = true)
+    public long streamTransactions(UUID portfolioId, String symbol, Consumer<Transaction> sink) {
+        long count = 0;
+        try (Stream<Transaction> transactions = symbol == null
+                ? transactionRepository.streamByPortfolioId(portfolioId)
+                : transactionRepository.streamByPortfolioIdAndSymbol(portfolioId, symbol)) {
+            for (Transaction transaction : (Iterable<Transaction>) transactions::iterator) {
+                sink.accept(transaction);
+                entityManager.detach(transaction);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static String encodeCursor(Transaction last) {
+        String key = last.getTransactionDate() + "|" + last.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Transaction decodeCursor(String cursor) {
+        try {
+            String key = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = key.indexOf('|');
+            return Transaction.builder()
+                    .transactionDate(LocalDateTime.parse(key.substring(0, separator)))
+                    .id(UUID.fromString(key.substring(separator + 1)))
+                    .build();
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor, e);
+        }
+    }
+
     public Transaction getTransaction(UUID transactionId) {
         return transactionRepository.findById(transactionId).orElse(null);
     }
+
+    /**
+     * An applied trade, its sequence number in the position's ledger, and whether the position is still held.
+     */
+    private record Execution(Transaction transaction, long seq, boolean positionOpen) {
+    }
 }
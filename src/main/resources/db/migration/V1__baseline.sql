@@ -0,0 +1,46 @@
+-- Baseline: the schema previously generated by hibernate ddl-auto=update from the entities.
+-- Existing databases are baselined at this version (spring.flyway.baseline-on-migrate) and skip it.
+
+CREATE TABLE portfolios (
+    id                               UUID           NOT NULL,
+    name                             VARCHAR(255)   NOT NULL,
+    base_currency                    VARCHAR(3)     NOT NULL,
+    realized_profit_in_base_currency NUMERIC(19, 2),
+    CONSTRAINT portfolios_pkey PRIMARY KEY (id)
+);
+
+CREATE TABLE holdings (
+    portfolio_id                       UUID           NOT NULL,
+    symbol                             VARCHAR(10)    NOT NULL,
+    name                               VARCHAR(255),
+    quantity                           NUMERIC(19, 8) NOT NULL,
+    avg_price_in_base_currency         NUMERIC(19, 2) NOT NULL,
+    market_price                       NUMERIC(19, 2),
+    instrument_currency                VARCHAR(3),
+    value_in_base_currency             NUMERIC(19, 2),
+    unrealized_profit_in_base_currency NUMERIC(19, 2),
+    CONSTRAINT holdings_pkey PRIMARY KEY (portfolio_id, symbol)
+);
+
+CREATE TABLE transactions (
+    id                UUID           NOT NULL,
+    portfolio_id      UUID           NOT NULL,
+    instrument_symbol VARCHAR(10)    NOT NULL,
+    type              VARCHAR(10)    NOT NULL,
+    quantity          NUMERIC(19, 8) NOT NULL,
+    price_per_unit    NUMERIC(19, 2) NOT NULL,
+    txn_currency      VARCHAR(3),
+    transaction_date  TIMESTAMP(6)   NOT NULL,
+    realized_profit   NUMERIC(19, 2),
+    CONSTRAINT transactions_pkey PRIMARY KEY (id)
+);
+
+CREATE SEQUENCE user_portfolios_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE user_portfolios (
+    id           BIGINT NOT NULL,
+    user_id      UUID   NOT NULL,
+    portfolio_id UUID   NOT NULL,
+    CONSTRAINT user_portfolios_pkey PRIMARY KEY (id),
+    CONSTRAINT uk_user_portfolios_user_portfolio UNIQUE (user_id, portfolio_id)
+);
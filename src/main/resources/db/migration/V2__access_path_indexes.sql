@@ -0,0 +1,25 @@
+-- Indexes for the repository queries on the request path.
+-- IF NOT EXISTS so databases that already carry a hand-made index of the same name migrate cleanly.
+
+-- History, newest first, and keyset pages on (transaction_date, id)
+CREATE INDEX IF NOT EXISTS idx_transactions_portfolio_date
+    ON transactions (portfolio_id, transaction_date DESC, id DESC);
+
+-- Per-symbol history and per-symbol keyset pages
+CREATE INDEX IF NOT EXISTS idx_transactions_portfolio_symbol_date
+    ON transactions (portfolio_id, instrument_symbol, transaction_date DESC, id DESC);
+
+-- findBySymbol / findFirstBySymbol (price fan-out across portfolios); portfolio_id lookups use the primary key
+CREATE INDEX IF NOT EXISTS idx_holdings_symbol
+    ON holdings (symbol);
+
+-- findByUserId and the PortfolioRepository.findByUserId subquery are served by the
+-- (user_id, portfolio_id) unique constraint's index, which leads with user_id.
+
+-- findByPortfolioId / deleteByPortfolioId when a portfolio is removed
+CREATE INDEX IF NOT EXISTS idx_user_portfolios_portfolio
+    ON user_portfolios (portfolio_id);
+
+-- findByName
+CREATE INDEX IF NOT EXISTS idx_portfolios_name
+    ON portfolios (name);
@@ -0,0 +1,15 @@
+-- Periodic fold results of the transaction ledger, one row every N events per (portfolio, symbol).
+-- A snapshot holds the position after event number event_seq, the event being (as_of_date, as_of_id)
+-- in (transaction_date, id) order. Derived data: any row can be deleted and rebuilt from transactions.
+
+CREATE TABLE position_snapshots (
+    portfolio_id    UUID           NOT NULL,
+    symbol          VARCHAR(10)    NOT NULL,
+    event_seq       BIGINT         NOT NULL,
+    as_of_date      TIMESTAMP(6)   NOT NULL,
+    as_of_id        UUID           NOT NULL,
+    quantity        NUMERIC(19, 8) NOT NULL,
+    avg_price       NUMERIC(19, 2) NOT NULL,
+    realized_profit NUMERIC(19, 2) NOT NULL,
+    CONSTRAINT position_snapshots_pkey PRIMARY KEY (portfolio_id, symbol, event_seq)
+);
@@ -0,0 +1,5 @@
+-- Number of ledger events folded into each holding, maintained by the trade path so that deciding
+-- when to store a position snapshot needs no query. NULL when unknown (holdings written by an import
+-- or before this column existed); the next trade on the position counts its events once.
+
+ALTER TABLE holdings ADD COLUMN ledger_seq BIGINT;
@@ -0,0 +1,110 @@
+package com.ansh.portfilio_tracker.Repo;
+
+import com.ansh.portfilio_tracker.Classes.Holding;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Holdings have assigned composite keys; saving new ones must not SELECT first and must be JDBC-batched.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class HoldingBatchWriteTest {
+
+    private static final int HOLDINGS = 1000;
+    private static final int BATCH_SIZE = 50;
+
+    @Autowired
+    private HoldingRepository holdingRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private StatementCounter statementCounter;
+
+    private Statistics statistics;
+
+    @TestConfiguration
+    static class CountingConfig {
+        @Bean
+        static StatementCounter statementCounter() {
+            return new StatementCounter();
+        }
+    }
+
+    @BeforeEach
+    void resetCounters() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        statementCounter.reset();
+    }
+
+    @Test
+    void newHoldingsAreInsertedInBatchesWithoutSelects() {
+        holdingRepository.saveAll(holdings(UUID.randomUUID()));
+        entityManager.flush();
+
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(HOLDINGS);
+        // No SELECT before each INSERT, and the inserts go out as batch_size-row batches
+        assertThat(statementCounter.getSelects()).isZero();
+        assertThat(statementCounter.getStatements()).isZero();
+        assertThat(statementCounter.getBatches()).isEqualTo(HOLDINGS / BATCH_SIZE);
+    }
+
+    @Test
+    void loadedHoldingsAreUpdatedInBatches() {
+        UUID portfolioId = UUID.randomUUID();
+        holdingRepository.saveAll(holdings(portfolioId));
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+        statementCounter.reset();
+
+        List<Holding> loaded = holdingRepository.findByPortfolioId(portfolioId);
+        loaded.forEach(h -> h.setMarketPrice(new BigDecimal("123.45")));
+        holdingRepository.saveAll(loaded);
+        entityManager.flush();
+
+        assertThat(statistics.getEntityUpdateCount()).isEqualTo(HOLDINGS);
+        // The single query that loaded the portfolio, then one round trip per batch of updates
+        assertThat(statementCounter.getSelects()).isEqualTo(1);
+        assertThat(statementCounter.getStatements()).isEqualTo(1);
+        assertThat(statementCounter.getBatches()).isEqualTo(HOLDINGS / BATCH_SIZE);
+    }
+
+    private static List<Holding> holdings(UUID portfolioId) {
+        List<Holding> holdings = new ArrayList<>(HOLDINGS);
+        for (int i = 0; i < HOLDINGS; i++) {
+            holdings.add(Holding.builder()
+                    .portfolioId(portfolioId)
+                    .symbol("S" + i)
+                    .name("Symbol " + i)
+                    .quantity(BigDecimal.TEN)
+                    .avgPriceInBaseCurrency(new BigDecimal("100.00"))
+                    .build());
+        }
+        return holdings;
+    }
+}
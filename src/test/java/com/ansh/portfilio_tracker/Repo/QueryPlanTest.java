@@ -0,0 +1,211 @@
+package com.ansh.portfilio_tracker.Repo;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs every filtered repository query against a seeded, analyzed H2 database built by the Flyway
+ * migrations, replays each captured statement under EXPLAIN and fails if any plan scans a whole table.
+ * Guards the V2 access-path indexes against query or migration changes that stop using them.
+ * The plans are H2's: they show that an index covering each query exists and is usable, not which
+ * plan PostgreSQL picks in production, where costs, statistics and the planner differ. Check the
+ * production plans with EXPLAIN ANALYZE against PostgreSQL when changing a query's shape.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class QueryPlanTest {
+
+    private static final int PORTFOLIOS = 200;
+    private static final int SYMBOLS = 100;
+    private static final int HOLDINGS_PER_PORTFOLIO = 25;
+    private static final int TRANSACTIONS_PER_PORTFOLIO = 100;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private HoldingRepository holdingRepository;
+
+    @Autowired
+    private PortfolioRepository portfolioRepository;
+
+    @Autowired
+    private UserPortfolioRepository userPortfolioRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private StatementCounter statementCounter;
+
+    @TestConfiguration
+    static class CountingConfig {
+        @Bean
+        static StatementCounter statementCounter() {
+            return new StatementCounter();
+        }
+    }
+
+    @Test
+    void repositoryQueriesUseIndexes() throws Exception {
+        Seed seed = seed();
+        UUID p = seed.portfolioId;
+        LocalDateTime date = LocalDateTime.of(2024, 3, 1, 0, 0);
+        UUID id = UUID.randomUUID();
+        PageRequest page = PageRequest.of(0, 50);
+
+        Map<String, Runnable> queries = new LinkedHashMap<>();
+        queries.put("transactions.findByPortfolioIdOrderByTransactionDateDesc",
+                () -> transactionRepository.findByPortfolioIdOrderByTransactionDateDesc(p));
+        queries.put("transactions.findByPortfolioIdAndInstrumentSymbol",
+                () -> transactionRepository.findByPortfolioIdAndInstrumentSymbol(p, "S1"));
+        queries.put("transactions.findByPortfolioIdAndInstrumentSymbolAndType",
+                () -> transactionRepository.findByPortfolioIdAndInstrumentSymbolAndType(p, "S1", "BUY"));
+        queries.put("transactions.findByPortfolioIdAndType",
+                () -> transactionRepository.findByPortfolioIdAndType(p, "SELL"));
+        queries.put("transactions.findFirstPage", () -> transactionRepository.findFirstPage(p, page));
+        queries.put("transactions.findPageAfter", () -> transactionRepository.findPageAfter(p, date, id, page));
+        queries.put("transactions.findFirstPageBySymbol",
+                () -> transactionRepository.findFirstPageBySymbol(p, "S1", page));
+        queries.put("transactions.findPageAfterBySymbol",
+                () -> transactionRepository.findPageAfterBySymbol(p, "S1", date, id, page));
+        queries.put("transactions.streamByPortfolioId", () -> inTransaction(
+                () -> transactionRepository.streamByPortfolioId(p).close()));
+        queries.put("transactions.streamByPortfolioIdAndSymbol", () -> inTransaction(
+                () -> transactionRepository.streamByPortfolioIdAndSymbol(p, "S1").close()));
+        queries.put("holdings.findFirstBySymbol", () -> holdingRepository.findFirstBySymbol("S1"));
+        queries.put("holdings.findFirstReadOnlyBySymbol", () -> holdingRepository.findFirstReadOnlyBySymbol("S1"));
+        queries.put("holdings.findBySymbol", () -> holdingRepository.findBySymbol("S1"));
+        queries.put("holdings.findByPortfolioId", () -> holdingRepository.findByPortfolioId(p));
+        queries.put("holdings.findReadOnlyByPortfolioId", () -> holdingRepository.findReadOnlyByPortfolioId(p));
+        queries.put("holdings.findByPortfolioIdAndSymbol", () -> holdingRepository.findByPortfolioIdAndSymbol(p, "S1"));
+        queries.put("holdings.existsByPortfolioIdAndSymbol",
+                () -> holdingRepository.existsByPortfolioIdAndSymbol(p, "S1"));
+        queries.put("portfolios.findByUserId", () -> portfolioRepository.findByUserId(seed.userId));
+        queries.put("portfolios.findByName", () -> portfolioRepository.findByName("Portfolio 1"));
+        queries.put("user_portfolios.findByUserId", () -> userPortfolioRepository.findByUserId(seed.userId));
+        queries.put("user_portfolios.findByPortfolioId", () -> userPortfolioRepository.findByPortfolioId(p));
+        queries.put("user_portfolios.findByUserIdAndPortfolioId",
+                () -> userPortfolioRepository.findByUserIdAndPortfolioId(seed.userId, p));
+
+        List<String> scans = new ArrayList<>();
+        try (Connection connection = dataSource.getConnection()) {
+            for (Map.Entry<String, Runnable> query : queries.entrySet()) {
+                statementCounter.reset();
+                query.getValue().run();
+                assertThat(statementCounter.getQueries()).as(query.getKey()).isNotEmpty();
+                for (StatementCounter.RecordedQuery recorded : statementCounter.getQueries()) {
+                    String plan = explain(connection, recorded);
+                    if (plan.contains(".tableScan")) {
+                        scans.add(query.getKey() + ":\n" + plan);
+                    }
+                }
+            }
+        }
+        assertThat(scans).as("queries planned as table scans").isEmpty();
+    }
+
+    private String explain(Connection connection, StatementCounter.RecordedQuery recorded) throws Exception {
+        try (PreparedStatement statement = recorded.prepare(connection, "EXPLAIN ");
+             ResultSet rs = statement.executeQuery()) {
+            StringBuilder plan = new StringBuilder();
+            while (rs.next()) {
+                plan.append(rs.getString(1)).append('\n');
+            }
+            return plan.toString();
+        }
+    }
+
+    private void inTransaction(Runnable work) {
+        transactionTemplate.executeWithoutResult(status -> work.run());
+    }
+
+    private Seed seed() {
+        UUID userId = UUID.randomUUID();
+        List<UUID> portfolioIds = new ArrayList<>();
+        for (int i = 0; i < PORTFOLIOS; i++) {
+            portfolioIds.add(UUID.randomUUID());
+        }
+
+        batch("INSERT INTO portfolios (id, name, base_currency, realized_profit_in_base_currency) VALUES (?, ?, 'USD', 0)",
+                portfolioIds.size(), (i, ps) -> set(ps, portfolioIds.get(i), "Portfolio " + i));
+        batch("INSERT INTO user_portfolios (id, user_id, portfolio_id) VALUES (?, ?, ?)",
+                portfolioIds.size(), (i, ps) -> set(ps, (long) i + 1, i % 20 == 0 ? userId : UUID.randomUUID(),
+                        portfolioIds.get(i)));
+        batch("INSERT INTO holdings (portfolio_id, symbol, name, quantity, avg_price_in_base_currency) "
+                        + "VALUES (?, ?, ?, 10, 100)",
+                PORTFOLIOS * HOLDINGS_PER_PORTFOLIO, (i, ps) -> {
+                    String symbol = "S" + ((i / PORTFOLIOS + i) % SYMBOLS);
+                    set(ps, portfolioIds.get(i % PORTFOLIOS), symbol + "/" + i / PORTFOLIOS, symbol);
+                });
+        LocalDateTime start = LocalDateTime.of(2020, 1, 1, 9, 30);
+        batch("INSERT INTO transactions (id, portfolio_id, instrument_symbol, type, quantity, price_per_unit, "
+                        + "txn_currency, transaction_date) VALUES (?, ?, ?, ?, 1, 100, 'USD', ?)",
+                PORTFOLIOS * TRANSACTIONS_PER_PORTFOLIO, (i, ps) -> set(ps, UUID.randomUUID(),
+                        portfolioIds.get(i % PORTFOLIOS), "S" + i % SYMBOLS, i % 3 == 0 ? "SELL" : "BUY",
+                        Timestamp.valueOf(start.plusHours(i))));
+        jdbcTemplate.execute("ANALYZE");
+        return new Seed(userId, portfolioIds.get(0));
+    }
+
+    private void batch(String sql, int rows, RowBinder binder) {
+        jdbcTemplate.batchUpdate(sql, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                binder.bind(i, ps);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return rows;
+            }
+        });
+    }
+
+    private static void set(PreparedStatement ps, Object... values) throws SQLException {
+        for (int i = 0; i < values.length; i++) {
+            ps.setObject(i + 1, values[i]);
+        }
+    }
+
+    @FunctionalInterface
+    private interface RowBinder {
+        void bind(int row, PreparedStatement ps) throws SQLException;
+    }
+
+    private record Seed(UUID userId, UUID portfolioId) {
+    }
+}
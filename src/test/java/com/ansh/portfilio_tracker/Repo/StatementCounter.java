@@ -0,0 +1,151 @@
+package com.ansh.portfilio_tracker.Repo;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Wraps the {@link DataSource} and counts JDBC round trips: each {@code executeBatch} counts as
+ * one batch, each single {@code execute*} as one statement (SELECTs are also counted separately).
+ * Every SELECT run through a prepared statement is also recorded with its parameter bindings, so the
+ * same query can be replayed, for example under EXPLAIN.
+ * Register it as a bean in a test configuration.
+ */
+public class StatementCounter implements BeanPostProcessor {
+
+    /**
+     * One executed SELECT and the {@code set*} calls that bound its parameters, in order.
+     */
+    public record RecordedQuery(String sql, List<Binding> bindings) {
+
+        /**
+         * Prepare {@code prefix + sql} on the connection and apply the same bindings.
+         */
+        public PreparedStatement prepare(Connection connection, String prefix) throws Exception {
+            PreparedStatement statement = connection.prepareStatement(prefix + sql);
+            for (Binding binding : bindings) {
+                binding.method().invoke(statement, binding.args());
+            }
+            return statement;
+        }
+    }
+
+    public record Binding(Method method, Object[] args) {
+    }
+
+    private final AtomicInteger batches = new AtomicInteger();
+    private final AtomicInteger statements = new AtomicInteger();
+    private final AtomicInteger selects = new AtomicInteger();
+    private final List<RecordedQuery> queries = new ArrayList<>();
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource dataSource) {
+            return proxy(DataSource.class, dataSource, (target, method, args) -> {
+                Object result = invoke(target, method, args);
+                return result instanceof Connection connection ? proxyConnection(connection) : result;
+            });
+        }
+        return bean;
+    }
+
+    public void reset() {
+        batches.set(0);
+        statements.set(0);
+        selects.set(0);
+        synchronized (queries) {
+            queries.clear();
+        }
+    }
+
+    public int getBatches() {
+        return batches.get();
+    }
+
+    public int getStatements() {
+        return statements.get();
+    }
+
+    public int getSelects() {
+        return selects.get();
+    }
+
+    /**
+     * SELECTs executed through prepared statements since the last {@link #reset()}.
+     */
+    public List<RecordedQuery> getQueries() {
+        synchronized (queries) {
+            return List.copyOf(queries);
+        }
+    }
+
+    private Connection proxyConnection(Connection connection) {
+        return proxy(Connection.class, connection, (target, method, args) -> {
+            Object result = invoke(target, method, args);
+            if (result instanceof Statement statement && method.getName().startsWith("prepare")) {
+                String sql = args != null && args.length > 0 && args[0] instanceof String s ? s : "";
+                return proxyStatement(statement, sql);
+            }
+            return result;
+        });
+    }
+
+    private Object proxyStatement(Statement statement, String sql) {
+        boolean select = sql.stripLeading().toLowerCase(Locale.ROOT).startsWith("select");
+        boolean prepared = statement instanceof PreparedStatement;
+        Class<?> type = prepared ? PreparedStatement.class : Statement.class;
+        List<Binding> bindings = new ArrayList<>();
+        return proxy(type, statement, (target, method, args) -> {
+            String name = method.getName();
+            if ("executeBatch".equals(name) || "executeLargeBatch".equals(name)) {
+                batches.incrementAndGet();
+            } else if (name.startsWith("execute")) {
+                statements.incrementAndGet();
+                if (select) {
+                    selects.incrementAndGet();
+                    if (prepared) {
+                        synchronized (queries) {
+                            queries.add(new RecordedQuery(sql, List.copyOf(bindings)));
+                        }
+                    }
+                }
+            } else if (select && name.startsWith("set") && args != null && args.length >= 2
+                    && args[0] instanceof Integer) {
+                bindings.add(new Binding(method, args.clone()));
+            } else if ("clearParameters".equals(name)) {
+                bindings.clear();
+            }
+            return invoke(target, method, args);
+        });
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, Object target, TargetHandler handler) {
+        InvocationHandler invocationHandler = (proxy, method, args) -> handler.invoke(target, method, args);
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, invocationHandler);
+    }
+
+    @FunctionalInterface
+    private interface TargetHandler {
+        Object invoke(Object target, Method method, Object[] args) throws Throwable;
+    }
+}
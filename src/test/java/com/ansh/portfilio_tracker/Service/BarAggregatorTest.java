@@ -0,0 +1,87 @@
+package com.ansh.portfilio_tracker.Service;
+
+import com.ansh.portfilio_tracker.Classes.OhlcvBar;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BarAggregatorTest {
+
+    // 2024-06-03T14:00:00Z, on an hour boundary
+    private static final long T0 = 1_717_423_200_000L;
+
+    private final BarAggregator aggregator = new BarAggregator(null, 3, 1_000);
+    private final List<OhlcvBar> closed = new ArrayList<>();
+
+    {
+        aggregator.addBarListener(closed::add);
+    }
+
+    @Test
+    void tradesRollIntoBarsOfEveryInterval() {
+        aggregator.onTrade("AAPL", 100, T0 + 100, 5);
+        aggregator.onTrade("AAPL", 103, T0 + 400, 1);
+        aggregator.onTrade("AAPL", 99, T0 + 900, 2);
+        aggregator.onTrade("AAPL", 101, T0 + 1_200, 4);
+
+        assertThat(closed).singleElement().satisfies(bar -> {
+            assertThat(bar.getInterval()).isEqualTo("1s");
+            assertThat(bar.getStart()).isEqualTo(T0);
+            assertThat(bar.getEnd()).isEqualTo(T0 + 1_000);
+            assertThat(bar.getOpen()).isEqualTo(100);
+            assertThat(bar.getHigh()).isEqualTo(103);
+            assertThat(bar.getLow()).isEqualTo(99);
+            assertThat(bar.getClose()).isEqualTo(99);
+            assertThat(bar.getVolume()).isEqualTo(8);
+            assertThat(bar.getTrades()).isEqualTo(3);
+            assertThat(bar.isClosed()).isTrue();
+        });
+
+        // The minute is still open: it holds all four trades
+        List<OhlcvBar> minute = aggregator.getBars("aapl", BarAggregator.Interval.M1, 10, true);
+        assertThat(minute).singleElement().satisfies(bar -> {
+            assertThat(bar.isClosed()).isFalse();
+            assertThat(bar.getOpen()).isEqualTo(100);
+            assertThat(bar.getClose()).isEqualTo(101);
+            assertThat(bar.getVolume()).isEqualTo(12);
+            assertThat(bar.getTrades()).isEqualTo(4);
+        });
+        assertThat(aggregator.getBars("AAPL", BarAggregator.Interval.M1, 10, false)).isEmpty();
+    }
+
+    @Test
+    void quietSymbolsAreClosedByTheTimerAndLateTradesAreCounted() {
+        aggregator.onTrade("MSFT", 400, T0 + 10, 1);
+
+        // The 1s bar ends at T0 + 1000 and closes one grace second later
+        assertThat(aggregator.closeExpired(T0 + 1_999)).isZero();
+        assertThat(aggregator.closeExpired(T0 + 2_000)).isEqualTo(1);
+        assertThat(closed).extracting(OhlcvBar::getInterval).containsExactly("1s");
+
+        aggregator.onTrade("MSFT", 401, T0 + 500, 1);
+        assertThat(aggregator.getStats().getLateTrades()).isEqualTo(1);
+        // The late trade still counts towards the minute
+        assertThat(aggregator.getBars("MSFT", BarAggregator.Interval.M1, 1, true).get(0).getTrades()).isEqualTo(2);
+
+        assertThat(aggregator.closeExpired(T0 + 3_600_000 + 1_000)).isEqualTo(3);
+        assertThat(closed).extracting(OhlcvBar::getInterval).containsExactly("1s", "1m", "5m", "1h");
+    }
+
+    @Test
+    void historyKeepsTheNewestBarsOldestFirst() {
+        for (int second = 0; second < 6; second++) {
+            aggregator.onTrade("AAPL", 100 + second, T0 + second * 1_000L, 1);
+        }
+
+        // Five closed 1s bars, ring of three
+        List<OhlcvBar> bars = aggregator.getBars("AAPL", BarAggregator.Interval.S1, 10, false);
+        assertThat(bars).extracting(OhlcvBar::getStart).containsExactly(T0 + 2_000, T0 + 3_000, T0 + 4_000);
+        assertThat(aggregator.getBars("AAPL", BarAggregator.Interval.S1, 2, true))
+                .extracting(OhlcvBar::getClose).containsExactly(104d, 105d);
+        assertThatThrownBy(() -> BarAggregator.Interval.fromLabel("2m")).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,236 @@
+package com.ansh.portfilio_tracker.Service;
+
+import com.ansh.portfilio_tracker.Classes.FinnhubQuoteResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class FinnhubConnectionSupervisorTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final FakeConnection connection = new FakeConnection(registry);
+    private final FinnhubClient finnhubClient = mock(FinnhubClient.class);
+    private RealTimeStockService realTimeStockService;
+    private FinnhubConnectionSupervisor supervisor;
+
+    @BeforeEach
+    void setUp() {
+        FinnhubShardRouter shardRouter = new FinnhubShardRouter(List.of(connection), 0);
+        realTimeStockService = new RealTimeStockService(shardRouter, mock(TickStore.class), registry);
+        realTimeStockService.initialize();
+        when(finnhubClient.refreshQuotesAsync(anyCollection(), anyInt()))
+                .thenReturn(CompletableFuture.completedFuture(Map.of()));
+
+        supervisor = new FinnhubConnectionSupervisor(shardRouter, realTimeStockService, finnhubClient, registry);
+        ReflectionTestUtils.setField(supervisor, "initialDelayMs", 20L);
+        ReflectionTestUtils.setField(supervisor, "maxDelayMs", 200L);
+        ReflectionTestUtils.setField(supervisor, "heartbeatIntervalMs", 5_000L);
+        ReflectionTestUtils.setField(supervisor, "heartbeatTimeoutMs", 15_000L);
+        ReflectionTestUtils.setField(supervisor, "resubscribeBatchSize", 2);
+        ReflectionTestUtils.setField(supervisor, "resubscribeBatchDelayMs", 5L);
+        ReflectionTestUtils.setField(supervisor, "gapFillEnabled", true);
+        ReflectionTestUtils.setField(supervisor, "gapFillParallelism", 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        supervisor.stop();
+    }
+
+    @Test
+    void backoffDoublesWithJitterUpToTheMaximum() {
+        ReflectionTestUtils.setField(supervisor, "initialDelayMs", 100L);
+        ReflectionTestUtils.setField(supervisor, "maxDelayMs", 1_000L);
+
+        for (int i = 0; i < 500; i++) {
+            assertThat(supervisor.backoffMillis(0)).isBetween(50L, 100L);
+            assertThat(supervisor.backoffMillis(2)).isBetween(200L, 400L);
+            assertThat(supervisor.backoffMillis(10)).isBetween(500L, 1_000L);
+            assertThat(supervisor.backoffMillis(Integer.MAX_VALUE)).isBetween(500L, 1_000L);
+        }
+    }
+
+    @Test
+    void reconnectReplaysSubscriptionsAndFillsTheGap() {
+        supervisor.start();
+        connection.open();
+        for (String symbol : List.of("AAPL", "MSFT", "GOOG")) {
+            realTimeStockService.subscribe(symbol);
+        }
+        connection.onMessage("{\"type\":\"trade\",\"data\":[{\"s\":\"AAPL\",\"p\":190.5,\"t\":1717423200000,\"v\":10}]}");
+        assertThat(realTimeStockService.getLatestPrice("AAPL").isStale()).isFalse();
+
+        long quoteTime = TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis());
+        when(finnhubClient.refreshQuotesAsync(anyCollection(), anyInt())).thenReturn(CompletableFuture.completedFuture(Map.of(
+                "AAPL", FinnhubQuoteResponse.builder().currentPrice(new BigDecimal("191.25")).timestamp(quoteTime).build(),
+                "MSFT", FinnhubQuoteResponse.builder().currentPrice(new BigDecimal("410.00")).timestamp(quoteTime).build())));
+        connection.subscribed.clear();
+        connection.drop();
+
+        assertThat(realTimeStockService.getLatestPrice("AAPL").isStale()).isTrue();
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> {
+            assertThat(connection.isOpen()).isTrue();
+            assertThat(connection.subscribed).containsExactlyInAnyOrder("AAPL", "MSFT", "GOOG");
+            assertThat(supervisor.getStats().get(0).getSnapshotsApplied()).isEqualTo(2);
+        });
+
+        RealTimeStockService.StockPrice aapl = realTimeStockService.getLatestPrice("AAPL");
+        assertThat(aapl.isStale()).isFalse();
+        assertThat(aapl.getPrice()).isEqualByComparingTo("191.25");
+        assertThat(aapl.getTimestamp()).isEqualTo(TimeUnit.SECONDS.toMillis(quoteTime));
+        assertThat(realTimeStockService.getLatestPrice("MSFT").isStale()).isFalse();
+        assertThat(realTimeStockService.getLatestPrice("GOOG")).isNull();
+        assertThat(supervisor.getStats().get(0).getReconnects()).isEqualTo(1);
+        assertThat(registry.get("finnhub.ws.gap.fill.quotes").counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    void failedReconnectsAreRetriedUntilTheServerAccepts() {
+        connection.acceptReconnect = false;
+        supervisor.start();
+        connection.open();
+        connection.drop();
+
+        await().atMost(Duration.ofSeconds(5)).until(() -> connection.reconnectAttempts.get() >= 4);
+        assertThat(connection.isOpen()).isFalse();
+        assertThat(supervisor.getStats().get(0).getConsecutiveFailures()).isGreaterThanOrEqualTo(4);
+
+        connection.acceptReconnect = true;
+        await().atMost(Duration.ofSeconds(5)).until(connection::isOpen);
+        assertThat(registry.get("finnhub.ws.connected").gauge().value()).isEqualTo(1);
+    }
+
+    @Test
+    void silentConnectionIsPingedThenDropped() {
+        ReflectionTestUtils.setField(supervisor, "heartbeatIntervalMs", 40L);
+        ReflectionTestUtils.setField(supervisor, "heartbeatTimeoutMs", 200L);
+        supervisor.start();
+        connection.open();
+        realTimeStockService.subscribe("AAPL");
+        connection.onMessage("{\"type\":\"trade\",\"data\":[{\"s\":\"AAPL\",\"p\":190.5,\"t\":1717423200000,\"v\":10}]}");
+
+        // Pongs never arrive, so the connection goes quiet after the trade
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> {
+            assertThat(supervisor.getStats().get(0).getHeartbeatTimeouts()).isPositive();
+            assertThat(connection.closeCodes).contains(1001);
+        });
+        assertThat(connection.pings.get()).isPositive();
+        assertThat(realTimeStockService.getLatestPrice("AAPL").isStale()).isTrue();
+        await().atMost(Duration.ofSeconds(5)).until(() -> connection.reconnectAttempts.get() >= 1);
+    }
+
+    @Test
+    void hungReconnectDoesNotStallOtherShards() {
+        FakeConnection other = new FakeConnection(registry);
+        FinnhubShardRouter shardRouter = new FinnhubShardRouter(List.of(connection, other), 0);
+        RealTimeStockService service = new RealTimeStockService(shardRouter, mock(TickStore.class), registry);
+        service.initialize();
+        FinnhubConnectionSupervisor twoShards = new FinnhubConnectionSupervisor(shardRouter, service, finnhubClient, registry);
+        ReflectionTestUtils.setField(twoShards, "initialDelayMs", 20L);
+        ReflectionTestUtils.setField(twoShards, "maxDelayMs", 200L);
+        ReflectionTestUtils.setField(twoShards, "heartbeatIntervalMs", 40L);
+        ReflectionTestUtils.setField(twoShards, "heartbeatTimeoutMs", 60_000L);
+        try {
+            twoShards.start();
+            connection.open();
+            other.open();
+            connection.hangReconnect = true;
+            connection.drop();
+            await().atMost(Duration.ofSeconds(5)).until(() -> connection.reconnectAttempts.get() == 1);
+
+            // Shard 0 is stuck connecting for a minute; shard 1 keeps its heartbeat
+            int pings = other.pings.get();
+            await().atMost(Duration.ofSeconds(5)).until(() -> other.pings.get() > pings + 2);
+        } finally {
+            twoShards.stop();
+        }
+    }
+
+    /**
+     * WebSocket client without a socket: opening and dropping are driven by the test.
+     */
+    static class FakeConnection extends FinnhubWebSocketClient {
+        final List<String> subscribed = new CopyOnWriteArrayList<>();
+        final List<Integer> closeCodes = new CopyOnWriteArrayList<>();
+        final AtomicInteger reconnectAttempts = new AtomicInteger();
+        final AtomicInteger pings = new AtomicInteger();
+        volatile boolean acceptReconnect = true;
+        volatile boolean hangReconnect;
+        private volatile boolean open;
+
+        FakeConnection(SimpleMeterRegistry registry) {
+            super("test", true, registry);
+        }
+
+        void open() {
+            open = true;
+            onOpen(null);
+        }
+
+        void drop() {
+            open = false;
+            onClose(1006, "", true);
+        }
+
+        @Override
+        public boolean connectBlocking(long timeout, TimeUnit unit) {
+            return false;
+        }
+
+        @Override
+        public boolean reconnectBlocking(long timeout, TimeUnit unit) throws InterruptedException {
+            reconnectAttempts.incrementAndGet();
+            if (hangReconnect) {
+                // A connect stuck in the TCP or TLS handshake until the timeout
+                Thread.sleep(unit.toMillis(timeout));
+                return false;
+            }
+            if (acceptReconnect) {
+                open();
+                return true;
+            }
+            onClose(-1, "refused", false);
+            return false;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return open;
+        }
+
+        @Override
+        public void subscribe(String symbol) {
+            subscribed.add(symbol);
+        }
+
+        @Override
+        public void sendPing() {
+            pings.incrementAndGet();
+        }
+
+        @Override
+        public void closeConnection(int code, String message) {
+            closeCodes.add(code);
+            open = false;
+            onClose(code, message, false);
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package com.ansh.portfilio_tracker.Service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.java_websocket.WebSocket;
+import org.java_websocket.handshake.ClientHandshake;
+import org.java_websocket.server.WebSocketServer;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Local stand-in for the Finnhub WebSocket that plays back a {@link FrameRecording} file.
+ * Clients subscribe and unsubscribe with Finnhub's messages, and are sent the trade frames that
+ * mention one of their symbols (whole frames, as recorded); other frames, such as pings, go to every client.
+ * <p>
+ * Frames keep their recorded spacing divided by {@code speed}: 1 is real time, 10 is ten times
+ * faster, and 0 sends as fast as the connections accept them.
+ * <p>
+ * Standalone: {@code FinnhubReplayServer <recording> [port] [speed] [--loop]} from the test classpath,
+ * for example {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.ansh.portfilio_tracker.Service.FinnhubReplayServer -Dexec.args=...}, with the
+ * application pointed at it through {@code finnhub.websocket.uri=ws://localhost:<port>}.
+ * It is a test tool and not part of the application jar.
+ */
+@Slf4j
+public class FinnhubReplayServer extends WebSocketServer {
+
+    private final List<FrameRecordingReader.Frame> frames;
+    // Symbols each frame carries trades for; null for frames that go to every client
+    private final Set<String>[] frameSymbols;
+    private final long[] sentNanos;
+    private final double speed;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<WebSocket, Set<String>> subscriptions = new ConcurrentHashMap<>();
+    private final CountDownLatch started = new CountDownLatch(1);
+
+    /**
+     * @param address Address to listen on; port 0 picks a free port
+     * @param frames  Recording to play
+     * @param speed   Playback speed, 0 for as fast as possible
+     */
+    @SuppressWarnings("unchecked")
+    public FinnhubReplayServer(InetSocketAddress address, List<FrameRecordingReader.Frame> frames, double speed) {
+        super(address);
+        this.frames = frames;
+        this.speed = speed;
+        this.frameSymbols = new Set[frames.size()];
+        this.sentNanos = new long[frames.size()];
+        for (int i = 0; i < frames.size(); i++) {
+            frameSymbols[i] = tradeSymbols(frames.get(i).text());
+        }
+        setReuseAddr(true);
+    }
+
+    @Override
+    public void onStart() {
+        started.countDown();
+    }
+
+    @Override
+    public void onOpen(WebSocket conn, ClientHandshake handshake) {
+        subscriptions.put(conn, ConcurrentHashMap.newKeySet());
+    }
+
+    @Override
+    public void onClose(WebSocket conn, int code, String reason, boolean remote) {
+        subscriptions.remove(conn);
+    }
+
+    @Override
+    public void onMessage(WebSocket conn, String message) {
+        try {
+            JsonNode request = objectMapper.readTree(message);
+            String type = request.path("type").asText();
+            String symbol = request.path("symbol").asText();
+            Set<String> symbols = subscriptions.get(conn);
+            if (symbols == null || symbol.isEmpty()) {
+                return;
+            }
+            if ("subscribe".equals(type)) {
+                symbols.add(symbol);
+            } else if ("unsubscribe".equals(type)) {
+                symbols.remove(symbol);
+            }
+        } catch (IOException e) {
+            log.warn("Ignoring malformed client message: {}", message);
+        }
+    }
+
+    @Override
+    public void onError(WebSocket conn, Exception ex) {
+        log.error("Replay server error", ex);
+    }
+
+    /**
+     * Wait until the server is accepting connections.
+     *
+     * @param timeout How long to wait
+     * @return true if the server started in time
+     */
+    public boolean awaitStarted(Duration timeout) throws InterruptedException {
+        return started.await(timeout.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Wait until this many symbols are subscribed, over all connections.
+     *
+     * @param symbols Subscriptions to wait for
+     * @param timeout How long to wait
+     * @return true if the subscriptions arrived in time
+     */
+    public boolean awaitSubscriptions(int symbols, Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (subscriptions.values().stream().mapToInt(Set::size).sum() < symbols) {
+            if (System.nanoTime() > deadline) {
+                return false;
+            }
+            Thread.sleep(10);
+        }
+        return true;
+    }
+
+    /**
+     * Play the recording once, on the calling thread.
+     *
+     * @return frames sent to at least one client
+     */
+    public long play() {
+        long sent = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < frames.size(); i++) {
+            FrameRecordingReader.Frame frame = frames.get(i);
+            if (speed > 0) {
+                long wait = start + (long) (frame.offsetNanos() / speed) - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+            }
+            if (send(i, frame.text())) {
+                sent++;
+            }
+        }
+        return sent;
+    }
+
+    /**
+     * @param index Frame index in the recording
+     * @return {@link System#nanoTime()} when the frame was last sent, 0 if never
+     */
+    public long getSentNanos(int index) {
+        return sentNanos[index];
+    }
+
+    private boolean send(int index, String text) {
+        Set<String> symbols = frameSymbols[index];
+        sentNanos[index] = System.nanoTime();
+        boolean sent = false;
+        for (Map.Entry<WebSocket, Set<String>> entry : subscriptions.entrySet()) {
+            if (symbols == null || wanted(symbols, entry.getValue())) {
+                WebSocket conn = entry.getKey();
+                if (conn.isOpen()) {
+                    try {
+                        conn.send(text);
+                        sent = true;
+                    } catch (Exception e) {
+                        log.debug("Dropping frame for closed connection", e);
+                    }
+                }
+            }
+        }
+        return sent;
+    }
+
+    private static boolean wanted(Set<String> frame, Set<String> subscribed) {
+        for (String symbol : frame) {
+            if (subscribed.contains(symbol)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Set<String> tradeSymbols(String text) {
+        try {
+            JsonNode frame = objectMapper.readTree(text);
+            if (!"trade".equals(frame.path("type").asText()) || !frame.path("data").isArray()) {
+                return null;
+            }
+            Set<String> symbols = new HashSet<>();
+            for (JsonNode trade : frame.get("data")) {
+                symbols.add(trade.path("s").asText());
+            }
+            return symbols;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("Usage: FinnhubReplayServer <recording> [port] [speed, 0 = max] [--loop]");
+            System.exit(2);
+        }
+        List<FrameRecordingReader.Frame> frames = FrameRecordingReader.read(Path.of(args[0]));
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : 9001;
+        double speed = args.length > 2 ? Double.parseDouble(args[2]) : 1;
+        boolean loop = List.of(args).contains("--loop");
+
+        FinnhubReplayServer server = new FinnhubReplayServer(new InetSocketAddress(port), frames, speed);
+        server.start();
+        server.awaitStarted(Duration.ofSeconds(10));
+        log.info("Replaying {} frames on ws://localhost:{} at speed {}", frames.size(), server.getPort(), speed);
+        server.awaitSubscriptions(1, Duration.ofDays(1));
+        do {
+            long start = System.nanoTime();
+            long sent = server.play();
+            double seconds = (System.nanoTime() - start) / 1e9;
+            log.info("Sent {} frames in {} s ({} frames/s)", sent, String.format("%.2f", seconds),
+                    String.format("%.0f", sent / seconds));
+        } while (loop);
+        server.stop();
+    }
+}
@@ -0,0 +1,183 @@
+package com.ansh.portfilio_tracker.Service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.Mockito.mock;
+
+@Slf4j
+class FinnhubReplayServerTest {
+
+    @TempDir
+    Path dir;
+
+    private FinnhubReplayServer server;
+    private RealTimeStockService realTimeStockService;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (realTimeStockService != null) {
+            realTimeStockService.cleanup();
+        }
+        if (server != null) {
+            server.stop(1_000);
+        }
+    }
+
+    @Test
+    void recordingKeepsFramesAndTheirSpacing() throws Exception {
+        Path file = dir.resolve("session.fhr");
+        FrameRecording.Writer writer = FrameRecording.create(file);
+        writer.write(trade("AAPL", 190.5, 0));
+        Thread.sleep(20);
+        writer.write("{\"type\":\"ping\"}");
+        writer.write(trade("MSFT", 410.25, 1) + " é");
+        // Frames are compressed on the recorder thread; closing writes whatever is still queued
+        writer.close();
+        assertThat(writer.getFrames()).isEqualTo(3);
+
+        List<FrameRecordingReader.Frame> frames = FrameRecordingReader.read(file);
+
+        assertThat(frames).extracting(FrameRecordingReader.Frame::text)
+                .containsExactly(trade("AAPL", 190.5, 0), "{\"type\":\"ping\"}", trade("MSFT", 410.25, 1) + " é");
+        assertThat(frames.get(0).offsetNanos()).isZero();
+        assertThat(frames.get(1).offsetNanos()).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(20));
+        assertThat(frames.get(2).offsetNanos()).isGreaterThanOrEqualTo(frames.get(1).offsetNanos());
+    }
+
+    @Test
+    void readerThreadsOnlyQueueFrames() throws Exception {
+        Path file = dir.resolve("threads.fhr");
+        int threads = 4;
+        int perThread = 20_000;
+        FrameRecording.Writer writer = FrameRecording.create(file);
+        List<Thread> readers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int shard = t;
+            readers.add(Thread.ofPlatform().start(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    writer.write(trade("S" + shard, i, i));
+                }
+            }));
+        }
+        for (Thread reader : readers) {
+            reader.join();
+        }
+        writer.close();
+
+        // Every frame is either in the file or counted as dropped
+        List<FrameRecordingReader.Frame> frames = FrameRecordingReader.read(file);
+        assertThat(frames).hasSize((int) writer.getFrames());
+        assertThat(writer.getFrames() + writer.getDropped()).isEqualTo((long) threads * perThread);
+        writer.write(trade("LATE", 1, 1));
+        assertThat(writer.getFrames() + writer.getDropped()).isEqualTo((long) threads * perThread);
+    }
+
+    @Test
+    void replaySendsSubscribedTradesAtTheRequestedSpeed() throws Exception {
+        List<FrameRecordingReader.Frame> frames = List.of(
+                new FrameRecordingReader.Frame(0, trade("AAPL", 1, 0)),
+                new FrameRecordingReader.Frame(TimeUnit.MILLISECONDS.toNanos(200), trade("MSFT", 2, 1)),
+                new FrameRecordingReader.Frame(TimeUnit.MILLISECONDS.toNanos(400), trade("AAPL", 3, 2)));
+        server = startServer(frames, 2);
+        FinnhubWebSocketClient client = new FinnhubWebSocketClient("ws://localhost:" + server.getPort(), "test",
+                true, new SimpleMeterRegistry());
+        AtomicInteger trades = new AtomicInteger();
+        client.registerTradeHandler("test", (records, count) -> trades.addAndGet(count));
+        assertThat(client.connectBlocking(5, TimeUnit.SECONDS)).isTrue();
+        client.subscribe("AAPL");
+        assertThat(server.awaitSubscriptions(1, Duration.ofSeconds(5))).isTrue();
+
+        long start = System.nanoTime();
+        long sent = server.play();
+        long elapsed = System.nanoTime() - start;
+
+        // MSFT is not subscribed; the 400ms recording plays in 200ms at 2x
+        assertThat(sent).isEqualTo(2);
+        assertThat(elapsed).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(200));
+        await().atMost(Duration.ofSeconds(5)).until(() -> trades.get() == 2);
+        client.closeBlocking();
+    }
+
+    /**
+     * Plays a recorded session at full speed through the real client, shard router and
+     * tick pipeline, and reports ticks/second and frame-to-listener latency.
+     */
+    @Test
+    void maxSpeedReplayReachesPriceListeners() throws Exception {
+        int count = 20_000;
+        Path file = dir.resolve("burst.fhr");
+        try (FrameRecording.Writer writer = FrameRecording.create(file)) {
+            for (int i = 0; i < count; i++) {
+                writer.write(trade(i % 2 == 0 ? "AAPL" : "MSFT", 100 + i % 100, i));
+            }
+        }
+        server = startServer(FrameRecordingReader.read(file), 0);
+
+        FinnhubWebSocketClient client = new FinnhubWebSocketClient("ws://localhost:" + server.getPort(), "test",
+                true, new SimpleMeterRegistry());
+        realTimeStockService = new RealTimeStockService(new FinnhubShardRouter(List.of(client), 0),
+                mock(TickStore.class), new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(realTimeStockService, "pipelineEnabled", true);
+        ReflectionTestUtils.setField(realTimeStockService, "pipelineCapacity", 8192);
+        ReflectionTestUtils.setField(realTimeStockService, "pipelineBatchSize", 256);
+        ReflectionTestUtils.setField(realTimeStockService, "pipelineIdleMicros", 50L);
+        realTimeStockService.initialize();
+
+        // The trade timestamp is the frame index, so each delivery can be matched to its send time
+        long[] latencies = new long[count];
+        AtomicInteger delivered = new AtomicInteger();
+        RealTimeStockService.StockPriceListener listener = price -> {
+            int index = (int) price.getTimestamp();
+            latencies[index] = System.nanoTime() - server.getSentNanos(index);
+            delivered.incrementAndGet();
+        };
+        realTimeStockService.addPriceListener("AAPL", listener, TickRingBuffer.OverflowPolicy.BLOCK);
+        realTimeStockService.addPriceListener("MSFT", listener, TickRingBuffer.OverflowPolicy.BLOCK);
+        assertThat(client.connectBlocking(5, TimeUnit.SECONDS)).isTrue();
+        client.subscribe("AAPL");
+        client.subscribe("MSFT");
+        assertThat(server.awaitSubscriptions(2, Duration.ofSeconds(5))).isTrue();
+
+        long start = System.nanoTime();
+        assertThat(server.play()).isEqualTo(count);
+        await().atMost(Duration.ofSeconds(30)).until(() -> delivered.get() == count);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        Arrays.sort(latencies);
+        log.info("Replayed {} ticks in {} s ({} ticks/s); latency p50 {} us, p99 {} us, max {} us",
+                count, String.format("%.2f", seconds), String.format("%.0f", count / seconds),
+                latencies[count / 2] / 1_000, latencies[count * 99 / 100] / 1_000, latencies[count - 1] / 1_000);
+        assertThat(realTimeStockService.getLatestPrice("MSFT").getTimestamp()).isEqualTo(count - 1);
+        assertThat(latencies[0]).isPositive();
+    }
+
+    private static FinnhubReplayServer startServer(List<FrameRecordingReader.Frame> frames, double speed)
+            throws InterruptedException {
+        FinnhubReplayServer server = new FinnhubReplayServer(new InetSocketAddress("localhost", 0),
+                new ArrayList<>(frames), speed);
+        server.start();
+        assertThat(server.awaitStarted(Duration.ofSeconds(5))).isTrue();
+        return server;
+    }
+
+    private static String trade(String symbol, double price, long timestamp) {
+        return "{\"type\":\"trade\",\"data\":[{\"s\":\"" + symbol + "\",\"p\":" + price
+                + ",\"t\":" + timestamp + ",\"v\":1}]}";
+    }
+}
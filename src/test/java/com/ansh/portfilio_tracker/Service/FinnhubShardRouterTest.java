@@ -0,0 +1,191 @@
+package com.ansh.portfilio_tracker.Service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.Mockito.mock;
+
+class FinnhubShardRouterTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private RealTimeStockService service;
+
+    @AfterEach
+    void tearDown() {
+        if (service != null) {
+            service.cleanup();
+        }
+    }
+
+    @Test
+    void symbolsSpreadOverShardsAndStayPutWhenOthersAreAdded() {
+        List<RecordingConnection> connections = connections(4);
+        FinnhubShardRouter router = new FinnhubShardRouter(List.copyOf(connections), 0);
+
+        Map<String, Integer> placed = new HashMap<>();
+        for (int i = 0; i < 400; i++) {
+            String symbol = "SYM" + i;
+            router.subscribe(symbol);
+            placed.put(symbol, router.shardOf(symbol));
+        }
+        for (RecordingConnection connection : connections) {
+            assertThat(connection.subscribed).hasSizeBetween(50, 150);
+        }
+        for (int i = 400; i < 500; i++) {
+            router.subscribe("SYM" + i);
+        }
+        placed.forEach((symbol, shard) -> {
+            assertThat(router.shardOf(symbol)).isEqualTo(shard);
+            assertThat(connections.get(shard).subscribed).contains(symbol);
+        });
+        assertThat(router.getMoves()).isZero();
+    }
+
+    @Test
+    void fullShardOverflowsAndTheSymbolMovesBackWhenThereIsRoom() {
+        List<RecordingConnection> connections = connections(3);
+        FinnhubShardRouter router = new FinnhubShardRouter(List.copyOf(connections), 2);
+        List<String> preferZero = new ArrayList<>();
+        for (int i = 0; preferZero.size() < 3; i++) {
+            if (router.shardOf("P" + i) == 0) {
+                preferZero.add("P" + i);
+            }
+        }
+
+        preferZero.forEach(router::subscribe);
+        String overflow = preferZero.get(2);
+        int displacedTo = router.shardOf(overflow);
+        assertThat(displacedTo).isNotZero();
+        assertThat(connections.get(0).subscribed).containsExactlyInAnyOrder(preferZero.get(0), preferZero.get(1));
+        assertThat(connections.get(displacedTo).subscribed).containsExactly(overflow);
+
+        router.unsubscribe(preferZero.get(0));
+
+        assertThat(router.shardOf(overflow)).isZero();
+        assertThat(connections.get(0).subscribed).containsExactlyInAnyOrder(preferZero.get(1), overflow);
+        assertThat(connections.get(displacedTo).subscribed).isEmpty();
+        assertThat(router.getMoves()).isEqualTo(1);
+        assertThat(router.symbolsOf(0)).containsExactlyInAnyOrder(preferZero.get(1), overflow);
+    }
+
+    @Test
+    void shardsDecodeInParallelIntoOneCache() throws Exception {
+        int shards = 4;
+        int framesPerShard = 5_000;
+        List<RecordingConnection> connections = connections(shards);
+        FinnhubShardRouter router = new FinnhubShardRouter(List.copyOf(connections), 0);
+        service = new RealTimeStockService(router, mock(TickStore.class), registry);
+        ReflectionTestUtils.setField(service, "pipelineEnabled", true);
+        ReflectionTestUtils.setField(service, "pipelineCapacity", 1024);
+        ReflectionTestUtils.setField(service, "pipelineBatchSize", 64);
+        ReflectionTestUtils.setField(service, "pipelineIdleMicros", 100L);
+        service.initialize();
+        for (int i = 0; i < 40; i++) {
+            service.subscribe("T" + i);
+        }
+
+        ExecutorService readers = Executors.newFixedThreadPool(shards);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> done = new ArrayList<>();
+        for (int shard = 0; shard < shards; shard++) {
+            RecordingConnection connection = connections.get(shard);
+            List<String> symbols = router.symbolsOf(shard);
+            done.add(readers.submit(() -> {
+                start.await();
+                // Two trades per frame; the last frame carries the final price of every symbol
+                for (int f = 0; f < framesPerShard; f++) {
+                    String symbol = symbols.get(f % symbols.size());
+                    int price = f >= framesPerShard - symbols.size() ? 1000 : f;
+                    connection.onMessage("{\"type\":\"trade\",\"data\":["
+                            + "{\"s\":\"" + symbol + "\",\"p\":" + f + ",\"t\":" + f + ",\"v\":1},"
+                            + "{\"s\":\"" + symbol + "\",\"p\":" + price + ",\"t\":" + f + ",\"v\":1}]}");
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : done) {
+            future.get();
+        }
+        readers.shutdown();
+
+        // Every frame is in the ring once the readers return; the cache is final when its consumer has caught up
+        await().atMost(Duration.ofSeconds(10)).until(() -> priceCacheDepth() == 0);
+        for (int i = 0; i < 40; i++) {
+            assertThat(service.getLatestPrice("T" + i).getPrice()).isEqualByComparingTo("1000");
+        }
+        List<RealTimeStockService.ShardStats> stats = service.getShardStats();
+        assertThat(stats).hasSize(shards);
+        for (RealTimeStockService.ShardStats shard : stats) {
+            assertThat(shard.getTrades()).isEqualTo(2L * framesPerShard);
+            assertThat(shard.getSymbols()).isEqualTo(router.symbolsOf(shard.getShard()).size());
+        }
+        assertThat(stats.stream().mapToInt(RealTimeStockService.ShardStats::getSymbols).sum()).isEqualTo(40);
+        assertThat(registry.get("realtime.shard.trades").tag("shard", "2").functionCounter().count())
+                .isEqualTo(2.0 * framesPerShard);
+
+        // Losing one connection only makes that shard's prices stale
+        service.markPricesStale(1);
+        for (int i = 0; i < 40; i++) {
+            String symbol = "T" + i;
+            assertThat(service.getLatestPrice(symbol).isStale()).isEqualTo(router.shardOf(symbol) == 1);
+        }
+    }
+
+    private long priceCacheDepth() {
+        return service.getPipelineStats().getConsumers().stream()
+                .filter(consumer -> consumer.getName().equals("price-cache"))
+                .mapToLong(TickRingBuffer.ConsumerStats::getDepth)
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private List<RecordingConnection> connections(int count) {
+        List<RecordingConnection> connections = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            connections.add(new RecordingConnection(registry));
+        }
+        return connections;
+    }
+
+    /**
+     * WebSocket client without a socket that records its subscriptions.
+     */
+    static class RecordingConnection extends FinnhubWebSocketClient {
+        final Set<String> subscribed = ConcurrentHashMap.newKeySet();
+
+        RecordingConnection(SimpleMeterRegistry registry) {
+            super("test", true, registry);
+        }
+
+        @Override
+        public void subscribe(String symbol) {
+            subscribed.add(symbol);
+        }
+
+        @Override
+        public void unsubscribe(String symbol) {
+            subscribed.remove(symbol);
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.ansh.portfilio_tracker.Service;
+
+import com.ansh.portfilio_tracker.Classes.TradeRecord;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FinnhubTradeParserTest {
+
+    private final FinnhubTradeParser parser = new FinnhubTradeParser();
+
+    @Test
+    void decodesTradeFrameIntoPooledRecords() throws Exception {
+        String frame = "{\"data\":[" +
+                "{\"c\":[\"1\",\"12\"],\"p\":178.45,\"s\":\"AAPL\",\"t\":1699564800000,\"v\":100}," +
+                "{\"c\":null,\"p\":410,\"s\":\"MSFT\",\"t\":1699564800001,\"v\":0.5}" +
+                "],\"type\":\"trade\"}";
+
+        assertThat(parser.parse(frame)).isEqualTo(FinnhubTradeParser.FrameType.TRADE);
+        assertThat(parser.getTradeCount()).isEqualTo(2);
+
+        TradeRecord first = parser.getTrades()[0];
+        assertThat(first.getSymbol()).isEqualTo("AAPL");
+        assertThat(first.getPrice()).isEqualTo(178.45);
+        assertThat(first.getTimestamp()).isEqualTo(1699564800000L);
+        assertThat(first.getVolume()).isEqualTo(100d);
+
+        TradeRecord second = parser.getTrades()[1];
+        assertThat(second.getSymbol()).isEqualTo("MSFT");
+        assertThat(second.getPrice()).isEqualTo(410d);
+        assertThat(second.getVolume()).isEqualTo(0.5);
+    }
+
+    @Test
+    void reusesRecordsAndSymbolsAcrossFrames() throws Exception {
+        parser.parse("{\"type\":\"trade\",\"data\":[{\"s\":\"NVDA\",\"p\":1.5,\"t\":1,\"v\":1}]}");
+        TradeRecord record = parser.getTrades()[0];
+        String symbol = record.getSymbol();
+
+        parser.parse("{\"type\":\"trade\",\"data\":[{\"s\":\"NVDA\",\"p\":2.5,\"t\":2,\"v\":1}]}");
+
+        assertThat(parser.getTrades()[0]).isSameAs(record);
+        assertThat(parser.getTrades()[0].getSymbol()).isSameAs(symbol);
+        assertThat(parser.getTrades()[0].getPrice()).isEqualTo(2.5);
+    }
+
+    @Test
+    void skipsObjectsAndArraysInTradeFields() throws Exception {
+        String frame = "{\"type\":\"trade\",\"data\":[" +
+                "{\"s\":[\"BAD\",{\"s\":\"X\"}],\"p\":{\"p\":1,\"v\":[2]},\"t\":[3],\"v\":{}}," +
+                "{\"s\":\"AAPL\",\"p\":{\"nested\":[1,2]},\"t\":1699564800000,\"v\":[1]}," +
+                "{\"s\":\"MSFT\",\"p\":410,\"t\":1699564800001,\"v\":2}" +
+                "]}";
+
+        assertThat(parser.parse(frame)).isEqualTo(FinnhubTradeParser.FrameType.TRADE);
+
+        // The first trade has no usable symbol; nested values leave the others' fields unset
+        assertThat(parser.getTradeCount()).isEqualTo(2);
+        TradeRecord first = parser.getTrades()[0];
+        assertThat(first.getSymbol()).isEqualTo("AAPL");
+        assertThat(first.getPrice()).isZero();
+        assertThat(first.getTimestamp()).isEqualTo(1699564800000L);
+        assertThat(first.getVolume()).isZero();
+        TradeRecord second = parser.getTrades()[1];
+        assertThat(second.getSymbol()).isEqualTo("MSFT");
+        assertThat(second.getPrice()).isEqualTo(410d);
+        assertThat(second.getVolume()).isEqualTo(2d);
+    }
+
+    @Test
+    void reportsNonTradeFramesWithoutTrades() throws Exception {
+        assertThat(parser.parse("{\"type\":\"ping\"}")).isEqualTo(FinnhubTradeParser.FrameType.PING);
+        assertThat(parser.getTradeCount()).isZero();
+
+        assertThat(parser.parse("{\"type\":\"error\",\"msg\":\"Invalid symbol\"}"))
+                .isEqualTo(FinnhubTradeParser.FrameType.OTHER);
+        assertThat(parser.getTradeCount()).isZero();
+    }
+}
@@ -0,0 +1,83 @@
+package com.ansh.portfilio_tracker.Service;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Reads a {@link FrameRecording} file back, for the replay server and tests.
+ */
+public final class FrameRecordingReader {
+
+    private FrameRecordingReader() {
+    }
+
+    /**
+     * A recorded frame.
+     *
+     * @param offsetNanos Time since the first frame
+     * @param text        Frame payload
+     */
+    public record Frame(long offsetNanos, String text) {
+    }
+
+    /**
+     * Read a whole recording into memory.
+     *
+     * @param file Recording file
+     * @return frames in arrival order
+     * @throws IOException if the file cannot be read or is not a recording
+     */
+    public static List<Frame> read(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new GZIPInputStream(Files.newInputStream(file), 1 << 16)))) {
+            if (in.readInt() != FrameRecording.MAGIC) {
+                throw new IOException(file + " is not a frame recording");
+            }
+            int version = in.readUnsignedByte();
+            if (version != FrameRecording.VERSION) {
+                throw new IOException("Unsupported frame recording version " + version);
+            }
+            in.readLong();
+
+            List<Frame> frames = new ArrayList<>();
+            long offsetMicros = 0;
+            while (true) {
+                long delta;
+                try {
+                    delta = readVarint(in);
+                } catch (EOFException e) {
+                    return frames;
+                }
+                offsetMicros += delta;
+                byte[] text = new byte[(int) readVarint(in)];
+                in.readFully(text);
+                frames.add(new Frame(TimeUnit.MICROSECONDS.toNanos(offsetMicros), new String(text, StandardCharsets.UTF_8)));
+            }
+        }
+    }
+
+    private static long readVarint(InputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.read();
+            if (b < 0) {
+                throw new EOFException();
+            }
+            value |= (long) (b & 0x7f) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+}
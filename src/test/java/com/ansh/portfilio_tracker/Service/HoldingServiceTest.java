@@ -0,0 +1,69 @@
+package com.ansh.portfilio_tracker.Service;
+
+import com.ansh.portfilio_tracker.Classes.CreateHoldingRequest;
+import com.ansh.portfilio_tracker.Classes.Holding;
+import com.ansh.portfilio_tracker.Repo.HoldingRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = {
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"
+})
+@Import({HoldingService.class, MarketSnapshotWriter.class, SymbolPositionIndex.class, PositionLocks.class})
+class HoldingServiceTest {
+
+    @Autowired
+    private HoldingService holdingService;
+
+    @Autowired
+    private HoldingRepository holdingRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @MockitoBean
+    private FinnhubClient finnhubClient;
+
+    @MockitoBean
+    private PortfolioValuationEngine valuationEngine;
+
+    @Test
+    void creatingAnExistingHoldingUpdatesIt() {
+        UUID portfolioId = UUID.randomUUID();
+        holdingService.createHolding(request(portfolioId, "aapl", "10", "100.00"));
+        entityManager.flush();
+        entityManager.clear();
+
+        Holding updated = holdingService.createHolding(request(portfolioId, "AAPL", "4", "120.00"));
+        entityManager.flush();
+        entityManager.clear();
+
+        assertThat(updated.getQuantity()).isEqualByComparingTo("4");
+        List<Holding> holdings = holdingRepository.findByPortfolioId(portfolioId);
+        assertThat(holdings).hasSize(1);
+        assertThat(holdings.get(0).getSymbol()).isEqualTo("AAPL");
+        assertThat(holdings.get(0).getQuantity()).isEqualByComparingTo("4");
+        assertThat(holdings.get(0).getAvgPriceInBaseCurrency()).isEqualByComparingTo("120.00");
+    }
+
+    private static CreateHoldingRequest request(UUID portfolioId, String symbol, String quantity, String avgPrice) {
+        CreateHoldingRequest request = new CreateHoldingRequest();
+        request.setPortfolioId(portfolioId);
+        request.setSymbol(symbol);
+        request.setName("Apple Inc.");
+        request.setQuantity(new BigDecimal(quantity));
+        request.setAvgPriceInBaseCurrency(new BigDecimal(avgPrice));
+        return request;
+    }
+}
@@ -0,0 +1,49 @@
+package com.ansh.portfilio_tracker.Service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = {
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"
+})
+@Import(MarketSnapshotWriter.class)
+class MarketSnapshotWriterTest {
+
+    @Autowired
+    private MarketSnapshotWriter marketSnapshotWriter;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void flushValuesTheQuantityHeldAtFlushTime() {
+        UUID portfolioId = UUID.randomUUID();
+        jdbcTemplate.update("INSERT INTO holdings (portfolio_id, symbol, quantity, avg_price_in_base_currency) "
+                + "VALUES (?, 'AAPL', 10, 100)", portfolioId);
+
+        marketSnapshotWriter.record(portfolioId, "AAPL", new BigDecimal("120.50"), "USD");
+        // A trade sells half the position before the write-behind flush runs
+        jdbcTemplate.update("UPDATE holdings SET quantity = 5 WHERE portfolio_id = ?", portfolioId);
+
+        assertThat(marketSnapshotWriter.flush()).isEqualTo(1);
+        assertThat(marketSnapshotWriter.getPendingCount()).isZero();
+
+        Map<String, Object> row = jdbcTemplate.queryForMap("SELECT market_price, instrument_currency, "
+                + "value_in_base_currency, unrealized_profit_in_base_currency FROM holdings "
+                + "WHERE portfolio_id = ?", portfolioId);
+        assertThat((BigDecimal) row.get("market_price")).isEqualByComparingTo("120.50");
+        assertThat(row.get("instrument_currency")).isEqualTo("USD");
+        assertThat((BigDecimal) row.get("value_in_base_currency")).isEqualByComparingTo("602.50");
+        assertThat((BigDecimal) row.get("unrealized_profit_in_base_currency")).isEqualByComparingTo("102.50");
+    }
+}
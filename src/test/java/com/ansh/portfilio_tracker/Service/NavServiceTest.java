@@ -0,0 +1,171 @@
+package com.ansh.portfilio_tracker.Service;
+
+import com.ansh.portfilio_tracker.Classes.NavSeries;
+import com.ansh.portfilio_tracker.Classes.Portfolio;
+import com.ansh.portfilio_tracker.Repo.PortfolioRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+@DataJpaTest(showSql = false, properties = {
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"
+})
+@Import({NavService.class, NavServiceTest.TickStoreConfig.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class NavServiceTest {
+
+    private static final long HOUR = TimeUnit.HOURS.toMillis(1);
+    private static final long DAY = TimeUnit.DAYS.toMillis(1);
+    // 2024-06-03T00:00:00Z
+    private static final long DAY0 = 1_717_372_800_000L;
+
+    @Autowired
+    private NavService navService;
+
+    @Autowired
+    private TickStore tickStore;
+
+    @Autowired
+    private PortfolioRepository portfolioRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    private UUID portfolioId;
+
+    @TestConfiguration
+    static class TickStoreConfig {
+        @Bean
+        TickStore tickStore() throws IOException {
+            return new TickStore(true, Files.createTempDirectory("nav-ticks"), 1 << 12, 0);
+        }
+    }
+
+    @BeforeEach
+    void createPortfolio() {
+        portfolioId = UUID.randomUUID();
+        portfolioRepository.save(Portfolio.builder()
+                .id(portfolioId)
+                .name("NAV")
+                .baseCurrency("USD")
+                .realizedProfitInBaseCurrency(BigDecimal.ZERO)
+                .build());
+    }
+
+    @Test
+    void dailySeriesReplaysTradesAndUsesTheLatestPrice() {
+        String symbol = "N" + portfolioId.toString().substring(0, 6).toUpperCase();
+        trade(symbol, "BUY", 10, 100, DAY0 + 10 * HOUR);
+        trade(symbol, "SELL", 4, 120, DAY0 + 2 * DAY + 10 * HOUR);
+        tickStore.append(symbol, 110, DAY0 + DAY + 12 * HOUR, 1);
+        tickStore.append(symbol, 130, DAY0 + 3 * DAY + 12 * HOUR, 1);
+
+        NavSeries nav = navService.getNav(portfolioId, DAY0, DAY0 + 3 * DAY + HOUR, NavService.Interval.D1);
+
+        assertThat(nav.getTimestamps()).containsExactly(DAY0 + DAY, DAY0 + 2 * DAY, DAY0 + 3 * DAY, DAY0 + 4 * DAY);
+        // Day 1: last trade price; day 2: the tick; day 3: the sell is newer than the tick; day 4: the tick
+        assertThat(nav.getMarketValue()).containsExactly(1000, 1100, 720, 780);
+        assertThat(nav.getCostBasis()).containsExactly(1000, 1000, 600, 600);
+        assertThat(nav.getRealizedProfit()).containsExactly(0, 0, 80, 80);
+        assertThat(nav.getSymbols()).isEqualTo(1);
+        // The test store keeps every tick
+        assertThat(nav.getTickPricesFrom()).isZero();
+    }
+
+    @Test
+    void symbolsTheTickStoreCannotHoldArePricedFromTheLedger() {
+        trade("BRK B", "BUY", 2, 300, DAY0 + 10 * HOUR);
+        trade("AAPL", "BUY", 1, 100, DAY0 + 10 * HOUR);
+        tickStore.append("AAPL", 150, DAY0 + DAY + 12 * HOUR, 1);
+
+        NavSeries nav = navService.getNav(portfolioId, DAY0, DAY0 + DAY + HOUR, NavService.Interval.D1);
+
+        assertThat(nav.getMarketValue()).containsExactly(700, 750);
+        assertThat(nav.getSymbols()).isEqualTo(2);
+    }
+
+    @Test
+    void seriesIsCachedUntilTheLedgerChanges() {
+        trade("CACHE", "BUY", 1, 50, DAY0);
+        NavSeries first = navService.getNav(portfolioId, DAY0, DAY0 + DAY, NavService.Interval.H1);
+        assertThat(navService.getNav(portfolioId, DAY0 + HOUR / 2, DAY0 + DAY, NavService.Interval.H1)).isSameAs(first);
+
+        trade("CACHE", "BUY", 1, 70, DAY0 + HOUR);
+        eventPublisher.publishEvent(new PositionLedger.LedgerChangedEvent(portfolioId));
+
+        NavSeries second = navService.getNav(portfolioId, DAY0, DAY0 + DAY, NavService.Interval.H1);
+        assertThat(second).isNotSameAs(first);
+        assertThat(second.getMarketValue()[second.getMarketValue().length - 1]).isEqualTo(140);
+        assertThat(navService.getNav(UUID.randomUUID(), DAY0, DAY0 + DAY, NavService.Interval.H1)).isNull();
+        assertThatThrownBy(() -> navService.getNav(portfolioId, DAY0, DAY0 + 365 * DAY, NavService.Interval.M5))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void manyPositionsOverManyPoints() {
+        int symbols = 40;
+        int tradesPerSymbol = 200;
+        List<Object[]> rows = new ArrayList<>();
+        for (int s = 0; s < symbols; s++) {
+            for (int i = 0; i < tradesPerSymbol; i++) {
+                // One buy of a share every 10 hours, at a price that climbs by one each trade
+                long at = DAY0 + i * 10 * HOUR + s;
+                rows.add(new Object[]{UUID.randomUUID(), portfolioId, "M" + s, "BUY", BigDecimal.ONE,
+                        BigDecimal.valueOf(100 + i), Timestamp.valueOf(local(at))});
+            }
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO transactions (id, portfolio_id, instrument_symbol, type, quantity, "
+                + "price_per_unit, txn_currency, transaction_date) VALUES (?, ?, ?, ?, ?, ?, 'USD', ?)", rows);
+
+        NavSeries nav = navService.getNav(portfolioId, DAY0, DAY0 + 100 * DAY, NavService.Interval.H1);
+
+        assertThat(nav.getSymbols()).isEqualTo(symbols);
+        assertThat(nav.getTimestamps()).hasSize(2401);
+        double[] value = nav.getMarketValue();
+        for (int k = 0; k < value.length; k++) {
+            assertThat(nav.getTimestamps()[k]).isEqualTo(DAY0 + (k + 1) * HOUR);
+            // Every symbol holds one share per trade so far, priced at its latest trade
+            int held = Math.min(tradesPerSymbol, k / 10 + 1);
+            assertThat(value[k]).as("point %d", k).isCloseTo(symbols * held * (99.0 + held), within(1e-6));
+        }
+    }
+
+    private void trade(String symbol, String type, double quantity, double price, long at) {
+        jdbcTemplate.update("INSERT INTO transactions (id, portfolio_id, instrument_symbol, type, quantity, "
+                        + "price_per_unit, txn_currency, transaction_date) VALUES (?, ?, ?, ?, ?, ?, 'USD', ?)",
+                UUID.randomUUID(), portfolioId, symbol, type, BigDecimal.valueOf(quantity), BigDecimal.valueOf(price),
+                Timestamp.valueOf(local(at)));
+    }
+
+    private static LocalDateTime local(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+    }
+}
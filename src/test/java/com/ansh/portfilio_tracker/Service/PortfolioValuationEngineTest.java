@@ -0,0 +1,106 @@
+package com.ansh.portfilio_tracker.Service;
+
+import com.ansh.portfilio_tracker.Classes.Holding;
+import com.ansh.portfilio_tracker.Classes.Portfolio;
+import com.ansh.portfilio_tracker.Classes.PortfolioSummary;
+import com.ansh.portfilio_tracker.Repo.HoldingRepository;
+import com.ansh.portfilio_tracker.Repo.PortfolioRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PortfolioValuationEngineTest {
+
+    private final UUID portfolioId = UUID.randomUUID();
+    private final HoldingRepository holdingRepository = mock(HoldingRepository.class);
+    private final PortfolioRepository portfolioRepository = mock(PortfolioRepository.class);
+    private final PortfolioValuationEngine engine =
+            new PortfolioValuationEngine(holdingRepository, portfolioRepository, mock(RealTimeStockService.class),
+                    new SymbolPositionIndex());
+
+    @BeforeEach
+    void rebuild() {
+        ReflectionTestUtils.setField(engine, "enabled", true);
+        when(portfolioRepository.findAll()).thenReturn(List.of(Portfolio.builder()
+                .id(portfolioId)
+                .baseCurrency("USD")
+                .realizedProfitInBaseCurrency(new BigDecimal("50.00"))
+                .build()));
+        when(holdingRepository.findAll()).thenReturn(List.of(
+                holding("AAPL", "10", "100.00", "110.00"),
+                holding("MSFT", "5", "200.00", null)));
+        engine.rebuild();
+    }
+
+    @Test
+    void rebuildsAggregatesFromTables() {
+        PortfolioSummary summary = engine.getSummary(portfolioId);
+
+        assertThat(summary.getTotalCostInBase()).isEqualByComparingTo("2000.00");
+        assertThat(summary.getTotalValueInBase()).isEqualByComparingTo("1100.00");
+        assertThat(summary.getRealizedProfitInBase()).isEqualByComparingTo("50.00");
+        assertThat(summary.getTotalProfitInBase()).isEqualByComparingTo("-850.00");
+    }
+
+    @Test
+    void ticksRevalueMarketValue() {
+        engine.onPrice("AAPL", 120d);
+        engine.onPrice("MSFT", 210d);
+        engine.onPrice("MSFT", 220d);
+
+        PortfolioSummary summary = engine.getSummary(portfolioId);
+        assertThat(summary.getTotalValueInBase()).isEqualByComparingTo("2300.00");
+        assertThat(summary.getUnrealizedProfitInBase()).isEqualByComparingTo("300.00");
+    }
+
+    @Test
+    void savedAndDeletedHoldingsReplacePositions() {
+        engine.onPrice("AAPL", 120d);
+        // Buy 10 more AAPL: the streamed price is kept over the persisted one
+        engine.onHoldingSaved(holding("AAPL", "20", "105.00", "110.00"));
+        engine.onHoldingDeleted(portfolioId, "MSFT");
+        engine.onPrice("MSFT", 500d);
+
+        PortfolioSummary summary = engine.getSummary(portfolioId);
+        assertThat(summary.getTotalCostInBase()).isEqualByComparingTo("2100.00");
+        assertThat(summary.getTotalValueInBase()).isEqualByComparingTo("2400.00");
+    }
+
+    @Test
+    void manyTicksLeaveNoRoundingDrift() {
+        engine.onHoldingSaved(holding("AAPL", "1000000000", "100.00", "110.00"));
+        engine.onPrice("MSFT", 200.01);
+        // Large swings in one position would round away the cents of the other in a running total
+        for (int i = 0; i < 1_000; i++) {
+            engine.onPrice("AAPL", 10_000_000d + i);
+            engine.onPrice("AAPL", 0.01);
+        }
+        engine.onPrice("AAPL", 110.01);
+
+        // 1,000,000,000 * 110.01 + 5 * 200.01
+        assertThat(engine.getSummary(portfolioId).getTotalValueInBase()).isEqualByComparingTo("110010001000.05");
+    }
+
+    @Test
+    void unknownPortfolioHasNoSummary() {
+        assertThat(engine.getSummary(UUID.randomUUID())).isNull();
+    }
+
+    private Holding holding(String symbol, String quantity, String avgPrice, String marketPrice) {
+        return Holding.builder()
+                .portfolioId(portfolioId)
+                .symbol(symbol)
+                .quantity(new BigDecimal(quantity))
+                .avgPriceInBaseCurrency(new BigDecimal(avgPrice))
+                .marketPrice(marketPrice != null ? new BigDecimal(marketPrice) : null)
+                .build();
+    }
+}
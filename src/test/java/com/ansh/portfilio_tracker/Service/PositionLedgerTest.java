@@ -0,0 +1,242 @@
+package com.ansh.portfilio_tracker.Service;
+
+import com.ansh.portfilio_tracker.Classes.Holding;
+import com.ansh.portfilio_tracker.Classes.Portfolio;
+import com.ansh.portfilio_tracker.Classes.RebuildResult;
+import com.ansh.portfilio_tracker.Classes.Transaction;
+import com.ansh.portfilio_tracker.Repo.HoldingRepository;
+import com.ansh.portfilio_tracker.Repo.PortfolioRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@DataJpaTest(showSql = false, properties = {
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "ledger.snapshot-interval=4"
+})
+@Import({TransactionServiceImpl.class, PositionLocks.class, PositionLedger.class, SimpleMeterRegistry.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class PositionLedgerTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 2, 10, 0);
+
+    @Autowired
+    private TransactionServiceImpl transactionService;
+
+    @Autowired
+    private PositionLedger positionLedger;
+
+    @Autowired
+    private PortfolioRepository portfolioRepository;
+
+    @Autowired
+    private HoldingRepository holdingRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockitoBean
+    private HoldingService holdingService;
+
+    @MockitoBean
+    private PortfolioValuationEngine valuationEngine;
+
+    private UUID portfolioId;
+
+    @BeforeEach
+    void createPortfolio() {
+        portfolioId = UUID.randomUUID();
+        portfolioRepository.save(Portfolio.builder()
+                .id(portfolioId)
+                .name("Ledger")
+                .baseCurrency("USD")
+                .realizedProfitInBaseCurrency(BigDecimal.ZERO)
+                .build());
+    }
+
+    @Test
+    void liveTradesStoreSnapshotsEveryInterval() {
+        for (int i = 0; i < 10; i++) {
+            transactionService.executeTransaction(trade("BUY", "1", "100"));
+        }
+
+        assertThat(snapshotSequences()).containsExactly(4L, 8L);
+        assertThat(holding().getQuantity()).isEqualByComparingTo("10");
+        assertThat(holding().getLedgerSeq()).isEqualTo(10L);
+    }
+
+    @Test
+    void positionWithUnknownSequenceIsCountedOnce() {
+        for (int i = 0; i < 3; i++) {
+            transactionService.executeTransaction(trade("BUY", "1", "100"));
+        }
+        // As left by an import
+        jdbcTemplate.update("UPDATE holdings SET ledger_seq = NULL WHERE portfolio_id = ?", portfolioId);
+
+        transactionService.executeTransaction(trade("BUY", "1", "100"));
+
+        assertThat(holding().getLedgerSeq()).isEqualTo(4L);
+        assertThat(snapshotSequences()).containsExactly(4L);
+    }
+
+    @Test
+    void closingTradeSkipsTheMarketRefresh() {
+        transactionService.executeTransaction(trade("BUY", "2", "100"));
+        transactionService.executeTransaction(trade("SELL", "2", "110"));
+
+        assertThat(holdingRepository.findByPortfolioIdAndSymbol(portfolioId, "AAPL")).isEmpty();
+        // Only the buy left a holding to revalue
+        verify(holdingService, times(1)).refreshMarketPriceAfterWrite(portfolioId, "AAPL");
+    }
+
+    @Test
+    void snapshotOnALiveTradeAppliesRealizedCorrections() {
+        transactionService.executeTransaction(trade("BUY", "10", "100"));
+        transactionService.executeTransaction(trade("SELL", "1", "120"));
+        // A sell stored under an older rule, and the portfolio total that includes it
+        jdbcTemplate.update("UPDATE transactions SET realized_profit = 5 WHERE portfolio_id = ? AND type = 'SELL'",
+                portfolioId);
+        jdbcTemplate.update("UPDATE portfolios SET realized_profit_in_base_currency = 5 WHERE id = ?", portfolioId);
+
+        transactionService.executeTransaction(trade("BUY", "1", "100"));
+        transactionService.executeTransaction(trade("BUY", "1", "100"));
+
+        assertThat(snapshotSequences()).containsExactly(4L);
+        assertThat(realizedProfit()).isEqualByComparingTo("20");
+        assertThat(sumOfSells()).isEqualByComparingTo(realizedProfit());
+    }
+
+    @Test
+    void backdatedBuyReplaysFromNearestSnapshotAndCorrectsLaterSells() {
+        // Ten days of history: buy 10 @ 100 on day 0, then one share sold at 120 on each of days 1..9
+        insertHistory(trade("BUY", "10", "100"), 0);
+        for (int day = 1; day <= 9; day++) {
+            insertHistory(trade("SELL", "1", "120"), day);
+        }
+        positionLedger.rebuildPortfolio(portfolioId);
+        assertThat(snapshotSequences()).containsExactly(4L, 8L);
+        assertThat(realizedProfit()).isEqualByComparingTo("180");
+
+        // A forgotten buy of 10 @ 80 on day 5.5: average becomes (5 * 100 + 10 * 80) / 15 = 86.67
+        Transaction backdated = trade("BUY", "10", "80");
+        backdated.setTransactionDate(START.plusDays(5).plusHours(12));
+        positionLedger.insertBackdated(portfolioId, backdated);
+
+        assertThat(holding().getQuantity()).isEqualByComparingTo("11");
+        assertThat(holding().getAvgPriceInBaseCurrency()).isEqualByComparingTo("86.67");
+        // Days 1..5 at 20 each, days 6..9 at 120 - 86.67 = 33.33 each
+        assertThat(realizedProfit()).isEqualByComparingTo("233.32");
+        assertThat(sumOfSells()).isEqualByComparingTo(realizedProfit());
+        // The day-8 snapshot was stale and was replaced; the day-4 one was reused
+        assertThat(snapshotSequences()).containsExactly(4L, 8L);
+        assertThat(jdbcTemplate.queryForObject("SELECT quantity FROM position_snapshots WHERE portfolio_id = ? "
+                + "AND event_seq = 8", BigDecimal.class, portfolioId)).isEqualByComparingTo("14");
+
+        // A full replay from scratch agrees with the incremental one
+        RebuildResult full = positionLedger.rebuildAll();
+        assertThat(full.getRealizedProfitsCorrected()).isZero();
+        assertThat(holding().getAvgPriceInBaseCurrency()).isEqualByComparingTo("86.67");
+        assertThat(realizedProfit()).isEqualByComparingTo("233.32");
+    }
+
+    @Test
+    void backdatedSellThatWouldGoShortIsRejected() {
+        insertHistory(trade("BUY", "5", "100"), 2);
+        positionLedger.rebuildPortfolio(portfolioId);
+
+        Transaction early = trade("SELL", "1", "100");
+        early.setTransactionDate(START);
+        assertThatThrownBy(() -> positionLedger.insertBackdated(portfolioId, early))
+                .isInstanceOf(IllegalStateException.class);
+
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM transactions WHERE portfolio_id = ?",
+                Integer.class, portfolioId)).isEqualTo(1);
+        assertThat(holding().getQuantity()).isEqualByComparingTo("5");
+    }
+
+    @Test
+    @Tag("load")
+    void fullReplayThroughput() {
+        int positions = 50;
+        int eventsPerPosition = 2_000;
+        List<Object[]> rows = new ArrayList<>();
+        for (int p = 0; p < positions; p++) {
+            for (int i = 0; i < eventsPerPosition; i++) {
+                boolean buy = i % 2 == 0;
+                rows.add(new Object[]{UUID.randomUUID(), portfolioId, "P" + p, buy ? "BUY" : "SELL",
+                        buy ? new BigDecimal("2") : BigDecimal.ONE, new BigDecimal(buy ? "100" : "110"),
+                        Timestamp.valueOf(START.plusMinutes(i))});
+            }
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO transactions (id, portfolio_id, instrument_symbol, type, quantity, "
+                + "price_per_unit, txn_currency, transaction_date) VALUES (?, ?, ?, ?, ?, ?, 'USD', ?)", rows);
+
+        // The first pass also back-fills every SELL's realized profit; the second only re-derives state
+        positionLedger.rebuildAll();
+        RebuildResult result = positionLedger.rebuildAll();
+        assertThat(result.getRealizedProfitsCorrected()).isZero();
+
+        assertThat(result.getEventsReplayed()).isGreaterThanOrEqualTo((long) positions * eventsPerPosition);
+        assertThat(holdingRepository.findByPortfolioId(portfolioId)).hasSize(positions)
+                .allSatisfy(h -> assertThat(h.getQuantity()).isEqualByComparingTo("1000"));
+        // 1000 sells of one share at 10 over cost per position
+        assertThat(realizedProfit()).isEqualByComparingTo(new BigDecimal(positions * 10_000));
+    }
+
+    private void insertHistory(Transaction transaction, int day) {
+        jdbcTemplate.update("INSERT INTO transactions (id, portfolio_id, instrument_symbol, type, quantity, "
+                        + "price_per_unit, txn_currency, transaction_date) VALUES (?, ?, ?, ?, ?, ?, 'USD', ?)",
+                UUID.randomUUID(), portfolioId, transaction.getInstrumentSymbol(), transaction.getType(),
+                transaction.getQuantity(), transaction.getPricePerUnit(), Timestamp.valueOf(START.plusDays(day)));
+    }
+
+    private Transaction trade(String type, String quantity, String price) {
+        return Transaction.builder()
+                .portfolioId(portfolioId)
+                .instrumentSymbol("AAPL")
+                .type(type)
+                .quantity(new BigDecimal(quantity))
+                .pricePerUnit(new BigDecimal(price))
+                .build();
+    }
+
+    private Holding holding() {
+        return holdingRepository.findByPortfolioIdAndSymbol(portfolioId, "AAPL").orElseThrow();
+    }
+
+    private List<Long> snapshotSequences() {
+        return jdbcTemplate.queryForList("SELECT event_seq FROM position_snapshots WHERE portfolio_id = ? "
+                + "AND symbol = 'AAPL' ORDER BY event_seq", Long.class, portfolioId);
+    }
+
+    private BigDecimal realizedProfit() {
+        return jdbcTemplate.queryForObject("SELECT realized_profit_in_base_currency FROM portfolios WHERE id = ?",
+                BigDecimal.class, portfolioId);
+    }
+
+    private BigDecimal sumOfSells() {
+        return jdbcTemplate.queryForObject("SELECT SUM(realized_profit) FROM transactions WHERE portfolio_id = ?",
+                BigDecimal.class, portfolioId);
+    }
+}
@@ -0,0 +1,118 @@
+package com.ansh.portfilio_tracker.Service;
+
+import com.ansh.portfilio_tracker.Classes.FinnhubQuoteResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class QuoteCacheTest {
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final QuoteCache cache = new QuoteCache(60_000, 60_000, 60_000, 100, executor);
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void concurrentMissesShareOneLoad() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        QuoteCache.QuoteLoader loader = symbol -> {
+            calls.incrementAndGet();
+            release.await(5, TimeUnit.SECONDS);
+            return Optional.of(quote("189.10"));
+        };
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Optional<FinnhubQuoteResponse>>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(pool.submit(() -> cache.get("AAPL", loader)));
+            }
+            // Give every caller time to join the in-flight load
+            Thread.sleep(200);
+            release.countDown();
+
+            for (Future<Optional<FinnhubQuoteResponse>> result : results) {
+                assertThat(result.get(5, TimeUnit.SECONDS)).map(FinnhubQuoteResponse::getCurrentPrice)
+                        .contains(new BigDecimal("189.10"));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertThat(calls).hasValue(1);
+        assertThat(cache.getStats().getCoalesced()).isEqualTo(7);
+        assertThat(cache.get("AAPL", loader)).isPresent();
+        assertThat(cache.getStats().getHits()).isEqualTo(1);
+    }
+
+    @Test
+    void loadFinishedBeforeTheClaimIsReused() {
+        AtomicInteger calls = new AtomicInteger();
+        QuoteCache.QuoteLoader loader = symbol -> {
+            calls.incrementAndGet();
+            return Optional.of(quote("410.25"));
+        };
+        // Another caller's load completes after this caller's miss but before it claims the symbol
+        Executor racing = task -> {
+            cache.get("MSFT", loader);
+            task.run();
+        };
+
+        assertThat(cache.getAsync("MSFT", loader, racing).join()).map(FinnhubQuoteResponse::getCurrentPrice)
+                .contains(new BigDecimal("410.25"));
+
+        assertThat(calls).hasValue(1);
+        assertThat(cache.getStats().getLoads()).isEqualTo(1);
+    }
+
+    @Test
+    void unknownSymbolsAreNegativelyCached() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        QuoteCache.QuoteLoader loader = symbol -> {
+            calls.incrementAndGet();
+            return Optional.empty();
+        };
+
+        assertThat(cache.get("NOPE", loader)).isEmpty();
+        assertThat(cache.get("NOPE", loader)).isEmpty();
+
+        assertThat(calls).hasValue(1);
+        assertThat(cache.getStats().getNegativeHits()).isEqualTo(1);
+    }
+
+    @Test
+    void failedLoadsAreNotCached() {
+        AtomicInteger calls = new AtomicInteger();
+        QuoteCache.QuoteLoader loader = symbol -> {
+            calls.incrementAndGet();
+            throw new IllegalStateException("upstream down");
+        };
+
+        assertThat(cache.get("MSFT", loader)).isEmpty();
+        assertThat(cache.get("MSFT", loader)).isEmpty();
+
+        assertThat(calls).hasValue(2);
+        assertThat(cache.getStats().getLoadFailures()).isEqualTo(2);
+    }
+
+    private static FinnhubQuoteResponse quote(String price) {
+        return FinnhubQuoteResponse.builder().currentPrice(new BigDecimal(price)).build();
+    }
+}
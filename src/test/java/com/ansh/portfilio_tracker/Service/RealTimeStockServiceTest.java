@@ -0,0 +1,102 @@
+package com.ansh.portfilio_tracker.Service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.Mockito.mock;
+
+class RealTimeStockServiceTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final FinnhubShardRouterTest.RecordingConnection connection =
+            new FinnhubShardRouterTest.RecordingConnection(registry);
+    private final RealTimeStockService service =
+            new RealTimeStockService(new FinnhubShardRouter(List.of(connection), 0), mock(TickStore.class), registry);
+
+    @AfterEach
+    void tearDown() {
+        service.cleanup();
+    }
+
+    @Test
+    void listenersShareAFixedSetOfStageThreads() {
+        ReflectionTestUtils.setField(service, "pipelineEnabled", true);
+        ReflectionTestUtils.setField(service, "pipelineCapacity", 1024);
+        ReflectionTestUtils.setField(service, "pipelineBatchSize", 64);
+        ReflectionTestUtils.setField(service, "pipelineIdleMicros", 100L);
+        ReflectionTestUtils.setField(service, "listenerThreads", 3);
+        service.initialize();
+
+        Map<String, List<String>> received = new ConcurrentHashMap<>();
+        List<RealTimeStockService.StockPriceListener> listeners = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            String symbol = "S" + (i % 50);
+            String name = "listener" + i;
+            RealTimeStockService.StockPriceListener listener = price -> received
+                    .computeIfAbsent(name, k -> new CopyOnWriteArrayList<>()).add(price.getSymbol());
+            listeners.add(listener);
+            service.addPriceListener(symbol, listener, TickRingBuffer.OverflowPolicy.BLOCK);
+        }
+        // Only the price cache and one stage of three consumers read the ring
+        assertThat(service.getPipelineStats().getConsumers()).hasSize(4);
+
+        for (int s = 0; s < 50; s++) {
+            connection.onMessage("{\"type\":\"trade\",\"data\":[{\"s\":\"S" + s + "\",\"p\":1,\"t\":1,\"v\":1}]}");
+        }
+
+        // Every listener sees exactly its own symbol's tick
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> assertThat(received).hasSize(200));
+        received.forEach((name, symbols) -> assertThat(symbols)
+                .containsExactly("S" + (Integer.parseInt(name.substring("listener".length())) % 50)));
+
+        for (int i = 0; i < 200; i++) {
+            service.removePriceListener("S" + (i % 50), listeners.get(i));
+        }
+        assertThat(connection.subscribed).isEmpty();
+        assertThat(service.getPipelineStats().getConsumers()).hasSize(4);
+    }
+
+    @Test
+    void pricesAreAttributedToTheConnectionThatDeliveredThem() {
+        List<FinnhubShardRouterTest.RecordingConnection> connections = List.of(
+                new FinnhubShardRouterTest.RecordingConnection(registry),
+                new FinnhubShardRouterTest.RecordingConnection(registry));
+        FinnhubShardRouter router = new FinnhubShardRouter(List.copyOf(connections), 0);
+        RealTimeStockService sharded = new RealTimeStockService(router, mock(TickStore.class), registry);
+        ReflectionTestUtils.setField(sharded, "pipelineEnabled", true);
+        ReflectionTestUtils.setField(sharded, "pipelineCapacity", 1024);
+        ReflectionTestUtils.setField(sharded, "pipelineBatchSize", 64);
+        ReflectionTestUtils.setField(sharded, "pipelineIdleMicros", 100L);
+        sharded.initialize();
+        try {
+            sharded.subscribe("AAPL");
+            int owner = router.shardOf("AAPL");
+            int other = 1 - owner;
+
+            // A trade still in flight on the connection the symbol just moved away from
+            connections.get(other).onMessage(
+                    "{\"type\":\"trade\",\"data\":[{\"s\":\"AAPL\",\"p\":1,\"t\":1,\"v\":1}]}");
+            await().atMost(Duration.ofSeconds(5)).until(() -> sharded.getLatestPrice("AAPL") != null);
+            assertThat(sharded.getLatestPrice("AAPL").getShard()).isEqualTo(other);
+
+            // Only losing the delivering connection makes the price stale
+            sharded.markPricesStale(owner);
+            assertThat(sharded.getLatestPrice("AAPL").isStale()).isFalse();
+            sharded.markPricesStale(other);
+            assertThat(sharded.getLatestPrice("AAPL").isStale()).isTrue();
+        } finally {
+            sharded.cleanup();
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.ansh.portfilio_tracker.Service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class StockTopicPublisherTest {
+
+    private final RealTimeStockService realTimeStockService = mock(RealTimeStockService.class);
+    private final SimpMessagingTemplate messagingTemplate = mock(SimpMessagingTemplate.class);
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final StockTopicPublisher publisher =
+            new StockTopicPublisher(realTimeStockService, messagingTemplate, objectMapper);
+
+    @AfterEach
+    void tearDown() {
+        if (ReflectionTestUtils.getField(publisher, "flushScheduler") != null) {
+            publisher.stop();
+        }
+    }
+
+    @Test
+    void eachFlushSendsTheLatestPriceOncePerTopic() throws Exception {
+        publisher.addSubscriber("session1", "AAPL");
+        publisher.addSubscriber("session2", "AAPL");
+        publisher.addSubscriber("session1", "MSFT");
+        RealTimeStockService.StockPriceListener aapl = listener("AAPL");
+        RealTimeStockService.StockPriceListener msft = listener("MSFT");
+
+        for (int i = 1; i <= 100; i++) {
+            aapl.onPriceUpdate(price("AAPL", i));
+        }
+        msft.onPriceUpdate(price("MSFT", 7));
+        assertThat(publisher.getPendingTopicCount()).isEqualTo(2);
+        publisher.flush();
+
+        // Two sessions on AAPL still get one message on the topic, encoded once, holding the last tick
+        Map<String, Message<byte[]>> sent = sent(2);
+        assertThat(sent).containsOnlyKeys("/topic/stock/AAPL", "/topic/stock/MSFT");
+        assertThat(decode(sent.get("/topic/stock/AAPL")).get("timestamp")).isEqualTo(100);
+        assertThat(decode(sent.get("/topic/stock/MSFT")).get("timestamp")).isEqualTo(7);
+        assertThat(publisher.getPendingTopicCount()).isZero();
+
+        // Nothing new arrived, so the next period sends nothing
+        publisher.flush();
+        verify(messagingTemplate, times(2)).send(anyString(), any(Message.class));
+    }
+
+    @Test
+    void removingTheLastSessionStopsTheTopic() {
+        publisher.addSubscriber("session1", "AAPL");
+        publisher.addSubscriber("session2", "AAPL");
+        RealTimeStockService.StockPriceListener aapl = listener("AAPL");
+
+        publisher.removeSession("session1");
+        verify(realTimeStockService, never()).removePriceListener(anyString(), any());
+        assertThat(publisher.getTopicCount()).isEqualTo(1);
+
+        aapl.onPriceUpdate(price("AAPL", 1));
+        publisher.removeSession("session2");
+        verify(realTimeStockService).removePriceListener("AAPL", aapl);
+        assertThat(publisher.getTopicCount()).isZero();
+
+        // A tick marked before the disconnect is dropped rather than sent to an empty topic
+        publisher.flush();
+        verify(messagingTemplate, never()).send(anyString(), any(Message.class));
+        assertThat(publisher.getPendingTopicCount()).isZero();
+    }
+
+    @Test
+    void upstreamSubscribeDoesNotBlockOtherSessionsOnTheTopic() {
+        // Another session joins while the first one's upstream subscribe is still in progress
+        doAnswer(invocation -> {
+            CompletableFuture.runAsync(() -> publisher.addSubscriber("session2", "AAPL")).get(5, TimeUnit.SECONDS);
+            return null;
+        }).when(realTimeStockService).addPriceListener(eq("AAPL"), any(), any());
+
+        publisher.addSubscriber("session1", "AAPL");
+
+        verify(realTimeStockService, times(1)).addPriceListener(eq("AAPL"), any(), any());
+        assertThat(publisher.getTopicCount()).isEqualTo(1);
+        publisher.removeSession("session1");
+        publisher.removeSession("session2");
+        verify(realTimeStockService).removePriceListener(eq("AAPL"), any());
+        assertThat(publisher.getTopicCount()).isZero();
+    }
+
+    @Test
+    void scheduledFlushesAreLimitedToTheMaxRate() {
+        ReflectionTestUtils.setField(publisher, "maxRateHz", 20d);
+        publisher.addSubscriber("session1", "AAPL");
+        RealTimeStockService.StockPriceListener aapl = listener("AAPL");
+        publisher.start();
+
+        long start = System.nanoTime();
+        long end = start + TimeUnit.MILLISECONDS.toNanos(500);
+        int ticks = 0;
+        while (System.nanoTime() < end) {
+            aapl.onPriceUpdate(price("AAPL", ++ticks));
+        }
+        publisher.stop();
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        // At 20 Hz a 50 ms period; allow one flush of slack for the partial periods at either end
+        ArgumentCaptor<Message<byte[]>> messages = messageCaptor();
+        verify(messagingTemplate, atLeastOnce()).send(eq("/topic/stock/AAPL"), messages.capture());
+        assertThat(messages.getAllValues()).hasSizeLessThanOrEqualTo((int) (elapsedMillis / 50) + 1);
+        assertThat(ticks).isGreaterThan(messages.getAllValues().size());
+    }
+
+    private RealTimeStockService.StockPriceListener listener(String symbol) {
+        ArgumentCaptor<RealTimeStockService.StockPriceListener> listener =
+                ArgumentCaptor.forClass(RealTimeStockService.StockPriceListener.class);
+        verify(realTimeStockService).addPriceListener(eq(symbol), listener.capture(),
+                eq(TickRingBuffer.OverflowPolicy.CONFLATE));
+        return listener.getValue();
+    }
+
+    private Map<String, Message<byte[]>> sent(int count) {
+        ArgumentCaptor<String> destinations = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<Message<byte[]>> messages = messageCaptor();
+        verify(messagingTemplate, times(count)).send(destinations.capture(), messages.capture());
+        List<String> sentTo = destinations.getAllValues();
+        assertThat(sentTo).doesNotHaveDuplicates();
+        Map<String, Message<byte[]>> byDestination = new HashMap<>();
+        for (int i = 0; i < sentTo.size(); i++) {
+            byDestination.put(sentTo.get(i), messages.getAllValues().get(i));
+        }
+        return byDestination;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ArgumentCaptor<Message<byte[]>> messageCaptor() {
+        return ArgumentCaptor.forClass((Class<Message<byte[]>>) (Class<?>) Message.class);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> decode(Message<byte[]> message) throws Exception {
+        return objectMapper.readValue(message.getPayload(), Map.class);
+    }
+
+    private static RealTimeStockService.StockPrice price(String symbol, long timestamp) {
+        return RealTimeStockService.StockPrice.builder()
+                .symbol(symbol)
+                .price(BigDecimal.valueOf(100 + timestamp))
+                .timestamp(timestamp)
+                .volume(1)
+                .build();
+    }
+}
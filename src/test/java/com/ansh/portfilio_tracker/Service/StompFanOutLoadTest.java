@@ -0,0 +1,324 @@
+package com.ansh.portfilio_tracker.Service;
+
+import com.ansh.portfilio_tracker.Config.WebSocketConfig;
+import com.ansh.portfilio_tracker.Controller.StockWebSocketController;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.data.jpa.JpaRepositoriesAutoConfiguration;
+import org.springframework.boot.autoconfigure.flyway.FlywayAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.web.socket.WebSocketHttpHeaders;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+import org.springframework.web.socket.sockjs.client.SockJsClient;
+import org.springframework.web.socket.sockjs.client.WebSocketTransport;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.reflect.Type;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * Thousands of simulated browser sessions on the {@code /ws/stocks} SockJS endpoint, each subscribing to
+ * {@code /app/subscribe/{symbol}} for a symbol drawn from a Zipf distribution, against an embedded server.
+ * Synthetic trades are fed into {@link RealTimeStockService} through the Finnhub client's frame handler,
+ * with {@link System#nanoTime()} as the trade timestamp, so every delivered price measures tick-to-session
+ * latency. Reports latency percentiles, dropped sessions, heap and process CPU; clients and server share
+ * the JVM, so CPU and heap include both sides.
+ * <p>
+ * Excluded from the default build; run with {@code mvn test -Dsurefire.excludedGroups= -Dgroups=load
+ * -Dtest=StompFanOutLoadTest}, adding any of {@code -Dload.sessions}, {@code -Dload.symbols},
+ * {@code -Dload.skew}, {@code -Dload.ticks-per-second}, {@code -Dload.duration-seconds} and
+ * {@code -Dload.publish-rate-hz}. Each session holds two sockets, so raise {@code ulimit -n} for large runs.
+ */
+@Tag("load")
+class StompFanOutLoadTest {
+
+    private static final int SESSIONS = Integer.getInteger("load.sessions", 2_000);
+    private static final int SYMBOLS = Integer.getInteger("load.symbols", 100);
+    // Zipf exponent for the symbol each session picks: 0 is uniform, higher crowds sessions onto the first symbols
+    private static final double SKEW = Double.parseDouble(System.getProperty("load.skew", "1.0"));
+    private static final int TICKS_PER_SECOND = Integer.getInteger("load.ticks-per-second", 5_000);
+    private static final int DURATION_SECONDS = Integer.getInteger("load.duration-seconds", 30);
+    private static final int PUBLISH_RATE_HZ = Integer.getInteger("load.publish-rate-hz", 10);
+    private static final int CONNECT_CONCURRENCY = 200;
+    // The endpoint only accepts the frontend origin
+    private static final String ORIGIN = "http://localhost:5173";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private volatile Timer deliveryLatency;
+
+    @Test
+    void fanOutToSimulatedBrowserSessions() throws Exception {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(LoadApp.class).run(
+                "--server.port=0",
+                "--stomp.publish.max-rate-hz=" + PUBLISH_RATE_HZ,
+                "--logging.level.com.ansh=WARN")) {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            FinnhubWebSocketClient finnhub = context.getBean(FinnhubWebSocketClient.class);
+            StockTopicPublisher topicPublisher = context.getBean(StockTopicPublisher.class);
+            MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+            com.sun.management.OperatingSystemMXBean os =
+                    (com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean();
+
+            String[] symbols = IntStream.range(0, SYMBOLS).mapToObj(i -> "LOAD" + i).toArray(String[]::new);
+            int[] picks = zipf(SESSIONS, SYMBOLS, SKEW, new Random(42));
+            List<Subscriber> subscribers = new ArrayList<>();
+            for (int pick : picks) {
+                subscribers.add(new Subscriber(symbols[pick]));
+            }
+
+            System.gc();
+            long heapBefore = memory.getHeapMemoryUsage().getUsed();
+            WebSocketStompClient stompClient = new WebSocketStompClient(
+                    new SockJsClient(List.of(new WebSocketTransport(new StandardWebSocketClient()))));
+            stompClient.start();
+            long connectStart = System.nanoTime();
+            connect(stompClient, "http://localhost:" + port + "/ws/stocks", subscribers);
+            double connectSeconds = (System.nanoTime() - connectStart) / 1e9;
+            long connectFailures = subscribers.stream().filter(s -> s.session == null).count();
+            long subscribedSymbols = subscribers.stream().filter(s -> s.session != null)
+                    .map(s -> s.symbol).distinct().count();
+            await().atMost(Duration.ofSeconds(60)).until(() -> topicPublisher.getTopicCount() == subscribedSymbols);
+            System.gc();
+            long heapPerSession = (memory.getHeapMemoryUsage().getUsed() - heapBefore) / SESSIONS;
+
+            // Warm up until every session has had a price, so the measured window starts with every subscription live
+            deliveryLatency = newLatencyTimer();
+            ExecutorService feeder = Executors.newSingleThreadExecutor();
+            AtomicBoolean feeding = new AtomicBoolean(true);
+            Future<Long> warmUp = feeder.submit(() -> feed(finnhub, symbols, feeding));
+            try {
+                await().atMost(Duration.ofSeconds(60)).pollInterval(Duration.ofMillis(200)).until(() ->
+                        subscribers.stream().allMatch(s -> s.session == null || s.received.get() > 0));
+            } catch (Exception e) {
+                // Sessions that never got a price are reported as silent below
+            }
+            feeding.set(false);
+            warmUp.get();
+            long silent = subscribers.stream().filter(s -> s.session != null && s.received.get() == 0).count();
+
+            deliveryLatency = newLatencyTimer();
+            subscribers.forEach(s -> s.received.set(0));
+            AtomicLong heapPeak = new AtomicLong();
+            ScheduledExecutorService heapSampler = Executors.newSingleThreadScheduledExecutor();
+            heapSampler.scheduleAtFixedRate(() -> heapPeak.accumulateAndGet(
+                    memory.getHeapMemoryUsage().getUsed(), Math::max), 0, 100, TimeUnit.MILLISECONDS);
+            long cpuBefore = os.getProcessCpuTime();
+            long start = System.nanoTime();
+            feeding.set(true);
+            Future<Long> run = feeder.submit(() -> feed(finnhub, symbols, feeding));
+            Thread.sleep(TimeUnit.SECONDS.toMillis(DURATION_SECONDS));
+            feeding.set(false);
+            long ticks = run.get();
+            // Let the last flush reach the sessions
+            Thread.sleep(1_000);
+            long elapsed = System.nanoTime() - start;
+            double cpuPercent = 100.0 * (os.getProcessCpuTime() - cpuBefore)
+                    / (elapsed * (double) Runtime.getRuntime().availableProcessors());
+            heapSampler.shutdownNow();
+            feeder.shutdownNow();
+
+            long dropped = subscribers.stream().filter(s -> s.session != null
+                    && (s.transportError || !s.session.isConnected())).count();
+            long delivered = subscribers.stream().mapToLong(s -> s.received.get()).sum();
+            HistogramSnapshot latency = deliveryLatency.takeSnapshot();
+
+            System.out.printf("sessions %d over %d symbols (skew %.2f), connected in %.1f s, %d failed%n",
+                    SESSIONS, subscribedSymbols, SKEW, connectSeconds, connectFailures);
+            System.out.printf("ticks in %d (%.0f/s), messages delivered %d (%.0f/s)%n",
+                    ticks, ticks / (elapsed / 1e9), delivered, delivered / (elapsed / 1e9));
+            System.out.printf("%10s %10s %10s %10s %10s%n", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+            double[] percentiles = Arrays.stream(latency.percentileValues())
+                    .mapToDouble(v -> v.value(TimeUnit.MILLISECONDS)).toArray();
+            System.out.printf("%10.2f %10.2f %10.2f %10.2f %10.2f%n", percentiles[0], percentiles[1],
+                    percentiles[2], percentiles[3], latency.max(TimeUnit.MILLISECONDS));
+            System.out.printf("dropped sessions %d, silent after warm-up %d%n", dropped, silent);
+            System.out.printf("heap %d KB per session, peak %d MB; process CPU %.1f%% of %d cores%n",
+                    heapPerSession / 1024, heapPeak.get() >> 20, cpuPercent, Runtime.getRuntime().availableProcessors());
+
+            for (Subscriber subscriber : subscribers) {
+                if (subscriber.session != null && subscriber.session.isConnected()) {
+                    subscriber.session.disconnect();
+                }
+            }
+            stompClient.stop();
+
+            assertThat(connectFailures).isZero();
+            assertThat(silent).isZero();
+            assertThat(dropped).isZero();
+            assertThat(delivered).isPositive();
+        }
+    }
+
+    private void connect(WebSocketStompClient stompClient, String url, List<Subscriber> subscribers)
+            throws InterruptedException {
+        WebSocketHttpHeaders headers = new WebSocketHttpHeaders();
+        headers.setOrigin(ORIGIN);
+        Semaphore inFlight = new Semaphore(CONNECT_CONCURRENCY);
+        for (Subscriber subscriber : subscribers) {
+            inFlight.acquire();
+            stompClient.connectAsync(url, headers, subscriber)
+                    .orTimeout(30, TimeUnit.SECONDS)
+                    .whenComplete((session, error) -> inFlight.release());
+        }
+        inFlight.acquire(CONNECT_CONCURRENCY);
+    }
+
+    /**
+     * Feed one trade at a time, round-robin over the symbols, at {@link #TICKS_PER_SECOND} until stopped.
+     *
+     * @return trades fed
+     */
+    private static long feed(FinnhubWebSocketClient finnhub, String[] symbols, AtomicBoolean feeding) {
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / TICKS_PER_SECOND;
+        long next = System.nanoTime();
+        long sent = 0;
+        while (feeding.get()) {
+            String symbol = symbols[(int) (sent % symbols.length)];
+            finnhub.onMessage("{\"type\":\"trade\",\"data\":[{\"s\":\"" + symbol + "\",\"p\":" + (100 + sent % 100)
+                    + ",\"t\":" + System.nanoTime() + ",\"v\":1}]}");
+            sent++;
+            next += intervalNanos;
+            long wait = next - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+        }
+        return sent;
+    }
+
+    /**
+     * @return for each session, the index of its symbol, with rank k weighted 1/(k+1)^skew
+     */
+    private static int[] zipf(int sessions, int symbols, double skew, Random random) {
+        double[] cumulative = new double[symbols];
+        double total = 0;
+        for (int k = 0; k < symbols; k++) {
+            total += 1 / Math.pow(k + 1, skew);
+            cumulative[k] = total;
+        }
+        int[] picks = new int[sessions];
+        for (int i = 0; i < sessions; i++) {
+            int index = Arrays.binarySearch(cumulative, random.nextDouble() * total);
+            picks[i] = Math.min(symbols - 1, index >= 0 ? index : -index - 1);
+        }
+        return picks;
+    }
+
+    private static Timer newLatencyTimer() {
+        // One window over the whole run, rather than the default rolling two minutes
+        return Timer.builder("stomp.load.delivery")
+                .publishPercentiles(0.5, 0.9, 0.99, 0.999)
+                .distributionStatisticExpiry(Duration.ofHours(1))
+                .distributionStatisticBufferLength(1)
+                .register(new SimpleMeterRegistry());
+    }
+
+    /**
+     * One simulated browser session: subscribes to its symbol's topic, then asks the server to start it.
+     */
+    private final class Subscriber extends StompSessionHandlerAdapter {
+
+        private final String symbol;
+        private final AtomicLong received = new AtomicLong();
+        private volatile StompSession session;
+        private volatile boolean transportError;
+
+        private Subscriber(String symbol) {
+            this.symbol = symbol;
+        }
+
+        @Override
+        public void afterConnected(StompSession session, StompHeaders connectedHeaders) {
+            this.session = session;
+            session.subscribe("/topic/stock/" + symbol, this);
+            session.send("/app/subscribe/" + symbol, new byte[0]);
+        }
+
+        @Override
+        public Type getPayloadType(StompHeaders headers) {
+            return byte[].class;
+        }
+
+        @Override
+        public void handleFrame(StompHeaders headers, Object payload) {
+            long now = System.nanoTime();
+            try {
+                long tickNanos = objectMapper.readTree((byte[]) payload).path("timestamp").asLong();
+                deliveryLatency.record(now - tickNanos, TimeUnit.NANOSECONDS);
+            } catch (Exception e) {
+                // Counted as delivered; only the latency sample is lost
+            }
+            received.incrementAndGet();
+        }
+
+        @Override
+        public void handleTransportError(StompSession session, Throwable exception) {
+            transportError = true;
+        }
+    }
+
+    /**
+     * Boot source for the load app: the STOMP endpoint and topic publisher over a real tick path whose
+     * Finnhub connection is never opened. Deliberately not a {@code @SpringBootConfiguration} or component,
+     * so neither the slice tests in this package nor the application's component scan pick it up.
+     */
+    @EnableAutoConfiguration(exclude = {DataSourceAutoConfiguration.class, HibernateJpaAutoConfiguration.class,
+            JpaRepositoriesAutoConfiguration.class, FlywayAutoConfiguration.class})
+    @Import({WebSocketConfig.class, StockWebSocketController.class, StockTopicPublisher.class})
+    static class LoadApp {
+        @Bean
+        FinnhubWebSocketClient finnhubWebSocketClient(MeterRegistry meterRegistry) {
+            return new FinnhubWebSocketClient("load", true, meterRegistry) {
+                @Override
+                public void subscribe(String symbol) {
+                }
+
+                @Override
+                public void unsubscribe(String symbol) {
+                }
+            };
+        }
+
+        @Bean
+        RealTimeStockService realTimeStockService(FinnhubWebSocketClient finnhubWebSocketClient,
+                                                  MeterRegistry meterRegistry) {
+            return new RealTimeStockService(new FinnhubShardRouter(List.of(finnhubWebSocketClient), 0),
+                    Mockito.mock(TickStore.class), meterRegistry);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.ansh.portfilio_tracker.Service;
+
+import com.ansh.portfilio_tracker.Classes.Holding;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SymbolPositionIndexTest {
+
+    private final SymbolPositionIndex index = new SymbolPositionIndex();
+
+    @Test
+    void putReplacesExistingPosition() {
+        UUID portfolioId = UUID.randomUUID();
+        index.put(portfolioId, "NVDA", new BigDecimal("10"), new BigDecimal("100.00"));
+        index.put(portfolioId, "NVDA", new BigDecimal("15"), new BigDecimal("110.00"));
+
+        SymbolPositionIndex.Positions positions = index.get("NVDA");
+        assertThat(positions.size()).isEqualTo(1);
+        assertThat(positions.portfolioId(0)).isEqualTo(portfolioId);
+        assertThat(positions.quantity(0)).isEqualTo(15d);
+        assertThat(positions.avgPrice(0)).isEqualTo(110d);
+    }
+
+    @Test
+    void removeCompactsAndDropsEmptySymbols() {
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        UUID third = UUID.randomUUID();
+        index.put(first, "NVDA", BigDecimal.ONE, BigDecimal.ONE);
+        index.put(second, "NVDA", new BigDecimal("2"), BigDecimal.ONE);
+        index.put(third, "NVDA", BigDecimal.TEN, BigDecimal.ONE);
+
+        index.remove(first, "NVDA");
+        SymbolPositionIndex.Positions positions = index.get("NVDA");
+        assertThat(positions.size()).isEqualTo(2);
+        assertThat(List.of(positions.portfolioId(0), positions.portfolioId(1))).containsExactlyInAnyOrder(second, third);
+
+        index.remove(second, "NVDA");
+        index.remove(third, "NVDA");
+        assertThat(index.get("NVDA")).isNull();
+        assertThat(index.getSymbolCount()).isZero();
+    }
+
+    @Test
+    void rebuildGroupsHoldingsBySymbol() {
+        List<Holding> holdings = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            holdings.add(Holding.builder()
+                    .portfolioId(UUID.randomUUID())
+                    .symbol(i % 2 == 0 ? "AAPL" : "MSFT")
+                    .quantity(BigDecimal.valueOf(i))
+                    .avgPriceInBaseCurrency(BigDecimal.TEN)
+                    .build());
+        }
+
+        index.rebuild(holdings);
+
+        assertThat(index.get("AAPL").size()).isEqualTo(5);
+        assertThat(index.get("MSFT").size()).isEqualTo(5);
+    }
+}
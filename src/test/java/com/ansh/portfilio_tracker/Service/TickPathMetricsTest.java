@@ -0,0 +1,80 @@
+package com.ansh.portfilio_tracker.Service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.prometheusmetrics.PrometheusConfig;
+import io.micrometer.prometheusmetrics.PrometheusMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TickPathMetricsTest {
+
+    private static final String FRAME = "{\"type\":\"trade\",\"data\":["
+            + "{\"s\":\"AAPL\",\"p\":190.5,\"t\":1717423200000,\"v\":10},"
+            + "{\"s\":\"MSFT\",\"p\":410.25,\"t\":1717423200001,\"v\":3}]}";
+
+    private final PrometheusMeterRegistry registry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+
+    @Test
+    void tradeFramesAreCountedAndTimed() {
+        FinnhubWebSocketClient client = new FinnhubWebSocketClient("test", true, registry);
+        AtomicInteger delivered = new AtomicInteger();
+        client.registerTradeHandler("test", (trades, count) -> delivered.addAndGet(count));
+
+        client.onMessage(FRAME);
+        client.onMessage(FRAME);
+        client.onMessage("{\"type\":\"trade\",\"data\":[");
+
+        assertThat(delivered).hasValue(4);
+        assertThat(registry.get("finnhub.ws.ticks").tag("shard", "0").counter().count()).isEqualTo(4);
+        assertThat(registry.get("finnhub.ws.parse").tag("parser", "streaming").timer().count()).isEqualTo(2);
+        assertThat(registry.get("finnhub.ws.parse.errors").counter().count()).isEqualTo(1);
+        assertThat(registry.scrape())
+                .contains("finnhub_ws_ticks_total{shard=\"0\"}")
+                .contains("finnhub_ws_parse_seconds_bucket{");
+    }
+
+    @Test
+    void eachShardConnectionHasItsOwnMeters() {
+        FinnhubWebSocketClient first = new FinnhubWebSocketClient("ws://localhost", "test", true, 0, registry);
+        FinnhubWebSocketClient second = new FinnhubWebSocketClient("ws://localhost", "test", true, 1, registry);
+        first.registerTradeHandler("test", (trades, count) -> { });
+        second.registerTradeHandler("test", (trades, count) -> { });
+
+        first.onMessage(FRAME);
+        second.onMessage(FRAME);
+        second.onMessage(FRAME);
+
+        assertThat(registry.get("finnhub.ws.ticks").tag("shard", "0").counter().count()).isEqualTo(2);
+        assertThat(registry.get("finnhub.ws.ticks").tag("shard", "1").counter().count()).isEqualTo(4);
+        assertThat(registry.get("finnhub.ws.parse").tag("shard", "1").tag("parser", "streaming").timer().count())
+                .isEqualTo(2);
+    }
+
+    @Test
+    void recordingOnTheTickPathDoesNotAllocate() {
+        new FinnhubWebSocketClient("test", true, registry);
+        Timer parse = registry.get("finnhub.ws.parse").tag("parser", "streaming").timer();
+        Counter ticks = registry.get("finnhub.ws.ticks").counter();
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+        for (int i = 0; i < 200_000; i++) {
+            parse.record(i % 50_000, TimeUnit.NANOSECONDS);
+            ticks.increment(2);
+        }
+        long before = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < 1_000_000; i++) {
+            parse.record(i % 50_000, TimeUnit.NANOSECONDS);
+            ticks.increment(2);
+        }
+        long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+
+        // A million recordings; allow for the odd histogram rotation, not a byte per call
+        assertThat(allocated).isLessThan(64 * 1024);
+    }
+}
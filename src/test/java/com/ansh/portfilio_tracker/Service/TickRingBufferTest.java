@@ -0,0 +1,98 @@
+package com.ansh.portfilio_tracker.Service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+class TickRingBufferTest {
+
+    private final TickRingBuffer ring = new TickRingBuffer(16, 4, TimeUnit.MICROSECONDS.toNanos(100));
+
+    @AfterEach
+    void shutdown() {
+        ring.shutdown();
+    }
+
+    @Test
+    void blockingConsumerSeesEveryTickInOrder() {
+        List<Long> seen = new CopyOnWriteArrayList<>();
+        ring.addConsumer("block", TickRingBuffer.OverflowPolicy.BLOCK,
+                (symbol, price, timestamp, volume, shard, endOfBatch) -> seen.add(timestamp));
+
+        for (long i = 0; i < 1_000; i++) {
+            ring.publish("AAPL", 1d, i, 1d, 0);
+        }
+
+        await().atMost(5, TimeUnit.SECONDS).until(() -> seen.size() == 1_000);
+        for (int i = 0; i < seen.size(); i++) {
+            assertThat(seen.get(i)).isEqualTo(i);
+        }
+    }
+
+    @Test
+    void slowDropOldestConsumerDoesNotHoldBackProducer() {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicLong last = new AtomicLong(-1);
+        ring.addConsumer("slow", TickRingBuffer.OverflowPolicy.DROP_OLDEST,
+                (symbol, price, timestamp, volume, shard, endOfBatch) -> {
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    last.set(timestamp);
+                });
+
+        ring.publish("AAPL", 1d, 0, 1d, 0);
+        for (long i = 1; i < 1_000; i++) {
+            ring.publish("AAPL", 1d, i, 1d, 0);
+        }
+        release.countDown();
+
+        await().atMost(5, TimeUnit.SECONDS).until(() -> last.get() == 999);
+        TickRingBuffer.ConsumerStats stats = ring.getStats().getConsumers().get(0);
+        assertThat(stats.getDropped()).isPositive();
+        assertThat(stats.getDepth()).isZero();
+    }
+
+    @Test
+    void conflatingConsumerOnlyDeliversLatestTickPerSymbol() throws Exception {
+        CountDownLatch held = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> seen = new CopyOnWriteArrayList<>();
+        ring.addConsumer("conflate", TickRingBuffer.OverflowPolicy.CONFLATE,
+                (symbol, price, timestamp, volume, shard, endOfBatch) -> {
+                    if (symbol.equals("HOLD")) {
+                        held.countDown();
+                        try {
+                            release.await();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }
+                    seen.add(symbol + ":" + timestamp);
+                });
+
+        // Keep the consumer busy so the next four ticks are drained as one batch
+        ring.publish("HOLD", 1d, 0, 1d, 0);
+        assertThat(held.await(5, TimeUnit.SECONDS)).isTrue();
+        ring.publish("AAPL", 1d, 1, 1d, 0);
+        ring.publish(new String("MSFT"), 1d, 2, 1d, 0);
+        ring.publish("MSFT", 1d, 3, 1d, 0);
+        ring.publish("AAPL", 1d, 4, 1d, 0);
+        release.countDown();
+
+        // Latest tick per symbol, in the order each symbol first appeared in the batch
+        await().atMost(5, TimeUnit.SECONDS).until(() -> seen.size() == 3);
+        assertThat(seen).containsExactly("HOLD:0", "AAPL:4", "MSFT:3");
+        assertThat(ring.getStats().getConsumers().get(0).getConflated()).isEqualTo(2);
+    }
+}
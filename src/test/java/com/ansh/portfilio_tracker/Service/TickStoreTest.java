@@ -0,0 +1,138 @@
+package com.ansh.portfilio_tracker.Service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TickStoreTest {
+
+    private static final long DAY = TimeUnit.DAYS.toMillis(1);
+    private static final long MONDAY = LocalDate.of(2024, 6, 3).atStartOfDay().toInstant(ZoneOffset.UTC).toEpochMilli();
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void rangeQuerySpansRolledAndDailySegments() {
+        TickStore store = new TickStore(true, directory, 4, 0);
+        for (int i = 0; i < 10; i++) {
+            store.append("AAPL", 100 + i, MONDAY + i * 1000L, i);
+        }
+        store.append("AAPL", 200, MONDAY + DAY + 500, 1);
+
+        // Ten ticks with capacity 4 roll into three parts on Monday, plus one Tuesday segment
+        assertThat(directory.resolve("AAPL")).isDirectoryContaining("glob:**/2024-06-03-002.ticks")
+                .isDirectoryContaining("glob:**/2024-06-04-000.ticks");
+
+        assertThat(timestamps(store.query("aapl", MONDAY + 2000, MONDAY + 7000)))
+                .containsExactly(MONDAY + 2000, MONDAY + 3000, MONDAY + 4000, MONDAY + 5000, MONDAY + 6000,
+                        MONDAY + 7000);
+        assertThat(timestamps(store.query("AAPL", MONDAY + 8500, MONDAY + DAY + 500)))
+                .containsExactly(MONDAY + 9000, MONDAY + DAY + 500);
+        assertThat(store.query("AAPL", MONDAY + 9500, MONDAY + DAY).isEmpty()).isTrue();
+        assertThat(store.query("MSFT", MONDAY, MONDAY + DAY).isEmpty()).isTrue();
+        assertThatThrownBy(() -> store.query("../etc", MONDAY, MONDAY + DAY))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void outOfOrderTicksAreFilteredAndLimitApplies() {
+        TickStore store = new TickStore(true, directory, 16, 0);
+        store.append("BINANCE:BTCUSDT", 1, MONDAY + 3000, 1);
+        store.append("BINANCE:BTCUSDT", 2, MONDAY + 1000, 1);
+        store.append("BINANCE:BTCUSDT", 3, MONDAY + 2000, 1);
+
+        assertThat(Files.isDirectory(directory.resolve("BINANCE~BTCUSDT"))).isTrue();
+        TickStore.TickRange range = store.query("BINANCE:BTCUSDT", MONDAY + 1500, MONDAY + 3000);
+        assertThat(timestamps(range)).containsExactly(MONDAY + 3000, MONDAY + 2000);
+        assertThat(range.forEach(1, (timestamp, price, volume) -> { })).isEqualTo(1);
+    }
+
+    @Test
+    void reopenedStoreKeepsTicksAndAppendsToTheSameSegment() {
+        TickStore first = new TickStore(true, directory, 8, 0);
+        first.append("AAPL", 101.5, MONDAY + 1, 10);
+        first.append("AAPL", 102.5, MONDAY + 2, 20);
+        first.stop();
+
+        TickStore second = new TickStore(true, directory, 8, 0);
+        second.append("AAPL", 103.5, MONDAY + 3, 30);
+
+        List<double[]> ticks = new ArrayList<>();
+        second.query("AAPL", MONDAY, MONDAY + 10)
+                .forEach(100, (timestamp, price, volume) -> ticks.add(new double[]{timestamp - MONDAY, price, volume}));
+        assertThat(ticks).containsExactly(new double[]{1, 101.5, 10}, new double[]{2, 102.5, 20},
+                new double[]{3, 103.5, 30});
+        assertThat(directory.resolve("AAPL")).isDirectoryNotContaining("glob:**/2024-06-03-001.ticks");
+    }
+
+    @Test
+    void retentionDeletesOldDays() {
+        TickStore store = new TickStore(true, directory, 8, 2);
+        for (int day = 0; day < 5; day++) {
+            store.append("AAPL", 100, MONDAY + day * DAY, 1);
+        }
+
+        // Friday with two days kept: Monday and Tuesday go
+        assertThat(store.applyRetention(LocalDate.of(2024, 6, 7))).isEqualTo(2);
+        assertThat(timestamps(store.query("AAPL", MONDAY, MONDAY + 5 * DAY)))
+                .containsExactly(MONDAY + 2 * DAY, MONDAY + 3 * DAY, MONDAY + 4 * DAY);
+        assertThat(store.getStats().getSegmentsDeleted()).isEqualTo(2);
+    }
+
+    @Test
+    void readersSeeOnlyCompleteTicksWhileWriting() throws Exception {
+        TickStore store = new TickStore(true, directory, 1 << 16, 0);
+        int total = 200_000;
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicReference<String> failure = new AtomicReference<>();
+
+        Thread reader = new Thread(() -> {
+            long lastSeen = 0;
+            while (!done.get() && failure.get() == null) {
+                long[] seen = {0};
+                store.query("AAPL", MONDAY, MONDAY + DAY).forEach(Integer.MAX_VALUE, (timestamp, price, volume) -> {
+                    // Every published tick is fully written: price and volume derive from the timestamp
+                    if (price != timestamp - MONDAY || volume != (timestamp - MONDAY) * 2) {
+                        failure.compareAndSet(null, "torn tick at " + timestamp);
+                    }
+                    seen[0]++;
+                });
+                if (seen[0] < lastSeen) {
+                    failure.compareAndSet(null, "count went backwards");
+                }
+                lastSeen = seen[0];
+            }
+        });
+        reader.start();
+
+        for (int i = 0; i < total; i++) {
+            store.append("AAPL", i, MONDAY + i, i * 2);
+        }
+        done.set(true);
+        reader.join(TimeUnit.SECONDS.toMillis(30));
+
+        assertThat(failure.get()).isNull();
+        assertThat(store.query("AAPL", MONDAY, MONDAY + DAY).forEach(Integer.MAX_VALUE, (t, p, v) -> { }))
+                .isEqualTo(total);
+        assertThat(store.getStats().getTicksWritten()).isEqualTo(total);
+    }
+
+    private static List<Long> timestamps(TickStore.TickRange range) {
+        List<Long> timestamps = new ArrayList<>();
+        range.forEach(Integer.MAX_VALUE, (timestamp, price, volume) -> timestamps.add(timestamp));
+        return timestamps;
+    }
+}
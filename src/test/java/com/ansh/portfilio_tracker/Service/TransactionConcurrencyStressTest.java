@@ -0,0 +1,197 @@
+package com.ansh.portfilio_tracker.Service;
+
+import com.ansh.portfilio_tracker.Classes.Holding;
+import com.ansh.portfilio_tracker.Classes.Portfolio;
+import com.ansh.portfilio_tracker.Classes.Transaction;
+import com.ansh.portfilio_tracker.Repo.HoldingRepository;
+import com.ansh.portfilio_tracker.Repo.PortfolioRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Many threads trading one portfolio at once, with commits on real (H2) transactions.
+ * Checks that a contended position is never oversold, that realized profit adds up across
+ * concurrent sells, and that trades on separate positions all complete.
+ */
+@DataJpaTest(showSql = false, properties = {
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"
+})
+@Import({TransactionServiceImpl.class, PositionLocks.class, PositionLedger.class, SimpleMeterRegistry.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class TransactionConcurrencyStressTest {
+
+    private static final int THREADS = 8;
+    private static final BigDecimal START_QUANTITY = new BigDecimal("1000");
+
+    @Autowired
+    private TransactionServiceImpl transactionService;
+
+    @Autowired
+    private PortfolioRepository portfolioRepository;
+
+    @Autowired
+    private HoldingRepository holdingRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockitoBean
+    private HoldingService holdingService;
+
+    @MockitoBean
+    private PortfolioValuationEngine valuationEngine;
+
+    private UUID portfolioId;
+
+    @BeforeEach
+    void createPortfolio() {
+        portfolioId = UUID.randomUUID();
+        portfolioRepository.save(Portfolio.builder()
+                .id(portfolioId)
+                .name("Stress")
+                .baseCurrency("USD")
+                .realizedProfitInBaseCurrency(BigDecimal.ZERO)
+                .build());
+        List<Holding> holdings = new ArrayList<>();
+        holdings.add(holding("HOT"));
+        for (int t = 0; t < THREADS; t++) {
+            holdings.add(holding("S" + t));
+        }
+        holdingRepository.saveAll(holdings);
+    }
+
+    @Test
+    void contendedPositionIsNeverOversold() throws Exception {
+        AtomicInteger filled = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+
+        // 8 threads x 50 sells of 30 shares = 12000 requested against 1000 held
+        run(thread -> {
+            for (int i = 0; i < 50; i++) {
+                try {
+                    transactionService.executeTransaction(trade("HOT", "SELL", "30", "110"));
+                    filled.incrementAndGet();
+                } catch (IllegalStateException e) {
+                    rejected.incrementAndGet();
+                }
+            }
+        });
+
+        assertThat(filled.get()).isEqualTo(33);
+        assertThat(rejected.get()).isEqualTo(THREADS * 50 - 33);
+        assertThat(quantity("HOT")).isEqualByComparingTo("10");
+        // 33 sells x 30 shares x (110 - 100)
+        assertThat(realizedProfit()).isEqualByComparingTo("9900");
+        assertThat(transactionCount()).isEqualTo(33);
+    }
+
+    @Test
+    void separatePositionsTradeInParallel() throws Exception {
+        int tradesPerThread = 200;
+
+        run(thread -> {
+            String symbol = "S" + thread;
+            for (int i = 0; i < tradesPerThread; i++) {
+                boolean buy = i % 2 == 0;
+                transactionService.executeTransaction(trade(symbol, buy ? "BUY" : "SELL",
+                        buy ? "10" : "5", buy ? "100" : "120"));
+            }
+        });
+
+        for (int t = 0; t < THREADS; t++) {
+            // 100 buys of 10 and 100 sells of 5
+            assertThat(quantity("S" + t)).isEqualByComparingTo("1500");
+        }
+        assertThat(transactionCount()).isEqualTo(THREADS * tradesPerThread);
+        // The portfolio total equals the sum of every sell's realized profit: no increment was lost
+        BigDecimal sumOfSells = jdbcTemplate.queryForObject(
+                "SELECT COALESCE(SUM(realized_profit), 0) FROM transactions WHERE portfolio_id = ?",
+                BigDecimal.class, portfolioId);
+        assertThat(realizedProfit()).isEqualByComparingTo(sumOfSells);
+        assertThat(realizedProfit().signum()).isPositive();
+    }
+
+    private void run(ThreadBody body) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                int thread = t;
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    body.run(thread);
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(2, TimeUnit.MINUTES);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private Transaction trade(String symbol, String type, String quantity, String price) {
+        return Transaction.builder()
+                .portfolioId(portfolioId)
+                .instrumentSymbol(symbol)
+                .type(type)
+                .quantity(new BigDecimal(quantity))
+                .pricePerUnit(new BigDecimal(price))
+                .build();
+    }
+
+    private Holding holding(String symbol) {
+        return Holding.builder()
+                .portfolioId(portfolioId)
+                .symbol(symbol)
+                .name(symbol)
+                .quantity(START_QUANTITY)
+                .avgPriceInBaseCurrency(new BigDecimal("100.00"))
+                .build();
+    }
+
+    private BigDecimal quantity(String symbol) {
+        return jdbcTemplate.queryForObject("SELECT quantity FROM holdings WHERE portfolio_id = ? AND symbol = ?",
+                BigDecimal.class, portfolioId, symbol);
+    }
+
+    private BigDecimal realizedProfit() {
+        return jdbcTemplate.queryForObject("SELECT realized_profit_in_base_currency FROM portfolios WHERE id = ?",
+                BigDecimal.class, portfolioId);
+    }
+
+    private int transactionCount() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM transactions WHERE portfolio_id = ?",
+                Integer.class, portfolioId);
+    }
+
+    @FunctionalInterface
+    private interface ThreadBody {
+        void run(int thread) throws Exception;
+    }
+}
@@ -0,0 +1,115 @@
+package com.ansh.portfilio_tracker.Service;
+
+import com.ansh.portfilio_tracker.Classes.Transaction;
+import com.ansh.portfilio_tracker.Classes.TransactionPage;
+import com.ansh.portfilio_tracker.Repo.TransactionRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest(properties = {
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"
+})
+@Import({TransactionServiceImpl.class, PositionLocks.class, PositionLedger.class, SimpleMeterRegistry.class})
+class TransactionHistoryPagingTest {
+
+    private static final int TRANSACTIONS = 53;
+
+    @Autowired
+    private TransactionServiceImpl transactionService;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @MockitoBean
+    private HoldingService holdingService;
+
+    @MockitoBean
+    private PortfolioValuationEngine valuationEngine;
+
+    private UUID portfolioId;
+
+    @BeforeEach
+    void createHistory() {
+        portfolioId = UUID.randomUUID();
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 9, 30);
+        List<Transaction> transactions = new ArrayList<>();
+        for (int i = 0; i < TRANSACTIONS; i++) {
+            transactions.add(Transaction.builder()
+                    .id(UUID.randomUUID())
+                    .portfolioId(portfolioId)
+                    .instrumentSymbol(i % 2 == 0 ? "AAPL" : "MSFT")
+                    .type("BUY")
+                    .quantity(BigDecimal.ONE)
+                    .pricePerUnit(new BigDecimal("100.00"))
+                    .txnCurrency("USD")
+                    // Groups of three share a timestamp, so pages split inside ties
+                    .transactionDate(start.plusMinutes(i / 3))
+                    .build());
+        }
+        transactionRepository.saveAll(transactions);
+        transactionRepository.flush();
+    }
+
+    @Test
+    void pagesCoverHistoryOnceNewestFirst() {
+        List<Transaction> seen = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            TransactionPage page = transactionService.getTransactionPage(portfolioId, null, cursor, 10);
+            seen.addAll(page.getItems());
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertThat(pages).isEqualTo(6);
+        assertThat(seen).hasSize(TRANSACTIONS);
+        Set<UUID> ids = new HashSet<>();
+        seen.forEach(t -> ids.add(t.getId()));
+        assertThat(ids).hasSize(TRANSACTIONS);
+        assertThat(seen).isSortedAccordingTo((a, b) -> b.getTransactionDate().compareTo(a.getTransactionDate()));
+    }
+
+    @Test
+    void symbolFilterAndStreamAgreeWithPages() {
+        TransactionPage first = transactionService.getTransactionPage(portfolioId, "AAPL", null, 20);
+        TransactionPage second = transactionService.getTransactionPage(portfolioId, "AAPL", first.getNextCursor(), 20);
+        assertThat(second.getNextCursor()).isNull();
+
+        List<Transaction> streamed = new ArrayList<>();
+        long count = transactionService.streamTransactions(portfolioId, "AAPL", streamed::add);
+
+        assertThat(count).isEqualTo(27);
+        assertThat(streamed).extracting(Transaction::getId).containsExactlyElementsOf(
+                concat(first.getItems(), second.getItems()).stream().map(Transaction::getId).toList());
+    }
+
+    @Test
+    void malformedCursorIsRejected() {
+        assertThatThrownBy(() -> transactionService.getTransactionPage(portfolioId, null, "not-a-cursor", 10))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static List<Transaction> concat(List<Transaction> a, List<Transaction> b) {
+        List<Transaction> all = new ArrayList<>(a);
+        all.addAll(b);
+        return all;
+    }
+}
@@ -0,0 +1,193 @@
+package com.ansh.portfilio_tracker.Service;
+
+import com.ansh.portfilio_tracker.Classes.Holding;
+import com.ansh.portfilio_tracker.Classes.ImportResult;
+import com.ansh.portfilio_tracker.Classes.Portfolio;
+import com.ansh.portfilio_tracker.Repo.HoldingRepository;
+import com.ansh.portfilio_tracker.Repo.PortfolioRepository;
+import com.ansh.portfilio_tracker.Repo.TransactionRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.verify;
+
+@DataJpaTest(properties = {
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "transactions.import.batch-size=2"
+})
+@Import({TransactionImportService.class, PositionLocks.class, TransactionImportServiceTest.JsonConfig.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class TransactionImportServiceTest {
+
+    @Autowired
+    private TransactionImportService importService;
+
+    @Autowired
+    private PositionLocks positionLocks;
+
+    @Autowired
+    private PortfolioRepository portfolioRepository;
+
+    @Autowired
+    private HoldingRepository holdingRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @MockitoBean
+    private HoldingService holdingService;
+
+    @MockitoBean
+    private PortfolioValuationEngine valuationEngine;
+
+    private UUID portfolioId;
+
+    @TestConfiguration
+    static class JsonConfig {
+        @Bean
+        ObjectMapper objectMapper() {
+            return new ObjectMapper();
+        }
+    }
+
+    @BeforeEach
+    void createPortfolio() {
+        portfolioId = UUID.randomUUID();
+        portfolioRepository.save(Portfolio.builder()
+                .id(portfolioId)
+                .name("Import")
+                .baseCurrency("USD")
+                .realizedProfitInBaseCurrency(BigDecimal.ZERO)
+                .build());
+    }
+
+    @Test
+    void csvRowsAreFoldedIntoFinalHoldings() {
+        String csv = """
+                symbol,type,quantity,price,date
+                aapl,BUY,10,100,2024-01-02
+                AAPL,BUY,10,110,2024-01-03
+                MSFT,BUY,5,300,2024-01-04
+                AAPL,SELL,5,120,2024-01-05
+                MSFT,SELL,5,310,2024-01-06
+                TSLA,SELL,1,200,2024-01-07
+                NFLX,HOLD,1,200,2024-01-08
+                """;
+
+        ImportResult result = importService.importTransactions(portfolioId,
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), TransactionImportService.Format.CSV);
+
+        assertThat(result.getRowsRead()).isEqualTo(7);
+        assertThat(result.getRowsImported()).isEqualTo(5);
+        assertThat(result.getRowsRejected()).isEqualTo(2);
+        assertThat(result.getErrors()).hasSize(2);
+        // AAPL: 5 * (120 - 105) + MSFT: 5 * (310 - 300)
+        assertThat(result.getRealizedProfitInBase()).isEqualByComparingTo("125");
+
+        Map<String, Holding> holdings = holdingRepository.findByPortfolioId(portfolioId).stream()
+                .collect(Collectors.toMap(Holding::getSymbol, h -> h));
+        assertThat(holdings).containsOnlyKeys("AAPL");
+        assertThat(holdings.get("AAPL").getQuantity()).isEqualByComparingTo("15");
+        assertThat(holdings.get("AAPL").getAvgPriceInBaseCurrency()).isEqualByComparingTo("105.00");
+        assertThat(portfolioRepository.findById(portfolioId).orElseThrow().getRealizedProfitInBaseCurrency())
+                .isEqualByComparingTo("125");
+        assertThat(transactionRepository.findByPortfolioIdOrderByTransactionDateDesc(portfolioId)).hasSize(5);
+        verify(holdingService).refreshMarketPrices(anyList());
+    }
+
+    @Test
+    void quotedCsvFieldsMayContainCommasAndQuotes() {
+        String csv = """
+                note,"symbol",type,quantity,price
+                "Rebalance, Q1",AAPL,BUY,10,100
+                "The ""core"" position, topped up",AAPL,BUY,10,110
+                "unterminated,MSFT,BUY,5,300
+                """;
+
+        ImportResult result = importService.importTransactions(portfolioId,
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), TransactionImportService.Format.CSV);
+
+        assertThat(result.getRowsImported()).isEqualTo(2);
+        assertThat(result.getErrors()).containsExactly("Row 3: Unterminated quoted field");
+        Holding aapl = holdingRepository.findByPortfolioIdAndSymbol(portfolioId, "AAPL").orElseThrow();
+        assertThat(aapl.getQuantity()).isEqualByComparingTo("20");
+        assertThat(aapl.getAvgPriceInBaseCurrency()).isEqualByComparingTo("105.00");
+        assertThat(TransactionImportService.splitCsv("a, \"b,\"\"c\"\"\",,d"))
+                .containsExactly("a", "b,\"c\"", "", "d");
+    }
+
+    @Test
+    void ndjsonRowsExtendExistingHolding() {
+        holdingRepository.save(Holding.builder()
+                .portfolioId(portfolioId)
+                .symbol("AAPL")
+                .name("Apple Inc.")
+                .quantity(BigDecimal.TEN)
+                .avgPriceInBaseCurrency(new BigDecimal("100.00"))
+                .build());
+        String ndjson = """
+                {"instrumentSymbol":"AAPL","type":"BUY","quantity":30,"pricePerUnit":200}
+                {"instrumentSymbol":"AAPL","type":"SELL","quantity":40,"pricePerUnit":180}
+                """;
+
+        ImportResult result = importService.importTransactions(portfolioId,
+                new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)), TransactionImportService.Format.NDJSON);
+
+        assertThat(result.getRowsImported()).isEqualTo(2);
+        assertThat(result.getHoldingsDeleted()).isEqualTo(1);
+        // avg (10 * 100 + 30 * 200) / 40 = 175, realized 40 * (180 - 175)
+        assertThat(result.getRealizedProfitInBase()).isEqualByComparingTo("200");
+        assertThat(holdingRepository.findByPortfolioId(portfolioId)).isEmpty();
+        assertThat(transactionRepository.findByPortfolioIdOrderByTransactionDateDesc(portfolioId)).hasSize(2);
+    }
+
+    @Test
+    void importWaitsForTradeHoldingAPositionLock() throws Exception {
+        CountDownLatch locked = new CountDownLatch(1);
+        AtomicBoolean tradeDone = new AtomicBoolean();
+        Thread trade = Thread.ofPlatform().start(() -> positionLocks.withLock(portfolioId, "AAPL", () -> {
+            locked.countDown();
+            try {
+                Thread.sleep(300);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            tradeDone.set(true);
+            return null;
+        }));
+        assertThat(locked.await(5, TimeUnit.SECONDS)).isTrue();
+
+        String csv = """
+                symbol,type,quantity,price
+                AAPL,BUY,1,100
+                """;
+        importService.importTransactions(portfolioId,
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), TransactionImportService.Format.CSV);
+
+        // The import only starts once the trade has released its position
+        assertThat(tradeDone).isTrue();
+        trade.join();
+    }
+}
@@ -0,0 +1,219 @@
+package com.ansh.portfilio_tracker.Service;
+
+import com.ansh.portfilio_tracker.Config.RestTemplateConfig;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.data.jpa.JpaRepositoriesAutoConfiguration;
+import org.springframework.boot.autoconfigure.flyway.FlywayAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.web.servlet.function.RouterFunction;
+import org.springframework.web.servlet.function.RouterFunctions;
+import org.springframework.web.servlet.function.ServerResponse;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Burst of portfolio-style page loads (each blocking on a fan-out of Finnhub quotes) mixed with cheap
+ * requests, against the same app with platform and with virtual threads. Finnhub is stubbed with a
+ * fixed delay. Excluded from the default build; run with {@code mvn test -Dsurefire.excludedGroups= -Dgroups=load}.
+ */
+@Tag("load")
+class VirtualThreadLoadTest {
+
+    private static final int UPSTREAM_DELAY_MS = 200;
+    private static final int TOMCAT_THREADS = 20;
+    private static final int PAGE_LOADS = 100;
+    private static final int SYMBOLS_PER_PAGE = 3;
+    private static final int FAST_REQUESTS = 50;
+
+    private static HttpServer upstream;
+    private static int pageCounter;
+
+    @BeforeAll
+    static void startUpstream() throws IOException {
+        upstream = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 1024);
+        upstream.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        upstream.createContext("/quote", exchange -> {
+            try {
+                Thread.sleep(UPSTREAM_DELAY_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            byte[] body = "{\"c\":101.5,\"d\":1,\"dp\":1,\"h\":102,\"l\":100,\"o\":100,\"pc\":100.5,\"t\":1717423200}"
+                    .getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        upstream.start();
+    }
+
+    @AfterAll
+    static void stopUpstream() {
+        upstream.stop(0);
+    }
+
+    @Test
+    void platformVersusVirtualThreads() throws Exception {
+        Result platform = run(false);
+        Result virtual = run(true);
+
+        System.out.printf("%-9s %12s %12s %12s %12s %10s%n",
+                "mode", "page p50 ms", "page p99 ms", "fast p50 ms", "fast p99 ms", "pages/s");
+        for (Result result : List.of(platform, virtual)) {
+            System.out.printf("%-9s %12.1f %12.1f %12.1f %12.1f %10.0f%n", result.mode,
+                    result.pageP50, result.pageP99, result.fastP50, result.fastP99, result.pagesPerSecond);
+        }
+
+        assertThat(platform.failures).isZero();
+        assertThat(virtual.failures).isZero();
+    }
+
+    private Result run(boolean virtualThreads) throws Exception {
+        // Passed as arguments so they override application.properties
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(LoadApp.class).run(
+                "--server.port=0",
+                "--spring.threads.virtual.enabled=" + virtualThreads,
+                "--server.tomcat.threads.max=" + TOMCAT_THREADS,
+                "--server.tomcat.threads.min-spare=" + TOMCAT_THREADS,
+                "--finnhub.api.base-url=http://127.0.0.1:" + upstream.getAddress().getPort(),
+                "--finnhub.use-realtime-cache=false",
+                "--finnhub.http.max-connections=200",
+                "--finnhub.http.max-connections-per-route=200",
+                "--finnhub.http.pool-acquire-timeout-ms=20000",
+                "--logging.level.com.ansh=WARN")) {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            HttpClient client = HttpClient.newBuilder().executor(Executors.newVirtualThreadPerTaskExecutor()).build();
+
+            // Warm up both endpoints before measuring
+            burst(client, port, PAGE_LOADS, FAST_REQUESTS);
+            return burst(client, port, PAGE_LOADS, FAST_REQUESTS).named(virtualThreads ? "virtual" : "platform");
+        }
+    }
+
+    private Result burst(HttpClient client, int port, int pages, int fast) {
+        List<CompletableFuture<Long>> pageTimes = new ArrayList<>();
+        List<CompletableFuture<Long>> fastTimes = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int i = 0; i < Math.max(pages, fast); i++) {
+            if (i < pages) {
+                // Distinct symbols per page so every load misses the quote cache
+                int page = ++pageCounter;
+                String symbols = String.join(",", IntStream.range(0, SYMBOLS_PER_PAGE)
+                        .mapToObj(k -> "L" + page + "X" + k).toList());
+                pageTimes.add(timed(client, URI.create("http://127.0.0.1:" + port + "/load/page?symbols=" + symbols),
+                        String.valueOf(SYMBOLS_PER_PAGE)));
+            }
+            if (i < fast) {
+                fastTimes.add(timed(client, URI.create("http://127.0.0.1:" + port + "/load/ping"), "ok"));
+            }
+        }
+        long[] pageNanos = pageTimes.stream().mapToLong(CompletableFuture::join).toArray();
+        long elapsed = System.nanoTime() - start;
+        long[] fastNanos = fastTimes.stream().mapToLong(CompletableFuture::join).toArray();
+
+        Result result = new Result();
+        result.failures = Arrays.stream(pageNanos).filter(n -> n < 0).count()
+                + Arrays.stream(fastNanos).filter(n -> n < 0).count();
+        result.pageP50 = percentile(pageNanos, 0.50);
+        result.pageP99 = percentile(pageNanos, 0.99);
+        result.fastP50 = percentile(fastNanos, 0.50);
+        result.fastP99 = percentile(fastNanos, 0.99);
+        result.pagesPerSecond = pages / (elapsed / 1e9);
+        return result;
+    }
+
+    /**
+     * @return request latency in nanoseconds, or -1 if the request failed or answered something else
+     */
+    private static CompletableFuture<Long> timed(HttpClient client, URI uri, String expectedBody) {
+        long start = System.nanoTime();
+        return client.sendAsync(HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(30)).build(),
+                        HttpResponse.BodyHandlers.ofString())
+                .handle((response, error) -> error == null && response.statusCode() == 200
+                        && expectedBody.equals(response.body())
+                        ? System.nanoTime() - start : -1L);
+    }
+
+    private static double percentile(long[] nanos, double p) {
+        long[] sorted = Arrays.stream(nanos).filter(n -> n >= 0).sorted().toArray();
+        if (sorted.length == 0) {
+            return Double.NaN;
+        }
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(p * sorted.length) - 1)] / 1e6;
+    }
+
+    private static class Result {
+        String mode;
+        long failures;
+        double pageP50;
+        double pageP99;
+        double fastP50;
+        double fastP99;
+        double pagesPerSecond;
+
+        Result named(String mode) {
+            this.mode = mode;
+            return this;
+        }
+    }
+
+    /**
+     * Boot source for the load app. Deliberately not a {@code @SpringBootConfiguration} or component, so
+     * neither the slice tests in this package nor the application's component scan pick it up.
+     */
+    @EnableAutoConfiguration(exclude = {DataSourceAutoConfiguration.class, HibernateJpaAutoConfiguration.class,
+            JpaRepositoriesAutoConfiguration.class, FlywayAutoConfiguration.class})
+    @Import({RestTemplateConfig.class, QuoteCache.class, FinnhubClient.class})
+    static class LoadApp {
+        @Bean
+        RealTimeStockService realTimeStockService() {
+            return Mockito.mock(RealTimeStockService.class);
+        }
+
+        /**
+         * {@code /load/page} stands in for a portfolio page: the request thread waits for a quote per holding.
+         */
+        @Bean
+        RouterFunction<ServerResponse> loadRoutes(FinnhubClient finnhubClient) {
+            return RouterFunctions.route()
+                    .GET("/load/page", request -> {
+                        List<String> symbols = List.of(request.param("symbols").orElse("").split(","));
+                        int quotes = finnhubClient.getQuotesAsync(symbols).get(30, TimeUnit.SECONDS).size();
+                        return ServerResponse.ok().body(String.valueOf(quotes));
+                    })
+                    .GET("/load/ping", request -> ServerResponse.ok().body("ok"))
+                    .build();
+        }
+    }
+}